@@ -2,8 +2,11 @@ package datawave.ingest.table.balancer;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.core.master.thrift.TableInfo;
 import org.apache.accumulo.core.master.thrift.TabletServerStatus;
+import org.apache.accumulo.core.tabletserver.thrift.TabletStats;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.master.balancer.GroupBalancer;
 import org.apache.accumulo.server.master.state.TServerInstance;
@@ -11,10 +14,12 @@ import org.apache.accumulo.server.master.state.TabletMigration;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparator;
 import org.apache.log4j.Logger;
+import org.apache.thrift.TException;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,14 +38,44 @@ import java.util.TreeMap;
  * Therefore, a legal balance could have successive days on the same tablet servers. For example, if a day were partitioned into 100 pieces and the cluster had
  * 500 tablet servers, a legal balance of 20 days of data could have days 1-5 all on the first 100 tablet servers, days 6-10 on the second 100 tablet servers,
  * and so on. This is not ideal, since the real goal is to spread data out across the cluster as much as possible.
+ * <p>
+ * Spreading tablets by group ignores how heavy each tablet is, so recent days with high ingest and query rates can still pile up on a few tablet servers.
+ * When {@link #WEIGHTED_ENABLED} is set on the table, each balancer pass that leaves the groups balanced is followed by a load weighted pass. That pass scores
+ * each tablet by its entries, ingest rate and query rate (each as a fraction of the table total, multiplied by a configurable weight), and then swaps hot
+ * tablets off of overloaded tablet servers for cold tablets of the same group on underloaded ones. See {@link WeightedShardSwapPlanner} for the rules that keep
+ * the swaps from undoing the group balance.
+ *
+ * <pre>
+ * config -t shard -s table.custom.sharded.balancer.weighted.enabled=true
+ * config -t shard -s table.custom.sharded.balancer.weighted.query=2.0
+ * config -t shard -s table.custom.sharded.balancer.weighted.max.migrations=50
+ * </pre>
  */
 public class ShardedTableTabletBalancer extends GroupBalancer {
     private static final Logger log = Logger.getLogger(ShardedTableTabletBalancer.class);
+    
+    public static final String WEIGHTED_PREFIX = Property.TABLE_ARBITRARY_PROP_PREFIX.getKey() + "sharded.balancer.weighted.";
+    /** whether to run the load weighted pass, false by default */
+    public static final String WEIGHTED_ENABLED = WEIGHTED_PREFIX + "enabled";
+    /** weight of the fraction of table entries on a tablet, 1.0 by default */
+    public static final String ENTRIES_WEIGHT = WEIGHTED_PREFIX + "entries";
+    /** weight of the fraction of table ingest rate on a tablet, 1.0 by default */
+    public static final String INGEST_WEIGHT = WEIGHTED_PREFIX + "ingest";
+    /** weight of the fraction of table query rate on a tablet, 1.0 by default */
+    public static final String QUERY_WEIGHT = WEIGHTED_PREFIX + "query";
+    /** fraction above the mean load a tablet server may be before tablets are swapped off of it, 0.1 by default */
+    public static final String IMBALANCE_THRESHOLD = WEIGHTED_PREFIX + "threshold";
+    /** maximum number of migrations made by a single load weighted pass, 20 by default */
+    public static final String MAX_WEIGHTED_MIGRATIONS = WEIGHTED_PREFIX + "max.migrations";
+    
+    private final String tableId;
     private Collection<Pair<KeyExtent,Location>> tabletLocationCache;
     private Function<KeyExtent,String> partitioner;
+    private long lastWeightedRun = 0;
     
     public ShardedTableTabletBalancer(String tableId) {
         super(tableId);
+        this.tableId = tableId;
     }
     
     // synchronized to ensure exclusivity between getAssignments and balance calls
@@ -64,7 +99,120 @@ public class ShardedTableTabletBalancer extends GroupBalancer {
         final int numTservers = current.size();
         partitioner = new ShardGroupPartitioner(numTservers, getLocationProvider());
         
-        return super.balance(current, migrations, migrationsOut);
+        int groupMigrations = migrationsOut.size();
+        long waitTime = super.balance(current, migrations, migrationsOut);
+        
+        // Only weigh tablets once the groups are balanced, otherwise the two passes would be moving the same tablets around
+        if (migrationsOut.size() == groupMigrations && Boolean.parseBoolean(getTableProperty(WEIGHTED_ENABLED, "false"))) {
+            balanceWeighted(current, migrations, migrationsOut);
+        }
+        return waitTime;
+    }
+    
+    /**
+     * Swaps tablets of the same group between tablet servers to even out the weighted load of this table. The per tablet statistics are only requested from
+     * the tablet servers when the per table statistics that they already report show an imbalance.
+     */
+    protected void balanceWeighted(SortedMap<TServerInstance,TabletServerStatus> current, Set<KeyExtent> migrations, List<TabletMigration> migrationsOut) {
+        if (!shouldBalance(current, migrations) || System.currentTimeMillis() - lastWeightedRun < getWaitTime()) {
+            return;
+        }
+        lastWeightedRun = System.currentTimeMillis();
+        
+        double entriesWeight = Double.parseDouble(getTableProperty(ENTRIES_WEIGHT, "1.0"));
+        double ingestWeight = Double.parseDouble(getTableProperty(INGEST_WEIGHT, "1.0"));
+        double queryWeight = Double.parseDouble(getTableProperty(QUERY_WEIGHT, "1.0"));
+        double threshold = Double.parseDouble(getTableProperty(IMBALANCE_THRESHOLD, "0.1"));
+        int maxMigrations = Integer.parseInt(getTableProperty(MAX_WEIGHTED_MIGRATIONS, "20"));
+        
+        // Check for an imbalance using the per table statistics in the tablet server status
+        LoadTotals serverTotals = new LoadTotals();
+        for (TabletServerStatus status : current.values()) {
+            TableInfo info = getTableInfo(status);
+            if (info != null) {
+                serverTotals.add(info.recs, info.ingestRate, info.queryRate);
+            }
+        }
+        double maxLoad = 0;
+        double totalLoad = 0;
+        for (TabletServerStatus status : current.values()) {
+            TableInfo info = getTableInfo(status);
+            if (info != null) {
+                double load = serverTotals.weigh(info.recs, info.ingestRate, info.queryRate, entriesWeight, ingestWeight, queryWeight);
+                maxLoad = Math.max(maxLoad, load);
+                totalLoad += load;
+            }
+        }
+        double meanLoad = totalLoad / current.size();
+        if (meanLoad <= 0 || (maxLoad - meanLoad) / meanLoad <= threshold) {
+            return;
+        }
+        
+        // Gather the per tablet statistics from every tablet server
+        Map<KeyExtent,TabletStats> tabletStats = new HashMap<>();
+        LoadTotals tabletTotals = new LoadTotals();
+        for (TServerInstance tserver : current.keySet()) {
+            List<TabletStats> stats = getOnlineTabletStats(tserver);
+            if (stats == null) {
+                log.warn("Unable to retrieve tablet statistics for table " + tableId + " from " + tserver + ", skipping load weighted balancing");
+                return;
+            }
+            for (TabletStats stat : stats) {
+                tabletStats.put(new KeyExtent(stat.extent), stat);
+                tabletTotals.add(stat.numEntries, stat.ingestRate, stat.queryRate);
+            }
+        }
+        
+        WeightedShardSwapPlanner planner = new WeightedShardSwapPlanner(partitioner, new ShardDayPartitioner(), threshold, maxMigrations);
+        for (TServerInstance tserver : current.keySet()) {
+            planner.addServer(tserver);
+        }
+        for (Pair<KeyExtent,Location> pair : getLocationProvider()) {
+            KeyExtent extent = pair.getFirst();
+            TServerInstance tserver = pair.getSecond().getTserverInstance();
+            if (tserver == null || !current.containsKey(tserver) || migrations.contains(extent)) {
+                continue;
+            }
+            TabletStats stat = tabletStats.get(extent);
+            double weight = (stat == null) ? 0 : tabletTotals.weigh(stat.numEntries, stat.ingestRate, stat.queryRate, entriesWeight, ingestWeight, queryWeight);
+            planner.addTablet(extent, tserver, weight);
+        }
+        
+        List<TabletMigration> swaps = planner.plan();
+        if (log.isDebugEnabled()) {
+            log.debug("Load weighted balancing of table " + tableId + " planned " + swaps.size() + " migrations");
+        }
+        migrationsOut.addAll(swaps);
+    }
+    
+    private TableInfo getTableInfo(TabletServerStatus status) {
+        return (status == null || status.getTableMap() == null) ? null : status.getTableMap().get(tableId);
+    }
+    
+    /**
+     * Gets the statistics of the tablets of this table that are online on a tablet server. Test cases and simulations may override this to supply synthetic
+     * statistics.
+     *
+     * @return the statistics, or null if they could not be retrieved
+     */
+    protected List<TabletStats> getOnlineTabletStats(TServerInstance tserver) {
+        try {
+            return getOnlineTabletsForTable(tserver, tableId);
+        } catch (TException e) {
+            log.debug("Failed to retrieve tablet statistics from " + tserver, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Gets a property of the table being balanced. Test cases and simulations may override this to supply a configuration.
+     */
+    protected String getTableProperty(String property, String defaultValue) {
+        String value = null;
+        if (configuration != null) {
+            value = configuration.getTableConfiguration(tableId).get(property);
+        }
+        return (value == null) ? defaultValue : value;
     }
     
     @Override
@@ -96,6 +244,35 @@ public class ShardedTableTabletBalancer extends GroupBalancer {
         return super.getLocationProvider();
     }
     
+    /**
+     * Running totals of the load statistics of a table, used to normalize each statistic into a fraction of the table total.
+     */
+    protected static class LoadTotals {
+        private long entries;
+        private double ingestRate;
+        private double queryRate;
+        
+        public void add(long entries, double ingestRate, double queryRate) {
+            this.entries += entries;
+            this.ingestRate += ingestRate;
+            this.queryRate += queryRate;
+        }
+        
+        public double weigh(long entries, double ingestRate, double queryRate, double entriesWeight, double ingestWeight, double queryWeight) {
+            double weight = 0;
+            if (this.entries > 0) {
+                weight += entriesWeight * entries / this.entries;
+            }
+            if (this.ingestRate > 0) {
+                weight += ingestWeight * ingestRate / this.ingestRate;
+            }
+            if (this.queryRate > 0) {
+                weight += queryWeight * queryRate / this.queryRate;
+            }
+            return weight;
+        }
+    }
+    
     /**
      * Partitions extents into groups according to the "day" portion of the end row. That is, the end row is expected to be in the form yyyymmdd_x, and the
      * partitioner returns yyyymmdd.
@@ -0,0 +1,203 @@
+package datawave.ingest.table.balancer;
+
+import com.google.common.base.Function;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans tablet swaps between tablet servers to even out a weighted load, where the weight of each tablet is derived from its entries, ingest rate and query
+ * rate.
+ * <p>
+ * Tablets are only ever swapped in pairs that belong to the same balancer group, so the number of tablets of each group on each server (and therefore the
+ * balance computed by the {@link org.apache.accumulo.server.master.balancer.GroupBalancer}) is unchanged by the swaps. A swap never moves a tablet onto a
+ * server that already hosts another tablet of the same day.
+ */
+public class WeightedShardSwapPlanner {
+    
+    private final Function<KeyExtent,String> groupPartitioner;
+    private final Function<KeyExtent,String> dayPartitioner;
+    private final double imbalanceThreshold;
+    private final int maxMigrations;
+    
+    private final Map<TServerInstance,ServerLoad> servers = new HashMap<>();
+    private final Map<KeyExtent,Double> weights = new HashMap<>();
+    private final Set<KeyExtent> moved = new HashSet<>();
+    
+    /**
+     * @param groupPartitioner
+     *            the partitioner used by the group balancer, swaps are only made within a group
+     * @param dayPartitioner
+     *            the partitioner that returns the day of an extent
+     * @param imbalanceThreshold
+     *            the fraction above the mean load a server may be before tablets are swapped off of it
+     * @param maxMigrations
+     *            the maximum number of migrations to plan, each swap is two migrations
+     */
+    public WeightedShardSwapPlanner(Function<KeyExtent,String> groupPartitioner, Function<KeyExtent,String> dayPartitioner, double imbalanceThreshold,
+                    int maxMigrations) {
+        this.groupPartitioner = groupPartitioner;
+        this.dayPartitioner = dayPartitioner;
+        this.imbalanceThreshold = imbalanceThreshold;
+        this.maxMigrations = maxMigrations;
+    }
+    
+    /**
+     * Registers a tablet server, which may not host any tablets.
+     */
+    public void addServer(TServerInstance tserver) {
+        servers.computeIfAbsent(tserver, ServerLoad::new);
+    }
+    
+    /**
+     * Registers a tablet, its current location and its weight.
+     */
+    public void addTablet(KeyExtent extent, TServerInstance tserver, double weight) {
+        weights.put(extent, weight);
+        servers.computeIfAbsent(tserver, ServerLoad::new).add(extent, weight);
+    }
+    
+    /**
+     * @return the summed tablet weights per server
+     */
+    public Map<TServerInstance,Double> getLoads() {
+        Map<TServerInstance,Double> loads = new HashMap<>();
+        for (ServerLoad server : servers.values()) {
+            loads.put(server.tserver, server.load);
+        }
+        return loads;
+    }
+    
+    /**
+     * Plan the swaps, applying them to the loads tracked by this planner.
+     *
+     * @return the migrations that make up the planned swaps
+     */
+    public List<TabletMigration> plan() {
+        List<TabletMigration> migrations = new ArrayList<>();
+        while (migrations.size() + 2 <= maxMigrations && swapOnce(migrations)) {
+            // keep swapping until we are balanced, stuck, or out of migrations
+        }
+        return migrations;
+    }
+    
+    private boolean swapOnce(List<TabletMigration> migrations) {
+        if (servers.size() < 2) {
+            return false;
+        }
+        double total = 0;
+        for (ServerLoad server : servers.values()) {
+            total += server.load;
+        }
+        double mean = total / servers.size();
+        if (mean <= 0) {
+            return false;
+        }
+        
+        List<ServerLoad> sorted = new ArrayList<>(servers.values());
+        sorted.sort(Comparator.comparingDouble((ServerLoad s) -> s.load).thenComparing(s -> s.tserver));
+        for (int hot = sorted.size() - 1; hot > 0; hot--) {
+            ServerLoad hotServer = sorted.get(hot);
+            if ((hotServer.load - mean) / mean <= imbalanceThreshold) {
+                break;
+            }
+            for (int cold = 0; cold < hot; cold++) {
+                ServerLoad coldServer = sorted.get(cold);
+                KeyExtent[] swap = findSwap(hotServer, coldServer);
+                if (swap != null) {
+                    applySwap(hotServer, swap[0], coldServer, swap[1]);
+                    migrations.add(new TabletMigration(swap[0], hotServer.tserver, coldServer.tserver));
+                    migrations.add(new TabletMigration(swap[1], coldServer.tserver, hotServer.tserver));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Find the pair of tablets from the same group whose swap brings the loads of the two servers closest together.
+     */
+    private KeyExtent[] findSwap(ServerLoad hotServer, ServerLoad coldServer) {
+        double gap = hotServer.load - coldServer.load;
+        KeyExtent[] best = null;
+        double bestRemainingGap = gap;
+        for (Map.Entry<String,List<KeyExtent>> entry : hotServer.groups.entrySet()) {
+            List<KeyExtent> coldTablets = coldServer.groups.get(entry.getKey());
+            if (coldTablets == null) {
+                continue;
+            }
+            for (KeyExtent hotTablet : entry.getValue()) {
+                if (moved.contains(hotTablet)) {
+                    continue;
+                }
+                for (KeyExtent coldTablet : coldTablets) {
+                    if (moved.contains(coldTablet)) {
+                        continue;
+                    }
+                    double delta = weights.get(hotTablet) - weights.get(coldTablet);
+                    double remainingGap = Math.abs(gap - 2 * delta);
+                    if (delta > 0 && remainingGap < bestRemainingGap && keepsDaysApart(hotServer, hotTablet, coldServer, coldTablet)) {
+                        best = new KeyExtent[] {hotTablet, coldTablet};
+                        bestRemainingGap = remainingGap;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    private boolean keepsDaysApart(ServerLoad hotServer, KeyExtent hotTablet, ServerLoad coldServer, KeyExtent coldTablet) {
+        String hotDay = dayPartitioner.apply(hotTablet);
+        String coldDay = dayPartitioner.apply(coldTablet);
+        return hotDay.equals(coldDay) || (!coldServer.days.containsKey(hotDay) && !hotServer.days.containsKey(coldDay));
+    }
+    
+    private void applySwap(ServerLoad hotServer, KeyExtent hotTablet, ServerLoad coldServer, KeyExtent coldTablet) {
+        double hotWeight = weights.get(hotTablet);
+        double coldWeight = weights.get(coldTablet);
+        hotServer.remove(hotTablet, hotWeight);
+        coldServer.remove(coldTablet, coldWeight);
+        hotServer.add(coldTablet, coldWeight);
+        coldServer.add(hotTablet, hotWeight);
+        moved.add(hotTablet);
+        moved.add(coldTablet);
+    }
+    
+    private class ServerLoad {
+        private final TServerInstance tserver;
+        private final Map<String,List<KeyExtent>> groups = new HashMap<>();
+        private final Map<String,Integer> days = new HashMap<>();
+        private double load;
+        
+        private ServerLoad(TServerInstance tserver) {
+            this.tserver = tserver;
+        }
+        
+        private void add(KeyExtent extent, double weight) {
+            groups.computeIfAbsent(groupPartitioner.apply(extent), k -> new ArrayList<>()).add(extent);
+            days.merge(dayPartitioner.apply(extent), 1, Integer::sum);
+            load += weight;
+        }
+        
+        private void remove(KeyExtent extent, double weight) {
+            String group = groupPartitioner.apply(extent);
+            Collection<KeyExtent> tablets = groups.get(group);
+            tablets.remove(extent);
+            if (tablets.isEmpty()) {
+                groups.remove(group);
+            }
+            days.computeIfPresent(dayPartitioner.apply(extent), (k, count) -> count == 1 ? null : count - 1);
+            load -= weight;
+        }
+    }
+}
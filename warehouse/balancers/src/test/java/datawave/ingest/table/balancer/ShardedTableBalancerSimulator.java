@@ -0,0 +1,280 @@
+package datawave.ingest.table.balancer;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.core.master.thrift.TableInfo;
+import org.apache.accumulo.core.master.thrift.TabletServerStatus;
+import org.apache.accumulo.core.tabletserver.thrift.TabletStats;
+import org.apache.accumulo.core.util.Pair;
+import org.apache.accumulo.server.master.balancer.GroupBalancer.Location;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+import org.apache.hadoop.io.Text;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Replays synthetic cluster states through the {@link ShardedTableTabletBalancer} and scores the resulting imbalance, without a running cluster.
+ * <p>
+ * Each simulated day of shards gets a synthetic load: every shard holds a random number of entries, the most recent days receive all of the ingest, query
+ * rates decay with the age of the day, and a few random shards are made hot. The tablet server statuses and tablet statistics handed to the balancer are
+ * derived from that load and the current tablet locations, and migrations are applied as soon as the balancer returns them.
+ */
+public class ShardedTableBalancerSimulator {
+    private static final DateTimeFormatter SHARD_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final String tableId;
+    private final Random random;
+    private final List<TServerInstance> tservers = new ArrayList<>();
+    private final SortedMap<KeyExtent,TServerInstance> tabletLocs = new TreeMap<>();
+    private final Map<KeyExtent,TabletStats> tabletStats = new HashMap<>();
+    private final Map<String,String> properties = new HashMap<>();
+    private final SimulatedBalancer balancer;
+    private int maxMigrationsPerPass = 0;
+    private int portNumber = 1000;
+    
+    public ShardedTableBalancerSimulator(String tableId, long seed) {
+        this.tableId = tableId;
+        this.random = new Random(seed);
+        this.balancer = new SimulatedBalancer(tableId);
+    }
+    
+    public ShardedTableBalancerSimulator setProperty(String property, String value) {
+        properties.put(property, value);
+        return this;
+    }
+    
+    public ShardedTableBalancerSimulator addTServers(int count) {
+        for (int i = 0; i < count; i++) {
+            tservers.add(new TServerInstance("127.0.0.1:" + portNumber++, 6));
+        }
+        return this;
+    }
+    
+    /**
+     * Adds days of shards and assigns them to the tablet servers with the balancer.
+     *
+     * @param lastDay
+     *            the most recent day
+     * @param days
+     *            the number of days, ending with the last day
+     * @param shardsPerDay
+     *            the number of shards in each day
+     * @param ingestDays
+     *            the number of most recent days that are receiving ingest
+     * @param hotShards
+     *            the number of random shards that receive ten times the usual query rate
+     * @return this simulator
+     */
+    public ShardedTableBalancerSimulator addDays(LocalDate lastDay, int days, int shardsPerDay, int ingestDays, int hotShards) {
+        Text prevEndRow = tabletLocs.isEmpty() ? null : tabletLocs.lastKey().getEndRow();
+        Map<KeyExtent,TServerInstance> unassigned = new HashMap<>();
+        List<KeyExtent> added = new ArrayList<>();
+        for (int day = days - 1; day >= 0; day--) {
+            String date = lastDay.minusDays(day).format(SHARD_DATE);
+            for (int shard = 0; shard < shardsPerDay; shard++) {
+                Text endRow = new Text(date + "_" + shard);
+                KeyExtent extent = new KeyExtent(tableId, endRow, prevEndRow);
+                prevEndRow = endRow;
+                
+                TabletStats stats = new TabletStats();
+                stats.setExtent(extent.toThrift());
+                stats.setNumEntries(1_000_000 + random.nextInt(1_000_000));
+                stats.setIngestRate(day < ingestDays ? 500 + random.nextInt(500) : 0);
+                stats.setQueryRate(100 * Math.pow(0.8, day) * (0.5 + random.nextDouble()));
+                tabletStats.put(extent, stats);
+                
+                unassigned.put(extent, null);
+                added.add(extent);
+            }
+        }
+        for (int i = 0; i < hotShards && !added.isEmpty(); i++) {
+            TabletStats stats = tabletStats.get(added.get(random.nextInt(added.size())));
+            stats.setQueryRate(stats.getQueryRate() * 10);
+        }
+        
+        Map<KeyExtent,TServerInstance> assignments = new HashMap<>();
+        balancer.getAssignments(getCurrent(), unassigned, assignments);
+        tabletLocs.putAll(assignments);
+        return this;
+    }
+    
+    /**
+     * Runs balancer passes, applying the migrations of each pass, until a pass makes no migrations.
+     *
+     * @param maxPasses
+     *            the maximum number of passes to run
+     * @return the number of passes that made migrations
+     */
+    public int balance(int maxPasses) {
+        for (int pass = 0; pass < maxPasses; pass++) {
+            List<TabletMigration> migrationsOut = new ArrayList<>();
+            balancer.balance(getCurrent(), Collections.emptySet(), migrationsOut);
+            if (migrationsOut.isEmpty()) {
+                return pass;
+            }
+            maxMigrationsPerPass = Math.max(maxMigrationsPerPass, migrationsOut.size());
+            for (TabletMigration migration : migrationsOut) {
+                if (!migration.oldServer.equals(tabletLocs.put(migration.tablet, migration.newServer))) {
+                    throw new IllegalStateException("Migration " + migration + " does not start from the current location");
+                }
+            }
+        }
+        return maxPasses;
+    }
+    
+    /**
+     * @return the largest number of migrations made by a single balancer pass so far
+     */
+    public int getMaxMigrationsPerPass() {
+        return maxMigrationsPerPass;
+    }
+    
+    /**
+     * @return the weighted load of each tablet server, using the default weights
+     */
+    public Map<TServerInstance,Double> getLoads() {
+        ShardedTableTabletBalancer.LoadTotals totals = new ShardedTableTabletBalancer.LoadTotals();
+        for (TabletStats stats : tabletStats.values()) {
+            totals.add(stats.getNumEntries(), stats.getIngestRate(), stats.getQueryRate());
+        }
+        Map<TServerInstance,Double> loads = new HashMap<>();
+        for (TServerInstance tserver : tservers) {
+            loads.put(tserver, 0.0);
+        }
+        for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+            TabletStats stats = tabletStats.get(entry.getKey());
+            loads.merge(entry.getValue(), totals.weigh(stats.getNumEntries(), stats.getIngestRate(), stats.getQueryRate(), 1, 1, 1), Double::sum);
+        }
+        return loads;
+    }
+    
+    /**
+     * @return the load of the most loaded tablet server divided by the mean load, 1.0 being perfectly balanced
+     */
+    public double getMaxOverMean() {
+        Map<TServerInstance,Double> loads = getLoads();
+        double max = 0;
+        double total = 0;
+        for (double load : loads.values()) {
+            max = Math.max(max, load);
+            total += load;
+        }
+        return max / (total / loads.size());
+    }
+    
+    /**
+     * @return the standard deviation of the tablet server loads divided by the mean load, 0.0 being perfectly balanced
+     */
+    public double getCoefficientOfVariation() {
+        Map<TServerInstance,Double> loads = getLoads();
+        double total = 0;
+        for (double load : loads.values()) {
+            total += load;
+        }
+        double mean = total / loads.size();
+        double variance = 0;
+        for (double load : loads.values()) {
+            variance += (load - mean) * (load - mean);
+        }
+        return Math.sqrt(variance / loads.size()) / mean;
+    }
+    
+    /**
+     * @return the largest number of tablets of a single day hosted by a single tablet server
+     */
+    public int getMaxShardsPerDayPerServer() {
+        Function<KeyExtent,String> days = new ShardedTableTabletBalancer.ShardDayPartitioner();
+        Map<TServerInstance,Map<String,Integer>> counts = new HashMap<>();
+        int max = 0;
+        for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+            Map<String,Integer> serverCounts = counts.computeIfAbsent(entry.getValue(), k -> new HashMap<>());
+            max = Math.max(max, serverCounts.merge(days.apply(entry.getKey()), 1, Integer::sum));
+        }
+        return max;
+    }
+    
+    /**
+     * @return the number of tablets of each balancer group on each tablet server
+     */
+    public Map<TServerInstance,Map<String,Integer>> getGroupCounts() {
+        Function<KeyExtent,String> groups = new ShardedTableTabletBalancer.ShardGroupPartitioner(tservers.size(), getTabletLocations());
+        Map<TServerInstance,Map<String,Integer>> counts = new HashMap<>();
+        for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+            counts.computeIfAbsent(entry.getValue(), k -> new HashMap<>()).merge(groups.apply(entry.getKey()), 1, Integer::sum);
+        }
+        return counts;
+    }
+    
+    private SortedMap<TServerInstance,TabletServerStatus> getCurrent() {
+        SortedMap<TServerInstance,TabletServerStatus> current = new TreeMap<>();
+        for (TServerInstance tserver : tservers) {
+            TabletServerStatus status = new TabletServerStatus();
+            status.setTableMap(new HashMap<>());
+            current.put(tserver, status);
+        }
+        for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+            TabletStats stats = tabletStats.get(entry.getKey());
+            TableInfo info = current.get(entry.getValue()).getTableMap().computeIfAbsent(tableId, k -> new TableInfo());
+            info.setRecs(info.getRecs() + stats.getNumEntries());
+            info.setIngestRate(info.getIngestRate() + stats.getIngestRate());
+            info.setQueryRate(info.getQueryRate() + stats.getQueryRate());
+            info.setTablets(info.getTablets() + 1);
+            info.setOnlineTablets(info.getOnlineTablets() + 1);
+        }
+        return current;
+    }
+    
+    private Iterable<Pair<KeyExtent,Location>> getTabletLocations() {
+        return Iterables.transform(tabletLocs.entrySet(), input -> new Pair<>(input.getKey(), new Location(input.getValue())));
+    }
+    
+    private class SimulatedBalancer extends ShardedTableTabletBalancer {
+        
+        private SimulatedBalancer(String tableId) {
+            super(tableId);
+        }
+        
+        @Override
+        protected Iterable<Pair<KeyExtent,Location>> getRawLocationProvider() {
+            return getTabletLocations();
+        }
+        
+        @Override
+        protected List<TabletStats> getOnlineTabletStats(TServerInstance tserver) {
+            List<TabletStats> stats = new ArrayList<>();
+            for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+                if (entry.getValue().equals(tserver)) {
+                    stats.add(tabletStats.get(entry.getKey()));
+                }
+            }
+            return stats;
+        }
+        
+        @Override
+        protected String getTableProperty(String property, String defaultValue) {
+            return properties.getOrDefault(property, defaultValue);
+        }
+        
+        @Override
+        protected long getWaitTime() {
+            return 0;
+        }
+        
+        @Override
+        protected int getMaxMigrations() {
+            return 30000;
+        }
+    }
+}
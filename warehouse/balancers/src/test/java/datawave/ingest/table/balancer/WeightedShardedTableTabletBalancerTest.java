@@ -0,0 +1,117 @@
+package datawave.ingest.table.balancer;
+
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WeightedShardedTableTabletBalancerTest {
+    private static final String TNAME = "s";
+    private static final LocalDate LAST_DAY = LocalDate.of(2019, 6, 1);
+    
+    @Test
+    public void testDisabledByDefault() {
+        ShardedTableBalancerSimulator simulator = new ShardedTableBalancerSimulator(TNAME, 42).addTServers(10).addDays(LAST_DAY, 30, 10, 3, 5);
+        simulator.balance(100);
+        double maxOverMean = simulator.getMaxOverMean();
+        
+        // Without the weighted mode the group balanced state is left alone, regardless of the load
+        assertEquals(0, simulator.balance(100));
+        assertEquals(maxOverMean, simulator.getMaxOverMean(), 0.0);
+    }
+    
+    @Test
+    public void testWeightedBalancingReducesImbalance() {
+        ShardedTableBalancerSimulator simulator = new ShardedTableBalancerSimulator(TNAME, 42).addTServers(10).addDays(LAST_DAY, 30, 10, 3, 5);
+        simulator.balance(100);
+        double groupMaxOverMean = simulator.getMaxOverMean();
+        double groupVariation = simulator.getCoefficientOfVariation();
+        Map<TServerInstance,Map<String,Integer>> groupCounts = simulator.getGroupCounts();
+        
+        simulator.setProperty(ShardedTableTabletBalancer.WEIGHTED_ENABLED, "true");
+        simulator.setProperty(ShardedTableTabletBalancer.MAX_WEIGHTED_MIGRATIONS, "6");
+        int passes = simulator.balance(1000);
+        assertTrue("Expected the weighted mode to make migrations", passes > 0);
+        assertTrue("Expected the weighted mode to converge", passes < 1000);
+        
+        assertTrue(simulator.getMaxOverMean() + " is not better than " + groupMaxOverMean, simulator.getMaxOverMean() < groupMaxOverMean);
+        assertTrue(simulator.getCoefficientOfVariation() + " is not better than " + groupVariation, simulator.getCoefficientOfVariation() < groupVariation);
+        
+        // The swaps are rate limited, never double up a day on a server, and leave the group balance untouched
+        assertTrue(simulator.getMaxMigrationsPerPass() <= 6);
+        assertEquals(1, simulator.getMaxShardsPerDayPerServer());
+        assertEquals(groupCounts, simulator.getGroupCounts());
+        
+        // The group balancer has nothing to undo
+        simulator.setProperty(ShardedTableTabletBalancer.WEIGHTED_ENABLED, "false");
+        assertEquals(0, simulator.balance(100));
+    }
+    
+    @Test
+    public void testNewDaysAreWeighted() {
+        ShardedTableBalancerSimulator simulator = new ShardedTableBalancerSimulator(TNAME, 7).addTServers(8).addDays(LAST_DAY, 20, 6, 2, 3);
+        simulator.setProperty(ShardedTableTabletBalancer.WEIGHTED_ENABLED, "true");
+        simulator.balance(1000);
+        
+        // A new ingest heavy day shifts the load, which is then evened out again
+        simulator.addDays(LAST_DAY.plusDays(1), 1, 6, 1, 0);
+        double before = simulator.getCoefficientOfVariation();
+        simulator.balance(1000);
+        assertTrue(simulator.getCoefficientOfVariation() <= before);
+        assertEquals(1, simulator.getMaxShardsPerDayPerServer());
+    }
+    
+    @Test
+    public void testPlannerSwapsWithinGroup() {
+        TServerInstance hot = new TServerInstance("127.0.0.1:1000", 6);
+        TServerInstance cold = new TServerInstance("127.0.0.1:1001", 6);
+        KeyExtent day1Hot = makeExtent("20190101_0", null);
+        KeyExtent day1Cold = makeExtent("20190101_1", "20190101_0");
+        KeyExtent day2Hot = makeExtent("20190102_0", "20190101_1");
+        KeyExtent day2Cold = makeExtent("20190102_1", "20190102_0");
+        
+        WeightedShardSwapPlanner planner = new WeightedShardSwapPlanner(extent -> "g", new ShardedTableTabletBalancer.ShardDayPartitioner(), 0.1, 10);
+        planner.addTablet(day1Hot, hot, 10);
+        planner.addTablet(day2Hot, hot, 6);
+        planner.addTablet(day1Cold, cold, 1);
+        planner.addTablet(day2Cold, cold, 2);
+        
+        List<TabletMigration> migrations = planner.plan();
+        assertEquals(2, migrations.size());
+        assertEquals(day1Hot, migrations.get(0).tablet);
+        assertEquals(cold, migrations.get(0).newServer);
+        assertEquals(day1Cold, migrations.get(1).tablet);
+        assertEquals(hot, migrations.get(1).newServer);
+        assertEquals(7.0, planner.getLoads().get(hot), 0.0);
+        assertEquals(12.0, planner.getLoads().get(cold), 0.0);
+    }
+    
+    @Test
+    public void testPlannerKeepsDaysApart() {
+        TServerInstance hot = new TServerInstance("127.0.0.1:1000", 6);
+        TServerInstance cold = new TServerInstance("127.0.0.1:1001", 6);
+        KeyExtent day1 = makeExtent("20190101_0", null);
+        KeyExtent day2 = makeExtent("20190102_0", "20190101_0");
+        KeyExtent day2Other = makeExtent("20190102_1", "20190102_0");
+        
+        // Swapping day1 for day2 would put both pieces of day 2 on the hot server
+        WeightedShardSwapPlanner planner = new WeightedShardSwapPlanner(extent -> "g", new ShardedTableTabletBalancer.ShardDayPartitioner(), 0.1, 10);
+        planner.addTablet(day1, hot, 10);
+        planner.addTablet(day2Other, hot, 1);
+        planner.addTablet(day2, cold, 1);
+        
+        assertTrue(planner.plan().isEmpty());
+    }
+    
+    private static KeyExtent makeExtent(String endRow, String prevEndRow) {
+        return new KeyExtent(TNAME, endRow == null ? null : new Text(endRow), prevEndRow == null ? null : new Text(prevEndRow));
+    }
+}
@@ -0,0 +1,126 @@
+package datawave.data;
+
+import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
+import com.clearspring.analytics.stream.cardinality.HyperLogLogPlus;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A mergeable summary of the values of a field name/datatype pair for a single day: the total number of values and a {@link HyperLogLogPlus} sketch of the
+ * distinct values.
+ * <p>
+ * Sketches for the same field, datatype and day may be written independently (for example once per ingested event) and merged by the
+ * {@code FieldStatsSketchCombiner}, and sketches for a range of days can be merged on read to estimate the cardinality across the whole range. Only sketches
+ * created with the same precisions can be merged.
+ * <p>
+ * The serialized form is a variable length count, the length prefixed sketch bytes and a variable length unique count, which is the same layout that the
+ * index-stats {@code StatsHyperLogMapper} produces. The unique count is only used for analysis and is always written as zero.
+ */
+public class FieldStatsSketch {
+    
+    public static final int DEFAULT_NORMAL_PRECISION = 14;
+    public static final int DEFAULT_SPARSE_PRECISION = 25;
+    
+    private long count;
+    private final HyperLogLogPlus sketch;
+    
+    public FieldStatsSketch() {
+        this(DEFAULT_NORMAL_PRECISION, DEFAULT_SPARSE_PRECISION);
+    }
+    
+    /**
+     * @param normalPrecision
+     *            the normal precision of the sketch
+     * @param sparsePrecision
+     *            the sparse precision of the sketch
+     */
+    public FieldStatsSketch(int normalPrecision, int sparsePrecision) {
+        this.sketch = new HyperLogLogPlus(normalPrecision, sparsePrecision);
+    }
+    
+    /**
+     * Deserialize a sketch.
+     *
+     * @param value
+     *            the serialized sketch
+     * @throws IOException
+     *             if the value is not a serialized sketch
+     */
+    public FieldStatsSketch(Value value) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value.get()))) {
+            this.count = WritableUtils.readVLong(in);
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            this.sketch = HyperLogLogPlus.Builder.build(bytes);
+        }
+    }
+    
+    /**
+     * Add a single value.
+     */
+    public void offer(String value) {
+        count++;
+        sketch.offer(value);
+    }
+    
+    /**
+     * Merge another sketch into this one.
+     *
+     * @param other
+     *            the sketch to merge
+     * @throws IllegalArgumentException
+     *             if the sketches were created with different precisions
+     */
+    public void merge(FieldStatsSketch other) {
+        count += other.count;
+        try {
+            sketch.addAll(other.sketch);
+        } catch (CardinalityMergeException e) {
+            throw new IllegalArgumentException("Unable to merge field stats sketches", e);
+        }
+    }
+    
+    /**
+     * @return the total number of values
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * @return the estimated number of distinct values, which never exceeds the total number of values
+     */
+    public long getCardinality() {
+        return Math.min(sketch.cardinality(), count);
+    }
+    
+    /**
+     * @return the estimated fraction of the values that are distinct, between 0 and 1
+     */
+    public double getSelectivity() {
+        return (count == 0) ? 0 : (double) getCardinality() / count;
+    }
+    
+    public Value getValue() throws IOException {
+        byte[] bytes = sketch.getBytes();
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length + 16); DataOutputStream out = new DataOutputStream(baos)) {
+            WritableUtils.writeVLong(out, count);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            WritableUtils.writeVInt(out, 0);
+            out.flush();
+            return new Value(baos.toByteArray());
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "FieldStatsSketch{count=" + count + ", cardinality=" + getCardinality() + '}';
+    }
+}
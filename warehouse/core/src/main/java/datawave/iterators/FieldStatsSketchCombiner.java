@@ -0,0 +1,71 @@
+package datawave.iterators;
+
+import datawave.data.FieldStatsSketch;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Combines {@link FieldStatsSketch} values for the same field name, day and datatype by summing the counts and merging the sketches.
+ *
+ */
+public class FieldStatsSketchCombiner extends Combiner {
+    
+    private static final Logger log = Logger.getLogger(FieldStatsSketchCombiner.class);
+    
+    /**
+     * Reduces a list of Values into a single Value.
+     *
+     * @param key
+     *            The most recent version of the Key being reduced.
+     *
+     * @param iter
+     *            An iterator over the Values for different versions of the key.
+     *
+     * @return The combined Value, or the first Value unchanged if none of the Values could be decoded.
+     */
+    @Override
+    public Value reduce(Key key, Iterator<Value> iter) {
+        
+        FieldStatsSketch sketch = null;
+        Value singletonValue = null;
+        Value firstValue = null;
+        
+        while (iter.hasNext()) {
+            Value value = iter.next();
+            // the values are copied as the source may reuse them as it moves through the versions
+            if (firstValue == null) {
+                firstValue = new Value(value);
+            }
+            try {
+                FieldStatsSketch newSketch = new FieldStatsSketch(value);
+                if (sketch == null) {
+                    sketch = newSketch;
+                    singletonValue = new Value(value);
+                } else {
+                    sketch.merge(newSketch);
+                    singletonValue = null;
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Unable to merge field stats sketch from " + key + " / " + value, e);
+            }
+        }
+        
+        if (singletonValue != null) {
+            return singletonValue;
+        } else if (sketch != null) {
+            try {
+                return sketch.getValue();
+            } catch (IOException e) {
+                log.error("Unable to serialize field stats sketch for " + key, e);
+            }
+        }
+        // nothing could be decoded, so leave the entry as it was rather than replacing it with an empty value
+        return firstValue;
+    }
+    
+}
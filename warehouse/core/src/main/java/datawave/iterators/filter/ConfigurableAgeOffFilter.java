@@ -6,6 +6,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import datawave.ingest.util.cache.ReloadableCacheBuilder;
 import datawave.ingest.util.cache.watch.FileRuleWatcher;
+import datawave.iterators.filter.ageoff.AgeOffKeyParts;
 import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
 import datawave.iterators.filter.ageoff.FilterRule;
@@ -119,6 +120,11 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
     
     protected Collection<AppliedRule> filterList;
     
+    /**
+     * Reusable holder for the parsed parts of the key currently being evaluated, shared by all of the rules in the filter list
+     */
+    protected final AgeOffKeyParts keyParts = new AgeOffKeyParts();
+    
     protected long cutOffDateMillis;
     protected long scanStart;
     
@@ -171,11 +177,14 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         boolean acceptFlag = false;
         boolean filterRuleApplied = false;
         
+        // parse the key at most once for all of the rules
+        this.keyParts.reset(k);
+        
         Iterator<AppliedRule> iter = this.filterList.iterator();
         
         while ((!filterRuleApplied) && iter.hasNext()) {
             AppliedRule filter = iter.next();
-            acceptFlag = filter.accept(k, v);
+            acceptFlag = filter.accept(this.keyParts, v);
             filterRuleApplied = filter.isFilterRuleApplied();
         }
         
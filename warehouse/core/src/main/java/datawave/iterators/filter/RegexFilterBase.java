@@ -133,6 +133,11 @@ public abstract class RegexFilterBase extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getOldestCutOffMilliseconds() {
+        return getPeriod().getCutOffMilliseconds();
+    }
+    
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + " [patternStr=" + patternStr + ", cutOffDateMillis=" + getPeriod().getCutOffMilliseconds() + "]";
@@ -0,0 +1,209 @@
+package datawave.iterators.filter.ageoff;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import datawave.iterators.filter.AgeOffConfigParams;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.core.util.Pair;
+import org.apache.accumulo.server.fs.FileRef;
+import org.apache.accumulo.tserver.compaction.CompactionPlan;
+import org.apache.accumulo.tserver.compaction.CompactionStrategy;
+import org.apache.accumulo.tserver.compaction.DefaultCompactionStrategy;
+import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
+import org.apache.accumulo.tserver.compaction.MajorCompactionRequest;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A compaction strategy for shard tables that drops files whose contents have entirely aged off, without reading or rewriting their keys. The remaining files
+ * are handed to the {@code DefaultCompactionStrategy}, which decides whether they should be compacted as usual.
+ *
+ * <p>
+ * The strategy is configured with the same ttl, ttl units and age off configuration file as the {@code ConfigurableAgeOffFilter} of the table, for example:
+ *
+ * <pre>
+ * config -t shard -s table.majc.compaction.strategy=datawave.iterators.filter.ageoff.AgeOffCompactionStrategy
+ * config -t shard -s table.majc.compaction.strategy.opts.ttl=365
+ * config -t shard -s table.majc.compaction.strategy.opts.ttlUnits=d
+ * config -t shard -s table.majc.compaction.strategy.opts.filterConfig=hdfs://config/filters/ageoff.xml
+ * </pre>
+ *
+ * Candidate files are chosen by the {@link ShardAgeOffEvaluator} from the shard dates of the first and last rows of the file, which are read from the file
+ * index. Ingest does not guarantee that the timestamps of a shard fall within its day, so a candidate is only dropped once a read of its keys confirms that its
+ * latest timestamp is at or before the oldest cut off. The rows and the latest timestamp of each file are cached as files are immutable.
+ */
+public class AgeOffCompactionStrategy extends CompactionStrategy {
+    
+    private static final Logger log = Logger.getLogger(AgeOffCompactionStrategy.class);
+    
+    private static final int MAX_CACHED_FILES = 100000;
+    
+    /**
+     * first and last rows and latest timestamp of files, keyed on the file path
+     */
+    private static final Cache<String,FileInfo> fileInfos = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_FILES).build();
+    
+    /**
+     * evaluators keyed on the strategy options and the modification time of the age off configuration file, so that a changed file is reloaded right away.
+     * Within the same configuration an evaluator of up to a minute old only has older cut offs, and so ages off less than a new one would.
+     */
+    private static final Cache<Pair<Map<String,String>,Long>,ShardAgeOffEvaluator> evaluators = CacheBuilder.newBuilder()
+                    .expireAfterWrite(1, TimeUnit.MINUTES).build();
+    
+    /**
+     * The rows of a file, and its latest timestamp once the file has been read
+     */
+    private static class FileInfo {
+        private final Text firstRow;
+        private final Text lastRow;
+        private volatile Long maxTimestamp;
+        
+        private FileInfo(Text firstRow, Text lastRow) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+    }
+    
+    private final DefaultCompactionStrategy delegate = new DefaultCompactionStrategy();
+    
+    private Map<String,String> options;
+    
+    private Set<FileRef> agedOffFiles = new LinkedHashSet<>();
+    
+    @Override
+    public void init(Map<String,String> options) {
+        super.init(options);
+        delegate.init(options);
+        this.options = new HashMap<>(options);
+    }
+    
+    @Override
+    public boolean shouldCompact(MajorCompactionRequest request) throws IOException {
+        agedOffFiles = findAgedOffFiles(request);
+        return !agedOffFiles.isEmpty() || delegate.shouldCompact(withoutAgedOffFiles(request));
+    }
+    
+    @Override
+    public void gatherInformation(MajorCompactionRequest request) throws IOException {
+        agedOffFiles = findAgedOffFiles(request);
+        delegate.gatherInformation(withoutAgedOffFiles(request));
+    }
+    
+    @Override
+    public CompactionPlan getCompactionPlan(MajorCompactionRequest request) throws IOException {
+        MajorCompactionRequest remaining = withoutAgedOffFiles(request);
+        CompactionPlan plan = null;
+        if (!remaining.getFiles().isEmpty() && delegate.shouldCompact(remaining)) {
+            plan = delegate.getCompactionPlan(remaining);
+        }
+        
+        if (!agedOffFiles.isEmpty()) {
+            if (plan == null) {
+                plan = new CompactionPlan();
+            }
+            plan.deleteFiles.addAll(agedOffFiles);
+            if (log.isDebugEnabled()) {
+                log.debug("Dropping " + agedOffFiles.size() + " aged off files from " + request.getTabletId() + ": " + agedOffFiles);
+            }
+        }
+        return plan;
+    }
+    
+    private Set<FileRef> findAgedOffFiles(MajorCompactionRequest request) throws IOException {
+        Set<FileRef> agedOff = new LinkedHashSet<>();
+        if (request.getReason() == MajorCompactionReason.CHOP) {
+            return agedOff;
+        }
+        
+        Configuration conf = new Configuration();
+        ShardAgeOffEvaluator evaluator;
+        try {
+            evaluator = evaluators.get(new Pair<>(options, getConfigModificationTime(conf)),
+                            () -> ShardAgeOffEvaluator.create(options, System.currentTimeMillis(), conf));
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        if (!evaluator.isEvaluable()) {
+            return agedOff;
+        }
+        
+        for (FileRef file : request.getFiles().keySet()) {
+            FileInfo info = getFileInfo(request, file);
+            if (info != null && evaluator.isAgedOff(info.firstRow, info.lastRow) && evaluator.isAgedOff(getMaxTimestamp(request, file, info))) {
+                agedOff.add(file);
+            }
+        }
+        return agedOff;
+    }
+    
+    private long getConfigModificationTime(Configuration conf) throws IOException {
+        String filename = options.get(AgeOffConfigParams.FILTER_CONFIG);
+        if (filename == null) {
+            return 0;
+        }
+        Path filePath = new Path(filename);
+        return filePath.getFileSystem(conf).getFileStatus(filePath).getModificationTime();
+    }
+    
+    private FileInfo getFileInfo(MajorCompactionRequest request, FileRef file) throws IOException {
+        String path = file.path().toString();
+        FileInfo info = fileInfos.getIfPresent(path);
+        if (info == null) {
+            try (FileSKVIterator reader = request.openReader(file)) {
+                Key first = reader.getFirstKey();
+                Key last = reader.getLastKey();
+                if (first == null || last == null) {
+                    // an empty file has nothing to age off
+                    return null;
+                }
+                info = new FileInfo(first.getRow(), last.getRow());
+            }
+            fileInfos.put(path, info);
+        }
+        return info;
+    }
+    
+    /**
+     * Read every key of a file, including deletes, for its latest timestamp. This is only done for files whose rows have aged off, and is far cheaper than
+     * rewriting them.
+     */
+    private long getMaxTimestamp(MajorCompactionRequest request, FileRef file, FileInfo info) throws IOException {
+        if (info.maxTimestamp == null) {
+            long maxTimestamp = Long.MIN_VALUE;
+            try (FileSKVIterator reader = request.openReader(file)) {
+                reader.seek(new Range(), Collections.emptySet(), false);
+                while (reader.hasTop()) {
+                    maxTimestamp = Math.max(maxTimestamp, reader.getTopKey().getTimestamp());
+                    reader.next();
+                }
+            }
+            info.maxTimestamp = maxTimestamp;
+        }
+        return info.maxTimestamp;
+    }
+    
+    private MajorCompactionRequest withoutAgedOffFiles(MajorCompactionRequest request) {
+        if (agedOffFiles.isEmpty()) {
+            return request;
+        }
+        MajorCompactionRequest remaining = new MajorCompactionRequest(request);
+        Map<FileRef,DataFileValue> files = new HashMap<>(request.getFiles());
+        files.keySet().removeAll(agedOffFiles);
+        remaining.setFiles(files);
+        return remaining;
+    }
+}
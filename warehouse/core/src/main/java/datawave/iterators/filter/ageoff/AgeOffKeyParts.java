@@ -0,0 +1,243 @@
+package datawave.iterators.filter.ageoff;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * Description: Lazily parsed view of the parts of a shard or index table key that age off rules care about.
+ *
+ * Purpose: Allows the column family type, data type and field name of a key to be parsed once and shared across all of the rules that are evaluated by a
+ * {@code ConfigurableAgeOffFilter}, rather than having every {@code AppliedRule} re-parse the key independently.
+ *
+ * Justification: Age off is evaluated for every key during scans and compactions. With many data type and field rules configured for the same table, each
+ * key would otherwise be parsed (and its {@code ByteSequence}s allocated) once per rule instead of once. Instances are reusable via {@link #reset(Key)} and are
+ * not thread safe.
+ */
+public class AgeOffKeyParts {
+    
+    /**
+     * The type of shard table entry, as determined by the column family.
+     */
+    public enum ColumnType {
+        EVENT, FIELD_INDEX, TERM_FREQUENCY, DOCUMENT
+    }
+    
+    /**
+     * Null byte
+     */
+    private static final int NULL = 0x00;
+    
+    /**
+     * Minimum shard length
+     */
+    private static final int SHARD_ID_LENGTH_MIN = 10;
+    
+    private Key key;
+    
+    private ColumnType columnType;
+    
+    private boolean shardDataTypeParsed;
+    private ByteSequence shardDataType;
+    
+    private boolean indexDataTypeParsed;
+    private ByteSequence indexDataType;
+    
+    private boolean shardFieldParsed;
+    private ByteSequence shardField;
+    
+    public AgeOffKeyParts() {}
+    
+    public AgeOffKeyParts(Key key) {
+        reset(key);
+    }
+    
+    /**
+     * Point this instance at a new key, discarding anything parsed from the previous key.
+     *
+     * @param key
+     *            the key to parse
+     * @return this instance
+     */
+    public AgeOffKeyParts reset(Key key) {
+        this.key = key;
+        this.columnType = null;
+        this.shardDataTypeParsed = false;
+        this.shardDataType = null;
+        this.indexDataTypeParsed = false;
+        this.indexDataType = null;
+        this.shardFieldParsed = false;
+        this.shardField = null;
+        return this;
+    }
+    
+    public Key getKey() {
+        return key;
+    }
+    
+    public long getTimestamp() {
+        return key.getTimestamp();
+    }
+    
+    /**
+     * @return the type of shard table entry for the current key
+     */
+    public ColumnType getColumnType() {
+        if (columnType == null) {
+            // ASSUMES THAT THE KEY STARTS WITH A CORRECTLY SIZED BYTE ARRAY
+            final byte[] cf = key.getColumnFamilyData().getBackingArray();
+            if (cf.length >= 3 && cf[0] == 'f' && cf[1] == 'i' && cf[2] == NULL) {
+                columnType = ColumnType.FIELD_INDEX;
+            } else if (cf.length == 2 && cf[0] == 't') {
+                // no need to check second character as we cannot have a datatype of 't' with an empty UID
+                columnType = ColumnType.TERM_FREQUENCY;
+            } else if (cf.length == 1 && cf[0] == 'd') {
+                columnType = ColumnType.DOCUMENT;
+            } else {
+                columnType = ColumnType.EVENT;
+            }
+        }
+        return columnType;
+    }
+    
+    /**
+     * @param isIndexTable
+     *            whether the key comes from a global index table rather than the shard table
+     * @return the data type for the current key, or null if it cannot be determined
+     */
+    public ByteSequence getDataType(boolean isIndexTable) {
+        return isIndexTable ? getIndexDataType() : getShardDataType();
+    }
+    
+    /**
+     * @param isIndexTable
+     *            whether the key comes from a global index table rather than the shard table
+     * @return the field name for the current key, or null if it cannot be determined. Document entries never have a field.
+     */
+    public ByteSequence getField(boolean isIndexTable) {
+        return isIndexTable ? key.getColumnFamilyData() : getShardField();
+    }
+    
+    private ByteSequence getIndexDataType() {
+        if (!indexDataTypeParsed) {
+            indexDataTypeParsed = true;
+            final byte[] cq = key.getColumnQualifierData().getBackingArray();
+            int cqLength = cq.length;
+            int nullIndex = -1;
+            for (int i = SHARD_ID_LENGTH_MIN; i < cqLength; i++) {
+                if (cq[i] == NULL) {
+                    nullIndex = i + 1;
+                    break;
+                }
+            }
+            
+            if (nullIndex > 0)
+                indexDataType = new ArrayByteSequence(cq, nullIndex, (cqLength - nullIndex));
+        }
+        return indexDataType;
+    }
+    
+    private ByteSequence getShardDataType() {
+        if (!shardDataTypeParsed) {
+            shardDataTypeParsed = true;
+            final byte[] cq = key.getColumnQualifierData().getBackingArray();
+            int cqLength = cq.length;
+            int nullIndex = -1;
+            
+            switch (getColumnType()) {
+                case DOCUMENT:
+                case TERM_FREQUENCY:
+                    // don't need to check the last byte as we expect more than one null if formatted correctly
+                    for (int i = 0; i < cqLength - 1; i++) {
+                        if (cq[i] == NULL) {
+                            nullIndex = i;
+                            break;
+                        }
+                    }
+                    
+                    // the data type is the first part of this entry.
+                    if (nullIndex > 0) {
+                        shardDataType = new ArrayByteSequence(cq, 0, nullIndex);
+                    }
+                    break;
+                case FIELD_INDEX:
+                    int uidIndex = -1;
+                    for (int i = cqLength - 1; i >= 0; i--) {
+                        if (cq[i] == NULL) {
+                            if (uidIndex == -1)
+                                uidIndex = i;
+                            else {
+                                nullIndex = i + 1;
+                            }
+                            if (uidIndex > 0 && nullIndex > 0)
+                                break;
+                        }
+                    }
+                    
+                    if (uidIndex > 0 && nullIndex > 0)
+                        shardDataType = new ArrayByteSequence(cq, nullIndex, (uidIndex - nullIndex));
+                    break;
+                default:
+                    // data column, the datatype is the start of the column family
+                    final byte[] cf = key.getColumnFamilyData().getBackingArray();
+                    int cfLength = cf.length;
+                    for (int i = 0; i < cfLength; i++) {
+                        if (cf[i] == NULL) {
+                            nullIndex = i;
+                            break;
+                        }
+                    }
+                    if (nullIndex > 0) {
+                        shardDataType = new ArrayByteSequence(cf, 0, nullIndex);
+                    }
+            }
+        }
+        return shardDataType;
+    }
+    
+    private ByteSequence getShardField() {
+        if (!shardFieldParsed) {
+            shardFieldParsed = true;
+            final byte[] cq = key.getColumnQualifierData().getBackingArray();
+            
+            switch (getColumnType()) {
+                case TERM_FREQUENCY:
+                    // The field type is the last fourth part of this entry cq. Use a substring from the last null character to the end of the colQual
+                    int nullIndex = -1;
+                    for (int i = cq.length - 1; i >= 0; i--) {
+                        if (cq[i] == NULL) {
+                            nullIndex = i;
+                            break;
+                        }
+                    }
+                    if (nullIndex > 0) {
+                        int start = nullIndex + 1;
+                        shardField = new ArrayByteSequence(cq, start, cq.length - start);
+                    }
+                    break;
+                case FIELD_INDEX:
+                    // For the fi, grab the rest of the string after fi\0
+                    final byte[] cf = key.getColumnFamilyData().getBackingArray();
+                    shardField = new ArrayByteSequence(cf, 3, cf.length - 3);
+                    break;
+                case EVENT:
+                    // For the data, find the first null byte or '.' in the colQual, then grab the start of the string to this point.
+                    // Event fields may have instance notations using periods, so the field needs to be truncated to either the null or the first dot.
+                    int length = -1;
+                    for (int i = 0; i < cq.length; i++) {
+                        if (cq[i] == '.' || cq[i] == NULL) {
+                            length = i;
+                            break;
+                        }
+                    }
+                    if (length > 0) {
+                        shardField = new ArrayByteSequence(cq, 0, length);
+                    }
+                    break;
+                default:
+                    // document entries do not carry a field name
+            }
+        }
+        return shardField;
+    }
+}
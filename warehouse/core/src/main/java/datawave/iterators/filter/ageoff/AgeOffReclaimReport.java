@@ -0,0 +1,208 @@
+package datawave.iterators.filter.ageoff;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import datawave.iterators.filter.AgeOffConfigParams;
+import datawave.util.cli.AccumuloArgs;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.core.metadata.MetadataTable;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.DataFileColumnFamily;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.TabletColumnFamily;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reports the number of bytes per shard date of a shard table that are held in tablets whose contents have entirely aged off, according to the same ttl and
+ * age off configuration file used by the {@code ConfigurableAgeOffFilter}. Only the metadata table is read, the data files themselves are never opened, so the
+ * reclaimable bytes assume that the timestamps of each shard fall within its day. The {@link AgeOffCompactionStrategy} confirms the timestamps of each file
+ * before dropping it, so fewer bytes may actually be reclaimed.
+ *
+ * <pre>
+ * AgeOffReclaimReport -u user -p env:PASSWORD -i instance -z zookeepers -t shard --ttl 365 --ttlUnits d --filterConfig hdfs://config/filters/ageoff.xml
+ * </pre>
+ */
+public class AgeOffReclaimReport {
+    
+    /**
+     * The key of the usage of tablets that hold no shard rows
+     */
+    public static final String UNKNOWN_SHARD_DATE = "unknown";
+    
+    public static class ReportArgs {
+        // @formatter:off
+        @Parameter(names = {"--ttl"},
+            description = "Default time to live",
+            required = true)
+        private String ttl;
+        
+        @Parameter(names = {"--ttlUnits"},
+            description = "Default time to live units (d, h, m, s or ms)")
+        private String ttlUnits = "d";
+        
+        @Parameter(names = {"--filterConfig"},
+            description = "URL to the age off filter configuration file")
+        private String filterConfig;
+        // @formatter:on
+    }
+    
+    /**
+     * Bytes and file counts of the tablets of a single shard date
+     */
+    public static class ShardDateUsage {
+        private long files;
+        private long bytes;
+        private long reclaimableFiles;
+        private long reclaimableBytes;
+        
+        public void add(DataFileValue file, boolean reclaimable) {
+            files++;
+            bytes += file.getSize();
+            if (reclaimable) {
+                reclaimableFiles++;
+                reclaimableBytes += file.getSize();
+            }
+        }
+        
+        public long getFiles() {
+            return files;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+        
+        public long getReclaimableFiles() {
+            return reclaimableFiles;
+        }
+        
+        public long getReclaimableBytes() {
+            return reclaimableBytes;
+        }
+    }
+    
+    private final Connector connector;
+    private final ShardAgeOffEvaluator evaluator;
+    
+    public AgeOffReclaimReport(Connector connector, ShardAgeOffEvaluator evaluator) {
+        this.connector = connector;
+        this.evaluator = evaluator;
+    }
+    
+    /**
+     * Compute the usage of each shard date of a table from the tablet extents and file sizes in the metadata table. A tablet is reclaimable when its previous
+     * end row and end row are both shard rows and every row between them has aged off. A tablet is counted under the shard date of its end row, the last tablet
+     * under the shard date of its previous end row, and tablets without either under {@link #UNKNOWN_SHARD_DATE}.
+     *
+     * @param tableName
+     *            the shard table
+     * @return the usage keyed on shard date
+     * @throws Exception
+     *             if the metadata table cannot be read
+     */
+    public SortedMap<String,ShardDateUsage> computeUsage(String tableName) throws Exception {
+        String tableId = connector.tableOperations().tableIdMap().get(tableName);
+        if (tableId == null) {
+            throw new IllegalArgumentException("Unknown table: " + tableName);
+        }
+        
+        SortedMap<String,ShardDateUsage> usage = new TreeMap<>();
+        Scanner scanner = connector.createScanner(MetadataTable.NAME, Authorizations.EMPTY);
+        try {
+            scanner.setRange(new KeyExtent(tableId, null, null).toMetadataRange());
+            scanner.fetchColumnFamily(DataFileColumnFamily.NAME);
+            TabletColumnFamily.PREV_ROW_COLUMN.fetch(scanner);
+            
+            Text currentRow = null;
+            Value prevRow = null;
+            Map<String,DataFileValue> files = new HashMap<>();
+            for (Map.Entry<Key,Value> entry : scanner) {
+                Text row = entry.getKey().getRow();
+                if (!row.equals(currentRow)) {
+                    addTablet(usage, currentRow, prevRow, files);
+                    currentRow = row;
+                    prevRow = null;
+                    files.clear();
+                }
+                if (TabletColumnFamily.PREV_ROW_COLUMN.hasColumns(entry.getKey())) {
+                    prevRow = entry.getValue();
+                } else {
+                    files.put(entry.getKey().getColumnQualifier().toString(), new DataFileValue(entry.getValue().get()));
+                }
+            }
+            addTablet(usage, currentRow, prevRow, files);
+        } finally {
+            scanner.close();
+        }
+        return usage;
+    }
+    
+    private void addTablet(SortedMap<String,ShardDateUsage> usage, Text metadataRow, Value prevRow, Map<String,DataFileValue> files) {
+        if (metadataRow == null || prevRow == null) {
+            return;
+        }
+        KeyExtent extent = new KeyExtent(metadataRow, prevRow);
+        // the end row of the last tablet is null
+        Text dateRow = (extent.getEndRow() == null) ? extent.getPrevEndRow() : extent.getEndRow();
+        String shardDate = ShardAgeOffEvaluator.getShardDate(dateRow);
+        if (shardDate == null) {
+            shardDate = UNKNOWN_SHARD_DATE;
+        }
+        boolean reclaimable = evaluator.isAgedOff(extent.getPrevEndRow(), extent.getEndRow());
+        ShardDateUsage dateUsage = usage.computeIfAbsent(shardDate, k -> new ShardDateUsage());
+        for (DataFileValue file : files.values()) {
+            dateUsage.add(file, reclaimable);
+        }
+    }
+    
+    public static void print(String tableName, SortedMap<String,ShardDateUsage> usage, PrintStream out) {
+        long totalBytes = 0;
+        long totalReclaimable = 0;
+        out.println("table\tshardDate\tfiles\tbytes\treclaimableFiles\treclaimableBytes");
+        for (Map.Entry<String,ShardDateUsage> entry : usage.entrySet()) {
+            ShardDateUsage dateUsage = entry.getValue();
+            totalBytes += dateUsage.getBytes();
+            totalReclaimable += dateUsage.getReclaimableBytes();
+            if (dateUsage.getReclaimableBytes() > 0) {
+                out.println(tableName + "\t" + entry.getKey() + "\t" + dateUsage.getFiles() + "\t" + dateUsage.getBytes() + "\t"
+                                + dateUsage.getReclaimableFiles() + "\t" + dateUsage.getReclaimableBytes());
+            }
+        }
+        out.println(tableName + "\ttotal\t\t" + totalBytes + "\t\t" + totalReclaimable);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        AccumuloArgs accumuloArgs = AccumuloArgs.defaults();
+        ReportArgs reportArgs = new ReportArgs();
+        JCommander.newBuilder().addObject(accumuloArgs).addObject(reportArgs).build().parse(args);
+        
+        Map<String,String> options = new HashMap<>();
+        options.put(AgeOffConfigParams.TTL, reportArgs.ttl);
+        options.put(AgeOffConfigParams.TTL_UNITS, reportArgs.ttlUnits);
+        if (reportArgs.filterConfig != null) {
+            options.put(AgeOffConfigParams.FILTER_CONFIG, reportArgs.filterConfig);
+        }
+        ShardAgeOffEvaluator evaluator = ShardAgeOffEvaluator.create(options, System.currentTimeMillis(), new Configuration());
+        if (!evaluator.isEvaluable()) {
+            System.err.println("The configured age off rules cannot be evaluated per file, nothing is reclaimable");
+        }
+        
+        Connector connector = new ZooKeeperInstance(accumuloArgs.instance(), accumuloArgs.zookeepers()).getConnector(accumuloArgs.user(),
+                        new PasswordToken(accumuloArgs.password()));
+        AgeOffReclaimReport report = new AgeOffReclaimReport(connector, evaluator);
+        print(accumuloArgs.table(), report.computeUsage(accumuloArgs.table()), System.out);
+    }
+}
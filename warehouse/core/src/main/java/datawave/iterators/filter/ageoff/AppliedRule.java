@@ -62,6 +62,17 @@ public abstract class AppliedRule implements FilterRule {
     
     public abstract boolean isFilterRuleApplied();
     
+    /**
+     * Returns the oldest cut off time that this rule could apply to any key. A key with a timestamp at or before this time is guaranteed to be aged off by
+     * this rule whenever the rule is applied. Rules whose cut off cannot be determined from their configuration alone return null, which prevents whole files
+     * from being dropped by {@link ShardAgeOffEvaluator}.
+     *
+     * @return the oldest cut off in milliseconds, or null if unknown
+     */
+    public Long getOldestCutOffMilliseconds() {
+        return null;
+    }
+    
     /*
      * (non-Javadoc)
      * 
@@ -87,6 +98,24 @@ public abstract class AppliedRule implements FilterRule {
     
     public abstract boolean accept(AgeOffPeriod period, Key k, Value V);
     
+    /**
+     * Accept a key whose parts may already have been parsed by a previously evaluated rule. Rules that need the data type or field of a key should override
+     * {@link #accept(AgeOffPeriod, AgeOffKeyParts, Value)} so that the key is parsed at most once for the entire rule set.
+     *
+     * @param keyParts
+     *            the lazily parsed key
+     * @param value
+     *            the value
+     * @return true if the key should be kept
+     */
+    public boolean accept(AgeOffKeyParts keyParts, Value value) {
+        return accept(ageOffPeriod, keyParts, value);
+    }
+    
+    protected boolean accept(AgeOffPeriod period, AgeOffKeyParts keyParts, Value value) {
+        return accept(period, keyParts.getKey(), value);
+    }
+    
     /*
      * (non-Javadoc)
      * 
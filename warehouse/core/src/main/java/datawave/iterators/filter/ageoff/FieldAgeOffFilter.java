@@ -12,7 +12,6 @@ import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
-import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
 /**
@@ -45,39 +44,6 @@ public class FieldAgeOffFilter extends AppliedRule {
     
     public static final String OPTION_PREFIX = "field.";
     private ColumnVisibilityOrFilter cvOrFilter = new ColumnVisibilityOrFilter();
-    /**
-     * Null byte
-     */
-    private static final int NULL = 0x00;
-    /**
-     * Document column
-     */
-    private static final Text DOCUMENT_COLUMN = new Text("d");
-    private static final byte[] DOCUMENT_COLUMN_BYTES = DOCUMENT_COLUMN.getBytes();
-    
-    /**
-     * Term frequency column.
-     */
-    private static final Text TF_COLUMN = new Text("tf");
-    /**
-     * tf column bytes.
-     */
-    private static final byte[] TF_COLUMN_BYTES = TF_COLUMN.getBytes();
-    
-    /**
-     * Fi column
-     */
-    private static final Text FI_COLUMN = new Text("fi");
-    /**
-     * Fi column bytes.
-     */
-    private static final byte[] FI_COLUMN_BYTES = FI_COLUMN.getBytes();
-    
-    /**
-     * Minimum shard length
-     */
-    private static final int SHARD_ID_LENGTH_MIN = 10;
-    
     /**
      * Logger
      */
@@ -120,96 +86,44 @@ public class FieldAgeOffFilter extends AppliedRule {
      */
     @Override
     public boolean accept(AgeOffPeriod period, Key k, Value v) {
+        return accept(period, new AgeOffKeyParts(k), v);
+    }
+    
+    /**
+     * Evaluates the field of an already parsed key against the configured field cut off times. See {@link #accept(AgeOffPeriod, Key, Value)}.
+     */
+    @Override
+    protected boolean accept(AgeOffPeriod period, AgeOffKeyParts keyParts, Value v) {
         
         ruleApplied = false;
         // if accepted by ColumnVisibilityOrFilter logic, pass the K/V up the iterator stack
         // otherwise evaluate based on field
-        if (cvOrFilter.hasToken(k, v, this.cvOrFilter.getPatternBytes()) == false) {
+        if (cvOrFilter.hasToken(keyParts.getKey(), v, this.cvOrFilter.getPatternBytes()) == false) {
             return true;
         }
         
-        // get the column qualifier, so that we can use it throughout
-        final byte[] cq = k.getColumnQualifierData().getBackingArray();
-        
-        ByteSequence field = null;
-        FieldExclusionType candidateExclusionType = null;
-        
         /**
          * Supports the shard and index table. There should not be a failure, however if either one is used on the incorrect table
          */
-        if (isIndextable) {
-            field = k.getColumnFamilyData();
-            
-        } else {
-            // shard table
-            
-            final byte[] cf = k.getColumnFamilyData().getBackingArray();
-            
-            byte[] column = null;
-            if (cf.length >= 3 && cf[0] == FI_COLUMN_BYTES[0] && cf[1] == FI_COLUMN_BYTES[1] && cf[2] == NULL) {
-                column = FI_COLUMN_BYTES;
-            } else if (cf.length == 2 && cf[0] == TF_COLUMN_BYTES[0]) {
-                // no need to check second character as we cannot have a datatype of 't' with an empty UID
-                column = TF_COLUMN_BYTES;
-            } else if (cf.length == 1 && cf[0] == DOCUMENT_COLUMN_BYTES[0]) {
+        if (!isIndextable) {
+            AgeOffKeyParts.ColumnType columnType = keyParts.getColumnType();
+            if (columnType == AgeOffKeyParts.ColumnType.DOCUMENT) {
                 // if the document column family is encountered, do not attempt to filter its field
                 return true;
             }
             
-            if (column == TF_COLUMN_BYTES) {
-                // CASE 1
-                // The field type is the last fourth part of this entry cq. Use a substring from the last null character to the end of the colQual
-                int nullIndex = -1;
-                for (int i = cq.length - 1; i >= 0; i--) {
-                    if (cq[i] == NULL) {
-                        nullIndex = i;
-                        break;
-                    }
-                }
-                if (nullIndex > 0) {
-                    int start = nullIndex + 1;
-                    int length = cq.length - start;
-                    field = new ArrayByteSequence(cq, start, length);
-                }
-                
-            } else if (column == FI_COLUMN_BYTES) {
-                
-                // CASE 2
-                // For the fi, grab the rest of the string after fi\0
-                int start = FI_COLUMN_BYTES.length + 1;
-                int length = cf.length - start;
-                field = new ArrayByteSequence(cf, start, length);
-                
-            } else {
-                // CASE 3
-                // For the data, find the first null byte or '.' in the colQual, then grab the start of the string to this point
-                candidateExclusionType = FieldExclusionType.EVENT;
-                int length = -1;
-                for (int i = 0; i < cq.length; i++) {
-                    if (cq[i] == '.' || cq[i] == NULL) {
-                        length = i;
-                        break;
-                    }
-                }
-                
-                // event fields may have instance notations using periods
-                // the field needs to be truncated to either the null or the first dot.
-                if (length > 0) {
-                    field = new ArrayByteSequence(cq, 0, length);
-                }
+            // check to see if the field is excluded based on type
+            // if so, pass through the filter
+            if (columnType == AgeOffKeyParts.ColumnType.EVENT && fieldExcludeOptions.contains(FieldExclusionType.EVENT)) {
+                return true;
             }
         }
         
-        // check to see if the field is excluded based on type
-        // if so, pass through the filter
-        if ((candidateExclusionType != null && fieldExcludeOptions.contains(candidateExclusionType))) {
-            return true;
-        }
-        
-        Long dataTypeCutoff = (fieldTimes.containsKey(field)) ? fieldTimes.get(field) : null;
+        ByteSequence field = keyParts.getField(isIndextable);
+        Long dataTypeCutoff = (field == null) ? null : fieldTimes.get(field);
         if (dataTypeCutoff != null) {
             ruleApplied = true;
-            return k.getTimestamp() > dataTypeCutoff;
+            return keyParts.getTimestamp() > dataTypeCutoff;
         }
         
         return true;
@@ -320,4 +234,14 @@ public class FieldAgeOffFilter extends AppliedRule {
     public boolean isFilterRuleApplied() {
         return ruleApplied;
     }
+    
+    @Override
+    public Long getOldestCutOffMilliseconds() {
+        // keys for fields without a ttl are not handled by this rule, and fall through to the remaining rules
+        long oldest = Long.MAX_VALUE;
+        for (Long cutoff : fieldTimes.values()) {
+            oldest = Math.min(oldest, cutoff);
+        }
+        return oldest;
+    }
 }
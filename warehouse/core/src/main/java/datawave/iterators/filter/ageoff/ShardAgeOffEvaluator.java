@@ -0,0 +1,186 @@
+package datawave.iterators.filter.ageoff;
+
+import datawave.ingest.util.cache.watch.FileRuleWatcher;
+import datawave.iterators.filter.AgeOffConfigParams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: Decides whether an entire range of shard rows has been aged off, without reading any of the keys within that range.
+ *
+ * Purpose: Allows compactions and reporting tools to drop or account for fully expired files of old shards based on the shard dates of their first and last
+ * rows, rather than reading and rewriting every key through the {@code ConfigurableAgeOffFilter}.
+ *
+ * Justification: Shard table rows begin with the yyyyMMdd date of the shard, and the timestamps of the keys within a shard normally fall within that day. The
+ * end of the day of the last row of a range is therefore the expected latest timestamp of the range. When the latest timestamp is at or before the oldest cut
+ * off of the default ttl and of every configured {@code FilterRule}, every key in the range would be aged off regardless of which rule applies to it. As ingest
+ * does not guarantee that timestamps fall within the shard day, the shard dates only select candidates, and anything that drops data must confirm the actual
+ * latest timestamp with {@link #isAgedOff(long)}. If any rule cannot report its oldest cut off, nothing is ever considered aged off.
+ */
+public class ShardAgeOffEvaluator {
+    
+    private static final Logger log = Logger.getLogger(ShardAgeOffEvaluator.class);
+    
+    private static final int SHARD_DATE_LENGTH = 8;
+    
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    
+    /**
+     * The oldest cut off across the default ttl and all of the rules, or null if it cannot be determined
+     */
+    private final Long oldestCutOffMillis;
+    
+    /**
+     * @param defaultCutOffMillis
+     *            the cut off of the default ttl
+     * @param rules
+     *            the rules loaded from the age off configuration file, already anchored to the scan start via {@link FilterRule#deepCopy(long)}
+     */
+    public ShardAgeOffEvaluator(long defaultCutOffMillis, Collection<? extends FilterRule> rules) {
+        Long oldest = defaultCutOffMillis;
+        for (FilterRule rule : rules) {
+            Long ruleCutOff = (rule instanceof AppliedRule) ? ((AppliedRule) rule).getOldestCutOffMilliseconds() : null;
+            if (ruleCutOff == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Unable to determine the oldest cut off for " + rule + ", file level age off is disabled");
+                }
+                oldest = null;
+                break;
+            }
+            oldest = Math.min(oldest, ruleCutOff);
+        }
+        this.oldestCutOffMillis = oldest;
+    }
+    
+    /**
+     * Create an evaluator from the same options that are used to configure a {@code ConfigurableAgeOffFilter}.
+     *
+     * @param options
+     *            the iterator options, using the {@code AgeOffConfigParams.TTL}, {@code AgeOffConfigParams.TTL_UNITS} and optionally
+     *            {@code AgeOffConfigParams.FILTER_CONFIG} keys
+     * @param scanStart
+     *            the time from which the ttls are measured
+     * @param conf
+     *            the hadoop configuration used to access the age off configuration file
+     * @return the evaluator
+     * @throws IOException
+     *             if the age off configuration file cannot be read
+     */
+    public static ShardAgeOffEvaluator create(Map<String,String> options, long scanStart, Configuration conf) throws IOException {
+        String ttl = options.get(AgeOffConfigParams.TTL);
+        String ttlUnits = options.get(AgeOffConfigParams.TTL_UNITS);
+        if (ttl == null || ttlUnits == null) {
+            throw new IllegalArgumentException(AgeOffConfigParams.TTL + " and " + AgeOffConfigParams.TTL_UNITS + " must be set");
+        }
+        long defaultCutOff = scanStart - (Long.parseLong(ttl) * AgeOffPeriod.getTtlUnitsFactor(ttlUnits));
+        
+        Collection<FilterRule> rules = Collections.emptyList();
+        String filename = options.get(AgeOffConfigParams.FILTER_CONFIG);
+        if (filename != null) {
+            Path filePath = new Path(filename);
+            FileSystem fs = filePath.getFileSystem(conf);
+            Collection<FilterRule> loaded = new FileRuleWatcher(fs, filePath, 1).reload();
+            if (loaded == null) {
+                throw new IOException("Unable to load age off rules from " + filename);
+            }
+            rules = new ArrayList<>(loaded.size());
+            for (FilterRule rule : loaded) {
+                rules.add(rule.deepCopy(scanStart));
+            }
+        }
+        return new ShardAgeOffEvaluator(defaultCutOff, rules);
+    }
+    
+    /**
+     * @return true if the configured rules allow ranges of rows to be evaluated at all
+     */
+    public boolean isEvaluable() {
+        return oldestCutOffMillis != null;
+    }
+    
+    /**
+     * @return the oldest cut off across the default ttl and all of the rules, or null if it cannot be determined
+     */
+    public Long getOldestCutOffMilliseconds() {
+        return oldestCutOffMillis;
+    }
+    
+    /**
+     * Determine whether every key within the range of rows [firstRow, lastRow] would be aged off, assuming their timestamps fall within their shard days.
+     *
+     * @param firstRow
+     *            the first row in the range
+     * @param lastRow
+     *            the last row in the range
+     * @return true if both rows are shard rows and the end of the day of the last row is at or before the oldest cut off
+     */
+    public boolean isAgedOff(Text firstRow, Text lastRow) {
+        if (oldestCutOffMillis == null || getShardDayStart(firstRow) < 0) {
+            return false;
+        }
+        long latestTimestamp = getLatestTimestamp(lastRow);
+        return latestTimestamp >= 0 && latestTimestamp <= oldestCutOffMillis;
+    }
+    
+    /**
+     * Determine whether every key with a timestamp at or before the given timestamp would be aged off.
+     *
+     * @param latestTimestamp
+     *            the latest timestamp of the keys
+     * @return true if the latest timestamp is at or before the oldest cut off
+     */
+    public boolean isAgedOff(long latestTimestamp) {
+        return oldestCutOffMillis != null && latestTimestamp <= oldestCutOffMillis;
+    }
+    
+    /**
+     * @param row
+     *            a shard table row
+     * @return the latest timestamp that a key within the shard row can have, or -1 if the row does not start with a shard date
+     */
+    public static long getLatestTimestamp(Text row) {
+        long dayStart = getShardDayStart(row);
+        return (dayStart < 0) ? -1 : dayStart + MILLIS_PER_DAY - 1;
+    }
+    
+    /**
+     * @param row
+     *            a shard table row
+     * @return the yyyyMMdd shard date of the row, or null if the row does not start with a shard date
+     */
+    public static String getShardDate(Text row) {
+        return (getShardDayStart(row) < 0) ? null : new String(row.getBytes(), 0, SHARD_DATE_LENGTH);
+    }
+    
+    private static long getShardDayStart(Text row) {
+        if (row == null || row.getLength() < SHARD_DATE_LENGTH) {
+            return -1;
+        }
+        byte[] bytes = row.getBytes();
+        for (int i = 0; i < SHARD_DATE_LENGTH; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return -1;
+            }
+        }
+        try {
+            LocalDate date = LocalDate.parse(new String(bytes, 0, SHARD_DATE_LENGTH), DateTimeFormatter.BASIC_ISO_DATE);
+            return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -11,6 +11,8 @@ public final class TableName {
     
     public static final String ERROR_SHARD = "errorShard";
     
+    public static final String FIELD_STATS = "fieldStats";
+    
     public static final String INDEX_STATS = "shardIndexStats";
     
     public static final String LOAD_DATES = "LoadDates";
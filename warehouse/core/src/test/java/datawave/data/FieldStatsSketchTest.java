@@ -0,0 +1,95 @@
+package datawave.data;
+
+import datawave.iterators.FieldStatsSketchCombiner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FieldStatsSketchTest {
+    
+    private static final Key KEY = new Key("FIELD", "20190601", "datatype");
+    
+    @Test
+    public void testSerialize() throws IOException {
+        FieldStatsSketch sketch = sketch(0, 1000, 3);
+        Assert.assertEquals(3000, sketch.getCount());
+        
+        FieldStatsSketch copy = new FieldStatsSketch(sketch.getValue());
+        Assert.assertEquals(sketch.getCount(), copy.getCount());
+        Assert.assertEquals(sketch.getCardinality(), copy.getCardinality());
+        Assert.assertEquals(1000, copy.getCardinality(), 1000 * 0.05);
+        Assert.assertEquals(1.0 / 3, copy.getSelectivity(), 0.05);
+    }
+    
+    @Test
+    public void testCardinalityNeverExceedsCount() {
+        FieldStatsSketch sketch = new FieldStatsSketch();
+        Assert.assertEquals(0, sketch.getCardinality());
+        Assert.assertEquals(0.0, sketch.getSelectivity(), 0.0);
+        sketch.offer("a");
+        Assert.assertEquals(1, sketch.getCardinality());
+        Assert.assertEquals(1.0, sketch.getSelectivity(), 0.0);
+    }
+    
+    @Test
+    public void testMergeOverlappingDays() {
+        // two days sharing half of their values
+        FieldStatsSketch merged = sketch(0, 1000, 1);
+        merged.merge(sketch(500, 1500, 2));
+        Assert.assertEquals(3000, merged.getCount());
+        Assert.assertEquals(1500, merged.getCardinality(), 1500 * 0.05);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecisions() {
+        new FieldStatsSketch(14, 25).merge(new FieldStatsSketch(12, 25));
+    }
+    
+    @Test
+    public void testCombiner() throws IOException {
+        FieldStatsSketchCombiner combiner = new FieldStatsSketchCombiner();
+        
+        // sketches written per event are combined into a single sketch
+        List<Value> values = new ArrayList<>();
+        for (int event = 0; event < 100; event++) {
+            values.add(sketch(event % 10, event % 10 + 1, 1).getValue());
+        }
+        FieldStatsSketch combined = new FieldStatsSketch(combiner.reduce(KEY, values.iterator()));
+        Assert.assertEquals(100, combined.getCount());
+        Assert.assertEquals(10, combined.getCardinality());
+        
+        // a single value is passed through untouched, and undecodable values are skipped
+        Value single = sketch(0, 5, 1).getValue();
+        Assert.assertEquals(single, combiner.reduce(KEY, Collections.singletonList(single).iterator()));
+        combined = new FieldStatsSketch(combiner.reduce(KEY, Arrays.asList(new Value(new byte[] {1}), single, single).iterator()));
+        Assert.assertEquals(10, combined.getCount());
+        Assert.assertEquals(5, combined.getCardinality());
+    }
+    
+    @Test
+    public void testCombinerKeepsUndecodableValues() {
+        FieldStatsSketchCombiner combiner = new FieldStatsSketchCombiner();
+        
+        // when nothing can be decoded, the first value is kept as it was instead of being replaced by an empty value
+        Value first = new Value(new byte[] {1});
+        Value second = new Value(new byte[] {2});
+        Assert.assertEquals(first, combiner.reduce(KEY, Arrays.asList(first, second).iterator()));
+    }
+    
+    private static FieldStatsSketch sketch(int from, int to, int repeats) {
+        FieldStatsSketch sketch = new FieldStatsSketch();
+        for (int r = 0; r < repeats; r++) {
+            for (int i = from; i < to; i++) {
+                sketch.offer("value" + i);
+            }
+        }
+        return sketch;
+    }
+}
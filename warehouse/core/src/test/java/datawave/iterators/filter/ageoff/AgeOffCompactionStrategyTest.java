@@ -0,0 +1,145 @@
+package datawave.iterators.filter.ageoff;
+
+import datawave.iterators.filter.AgeOffConfigParams;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.client.rfile.RFileWriter;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.server.fs.FileRef;
+import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.accumulo.tserver.compaction.CompactionPlan;
+import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
+import org.apache.accumulo.tserver.compaction.MajorCompactionRequest;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AgeOffCompactionStrategyTest {
+    
+    private static final long NOW = System.currentTimeMillis();
+    private static final String OLD_DAY = "20190101";
+    private static final long OLD_TIMESTAMP = LocalDate.of(2019, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final String RECENT_DAY = LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.BASIC_ISO_DATE);
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testDropsAgedOffFiles() throws Exception {
+        FileRef old = writeFile("old.rf", OLD_DAY, OLD_TIMESTAMP);
+        FileRef recent = writeFile("recent.rf", RECENT_DAY, NOW);
+        
+        // the rows of this file are from an old shard, but ingest wrote a key with a recent timestamp
+        FileRef late = writeFile("late.rf", OLD_DAY, NOW);
+        
+        AgeOffCompactionStrategy strategy = strategy(options(null));
+        MajorCompactionRequest request = request(old, recent, late);
+        Assert.assertTrue(strategy.shouldCompact(request));
+        strategy.gatherInformation(request);
+        CompactionPlan plan = strategy.getCompactionPlan(request);
+        Assert.assertEquals(Collections.singletonList(old), plan.deleteFiles);
+        Assert.assertFalse(plan.inputFiles.contains(old));
+    }
+    
+    @Test
+    public void testChopKeepsFiles() throws Exception {
+        FileRef old = writeFile("old.rf", OLD_DAY, OLD_TIMESTAMP);
+        
+        AgeOffCompactionStrategy strategy = strategy(options(null));
+        MajorCompactionRequest request = new MajorCompactionRequest(new KeyExtent("1", null, null), MajorCompactionReason.CHOP,
+                        VolumeManagerImpl.getLocal(folder.getRoot().getPath()), DefaultConfiguration.getInstance());
+        request.setFiles(Collections.singletonMap(old, new DataFileValue(1, 1)));
+        strategy.gatherInformation(request);
+        CompactionPlan plan = strategy.getCompactionPlan(request);
+        Assert.assertTrue(plan == null || plan.deleteFiles.isEmpty());
+    }
+    
+    @Test
+    public void testChangedConfigurationIsReloaded() throws Exception {
+        FileRef old = writeFile("old.rf", OLD_DAY, OLD_TIMESTAMP);
+        File config = folder.newFile("ageoff.xml");
+        
+        writeConfig(config, 1);
+        Assert.assertEquals(Collections.singletonList(old), deletedFiles(strategy(options(config)), old));
+        
+        // a rule with a longer ttl keeps the file, even though the evaluator of the previous configuration is still cached
+        writeConfig(config, 36500);
+        Assert.assertTrue(config.setLastModified(config.lastModified() + 60000));
+        Assert.assertEquals(Collections.emptyList(), deletedFiles(strategy(options(config)), old));
+    }
+    
+    private List<FileRef> deletedFiles(AgeOffCompactionStrategy strategy, FileRef... files) throws IOException {
+        MajorCompactionRequest request = request(files);
+        strategy.gatherInformation(request);
+        CompactionPlan plan = strategy.getCompactionPlan(request);
+        return (plan == null) ? Collections.emptyList() : plan.deleteFiles;
+    }
+    
+    private static AgeOffCompactionStrategy strategy(Map<String,String> options) {
+        AgeOffCompactionStrategy strategy = new AgeOffCompactionStrategy();
+        strategy.init(options);
+        return strategy;
+    }
+    
+    private static Map<String,String> options(File config) {
+        Map<String,String> options = new HashMap<>();
+        options.put(AgeOffConfigParams.TTL, "30");
+        options.put(AgeOffConfigParams.TTL_UNITS, "d");
+        if (config != null) {
+            options.put(AgeOffConfigParams.FILTER_CONFIG, config.toURI().toString());
+        }
+        return options;
+    }
+    
+    private static void writeConfig(File config, long ttlDays) throws IOException {
+        String xml = "<ageoffConfiguration><rules><rule><filterClass>datawave.iterators.filter.ColumnVisibilityRegexFilter</filterClass>"
+                        + "<ttl units=\"d\">" + ttlDays + "</ttl><matchPattern>.*</matchPattern></rule></rules></ageoffConfiguration>";
+        Files.write(config.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private FileRef writeFile(String name, String shardDay, long latestTimestamp) throws IOException {
+        // file references must be within a tablet directory of a table
+        File tabletDir = new File(folder.getRoot(), "tables/1/default_tablet");
+        Assert.assertTrue(tabletDir.isDirectory() || tabletDir.mkdirs());
+        Path path = new Path(new File(tabletDir, name).toURI());
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        try (RFileWriter writer = RFile.newWriter().to(path.toString()).withFileSystem(fs).build()) {
+            for (int shard = 0; shard < 3; shard++) {
+                String row = shardDay + "_" + shard;
+                writer.append(new Key(row, "datatype\u0000uid", "FIELD\u0000value", "", OLD_TIMESTAMP), new Value(new byte[0]));
+                writer.append(new Key(row, "datatype\u0000uid", "OTHER\u0000value", "", (shard == 1) ? latestTimestamp : OLD_TIMESTAMP), new Value(new byte[0]));
+            }
+        }
+        return new FileRef(path.toString(), path);
+    }
+    
+    private MajorCompactionRequest request(FileRef... files) throws IOException {
+        MajorCompactionRequest request = new MajorCompactionRequest(new KeyExtent("1", null, null), MajorCompactionReason.NORMAL,
+                        VolumeManagerImpl.getLocal(folder.getRoot().getPath()), DefaultConfiguration.getInstance());
+        Map<FileRef,DataFileValue> fileMap = new HashMap<>();
+        for (FileRef file : files) {
+            fileMap.put(file, new DataFileValue(1, 1));
+        }
+        request.setFiles(fileMap);
+        return request;
+    }
+}
@@ -0,0 +1,114 @@
+package datawave.iterators.filter.ageoff;
+
+import datawave.iterators.filter.AgeOffConfigParams;
+import datawave.iterators.filter.AgeOffTtlUnits;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AgeOffKeyPartsTest {
+    private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+    private static final String VISIBILITY = "MY_VIS";
+    private static final long NOW = System.currentTimeMillis();
+    
+    @Test
+    public void testShardTableParsing() {
+        AgeOffKeyParts parts = new AgeOffKeyParts();
+        
+        parts.reset(new Key("20190101_1", "dtA\u0000-abc.123", "FIELD_A.1\u0000value"));
+        Assert.assertEquals(AgeOffKeyParts.ColumnType.EVENT, parts.getColumnType());
+        Assert.assertEquals(bytes("dtA"), parts.getDataType(false));
+        Assert.assertEquals(bytes("FIELD_A"), parts.getField(false));
+        
+        parts.reset(new Key("20190101_1", "fi\u0000FIELD_B", "value\u0000dtB\u0000-abc.123"));
+        Assert.assertEquals(AgeOffKeyParts.ColumnType.FIELD_INDEX, parts.getColumnType());
+        Assert.assertEquals(bytes("dtB"), parts.getDataType(false));
+        Assert.assertEquals(bytes("FIELD_B"), parts.getField(false));
+        
+        parts.reset(new Key("20190101_1", "tf", "dtC\u0000-abc.123\u0000value\u0000FIELD_C"));
+        Assert.assertEquals(AgeOffKeyParts.ColumnType.TERM_FREQUENCY, parts.getColumnType());
+        Assert.assertEquals(bytes("dtC"), parts.getDataType(false));
+        Assert.assertEquals(bytes("FIELD_C"), parts.getField(false));
+        
+        parts.reset(new Key("20190101_1", "d", "dtD\u0000-abc.123\u0000view"));
+        Assert.assertEquals(AgeOffKeyParts.ColumnType.DOCUMENT, parts.getColumnType());
+        Assert.assertEquals(bytes("dtD"), parts.getDataType(false));
+        Assert.assertNull(parts.getField(false));
+    }
+    
+    @Test
+    public void testIndexTableParsing() {
+        AgeOffKeyParts parts = new AgeOffKeyParts(new Key("value", "FIELD_A", "20190101_1\u0000dtA"));
+        Assert.assertEquals(bytes("dtA"), parts.getDataType(true));
+        Assert.assertEquals(bytes("FIELD_A"), parts.getField(true));
+    }
+    
+    @Test
+    public void testSharedParseDecisions() {
+        FilterOptions dataTypeOptions = new FilterOptions();
+        dataTypeOptions.setTTL(10);
+        dataTypeOptions.setTTLUnits(AgeOffTtlUnits.DAYS);
+        dataTypeOptions.setOption("datatypes", "dtA,dtB");
+        dataTypeOptions.setOption("dtA." + AgeOffConfigParams.TTL, "10");
+        dataTypeOptions.setOption("dtB." + AgeOffConfigParams.TTL, "30");
+        dataTypeOptions.setOption(AgeOffConfigParams.IS_INDEX_TABLE, "false");
+        DataTypeAgeOffFilter dataTypeFilter = new DataTypeAgeOffFilter();
+        dataTypeFilter.init(dataTypeOptions);
+        dataTypeFilter = (DataTypeAgeOffFilter) dataTypeFilter.deepCopy(NOW);
+        
+        FilterOptions fieldOptions = new FilterOptions();
+        fieldOptions.setTTL(5);
+        fieldOptions.setTTLUnits(AgeOffTtlUnits.DAYS);
+        fieldOptions.setOption("fields", "FIELD_A,FIELD_C");
+        fieldOptions.setOption("FIELD_C." + AgeOffConfigParams.TTL, "60");
+        fieldOptions.setOption(AgeOffConfigParams.IS_INDEX_TABLE, "false");
+        fieldOptions.setOption(AgeOffConfigParams.MATCHPATTERN, VISIBILITY);
+        FieldAgeOffFilter fieldFilter = new FieldAgeOffFilter();
+        fieldFilter.init(fieldOptions);
+        fieldFilter = (FieldAgeOffFilter) fieldFilter.deepCopy(NOW);
+        
+        // key, data type ttl in days, field ttl in days (or null when the field rule does not apply)
+        Object[][] expectations = {
+                {"dtA\u0000-abc.123", "FIELD_A\u0000value", 10, 5},
+                {"dtB\u0000-abc.123", "FIELD_C.0\u0000value", 30, 60},
+                {"fi\u0000FIELD_A", "value\u0000dtB\u0000-abc.123", 30, 5},
+                // neither dtZ nor FIELD_Z are configured, so the data type default applies and the field rule does not
+                {"fi\u0000FIELD_Z", "value\u0000dtZ\u0000-abc.123", 10, null},
+                {"tf", "dtA\u0000-abc.123\u0000value\u0000FIELD_C", 10, 60},
+                // document entries have no field
+                {"d", "dtB\u0000-abc.123\u0000view", 30, null}};
+        
+        AgeOffKeyParts parts = new AgeOffKeyParts();
+        Value value = new Value();
+        for (long age : new long[] {1, 7, 15, 45, 90}) {
+            for (Object[] expectation : expectations) {
+                Key key = new Key("20190101_1", (String) expectation[0], (String) expectation[1], VISIBILITY, NOW - age * ONE_DAY);
+                int dataTypeTtl = (Integer) expectation[2];
+                Integer fieldTtl = (Integer) expectation[3];
+                String message = key + " aged " + age + " days";
+                
+                parts.reset(key);
+                ByteSequence dataType = parts.getDataType(false);
+                
+                Assert.assertEquals(message, age < dataTypeTtl, dataTypeFilter.accept(parts, value));
+                Assert.assertTrue(message, dataTypeFilter.isFilterRuleApplied());
+                Assert.assertEquals(message, fieldTtl == null || age < fieldTtl, fieldFilter.accept(parts, value));
+                Assert.assertEquals(message, fieldTtl != null, fieldFilter.isFilterRuleApplied());
+                
+                // the rules share what was parsed rather than parsing the key again
+                Assert.assertSame(message, dataType, parts.getDataType(false));
+                
+                // evaluating the key directly reaches the same decisions
+                Assert.assertEquals(message, age < dataTypeTtl, dataTypeFilter.accept(key, value));
+                Assert.assertEquals(message, fieldTtl == null || age < fieldTtl, fieldFilter.accept(key, value));
+            }
+        }
+    }
+    
+    private static ArrayByteSequence bytes(String value) {
+        return new ArrayByteSequence(value.getBytes());
+    }
+}
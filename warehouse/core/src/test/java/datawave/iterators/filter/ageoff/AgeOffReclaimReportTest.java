@@ -0,0 +1,92 @@
+package datawave.iterators.filter.ageoff;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.core.metadata.MetadataTable;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.DataFileColumnFamily;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.UUID;
+
+public class AgeOffReclaimReportTest {
+    
+    private static final String TABLE_NAME = "shard";
+    
+    // the end of 2019-01-02, so that only the tablets of the 1st and 2nd of January have aged off
+    private static final long CUT_OFF = LocalDate.of(2019, 1, 3).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1;
+    
+    private Connector connector;
+    private String tableId;
+    private int fileCount;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(TABLE_NAME);
+        tableId = connector.tableOperations().tableIdMap().get(TABLE_NAME);
+    }
+    
+    @Test
+    public void testUsagePerShardDate() throws Exception {
+        addTablet(null, "20190101_9", 100);
+        addTablet("20190101_9", "20190102_9", 200, 300);
+        addTablet("20190102_9", "20190103_9", 400);
+        addTablet("20190103_9", null, 500, 600);
+        
+        SortedMap<String,AgeOffReclaimReport.ShardDateUsage> usage = computeUsage();
+        Assert.assertEquals(3, usage.size());
+        
+        // the first tablet has no previous end row, so it cannot be reclaimed
+        assertUsage(usage.get("20190101"), 1, 100, 0, 0);
+        assertUsage(usage.get("20190102"), 2, 500, 2, 500);
+        
+        // the last tablet has no end row and is counted with the tablet before it
+        assertUsage(usage.get("20190103"), 3, 1500, 0, 0);
+    }
+    
+    @Test
+    public void testSingleTablet() throws Exception {
+        addTablet(null, null, 100);
+        
+        SortedMap<String,AgeOffReclaimReport.ShardDateUsage> usage = computeUsage();
+        Assert.assertEquals(Collections.singleton(AgeOffReclaimReport.UNKNOWN_SHARD_DATE), usage.keySet());
+        assertUsage(usage.get(AgeOffReclaimReport.UNKNOWN_SHARD_DATE), 1, 100, 0, 0);
+    }
+    
+    private SortedMap<String,AgeOffReclaimReport.ShardDateUsage> computeUsage() throws Exception {
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(CUT_OFF, Collections.emptyList());
+        return new AgeOffReclaimReport(connector, evaluator).computeUsage(TABLE_NAME);
+    }
+    
+    private void addTablet(String prevEndRow, String endRow, long... fileSizes) throws Exception {
+        KeyExtent extent = new KeyExtent(tableId, (endRow == null) ? null : new Text(endRow), (prevEndRow == null) ? null : new Text(prevEndRow));
+        Mutation mutation = extent.getPrevRowUpdateMutation();
+        for (long fileSize : fileSizes) {
+            mutation.put(DataFileColumnFamily.NAME, new Text("/t-" + (fileCount++) + "/F0000.rf"), new DataFileValue(fileSize, 10).encodeAsValue());
+        }
+        BatchWriter writer = connector.createBatchWriter(MetadataTable.NAME, new BatchWriterConfig());
+        writer.addMutation(mutation);
+        writer.close();
+    }
+    
+    private static void assertUsage(AgeOffReclaimReport.ShardDateUsage usage, long files, long bytes, long reclaimableFiles, long reclaimableBytes) {
+        Assert.assertNotNull(usage);
+        Assert.assertEquals(files, usage.getFiles());
+        Assert.assertEquals(bytes, usage.getBytes());
+        Assert.assertEquals(reclaimableFiles, usage.getReclaimableFiles());
+        Assert.assertEquals(reclaimableBytes, usage.getReclaimableBytes());
+    }
+}
@@ -0,0 +1,110 @@
+package datawave.iterators.filter.ageoff;
+
+import datawave.iterators.filter.AgeOffConfigParams;
+import datawave.iterators.filter.AgeOffTtlUnits;
+import datawave.iterators.filter.ColumnVisibilityRegexFilter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ShardAgeOffEvaluatorTest {
+    
+    // 2019-06-01T00:00:00Z
+    private static final long NOW = LocalDate.of(2019, 6, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+    
+    @Test
+    public void testDefaultTtlOnly() {
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(NOW - 30 * ONE_DAY, Collections.emptyList());
+        Assert.assertTrue(evaluator.isEvaluable());
+        
+        // the 30 day cut off is 2019-05-02T00:00:00Z, so the 1st of May is entirely aged off but the 2nd is not
+        Assert.assertTrue(evaluator.isAgedOff(new Text("20190401_0"), new Text("20190501_9")));
+        Assert.assertFalse(evaluator.isAgedOff(new Text("20190401_0"), new Text("20190502_0")));
+    }
+    
+    @Test
+    public void testOldestRuleCutOffWins() {
+        AppliedRule regexRule = rule(new ColumnVisibilityRegexFilter(), 60);
+        
+        FilterOptions dataTypeOptions = options(10);
+        dataTypeOptions.setOption("datatypes", "foo,bar");
+        dataTypeOptions.setOption("foo." + AgeOffConfigParams.TTL, "20");
+        dataTypeOptions.setOption("bar." + AgeOffConfigParams.TTL, "90");
+        AppliedRule dataTypeRule = rule(new DataTypeAgeOffFilter(), dataTypeOptions);
+        
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(NOW - 30 * ONE_DAY, Arrays.asList(regexRule, dataTypeRule));
+        Assert.assertEquals(Long.valueOf(NOW - 90 * ONE_DAY), evaluator.getOldestCutOffMilliseconds());
+        
+        // the 90 day cut off is 2019-03-03T00:00:00Z
+        Assert.assertTrue(evaluator.isAgedOff(new Text("20190101_0"), new Text("20190302_5")));
+        Assert.assertFalse(evaluator.isAgedOff(new Text("20190101_0"), new Text("20190303_0")));
+    }
+    
+    @Test
+    public void testLatestTimestamp() {
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(NOW - 30 * ONE_DAY, Collections.emptyList());
+        Assert.assertTrue(evaluator.isAgedOff(NOW - 31 * ONE_DAY));
+        Assert.assertTrue(evaluator.isAgedOff(NOW - 30 * ONE_DAY));
+        Assert.assertFalse(evaluator.isAgedOff(NOW - 30 * ONE_DAY + 1));
+        
+        // the rows of a shard do not bound the timestamps of its keys, which must be checked on their own
+        Assert.assertTrue(evaluator.isAgedOff(new Text("20190401_0"), new Text("20190401_9")));
+        Assert.assertFalse(evaluator.isAgedOff(NOW));
+    }
+    
+    @Test
+    public void testUnknownRuleDisablesEvaluation() {
+        AppliedRule unknown = new AppliedRule() {
+            @Override
+            public boolean isFilterRuleApplied() {
+                return true;
+            }
+            
+            @Override
+            public boolean accept(AgeOffPeriod period, Key k, Value V) {
+                return false;
+            }
+        };
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(NOW - 30 * ONE_DAY, Collections.singletonList(unknown));
+        Assert.assertFalse(evaluator.isEvaluable());
+        Assert.assertFalse(evaluator.isAgedOff(new Text("20000101_0"), new Text("20000101_9")));
+        Assert.assertFalse(evaluator.isAgedOff(0L));
+    }
+    
+    @Test
+    public void testNonShardRows() {
+        ShardAgeOffEvaluator evaluator = new ShardAgeOffEvaluator(NOW, Collections.emptyList());
+        Assert.assertFalse(evaluator.isAgedOff(new Text("abc"), new Text("20190101_0")));
+        Assert.assertFalse(evaluator.isAgedOff(new Text("20190101_0"), new Text("2019xx01_0")));
+        Assert.assertFalse(evaluator.isAgedOff(null, new Text("20190101_0")));
+        Assert.assertEquals("20190101", ShardAgeOffEvaluator.getShardDate(new Text("20190101_12")));
+        Assert.assertNull(ShardAgeOffEvaluator.getShardDate(new Text("value")));
+        Assert.assertEquals(NOW + ONE_DAY - 1, ShardAgeOffEvaluator.getLatestTimestamp(new Text("20190601_3")));
+    }
+    
+    private static FilterOptions options(long ttlDays) {
+        FilterOptions options = new FilterOptions();
+        options.setTTL(ttlDays);
+        options.setTTLUnits(AgeOffTtlUnits.DAYS);
+        return options;
+    }
+    
+    private static AppliedRule rule(AppliedRule rule, long ttlDays) {
+        FilterOptions options = options(ttlDays);
+        options.setOption(AgeOffConfigParams.MATCHPATTERN, ".*");
+        return rule(rule, options);
+    }
+    
+    private static AppliedRule rule(AppliedRule rule, FilterOptions options) {
+        rule.init(options);
+        return (AppliedRule) rule.deepCopy(NOW);
+    }
+}
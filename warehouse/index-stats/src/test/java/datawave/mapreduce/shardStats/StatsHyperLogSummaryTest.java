@@ -1,6 +1,7 @@
 package datawave.mapreduce.shardStats;
 
 import com.clearspring.analytics.stream.cardinality.HyperLogLogPlus;
+import datawave.data.FieldStatsSketch;
 import org.apache.accumulo.core.data.Value;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.log4j.Level;
@@ -59,6 +60,22 @@ public class StatsHyperLogSummaryTest {
         }
     }
     
+    @Test
+    public void testFieldStatsSketchCompatibility() throws IOException {
+        HyperLogLogPlus logPlus = createHyperLog();
+        final StatsHyperLogSummary summary = new StatsHyperLogSummary(100, logPlus, this.uniqueCount);
+        
+        // mapper output can be read as a field stats sketch
+        FieldStatsSketch sketch = new FieldStatsSketch(new Value(summary.toByteArray()));
+        Assert.assertEquals(100, sketch.getCount());
+        Assert.assertEquals(this.uniqueCount, sketch.getCardinality());
+        
+        // and a field stats sketch can be read as mapper output
+        final StatsHyperLogSummary fromSketch = new StatsHyperLogSummary(sketch.getValue());
+        Assert.assertEquals(100, fromSketch.getCount());
+        Assert.assertEquals(this.uniqueCount, fromSketch.getHyperLogPlus().cardinality());
+    }
+    
     /**
      * Randomly populates a {@link HyperLogLogPlus} object.
      */
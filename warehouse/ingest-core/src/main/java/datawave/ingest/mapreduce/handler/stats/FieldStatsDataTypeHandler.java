@@ -0,0 +1,153 @@
+package datawave.ingest.mapreduce.handler.stats;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import datawave.data.FieldStatsSketch;
+import datawave.ingest.data.RawRecordContainer;
+import datawave.ingest.data.Type;
+import datawave.ingest.data.TypeRegistry;
+import datawave.ingest.data.config.NormalizedContentInterface;
+import datawave.ingest.data.config.ingest.IngestHelperInterface;
+import datawave.ingest.mapreduce.handler.DataTypeHandler;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+import datawave.ingest.metadata.RawRecordMetadata;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data type handler that maintains incremental index statistics while ingesting. For every event, a {@link FieldStatsSketch} of the values of each indexed
+ * field is written to the field stats table with the following key structure:
+ *
+ * <pre>
+ * row: field name
+ * colf: event date (yyyyMMdd)
+ * colq: datatype
+ * </pre>
+ *
+ * The table is configured by the {@code FieldStatsTableConfigHelper} with the {@code FieldStatsSketchCombiner}, which merges the sketches for the same field,
+ * day and datatype. Configuring the same combiner for the ingest reducer avoids writing one entry per event, for example:
+ *
+ * <pre>
+ * combiner.fieldStats.19.iterClazz=datawave.iterators.FieldStatsSketchCombiner
+ * </pre>
+ *
+ * Unlike the index-stats {@code StatsJob}, the statistics never need to be recomputed from the shard table, and the cardinality of any range of days can be
+ * estimated by merging the daily sketches on read.
+ *
+ * @param <KEYIN>
+ */
+public class FieldStatsDataTypeHandler<KEYIN> implements DataTypeHandler<KEYIN> {
+    
+    private static final Logger log = Logger.getLogger(FieldStatsDataTypeHandler.class);
+    
+    public static final String FIELD_STATS_TABLE = "fieldStats.table.name";
+    public static final String FIELD_STATS_LPRIORITY = "fieldStats.table.loader.priority";
+    public static final String FIELD_STATS_VISIBILITY = "fieldStats.visibility";
+    public static final String FIELD_STATS_NORMAL_PRECISION = "fieldStats.hyperlog.normal";
+    public static final String FIELD_STATS_SPARSE_PRECISION = "fieldStats.hyperlog.sparse";
+    
+    private Configuration conf;
+    private Text tableName;
+    private ColumnVisibility visibility;
+    private int normalPrecision;
+    private int sparsePrecision;
+    
+    @Override
+    public void setup(TaskAttemptContext context) {
+        conf = context.getConfiguration();
+        TypeRegistry.getInstance(conf);
+        
+        String table = conf.get(FIELD_STATS_TABLE);
+        if (table == null) {
+            log.warn(FIELD_STATS_TABLE + " not specified, no field stats will be created.");
+        } else {
+            tableName = new Text(table);
+        }
+        visibility = new ColumnVisibility(conf.get(FIELD_STATS_VISIBILITY, ""));
+        normalPrecision = conf.getInt(FIELD_STATS_NORMAL_PRECISION, FieldStatsSketch.DEFAULT_NORMAL_PRECISION);
+        sparsePrecision = conf.getInt(FIELD_STATS_SPARSE_PRECISION, FieldStatsSketch.DEFAULT_SPARSE_PRECISION);
+    }
+    
+    @Override
+    public String[] getTableNames(Configuration conf) {
+        List<String> tables = new ArrayList<>(1);
+        String table = conf.get(FIELD_STATS_TABLE, null);
+        if (null != table) {
+            tables.add(table);
+        }
+        
+        return tables.toArray(new String[tables.size()]);
+    }
+    
+    @Override
+    public int[] getTableLoaderPriorities(Configuration conf) {
+        int[] priorities;
+        String table = conf.get(FIELD_STATS_TABLE, null);
+        if (null != table) {
+            priorities = new int[1];
+            priorities[0] = conf.getInt(FIELD_STATS_LPRIORITY, 30);
+        } else {
+            priorities = new int[0];
+        }
+        
+        return priorities;
+    }
+    
+    @Override
+    public Multimap<BulkIngestKey,Value> processBulk(KEYIN key, RawRecordContainer event, Multimap<String,NormalizedContentInterface> fields,
+                    StatusReporter reporter) {
+        Multimap<BulkIngestKey,Value> values = HashMultimap.create();
+        if (tableName == null) {
+            return values;
+        }
+        
+        IngestHelperInterface helper = getHelper(event.getDataType());
+        Map<String,FieldStatsSketch> sketches = new HashMap<>();
+        for (Map.Entry<String,NormalizedContentInterface> field : fields.entries()) {
+            if (helper.isIndexedField(field.getKey())) {
+                sketches.computeIfAbsent(field.getKey(), k -> new FieldStatsSketch(normalPrecision, sparsePrecision)).offer(
+                                field.getValue().getIndexedFieldValue());
+            }
+        }
+        
+        Text date = new Text(DateHelper.format(event.getDate()));
+        Text dataType = new Text(event.getDataType().outputName());
+        for (Map.Entry<String,FieldStatsSketch> sketch : sketches.entrySet()) {
+            Key k = new Key(new Text(sketch.getKey()), date, dataType, visibility, event.getDate());
+            try {
+                values.put(new BulkIngestKey(tableName, k), sketch.getValue().getValue());
+            } catch (IOException e) {
+                log.error("Unable to serialize field stats for " + k, e);
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public IngestHelperInterface getHelper(Type datatype) {
+        return datatype.getIngestHelper(conf);
+    }
+    
+    @Override
+    public void close(TaskAttemptContext context) {
+        // do nothing
+    }
+    
+    @Override
+    public RawRecordMetadata getMetadata() {
+        return null;
+    }
+}
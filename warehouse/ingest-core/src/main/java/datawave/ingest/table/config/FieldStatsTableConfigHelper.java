@@ -0,0 +1,46 @@
+package datawave.ingest.table.config;
+
+import datawave.ingest.mapreduce.handler.stats.FieldStatsDataTypeHandler;
+import datawave.iterators.FieldStatsSketchCombiner;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.admin.TableOperations;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+/**
+ * Configures the table written by the {@link FieldStatsDataTypeHandler} to merge the field stats sketches of each field, day and datatype.
+ */
+public class FieldStatsTableConfigHelper extends AbstractTableConfigHelper {
+    
+    protected Logger log;
+    protected Configuration conf;
+    protected String tableName;
+    
+    @Override
+    public void setup(String tableName, Configuration config, Logger log) throws IllegalArgumentException {
+        this.log = log;
+        this.conf = config;
+        this.tableName = tableName;
+        
+        String fieldStatsTableName = conf.get(FieldStatsDataTypeHandler.FIELD_STATS_TABLE);
+        if (fieldStatsTableName == null) {
+            throw new IllegalArgumentException("Field Stats Table is not defined in the Configuration.");
+        }
+        if (!this.tableName.equals(fieldStatsTableName)) {
+            throw new IllegalArgumentException("Invalid Field Stats Table Definition For: " + this.tableName);
+        }
+    }
+    
+    @Override
+    public void configure(TableOperations tops) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        for (IteratorScope scope : IteratorScope.values()) {
+            String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scope.name(), "FieldStatsSketchCombiner");
+            setPropertyIfNecessary(tableName, stem, "19," + FieldStatsSketchCombiner.class.getName(), tops, log);
+            setPropertyIfNecessary(tableName, stem + ".opt.all", "true", tops, log);
+        }
+    }
+}
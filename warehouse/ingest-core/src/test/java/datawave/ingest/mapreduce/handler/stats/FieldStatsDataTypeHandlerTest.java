@@ -0,0 +1,151 @@
+package datawave.ingest.mapreduce.handler.stats;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import datawave.data.FieldStatsSketch;
+import datawave.ingest.data.RawRecordContainer;
+import datawave.ingest.data.RawRecordContainerImplTest;
+import datawave.ingest.data.TypeRegistry;
+import datawave.ingest.data.config.BaseNormalizedContent;
+import datawave.ingest.data.config.DataTypeHelper.Properties;
+import datawave.ingest.data.config.NormalizedContentInterface;
+import datawave.ingest.data.config.ingest.BaseIngestHelper;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+import datawave.iterators.FieldStatsSketchCombiner;
+import datawave.policy.IngestPolicyEnforcer;
+import datawave.util.TableName;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FieldStatsDataTypeHandlerTest {
+    
+    // 2019-06-01T12:00:00Z
+    private static final long EVENT_DATE = 1559390400000L;
+    
+    private Configuration conf;
+    
+    @Before
+    public void setup() {
+        conf = new Configuration();
+        conf.set("data.name", "testdatatype");
+        conf.set("testdatatype.ingest.helper.class", TestIngestHelper.class.getName());
+        conf.set("testdatatype.handler.classes", FieldStatsDataTypeHandler.class.getName());
+        conf.set("testdatatype" + BaseIngestHelper.INDEX_FIELDS, "NAME,COLOR");
+        conf.set("all" + Properties.INGEST_POLICY_ENFORCER_CLASS, IngestPolicyEnforcer.NoOpIngestPolicyEnforcer.class.getName());
+        conf.set(FieldStatsDataTypeHandler.FIELD_STATS_VISIBILITY, "STATS");
+        
+        TypeRegistry.reset();
+        TypeRegistry.getInstance(conf);
+    }
+    
+    @Test
+    public void testSketchPerIndexedField() throws Exception {
+        conf.set(FieldStatsDataTypeHandler.FIELD_STATS_TABLE, TableName.FIELD_STATS);
+        FieldStatsDataTypeHandler<Text> handler = handler();
+        Assert.assertArrayEquals(new String[] {TableName.FIELD_STATS}, handler.getTableNames(conf));
+        Assert.assertArrayEquals(new int[] {30}, handler.getTableLoaderPriorities(conf));
+        
+        Multimap<BulkIngestKey,Value> values = handler.processBulk(new Text("1"), getEvent(), getFields(), null);
+        Assert.assertEquals(2, values.size());
+        
+        Map<String,FieldStatsSketch> sketches = new HashMap<>();
+        for (Map.Entry<BulkIngestKey,Value> entry : values.entries()) {
+            Assert.assertEquals(TableName.FIELD_STATS, entry.getKey().getTableName().toString());
+            Key key = entry.getKey().getKey();
+            Assert.assertEquals("20190601", key.getColumnFamily().toString());
+            Assert.assertEquals("testdatatype", key.getColumnQualifier().toString());
+            Assert.assertEquals("STATS", key.getColumnVisibility().toString());
+            Assert.assertEquals(EVENT_DATE, key.getTimestamp());
+            sketches.put(key.getRow().toString(), new FieldStatsSketch(entry.getValue()));
+        }
+        
+        // SIZE is not indexed so it has no stats
+        Assert.assertEquals(3, sketches.get("NAME").getCount());
+        Assert.assertEquals(2, sketches.get("NAME").getCardinality());
+        Assert.assertEquals(1, sketches.get("COLOR").getCount());
+        Assert.assertEquals(1, sketches.get("COLOR").getCardinality());
+        Assert.assertNull(sketches.get("SIZE"));
+    }
+    
+    @Test
+    public void testEventsCombine() throws Exception {
+        conf.set(FieldStatsDataTypeHandler.FIELD_STATS_TABLE, TableName.FIELD_STATS);
+        FieldStatsDataTypeHandler<Text> handler = handler();
+        
+        // the same field, day and datatype from two events combines into one sketch of both
+        List<Value> names = new ArrayList<>();
+        Key nameKey = null;
+        for (int event = 0; event < 2; event++) {
+            for (Map.Entry<BulkIngestKey,Value> entry : handler.processBulk(new Text("1"), getEvent(), getFields(), null).entries()) {
+                if ("NAME".equals(entry.getKey().getKey().getRow().toString())) {
+                    nameKey = entry.getKey().getKey();
+                    names.add(entry.getValue());
+                }
+            }
+        }
+        Assert.assertEquals(2, names.size());
+        
+        FieldStatsSketch combined = new FieldStatsSketch(new FieldStatsSketchCombiner().reduce(nameKey, names.iterator()));
+        Assert.assertEquals(6, combined.getCount());
+        Assert.assertEquals(2, combined.getCardinality());
+    }
+    
+    @Test
+    public void testNoTableConfigured() {
+        FieldStatsDataTypeHandler<Text> handler = handler();
+        Assert.assertEquals(0, handler.getTableNames(conf).length);
+        Assert.assertEquals(0, handler.getTableLoaderPriorities(conf).length);
+        Assert.assertTrue(handler.processBulk(new Text("1"), getEvent(), getFields(), null).isEmpty());
+    }
+    
+    private FieldStatsDataTypeHandler<Text> handler() {
+        FieldStatsDataTypeHandler<Text> handler = new FieldStatsDataTypeHandler<>();
+        handler.setup(new TaskAttemptContextImpl(conf, new TaskAttemptID()));
+        return handler;
+    }
+    
+    private static Multimap<String,NormalizedContentInterface> getFields() {
+        // a list multimap so that the repeated value is counted again
+        Multimap<String,NormalizedContentInterface> fields = ArrayListMultimap.create();
+        fields.put("NAME", new BaseNormalizedContent("NAME", "alice"));
+        fields.put("NAME", new BaseNormalizedContent("NAME", "bob"));
+        fields.put("NAME", new BaseNormalizedContent("NAME", "alice"));
+        fields.put("COLOR", new BaseNormalizedContent("COLOR", "red"));
+        fields.put("SIZE", new BaseNormalizedContent("SIZE", "big"));
+        return fields;
+    }
+    
+    private static RawRecordContainer getEvent() {
+        RawRecordContainerImplTest.ValidatingRawRecordContainerImpl event = new RawRecordContainerImplTest.ValidatingRawRecordContainerImpl();
+        event.setDataType(TypeRegistry.getType("testdatatype"));
+        event.setSecurityMarkings(null);
+        event.setVisibility(new ColumnVisibility("A&B"));
+        event.setDate(EVENT_DATE);
+        event.setRawFileName("FieldStatsDataTypeHandlerTest.data");
+        event.setRawRecordNumber(1l);
+        event.setRawData("data".getBytes());
+        event.generateId(null);
+        event.validate();
+        return event;
+    }
+    
+    public static class TestIngestHelper extends BaseIngestHelper {
+        @Override
+        public Multimap<String,NormalizedContentInterface> getEventFields(RawRecordContainer event) {
+            return getFields();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package datawave.ingest.table.config;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.FieldStatsSketch;
+import datawave.ingest.mapreduce.handler.stats.FieldStatsDataTypeHandler;
+import datawave.iterators.FieldStatsSketchCombiner;
+import datawave.util.TableName;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+public class FieldStatsTableConfigHelperTest {
+    
+    private static final Logger log = Logger.getLogger(FieldStatsTableConfigHelperTest.class);
+    
+    private Connector connector;
+    private Configuration conf;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(TableName.FIELD_STATS);
+        conf = new Configuration();
+        conf.set(FieldStatsDataTypeHandler.FIELD_STATS_TABLE, TableName.FIELD_STATS);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetupNoTableConfigured() {
+        new FieldStatsTableConfigHelper().setup(TableName.FIELD_STATS, new Configuration(), log);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetupOtherTable() {
+        new FieldStatsTableConfigHelper().setup(TableName.SHARD, conf, log);
+    }
+    
+    @Test
+    public void testConfigure() throws Exception {
+        FieldStatsTableConfigHelper helper = new FieldStatsTableConfigHelper();
+        helper.setup(TableName.FIELD_STATS, conf, log);
+        helper.configure(connector.tableOperations());
+        
+        Map<String,String> properties = new HashMap<>();
+        for (Entry<String,String> property : connector.tableOperations().getProperties(TableName.FIELD_STATS)) {
+            properties.put(property.getKey(), property.getValue());
+        }
+        for (IteratorScope scope : IteratorScope.values()) {
+            String stem = "table.iterator." + scope.name() + ".FieldStatsSketchCombiner";
+            Assert.assertEquals("19," + FieldStatsSketchCombiner.class.getName(), properties.get(stem));
+            Assert.assertEquals("true", properties.get(stem + ".opt.all"));
+        }
+        
+        // sketches written separately for the same field, day and datatype are read back merged
+        BatchWriter writer = connector.createBatchWriter(TableName.FIELD_STATS, new BatchWriterConfig());
+        for (int event = 0; event < 3; event++) {
+            FieldStatsSketch sketch = new FieldStatsSketch();
+            sketch.offer("value" + event);
+            sketch.offer("value" + (event + 1));
+            Mutation m = new Mutation("FIELD");
+            m.put("20190601", "datatype", event, sketch.getValue());
+            writer.addMutation(m);
+        }
+        writer.close();
+        
+        Scanner scanner = connector.createScanner(TableName.FIELD_STATS, new Authorizations());
+        int entries = 0;
+        for (Entry<Key,Value> entry : scanner) {
+            FieldStatsSketch merged = new FieldStatsSketch(entry.getValue());
+            Assert.assertEquals(6, merged.getCount());
+            Assert.assertEquals(4, merged.getCardinality());
+            entries++;
+        }
+        Assert.assertEquals(1, entries);
+    }
+}
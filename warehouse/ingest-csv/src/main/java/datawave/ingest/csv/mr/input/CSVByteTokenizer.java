@@ -0,0 +1,277 @@
+package datawave.ingest.csv.mr.input;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits a UTF-8 encoded line into fields in a single pass over its bytes. The fields are kept as offsets into the line, and only decoded into Strings when
+ * requested.
+ * <p>
+ * Tokens are identical to those of the StrTokenizer previously used by {@link CSVReaderBase}: with quoting enabled (the CSV and TSV instances) whitespace is
+ * trimmed from either end of a token, a token starting with a quote is read up to its closing quote with doubled quotes collapsed, and quotes in a token that
+ * does not start with one are literal. Empty tokens are returned as null.
+ */
+public class CSVByteTokenizer {
+    
+    private static final byte QUOTE = '"';
+    
+    private final byte[] delimiter;
+    private final boolean quoting;
+    
+    private byte[] bytes;
+    private int size;
+    
+    /** Start offsets of the fields, after any leading whitespace */
+    private int[] starts = new int[64];
+    
+    /** End offsets of the fields. For unquoted fields trailing whitespace is excluded, for quoted fields this is the start of the next delimiter. */
+    private int[] ends = new int[64];
+    
+    /** Whether a field starts with a quote and has to be unquoted when decoded */
+    private boolean[] quoted = new boolean[64];
+    
+    /** Work area used to unquote fields */
+    private byte[] workArea = new byte[256];
+    
+    /**
+     * Creates a tokenizer for the configured CSV separator: the CSV instance for ",", the TSV instance for "\t" and a plain, unquoted and untrimmed split on
+     * the separator otherwise.
+     *
+     * @param separator
+     *            the configured separator
+     * @return a tokenizer for the separator
+     */
+    public static CSVByteTokenizer forSeparator(String separator) {
+        if (separator.equals(",")) {
+            return new CSVByteTokenizer(",", true);
+        } else if (separator.equals("\\t")) {
+            return new CSVByteTokenizer("\t", true);
+        } else {
+            return new CSVByteTokenizer(separator, false);
+        }
+    }
+    
+    public CSVByteTokenizer(String delimiter, boolean quoting) {
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("The delimiter may not be empty");
+        }
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.quoting = quoting;
+    }
+    
+    /**
+     * Tokenizes a line, replacing the fields of the previous one. The line is not copied, so it must not change while its fields are read.
+     *
+     * @param bytes
+     *            the buffer holding the line
+     * @param length
+     *            the length of the line in the buffer
+     * @return the number of fields
+     */
+    public int reset(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.size = 0;
+        
+        if (length == 0) {
+            return 0;
+        }
+        
+        int pos = 0;
+        while (pos >= 0) {
+            pos = readField(pos, length);
+        }
+        return size;
+    }
+    
+    /**
+     * Reads the field starting at pos.
+     *
+     * @return the start of the next field, or -1 when the line has been read
+     */
+    private int readField(int pos, int length) {
+        if (quoting) {
+            while (pos < length && isWhitespace(bytes[pos]) && !isDelimiter(pos, length)) {
+                pos++;
+            }
+        }
+        
+        if (quoting && pos < length && bytes[pos] == QUOTE) {
+            // find the end of the quoted section(s), the field then ends at the next delimiter
+            int start = pos;
+            boolean inQuotes = true;
+            pos++;
+            while (pos < length) {
+                if (inQuotes) {
+                    if (bytes[pos] == QUOTE) {
+                        if (pos + 1 < length && bytes[pos + 1] == QUOTE) {
+                            pos += 2;
+                            continue;
+                        }
+                        inQuotes = false;
+                    }
+                    pos++;
+                } else if (isDelimiter(pos, length)) {
+                    addField(start, pos, true);
+                    return pos + delimiter.length;
+                } else {
+                    if (bytes[pos] == QUOTE) {
+                        inQuotes = true;
+                    }
+                    pos++;
+                }
+            }
+            addField(start, length, true);
+            return -1;
+        }
+        
+        int start = pos;
+        int end = pos;
+        while (pos < length) {
+            if (isDelimiter(pos, length)) {
+                addField(start, end, false);
+                return pos + delimiter.length;
+            }
+            if (!quoting || !isWhitespace(bytes[pos])) {
+                end = pos + 1;
+            }
+            pos++;
+        }
+        addField(start, end, false);
+        return -1;
+    }
+    
+    private boolean isDelimiter(int pos, int length) {
+        if (bytes[pos] != delimiter[0] || pos + delimiter.length > length) {
+            return false;
+        }
+        for (int i = 1; i < delimiter.length; i++) {
+            if (bytes[pos + i] != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /** Matches the characters trimmed by the StrTokenizer CSV and TSV instances, i.e. space and the control characters. */
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+    
+    private void addField(int start, int end, boolean isQuoted) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            quoted = Arrays.copyOf(quoted, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        quoted[size] = isQuoted;
+        size++;
+    }
+    
+    /** @return the number of fields in the current line */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @param index
+     *            the field index
+     * @return the decoded field, or null if it is empty
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + size);
+        }
+        if (quoted[index]) {
+            return unquote(starts[index], ends[index]);
+        }
+        int length = ends[index] - starts[index];
+        return length == 0 ? null : new String(bytes, starts[index], length, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Decodes a field starting with a quote. Quotes are removed and doubled quotes within quotes are collapsed. Whitespace following the last quoted section
+     * is trimmed.
+     */
+    private String unquote(int start, int end) {
+        if (workArea.length < end - start) {
+            workArea = new byte[Math.max(end - start, workArea.length * 2)];
+        }
+        int length = 0;
+        int trimmedLength = 0;
+        boolean inQuotes = true;
+        int pos = start + 1;
+        while (pos < end) {
+            byte b = bytes[pos];
+            if (inQuotes) {
+                if (b == QUOTE) {
+                    if (pos + 1 < end && bytes[pos + 1] == QUOTE) {
+                        workArea[length++] = QUOTE;
+                        trimmedLength = length;
+                        pos += 2;
+                        continue;
+                    }
+                    inQuotes = false;
+                } else {
+                    workArea[length++] = b;
+                    trimmedLength = length;
+                }
+            } else if (b == QUOTE) {
+                inQuotes = true;
+            } else {
+                workArea[length++] = b;
+                if (!isWhitespace(b)) {
+                    trimmedLength = length;
+                }
+            }
+            pos++;
+        }
+        return trimmedLength == 0 ? null : new String(workArea, 0, trimmedLength, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Splits a value on each occurrence of the separator that is not preceded by a backslash, in a single pass. The parts are the same as those of
+     * {@code value.split("(?<!\\\\)" + separator)} for a separator without regular expression meta characters, including the removal of trailing empty parts.
+     *
+     * @param value
+     *            the value to split
+     * @param separator
+     *            the literal separator
+     * @param consumer
+     *            receives each part in order
+     */
+    public static void splitEscapeSafe(String value, String separator, Consumer<String> consumer) {
+        int start = 0;
+        int emptyParts = 0;
+        int matches = 0;
+        int index = value.indexOf(separator);
+        while (index >= 0) {
+            if (index > 0 && value.charAt(index - 1) == '\\') {
+                index = value.indexOf(separator, index + 1);
+                continue;
+            }
+            matches++;
+            if (index == start) {
+                // only passed on once followed by a non-empty part
+                emptyParts++;
+            } else {
+                for (; emptyParts > 0; emptyParts--) {
+                    consumer.accept("");
+                }
+                consumer.accept(value.substring(start, index));
+            }
+            start = index + separator.length();
+            index = value.indexOf(separator, start);
+        }
+        if (matches == 0) {
+            consumer.accept(value);
+        } else if (start < value.length()) {
+            for (; emptyParts > 0; emptyParts--) {
+                consumer.accept("");
+            }
+            consumer.accept(value.substring(start));
+        }
+    }
+}
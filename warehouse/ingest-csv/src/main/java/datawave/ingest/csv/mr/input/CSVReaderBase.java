@@ -9,7 +9,6 @@ import datawave.ingest.data.RawDataErrorNames;
 
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.text.StrTokenizer;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
@@ -19,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Pattern;
 
 /**
  * RecordReader that reads events from "Comma"-Separated-Value formats. Here the "Comma" can be any separator.
@@ -42,8 +43,11 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
     /** Primary DataTypeHelper for CSV records. */
     private CSVHelper csvHelper;
     
-    /** Splits raw input records Strings according to the configured separator. */
-    private StrTokenizer _tokenizer;
+    /** Splits raw input records according to the configured separator, directly from the bytes of the current line. */
+    private CSVByteTokenizer _tokenizer;
+    
+    /** Splits multi-valued fields when the multi-value separator is a regular expression rather than a literal; null otherwise. */
+    private Pattern multiValuePattern;
     
     /** Super class returns the position in bytes in the file as the key. This returns the record number. */
     @Override
@@ -99,7 +103,18 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
     }
     
     public void initializeTokenizer() {
-        _tokenizer = createTokenizer();
+        _tokenizer = CSVByteTokenizer.forSeparator(csvHelper.getSeparator());
+        
+        final String multiValueSeparator = csvHelper.getMultiValueSeparator();
+        if (multiValueSeparator != null && !isLiteral(multiValueSeparator)) {
+            multiValuePattern = Pattern.compile(csvHelper.getEscapeSafeMultiValueSeparatorPattern());
+        } else {
+            multiValuePattern = null;
+        }
+    }
+    
+    private static boolean isLiteral(String regex) {
+        return StringUtils.containsNone(regex, "\\^$.|?*+()[]{}");
     }
     
     /** Creates a CVSHelper for the RecordReader. */
@@ -119,10 +134,7 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         
         processedSize += value.getLength();
         
-        final String rawEventRecordStr = value.toString();
-        _tokenizer.reset(rawEventRecordStr);
-        
-        final String[] rawEventFields = _tokenizer.getTokenArray();
+        final int numRawEventFields = _tokenizer.reset(value.getBytes(), value.getLength());
         final String[] header = csvHelper.getHeader();
         
         // If the event date field name is not specified in the configuration, then set the event date to the file modification time.
@@ -130,12 +142,12 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
             event.setDate(fileModificationTime);
         
         // We still try to process the event record.
-        final int fields = Math.min(rawEventFields.length, header.length);
+        final int fields = Math.min(numRawEventFields, header.length);
         String field, fieldName;
         int i;
         
         for (i = 0; i < fields; i++) {
-            field = StringEscapeUtils.unescapeCsv(rawEventFields[i]);
+            field = StringEscapeUtils.unescapeCsv(_tokenizer.get(i));
             fieldName = header[i];
             
             field = csvHelper.clean(fieldName, field);
@@ -144,9 +156,9 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         }
         
         // Check to see if we have data beyond the header specification that should be processed. This is the case for the CSV logs
-        if (csvHelper.processExtraFields() && rawEventFields.length > header.length) {
-            while (i < rawEventFields.length) {
-                processExtraField(rawEventFields[i]);
+        if (csvHelper.processExtraFields() && numRawEventFields > header.length) {
+            while (i < numRawEventFields) {
+                processExtraField(_tokenizer.get(i));
                 i++;
             }
         }
@@ -154,7 +166,7 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         // decorate with additional data (used by overriding classes)
         decorateEvent();
         
-        event.setRawData(rawEventRecordStr.getBytes());
+        event.setRawData(Arrays.copyOf(value.getBytes(), value.getLength()));
         
         // Check to see if we need to override the UID. The use case for this is that some of the hashes are "enrichment" and the same
         // values will be loaded over and over again. By default, the UID is calculated on the raw byte[]
@@ -167,12 +179,12 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         
         enforcePolicy(event);
         
-        if (header.length > rawEventFields.length) {
+        if (header.length > numRawEventFields) {
             event.addError(RawDataErrorNames.NOT_ENOUGH_FIELDS);
-            log.error("More fields in header than in data. Header fields: {}, data fields: {}", header.length, rawEventFields.length);
-        } else if ((!csvHelper.processExtraFields()) && (header.length < rawEventFields.length)) {
+            log.error("More fields in header than in data. Header fields: {}, data fields: {}", header.length, numRawEventFields);
+        } else if ((!csvHelper.processExtraFields()) && (header.length < numRawEventFields)) {
             event.addError(RawDataErrorNames.TOO_MANY_FIELDS);
-            log.error("More fields in data than in header. Header fields: {}, data fields: {}", header.length, rawEventFields.length);
+            log.error("More fields in data than in header. Header fields: {}, data fields: {}", header.length, numRawEventFields);
         }
         
         return event;
@@ -191,25 +203,6 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         }
     }
     
-    /** Creates a new StrTokenizer based on the configuration. */
-    private StrTokenizer createTokenizer() {
-        final StrTokenizer tokenizer;
-        
-        if (csvHelper.getSeparator().equals(",")) {
-            tokenizer = StrTokenizer.getCSVInstance();
-        } else if (csvHelper.getSeparator().equals("\\t")) {
-            tokenizer = StrTokenizer.getTSVInstance();
-        } else {
-            tokenizer = new StrTokenizer();
-            tokenizer.setDelimiterString(csvHelper.getSeparator());
-        }
-        
-        tokenizer.setIgnoreEmptyTokens(false);
-        tokenizer.setEmptyTokenAsNull(true);
-        
-        return tokenizer;
-    }
-    
     /**
      * Used to process extra fields. The PROCESS_EXTRA_FIELDS configuration parameter must be set to enable this processing.
      *
@@ -248,24 +241,28 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
      */
     protected void processPreSplitField(String fieldName, final String fieldValue) {
         if (csvHelper.isMultiValuedField(fieldName)) {
-            // Value can be multiple parts, need to break on semi-colon
-            final String[] values = fieldValue.split(csvHelper.getEscapeSafeMultiValueSeparatorPattern());
-            
             // Can be renamed if specified in multivalued fields, but not if using blacklist
-            if (!csvHelper.usingMultiValuedFieldsBlacklist()) {
-                fieldName = csvHelper.getMultiValuedFields().get(fieldName);
-            }
+            final String singleFieldName = csvHelper.usingMultiValuedFieldsBlacklist() ? fieldName : csvHelper.getMultiValuedFields().get(fieldName);
             
-            for (String value : values) {
-                value = csvHelper.clean(fieldName, value);
-                if (value != null)
-                    checkField(fieldName, value);
+            // Value can be multiple parts, need to break on semi-colon
+            if (multiValuePattern == null) {
+                CSVByteTokenizer.splitEscapeSafe(fieldValue, csvHelper.getMultiValueSeparator(), value -> processSplitField(singleFieldName, value));
+            } else {
+                for (String value : multiValuePattern.split(fieldValue)) {
+                    processSplitField(singleFieldName, value);
+                }
             }
         } else {
             checkField(fieldName, fieldValue);
         }
     }
     
+    private void processSplitField(String fieldName, String value) {
+        value = csvHelper.clean(fieldName, value);
+        if (value != null)
+            checkField(fieldName, value);
+    }
+    
     public long getFileModificationTime() {
         return fileModificationTime;
     }
@@ -279,11 +276,18 @@ public class CSVReaderBase extends LongLineEventRecordReader implements EventRec
         return Math.min(1f, (float) processedSize / (float) totalSize);
     }
     
-    public StrTokenizer getTokenizer() {
+    /**
+     * @return the tokenizer of the raw records
+     */
+    public CSVByteTokenizer getTokenizer() {
         return _tokenizer;
     }
     
-    public void setTokenizer(StrTokenizer _tokenizer) {
+    /**
+     * @param _tokenizer
+     *            the tokenizer of the raw records
+     */
+    public void setTokenizer(CSVByteTokenizer _tokenizer) {
         this._tokenizer = _tokenizer;
     }
     
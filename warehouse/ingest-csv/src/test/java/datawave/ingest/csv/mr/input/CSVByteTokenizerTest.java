@@ -0,0 +1,142 @@
+package datawave.ingest.csv.mr.input;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.text.StrTokenizer;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CSVByteTokenizerTest {
+    
+    private static final String[] LINES = {"", " ", ",", "a", "a,b,c", "a,,c,", ",a", " a , b ,c ", "\"a,b\",c", "\"a\"\"b\",c", "\"a\" b ,c", "\"a\" \"b\" ,c",
+            "a\"b,c\"", "\"unterminated,c", "\"\",\"\"\"\"", " \"a\" ", "a;b\\;c;;d;", "café,über", "\"café, über\""};
+    
+    @Test
+    public void testMatchesStrTokenizer() {
+        for (String line : LINES) {
+            assertTokens(line, StrTokenizer.getCSVInstance(), CSVByteTokenizer.forSeparator(","));
+            assertTokens(line.replace(',', '\t'), StrTokenizer.getTSVInstance(), CSVByteTokenizer.forSeparator("\\t"));
+            
+            StrTokenizer custom = new StrTokenizer();
+            custom.setDelimiterString("||");
+            assertTokens(line.replace(",", "||"), custom, CSVByteTokenizer.forSeparator("||"));
+        }
+    }
+    
+    @Test
+    public void testRandomLinesMatchStrTokenizer() {
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'b', ' ', '\t', ',', '"', ';', '\\', 'é'};
+        for (int i = 0; i < 10000; i++) {
+            char[] chars = new char[random.nextInt(20)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String line = new String(chars);
+            assertTokens(line, StrTokenizer.getCSVInstance(), CSVByteTokenizer.forSeparator(","));
+            assertTokens(line, StrTokenizer.getTSVInstance(), CSVByteTokenizer.forSeparator("\\t"));
+        }
+    }
+    
+    @Test
+    public void testSplitEscapeSafe() {
+        String[] values = {"", ";", ";;", "a", "a;b", ";a", "a;", "a;;", ";;a;;b;;", "a\\;b;c", "a\\;", "\\;", "a;\\;;b"};
+        for (String value : values) {
+            List<String> parts = new ArrayList<>();
+            CSVByteTokenizer.splitEscapeSafe(value, ";", parts::add);
+            Assert.assertEquals(value, Arrays.asList(value.split("(?<!\\\\);")), parts);
+            
+            String multiChar = value.replace(";", "~~");
+            parts.clear();
+            CSVByteTokenizer.splitEscapeSafe(multiChar, "~~", parts::add);
+            Assert.assertEquals(multiChar, Arrays.asList(multiChar.split("(?<!\\\\)~~")), parts);
+        }
+    }
+    
+    @Test
+    public void testReuse() {
+        CSVByteTokenizer tokenizer = CSVByteTokenizer.forSeparator(",");
+        Text line = new Text("a,b,c,d,e,f,g,h,i,j");
+        Assert.assertEquals(10, tokenizer.reset(line.getBytes(), line.getLength()));
+        
+        // a shorter line in the same buffer only exposes its own fields
+        line.set("x,\"y\"");
+        Assert.assertEquals(2, tokenizer.reset(line.getBytes(), line.getLength()));
+        Assert.assertEquals("x", tokenizer.get(0));
+        Assert.assertEquals("y", tokenizer.get(1));
+        try {
+            tokenizer.get(2);
+            Assert.fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testWideLines() {
+        // 128 columns, some quoted, some multi-valued, read with a single tokenizer
+        Random random = new Random(7);
+        StrTokenizer strTokenizer = StrTokenizer.getCSVInstance();
+        CSVByteTokenizer byteTokenizer = CSVByteTokenizer.forSeparator(",");
+        for (int i = 0; i < 200; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int column = 0; column < 128; column++) {
+                if (column > 0) {
+                    builder.append(',');
+                }
+                switch (column % 8) {
+                    case 0:
+                        builder.append("\"quoted, value ").append(random.nextInt()).append('"');
+                        break;
+                    case 1:
+                        builder.append("one;two\\;half;").append(random.nextInt());
+                        break;
+                    case 2:
+                        break;
+                    default:
+                        builder.append("value").append(random.nextInt(100000));
+                }
+            }
+            String line = builder.toString();
+            assertTokens(line, strTokenizer, byteTokenizer);
+            
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(128, byteTokenizer.reset(bytes, bytes.length));
+            for (int column = 0; column < 128; column++) {
+                String field = StringEscapeUtils.unescapeCsv(byteTokenizer.get(column));
+                if (column % 8 == 2) {
+                    Assert.assertNull(field);
+                } else {
+                    List<String> values = new ArrayList<>();
+                    CSVByteTokenizer.splitEscapeSafe(field, ";", values::add);
+                    Assert.assertEquals(Arrays.asList(field.split("(?<!\\\\);")), values);
+                    if (column % 8 == 1) {
+                        Assert.assertEquals(3, values.size());
+                        Assert.assertEquals("two\\;half", values.get(1));
+                    }
+                }
+            }
+        }
+    }
+    
+    private void assertTokens(String line, StrTokenizer expected, CSVByteTokenizer actual) {
+        expected.setIgnoreEmptyTokens(false);
+        expected.setEmptyTokenAsNull(true);
+        expected.reset(line);
+        List<String> expectedTokens = Arrays.asList(expected.getTokenArray());
+        
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int size = actual.reset(bytes, bytes.length);
+        List<String> actualTokens = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            actualTokens.add(actual.get(i));
+        }
+        Assert.assertEquals("[" + line + "]", expectedTokens, actualTokens);
+    }
+}
@@ -0,0 +1,119 @@
+package datawave.ingest.json.mr.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.common.collect.Multimap;
+import com.google.gson.stream.JsonReader;
+import datawave.ingest.input.reader.LongLineEventRecordReader;
+import datawave.ingest.json.util.JsonObjectFlattener;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.log4j.Logger;
+
+/**
+ * <p>
+ * Json RecordReader for newline-delimited json, where each line holds a single json object representing a distinct event/document. Blank lines are skipped.
+ *
+ * <p>
+ * Unlike {@link JsonRecordReader}, the file may be split across mappers. Line boundaries are synced the same way as by {@link LongLineEventRecordReader}: a
+ * split begins with the first line that starts at or after its start offset, and ends with the line that spans its end offset.
+ *
+ * <p>
+ * Each object is flattened straight from its {@link JsonReader} tokens via {@link JsonObjectFlattener#flatten(JsonReader, Multimap)}, without building a json
+ * tree, and the line itself is kept as the event's raw data.
+ *
+ * <p>
+ * For custom parsing requirements, extend this class and override the 'parseCurrentValue' method to suit your needs.
+ */
+public class JsonLineRecordReader extends JsonRecordReader {
+    
+    private static final Logger logger = Logger.getLogger(JsonLineRecordReader.class);
+    
+    protected LongLineEventRecordReader lineReader;
+    protected Text currentLine;
+    
+    @Override
+    public void close() throws IOException {
+        if (lineReader != null) {
+            lineReader.close();
+        }
+    }
+    
+    @Override
+    public BytesWritable getCurrentValue() {
+        if (currentLine != null) {
+            return new BytesWritable(getRawData());
+        } else {
+            return null;
+        }
+    }
+    
+    @Override
+    protected void initializeReader(FileSplit split, TaskAttemptContext context) throws IOException {
+        lineReader = new LongLineEventRecordReader();
+        lineReader.setCompressionCodecFactory(compressionCodecs);
+        lineReader.initializeMaxLineLength(context.getConfiguration());
+        lineReader.initializeLineReader(split, context);
+        start = lineReader.getStart();
+        end = lineReader.getEnd();
+        pos = start;
+        
+        if (logger.isInfoEnabled()) {
+            logger.info("Reading newline-delimited Json records from " + fileURI.getScheme() + "://" + fileURI.getPath() + " starting at " + start);
+        }
+    }
+    
+    protected void parseCurrentValue(JsonReader reader) throws IOException {
+        jsonFlattener.flatten(reader, currentValue);
+    }
+    
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        
+        event.clear();
+        currentValue.clear();
+        currentLine = null;
+        
+        while (lineReader.nextKeyValue()) {
+            currentKey.set(pos);
+            pos = lineReader.getPos();
+            
+            Text line = lineReader.getCurrentValue();
+            if (isBlank(line)) {
+                continue;
+            }
+            counter++;
+            
+            JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(line.getBytes(), 0, line.getLength()), StandardCharsets.UTF_8));
+            reader.setLenient(true);
+            parseCurrentValue(reader);
+            
+            // Save ref to the current line, to be used when writing the raw data to the record in getEvent
+            currentLine = line;
+            return true;
+        }
+        
+        return false;
+    }
+    
+    @Override
+    protected byte[] getRawData() {
+        return Arrays.copyOf(currentLine.getBytes(), currentLine.getLength());
+    }
+    
+    private static boolean isBlank(Text line) {
+        byte[] bytes = line.getBytes();
+        for (int i = 0; i < line.getLength(); i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
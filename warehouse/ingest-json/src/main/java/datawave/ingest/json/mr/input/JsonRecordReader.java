@@ -125,10 +125,34 @@ public class JsonRecordReader extends AbstractEventRecordReader<BytesWritable> {
         Path file = fsplit.getPath();
         rawFileName = file.getName();
         fileURI = file.toUri();
+        
+        initializeReader(fsplit, context);
+        
+        jsonHelper = (JsonDataTypeHelper) createHelper(context.getConfiguration());
+        this.parseHeaderOnly = !jsonHelper.processExtraFields();
+        jsonFlattener = jsonHelper.newFlattener();
+        
+        if (logger.isInfoEnabled()) {
+            logger.info("Json flattener mode: " + jsonFlattener.getFlattenMode().name());
+        }
+    }
+    
+    /**
+     * Opens the file of the split and positions the reader at its first json object
+     * 
+     * @param split
+     *            the split to read
+     * @param context
+     *            the task context
+     * @throws IOException
+     *             if the file could not be opened
+     */
+    protected void initializeReader(FileSplit split, TaskAttemptContext context) throws IOException {
+        Path file = split.getPath();
         FileSystem fs = file.getFileSystem(context.getConfiguration());
         InputStream is = fs.open(file);
-        start = fsplit.getStart();
-        end = start + fsplit.getLength();
+        start = split.getStart();
+        end = start + split.getLength();
         pos = start;
         
         String normURI = fileURI.getScheme() + "://" + fileURI.getPath();
@@ -138,14 +162,6 @@ public class JsonRecordReader extends AbstractEventRecordReader<BytesWritable> {
         if (logger.isInfoEnabled()) {
             logger.info("Reading Json records from " + normURI + " via " + is.getClass().getName());
         }
-        
-        jsonHelper = (JsonDataTypeHelper) createHelper(context.getConfiguration());
-        this.parseHeaderOnly = !jsonHelper.processExtraFields();
-        jsonFlattener = jsonHelper.newFlattener();
-        
-        if (logger.isInfoEnabled()) {
-            logger.info("Json flattener mode: " + jsonFlattener.getFlattenMode().name());
-        }
     }
     
     protected void setupReader(InputStream is) {
@@ -228,7 +244,7 @@ public class JsonRecordReader extends AbstractEventRecordReader<BytesWritable> {
         
         decorateEvent();
         
-        event.setRawData(currentJsonObj.toString().getBytes());
+        event.setRawData(getRawData());
         
         if (0 == event.getDate()) {
             event.setDate(System.currentTimeMillis());
@@ -247,6 +263,15 @@ public class JsonRecordReader extends AbstractEventRecordReader<BytesWritable> {
         return event;
     }
     
+    /**
+     * Gets the raw data of the current record, to be stored with the event
+     * 
+     * @return the current json object, serialized
+     */
+    protected byte[] getRawData() {
+        return currentJsonObj.toString().getBytes();
+    }
+    
     /**
      * If needed, modify/update event after parsing has occurred but before policy enforcement and UID assignment
      */
@@ -2,7 +2,9 @@ package datawave.ingest.json.util;
 
 import com.google.common.collect.Multimap;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 
+import java.io.IOException;
 import java.util.Set;
 
 /**
@@ -97,6 +99,29 @@ public interface JsonObjectFlattener {
      */
     void flatten(JsonObject object, Multimap<String,String> map) throws IllegalStateException, NullPointerException;
     
+    /**
+     * <p>
+     * Flattens the next json object from the specified reader, straight from its tokens, without first parsing the object into a {@link JsonObject} tree. The
+     * result is the same as that of {@link #flatten(JsonObject, Multimap)} for the parsed object, except that repeated property names within an object are
+     * all retained, rather than only the last one.
+     *
+     * <p>
+     * On return, the reader is positioned just after the object.
+     *
+     * @param reader
+     *            {@link JsonReader} instance positioned at the beginning of a json object
+     * @param map
+     *            {@link com.google.common.collect.Multimap} instance to receive the flattened keys and associated values
+     * @throws IOException
+     *             if the json could not be read
+     * @throws IllegalStateException
+     *             if the reader is not positioned at an object, or if {@link FlattenMode#GROUPED} is used and {@link Builder#pathDelimiter} is found to exist
+     *             already within a json property name
+     * @throws NullPointerException
+     *             if map is null
+     */
+    void flatten(JsonReader reader, Multimap<String,String> map) throws IOException, IllegalStateException, NullPointerException;
+    
     /**
      * <p>
      * Allows clients to specify custom normalization behavior per their needs to affect the final presentation of flattened keys and their values to the
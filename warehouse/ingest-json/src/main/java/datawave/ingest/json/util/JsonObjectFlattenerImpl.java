@@ -7,7 +7,10 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -100,6 +103,19 @@ public class JsonObjectFlattenerImpl implements JsonObjectFlattener {
         addKeysToMap("", object, map, occurrenceCounts);
     }
     
+    @Override
+    public void flatten(JsonReader reader, Multimap<String,String> map) throws IOException, IllegalStateException, NullPointerException {
+        Preconditions.checkNotNull(map, "'map' argument cannot be null");
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("Expected a json object but found " + reader.peek());
+        }
+        Map<String,Integer> occurrenceCounts = null;
+        if (this.flattenMode == FlattenMode.GROUPED || this.flattenMode == FlattenMode.GROUPED_AND_NORMAL) {
+            occurrenceCounts = new HashMap<>();
+        }
+        addKeysToMap("", reader, map, occurrenceCounts);
+    }
+    
     @Override
     public FlattenMode getFlattenMode() {
         return this.flattenMode;
@@ -160,6 +176,87 @@ public class JsonObjectFlattenerImpl implements JsonObjectFlattener {
         }
     }
     
+    /**
+     * Streaming counterpart of {@link #addKeysToMap(String, JsonElement, Multimap, Map)}, which consumes the next value from the reader
+     */
+    protected void addKeysToMap(String currentPath, JsonReader reader, Multimap<String,String> map, Map<String,Integer> occurrenceCounts)
+                    throws IOException {
+        
+        switch (reader.peek()) {
+            case NULL:
+                // Don't add nulls
+                reader.nextNull();
+                break;
+            
+            case BEGIN_OBJECT:
+            
+                switch (this.flattenMode) {
+                    case SIMPLE:
+                        if (!currentPath.isEmpty()) {
+                            // No recursion in simple mode
+                            reader.skipValue();
+                            return;
+                        }
+                        break;
+                    case GROUPED:
+                    case GROUPED_AND_NORMAL:
+                        if (!currentPath.isEmpty()) {
+                            // Append occurrence delimiter + ordinal suffix
+                            currentPath = currentPath + this.occurrenceDelimiter + incrementCount(currentPath, occurrenceCounts);
+                        }
+                        break;
+                }
+            
+                String pathPrefix = currentPath.isEmpty() ? currentPath : currentPath + this.pathDelimiter;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    addKeysToMap(pathPrefix + this.nameNormalizer.normalizeElementName(name, currentPath), reader, map, occurrenceCounts);
+                }
+                reader.endObject();
+                break;
+            
+            case BEGIN_ARRAY:
+            
+                reader.beginArray();
+                for (int i = 0; reader.hasNext(); i++) {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+                        mapPut(currentPath, nextPrimitive(reader), map, occurrenceCounts);
+                    } else {
+                    
+                        if (this.addArrayIndexToFieldName) {
+                            addKeysToMap(currentPath + this.pathDelimiter + i, reader, map, occurrenceCounts);
+                        } else {
+                            addKeysToMap(currentPath, reader, map, occurrenceCounts);
+                        }
+                    }
+                }
+                reader.endArray();
+                break;
+            
+            case STRING:
+            case NUMBER:
+            case BOOLEAN:
+                mapPut(currentPath, nextPrimitive(reader), map, occurrenceCounts);
+                break;
+            
+            default:
+                throw new IllegalStateException("Unexpected json token: " + reader.peek());
+        }
+    }
+    
+    /**
+     * Reads the next primitive as {@link JsonPrimitive#getAsString()} would present it
+     */
+    private String nextPrimitive(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BOOLEAN) {
+            return Boolean.toString(reader.nextBoolean());
+        }
+        // numbers are returned as they appear in the json, as with the lazily parsed numbers of the tree
+        return reader.nextString();
+    }
+    
     protected String defaultNormalizeJsonElementName(String name) {
         switch (this.flattenMode) {
             case GROUPED:
@@ -0,0 +1,118 @@
+package datawave.ingest.json.mr.input;
+
+import java.io.File;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+
+import datawave.ingest.data.TypeRegistry;
+
+import datawave.ingest.json.util.JsonObjectFlattener.FlattenMode;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonLineRecordReaderTest {
+    
+    protected File dataFile;
+    
+    protected JsonLineRecordReader init(FlattenMode mode, long start, long length) throws Exception {
+        
+        Configuration conf = new Configuration();
+        conf.addResource(ClassLoader.getSystemResource("config/ingest/all-config.xml"));
+        conf.addResource(ClassLoader.getSystemResource("config/ingest/json-ingest-config.xml"));
+        
+        conf.set("myjson.data.json.flattener.mode", mode.name());
+        conf.set("myjson.data.process.extra.fields", "true");
+        
+        URL data = JsonLineRecordReaderTest.class.getResource("/input/my.ndjson");
+        Assert.assertNotNull(data);
+        
+        TypeRegistry.reset();
+        TypeRegistry.getInstance(conf);
+        
+        dataFile = new File(data.toURI());
+        Path p = new Path(dataFile.toURI().toString());
+        InputSplit split = new FileSplit(p, start, length < 0 ? dataFile.length() - start : length, null);
+        TaskAttemptContext ctx = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+        
+        JsonLineRecordReader reader = new JsonLineRecordReader();
+        reader.initialize(split, ctx);
+        reader.setInputDate(System.currentTimeMillis());
+        return reader;
+    }
+    
+    @Test
+    public void testGetAllRecordsNORMAL() throws Exception {
+        // Same records as my.json, so the same fields as with the JsonRecordReader
+        JsonLineRecordReader reader = init(FlattenMode.NORMAL, 0, -1);
+        int[][] expected = { {14, 27}, {18, 29}, {9, 9}, {10, 14}, {10, 11}};
+        for (int[] counts : expected) {
+            Assert.assertTrue(reader.nextKeyValue());
+            Assert.assertNotNull(reader.getEvent());
+            Assert.assertEquals(counts[0], reader.getCurrentFields().keySet().size());
+            Assert.assertEquals(counts[1], reader.getCurrentFields().values().size());
+        }
+        
+        // EOF, with the blank line skipped along the way
+        Assert.assertFalse(reader.nextKeyValue());
+        Assert.assertEquals(5, reader.getCurrentKey().get());
+        Assert.assertEquals(1.0f, reader.getProgress(), 0.0f);
+        
+        reader.close();
+    }
+    
+    @Test
+    public void testGetAllRecordsGROUPED() throws Exception {
+        JsonLineRecordReader reader = init(FlattenMode.GROUPED, 0, -1);
+        int[][] expected = { {23, 27}, {27, 29}, {9, 9}, {10, 14}, {10, 11}};
+        for (int[] counts : expected) {
+            Assert.assertTrue(reader.nextKeyValue());
+            Assert.assertNotNull(reader.getEvent());
+            Assert.assertEquals(counts[0], reader.getCurrentFields().keySet().size());
+            Assert.assertEquals(counts[1], reader.getCurrentFields().values().size());
+        }
+        Assert.assertFalse(reader.nextKeyValue());
+        reader.close();
+    }
+    
+    @Test
+    public void testRawDataIsLine() throws Exception {
+        JsonLineRecordReader reader = init(FlattenMode.NORMAL, 0, -1);
+        Assert.assertTrue(reader.nextKeyValue());
+        String raw = new String(reader.getEvent().getRawData(), "UTF-8");
+        Assert.assertTrue(raw.startsWith("{\"header_date\""));
+        Assert.assertTrue(raw.endsWith("}"));
+        reader.close();
+    }
+    
+    @Test
+    public void testSplits() throws Exception {
+        // Wherever the file is split, each record is read exactly once, by the split in which its line starts
+        init(FlattenMode.NORMAL, 0, -1).close();
+        long length = dataFile.length();
+        for (long splitAt = 1; splitAt < length; splitAt += 7) {
+            Set<String> ids = new HashSet<>();
+            int count = 0;
+            for (long[] split : new long[][] { {0, splitAt}, {splitAt, length - splitAt}}) {
+                JsonLineRecordReader reader = init(FlattenMode.NORMAL, split[0], split[1]);
+                while (reader.nextKeyValue()) {
+                    ids.addAll(reader.getCurrentFields().get("HEADER_ID"));
+                    ids.addAll(reader.getCurrentFields().get("ID"));
+                    count++;
+                }
+                reader.close();
+            }
+            Assert.assertEquals("split at " + splitAt, 5, count);
+            Assert.assertEquals("split at " + splitAt, 5, ids.size());
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package datawave.ingest.json.util;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.TreeMultimap;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
@@ -266,6 +270,39 @@ public class JsonObjectFlattenerImplTest {
         }
     }
     
+    @Test
+    public void testStreamingFlattenMatchesTree() throws Exception {
+        JsonObject jsonObject = new JsonParser().parse(json).getAsJsonObject();
+        for (FlattenMode mode : FlattenMode.values()) {
+            for (boolean addArrayIndex : new boolean[] {true, false}) {
+                JsonObjectFlattener flattener = new JsonObjectFlattenerImpl.Builder().pathDelimiter(".").mapKeyValueNormalizer(toUpperCaseNormalizer)
+                                .flattenMode(mode).addArrayIndexToFieldName(addArrayIndex).build();
+                
+                Multimap<String,String> expected = flattener.flatten(jsonObject);
+                Multimap<String,String> actual = HashMultimap.create();
+                JsonReader reader = new JsonReader(new StringReader(json));
+                flattener.flatten(reader, actual);
+                
+                Assert.assertEquals(mode + ", addArrayIndex=" + addArrayIndex, expected, actual);
+                Assert.assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+            }
+        }
+        
+        // whitelisted keys are honored as well
+        JsonObjectFlattener flattener = new JsonObjectFlattenerImpl.Builder().pathDelimiter(".").mapKeyValueNormalizer(toUpperCaseNormalizer)
+                        .mapKeyWhitelist(new HashSet<>(Arrays.asList("ROOTOBJECT.STRING2", "ROOTOBJECT.DATE"))).build();
+        Multimap<String,String> actual = HashMultimap.create();
+        flattener.flatten(new JsonReader(new StringReader(json)), actual);
+        Assert.assertEquals(flattener.flatten(jsonObject), actual);
+        Assert.assertEquals(2, actual.keySet().size());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testStreamingFlattenRequiresObject() throws Exception {
+        JsonObjectFlattener flattener = new JsonObjectFlattenerImpl.Builder().build();
+        flattener.flatten(new JsonReader(new StringReader("[1, 2, 3]")), HashMultimap.create());
+    }
+    
     private void printMap(Multimap<String,String> fieldMap) {
         TreeMultimap<String,String> sorted = TreeMultimap.create(fieldMap);
         for (String key : sorted.keySet()) {
@@ -1110,6 +1110,18 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
                         if (!totalResults.increment()) {
                             throw new DatawaveIvaratorMaxResultsException("Exceeded the maximum set size");
                         }
+                    } else {
+                        // skip ahead to the next key that could match
+                        Key seekKey = getSeekKey(top);
+                        if (seekKey != null && seekKey.compareTo(top) > 0) {
+                            if (boundingFiRange.afterEndKey(seekKey)) {
+                                break;
+                            }
+                            source.seek(new Range(seekKey, true, boundingFiRange.getEndKey(), boundingFiRange.isEndKeyInclusive()), EMPTY_CFS, false);
+                            scanned++;
+                            DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
+                            continue;
+                        }
                     }
                     
                     source.next();
@@ -1331,6 +1343,19 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
      */
     protected abstract boolean matches(Key k) throws IOException;
     
+    /**
+     * Get a key to seek to after a field index key that did not match. Every field index key between the given key and the returned key must be one that
+     * would not be added to the set. NOTE: This method must be thread safe
+     *
+     * @param k
+     *            a field index key that was not added to the set
+     * @return the key to seek to, or null to simply move on to the next key
+     * @throws IOException
+     */
+    protected Key getSeekKey(Key k) throws IOException {
+        return null;
+    }
+    
     /**
      * A protected method to force persistence of the set. This can be used by test cases to verify tear down and rebuilding with reuse of the previous results.
      * 
@@ -4,8 +4,11 @@ import datawave.data.ColumnFamilyConstants;
 import datawave.query.Constants;
 import datawave.query.parser.JavaRegexAnalyzer;
 import datawave.query.parser.JavaRegexAnalyzer.JavaRegexParseException;
+import datawave.query.util.regex.RegexAutomaton;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -14,13 +17,13 @@ import org.apache.hadoop.io.Text;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * 
  * An iterator for the Datawave shard table, it searches FieldIndex keys and returns Event keys (its topKey must be an Event key).
  *
- * This version takes a regex and will return sorted UIDs that match the supplied regex
+ * This version takes a regex and will return sorted UIDs that match the supplied regex. The regex is matched against the bytes of the field values with a
+ * {@link RegexAutomaton}, which also lets the scan seek from a value that does not match directly to the next value that could.
  * 
  * FieldIndex keys: fi\0{fieldName}:{fieldValue}\0datatype\0uid
  * 
@@ -44,6 +47,7 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     protected DatawaveFieldIndexRegexIteratorJexl(Builder builder) {
         super(builder);
         this.regex = builder.fieldValue.toString();
+        this.automaton = new RegexAutomaton(regex);
         try {
             // now fix the fValue to be the part we use for ranges
             JavaRegexAnalyzer analyzer = new JavaRegexAnalyzer(this.regex);
@@ -59,7 +63,7 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     }
     
     private String regex = null;
-    private ThreadLocal<Pattern> pattern = ThreadLocal.withInitial(() -> Pattern.compile(regex));
+    private RegexAutomaton automaton = null;
     
     // -------------------------------------------------------------------------
     // ------------- Constructors
@@ -70,6 +74,7 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     public DatawaveFieldIndexRegexIteratorJexl(DatawaveFieldIndexRegexIteratorJexl other, IteratorEnvironment env) {
         super(other, env);
         this.regex = other.regex;
+        this.automaton = other.automaton;
     }
     
     // -------------------------------------------------------------------------
@@ -123,15 +128,45 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
      */
     @Override
     protected boolean matches(Key k) throws IOException {
-        boolean matches = false;
-        String colq = k.getColumnQualifier().toString();
-        
-        // search backwards for the null bytes to expose the value in value\0datatype\0UID
-        int index = colq.lastIndexOf('\0');
-        index = colq.lastIndexOf('\0', index - 1);
-        matches = (pattern.get().matcher(colq.substring(0, index)).matches());
-        
-        return matches;
+        ByteSequence colq = k.getColumnQualifierData();
+        return automaton.matches(colq.getBackingArray(), colq.offset(), getValueLength(colq));
+    }
+    
+    /**
+     * Seek past the values that cannot match the regex. The automaton gives the smallest value that could match, or none in which case the rest of the field
+     * can be skipped.
+     *
+     * @param k
+     * @return the key to seek to, or null if negated
+     */
+    @Override
+    protected Key getSeekKey(Key k) throws IOException {
+        if (isNegated()) {
+            return null;
+        }
+        ByteSequence colq = k.getColumnQualifierData();
+        byte[] next = automaton.nextPossibleMatch(colq.getBackingArray(), colq.offset(), getValueLength(colq));
+        if (next == null) {
+            return k.followingKey(PartialKey.ROW_COLFAM);
+        }
+        return new Key(k.getRow(), k.getColumnFamily(), new Text(next));
+    }
+    
+    /**
+     * Search backwards for the null bytes to find the length of the value in value\0datatype\0UID
+     *
+     * @param colq
+     * @return the length of the value
+     */
+    private static int getValueLength(ByteSequence colq) {
+        byte[] bytes = colq.getBackingArray();
+        int nulls = 0;
+        for (int i = colq.offset() + colq.length() - 1; i >= colq.offset(); i--) {
+            if (bytes[i] == 0 && ++nulls == 2) {
+                return i - colq.offset();
+            }
+        }
+        throw new IllegalArgumentException("Not a field index column qualifier: " + colq);
     }
     
 }
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import datawave.core.iterators.filter.GlobalIndexTermMatchingFilter;
 
+import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
@@ -14,6 +15,7 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.OptionDescriber;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
 public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilter implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
@@ -111,12 +113,44 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
                 log.trace("top key is " + top);
             if (accept(top, getSource().getTopValue())) {
                 foundMatch = true;
-            } else {
-                getSource().next();
+            } else if (!seekToNextPossibleMatch(top)) {
+                break;
             }
         }
     }
     
+    /**
+     * Moves past a key that was not accepted, seeking directly to the next row that could match when that skips ahead
+     * 
+     * @param top
+     *            current key that we see
+     * @return false if no more keys in the scan range can match
+     * @throws IOException
+     */
+    private boolean seekToNextPossibleMatch(final Key top) throws IOException {
+        ByteSequence row = top.getRowData();
+        byte[] nextRow = getNextPossibleRow(row);
+        if (nextRow == null) {
+            if (log.isTraceEnabled())
+                log.trace("no more possible matches after " + top);
+            return false;
+        }
+        if (row.compareTo(new ArrayByteSequence(nextRow)) < 0) {
+            Key next = new Key(new Text(nextRow));
+            if (scanRange.afterEndKey(next)) {
+                if (log.isTraceEnabled())
+                    log.trace("next possible match " + next + " is past the end of " + scanRange);
+                return false;
+            }
+            if (log.isTraceEnabled())
+                log.trace("seeking to next possible match " + next);
+            getSource().seek(new Range(next, true, scanRange.getEndKey(), scanRange.isEndKeyInclusive()), scanCFs, scanInclusive);
+        } else {
+            getSource().next();
+        }
+        return true;
+    }
+    
     /**
      * Advances to the next top key
      * 
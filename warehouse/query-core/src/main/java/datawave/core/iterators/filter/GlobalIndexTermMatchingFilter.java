@@ -1,14 +1,18 @@
 package datawave.core.iterators.filter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.TreeSet;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import datawave.ingest.protobuf.Uid;
+import datawave.query.util.regex.RegexAutomaton;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.Filter;
@@ -18,7 +22,10 @@ import org.apache.log4j.Logger;
 
 /**
  * The iterator skips entries in the global index for entries not matching one of a set of matching patterns
- * 
+ * <p>
+ * The patterns are matched against the bytes of the row with a {@link RegexAutomaton}, reversed when matching against the reverse index, so the term does not
+ * have to be decoded or reversed for every key. Subclasses that control their own source can use {@link #getNextPossibleRow(ByteSequence)} to seek past the
+ * rows that cannot match.
  */
 public class GlobalIndexTermMatchingFilter extends Filter {
     
@@ -26,8 +33,10 @@ public class GlobalIndexTermMatchingFilter extends Filter {
     public static final String LITERAL = "term.literal.";
     public static final String PATTERN = "term.pattern.";
     public static final String REVERSE_INDEX = "reverse.index";
-    private Map<String,Pattern> patterns = new HashMap<>();
+    private Map<String,RegexAutomaton> patterns = new HashMap<>();
     private Set<String> literals = new HashSet<>();
+    // the literals as they appear in the rows, sorted for seeking
+    private TreeSet<ByteSequence> literalRows = new TreeSet<>();
     private boolean reverseIndex = false;
     private String matchedValue = null;
     
@@ -39,6 +48,9 @@ public class GlobalIndexTermMatchingFilter extends Filter {
     }
     
     protected void readOptions(Map<String,String> options) {
+        if (options.containsKey(REVERSE_INDEX)) {
+            reverseIndex = Boolean.parseBoolean(options.get(REVERSE_INDEX));
+        }
         int i = 1;
         while (options.containsKey(PATTERN + i)) {
             patterns.put(options.get(PATTERN + i), getPattern(options.get(PATTERN + i)));
@@ -46,15 +58,14 @@ public class GlobalIndexTermMatchingFilter extends Filter {
         }
         i = 1;
         while (options.containsKey(LITERAL + i)) {
-            literals.add(options.get(LITERAL + i));
+            String literal = options.get(LITERAL + i);
+            literals.add(literal);
+            literalRows.add(new ArrayByteSequence(reverse(literal).getBytes(StandardCharsets.UTF_8)));
             i++;
         }
         if (patterns.isEmpty() && literals.isEmpty()) {
             throw new IllegalArgumentException("Missing configured patterns for the GlobalIndexTermMatchingFilter: " + options);
         }
-        if (options.containsKey(REVERSE_INDEX)) {
-            reverseIndex = Boolean.parseBoolean(options.get(REVERSE_INDEX));
-        }
         if (log.isDebugEnabled()) {
             log.debug("Set the literals to " + literals);
             log.debug("Set the patterns to " + patterns);
@@ -65,7 +76,7 @@ public class GlobalIndexTermMatchingFilter extends Filter {
     @Override
     public boolean accept(Key k, Value v) {
         // The row is the term
-        return matches(k.getRow().toString());
+        return matches(k.getRowData());
     }
     
     /**
@@ -88,27 +99,28 @@ public class GlobalIndexTermMatchingFilter extends Filter {
         }
     }
     
-    private Pattern getPattern(String term) {
-        return Pattern.compile(term);
+    private RegexAutomaton getPattern(String term) {
+        return new RegexAutomaton(term, reverseIndex);
+    }
+    
+    private String reverse(String term) {
+        return reverseIndex ? new StringBuilder(term).reverse().toString() : term;
     }
     
-    private boolean matches(String term) {
+    private boolean matches(ByteSequence row) {
         matchedValue = null;
         
-        log.trace(term + " -- term");
-        if (reverseIndex) {
-            StringBuilder buf = new StringBuilder(term);
-            term = buf.reverse().toString();
-            
+        if (log.isTraceEnabled()) {
+            log.trace(row + " -- term");
         }
         
-        if (literals.contains(term)) {
-            matchedValue = term;
+        if (literalRows.contains(row)) {
+            matchedValue = reverse(row.toString());
             return true;
         }
         
-        for (Map.Entry<String,Pattern> entry : patterns.entrySet()) {
-            if (entry.getValue().matcher(term).matches()) {
+        for (Map.Entry<String,RegexAutomaton> entry : patterns.entrySet()) {
+            if (entry.getValue().matches(row)) {
                 matchedValue = entry.getKey();
                 return true;
             }
@@ -117,6 +129,31 @@ public class GlobalIndexTermMatchingFilter extends Filter {
         return false;
     }
     
+    /**
+     * Get the smallest row at or after the given row that could match one of the literals or patterns.
+     * 
+     * @param row
+     *            the row of a key that was not accepted
+     * @return the smallest row that could match, the given row if no better row can be determined, or null if no row at or after the given row can match
+     */
+    protected byte[] getNextPossibleRow(ByteSequence row) {
+        ByteSequence next = null;
+        ByteSequence literal = literalRows.ceiling(row);
+        if (literal != null) {
+            next = literal;
+        }
+        for (RegexAutomaton pattern : patterns.values()) {
+            if (!pattern.isAutomaton()) {
+                return row.toArray();
+            }
+            byte[] bytes = pattern.nextPossibleMatch(row);
+            if (bytes != null && (next == null || next.compareTo(new ArrayByteSequence(bytes)) > 0)) {
+                next = new ArrayByteSequence(bytes);
+            }
+        }
+        return (next == null) ? null : next.toArray();
+    }
+    
     public String getMatchedValue() {
         return matchedValue;
     }
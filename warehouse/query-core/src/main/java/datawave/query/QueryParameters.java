@@ -157,4 +157,9 @@ public class QueryParameters {
     
     public static final String DATE_INDEX_TIME_TRAVEL = "date.index.time.travel";
     
+    /**
+     * When positive, only the top K newest results are returned, scanning the shard days newest first
+     */
+    public static final String TOP_K = "top.k";
+    
 }
@@ -0,0 +1,250 @@
+package datawave.query.attributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import datawave.webservice.query.data.ObjectSizeOf;
+import org.apache.hadoop.io.WritableUtils;
+
+import com.clearspring.analytics.stream.Counter;
+import com.clearspring.analytics.stream.StreamSummary;
+import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
+import com.clearspring.analytics.stream.cardinality.HyperLogLogPlus;
+import com.clearspring.analytics.stream.cardinality.ICardinality;
+import com.google.common.base.Preconditions;
+
+/**
+ * An approximate summary of the values of a single facet field, made of a Space-Saving heavy hitters summary of the number of documents holding each value and
+ * a HyperLogLog estimate of the number of distinct values.
+ * <p>
+ * The summary keeps at most <code>capacity</code> values. The count of each kept value overestimates its true count by at most its error, and no value that was
+ * dropped can have a count above {@link #getMissingCount()}. Sketches built on separate tablets can be merged in any order while keeping these bounds.
+ */
+public class FacetSketch {
+    
+    private static final Comparator<Facet> BY_COUNT = Comparator.comparingLong(Facet::getCount).reversed().thenComparing(Facet::getValue);
+    
+    protected int capacity;
+    
+    // value to {count, error} of the values that have been merged in
+    protected Map<String,long[]> counters = new HashMap<>();
+    
+    // the largest count that a value without a counter could have
+    protected long missing = 0;
+    
+    // values offered since the counters were last updated
+    protected StreamSummary<String> summary = null;
+    
+    protected ICardinality distinct;
+    
+    public FacetSketch(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "The facet sketch capacity must be positive");
+        this.capacity = capacity;
+        this.distinct = new HyperLogLogPlus(10);
+    }
+    
+    public FacetSketch(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        capacity = WritableUtils.readVInt(in);
+        missing = WritableUtils.readVLong(in);
+        int size = WritableUtils.readVInt(in);
+        for (int i = 0; i < size; i++) {
+            String value = WritableUtils.readString(in);
+            counters.put(value, new long[] {WritableUtils.readVLong(in), WritableUtils.readVLong(in)});
+        }
+        byte[] estimate = new byte[WritableUtils.readVInt(in)];
+        in.readFully(estimate);
+        distinct = HyperLogLogPlus.Builder.build(estimate);
+    }
+    
+    /**
+     * Count one more document holding a value.
+     *
+     * @param value
+     */
+    public void offer(String value) {
+        if (null == summary) {
+            summary = new StreamSummary<>(capacity);
+        }
+        summary.offer(value);
+        distinct.offer(value);
+    }
+    
+    public void merge(FacetSketch other) throws CardinalityMergeException {
+        Preconditions.checkNotNull(other);
+        other.flush();
+        flush();
+        merge(other.counters, other.missing);
+        distinct = distinct.merge(other.distinct);
+    }
+    
+    /**
+     * Fold the offered values into the counters.
+     */
+    protected void flush() {
+        if (null != summary) {
+            Map<String,long[]> offered = new HashMap<>();
+            long offeredMissing = 0;
+            for (Counter<String> counter : summary.topK(capacity)) {
+                offered.put(counter.getItem(), new long[] {counter.getCount(), counter.getError()});
+                offeredMissing = counter.getCount();
+            }
+            // until the summary is full every value seen has a counter
+            if (summary.size() < capacity) {
+                offeredMissing = 0;
+            }
+            summary = null;
+            merge(offered, offeredMissing);
+        }
+    }
+    
+    private void merge(Map<String,long[]> otherCounters, long otherMissing) {
+        List<Facet> merged = new ArrayList<>(counters.size() + otherCounters.size());
+        for (Entry<String,long[]> entry : counters.entrySet()) {
+            long[] other = otherCounters.get(entry.getKey());
+            if (null == other) {
+                other = new long[] {otherMissing, otherMissing};
+            }
+            merged.add(new Facet(entry.getKey(), entry.getValue()[0] + other[0], entry.getValue()[1] + other[1]));
+        }
+        for (Entry<String,long[]> entry : otherCounters.entrySet()) {
+            if (!counters.containsKey(entry.getKey())) {
+                merged.add(new Facet(entry.getKey(), entry.getValue()[0] + missing, entry.getValue()[1] + missing));
+            }
+        }
+        
+        missing += otherMissing;
+        if (merged.size() > capacity) {
+            Collections.sort(merged, BY_COUNT);
+            missing = Math.max(missing, merged.get(capacity).getCount());
+            merged = merged.subList(0, capacity);
+        }
+        
+        counters = new HashMap<>();
+        for (Facet facet : merged) {
+            counters.put(facet.getValue(), new long[] {facet.getCount(), facet.getError()});
+        }
+    }
+    
+    /**
+     * Return the values with the highest counts.
+     *
+     * @param k
+     *            the maximum number of values to return
+     * @return the values, ordered by descending count
+     */
+    public List<Facet> getTop(int k) {
+        flush();
+        List<Facet> facets = new ArrayList<>(counters.size());
+        for (Entry<String,long[]> entry : counters.entrySet()) {
+            facets.add(new Facet(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        Collections.sort(facets, BY_COUNT);
+        return (facets.size() > k) ? facets.subList(0, k) : facets;
+    }
+    
+    /**
+     * @return the largest count that a value not returned by {@link #getTop(int)} could have
+     */
+    public long getMissingCount() {
+        flush();
+        return missing;
+    }
+    
+    /**
+     * @return the estimated number of distinct values
+     */
+    public long getDistinctValues() {
+        return distinct.cardinality();
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public byte[] getBytes() throws IOException {
+        flush();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        WritableUtils.writeVInt(out, capacity);
+        WritableUtils.writeVLong(out, missing);
+        WritableUtils.writeVInt(out, counters.size());
+        for (Entry<String,long[]> entry : counters.entrySet()) {
+            WritableUtils.writeString(out, entry.getKey());
+            WritableUtils.writeVLong(out, entry.getValue()[0]);
+            WritableUtils.writeVLong(out, entry.getValue()[1]);
+        }
+        byte[] estimate = distinct.getBytes();
+        WritableUtils.writeVInt(out, estimate.length);
+        out.write(estimate);
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    public long sizeInBytes() {
+        flush();
+        long size = 8 + 24 + 4 + 8;
+        // 8 is object overhead
+        // 24 is 3 object references
+        // 4 for the capacity, 8 for the missing count
+        for (String value : counters.keySet()) {
+            size += Attribute.sizeInBytes(value) + 48;
+            // 48 for the map entry and the two longs
+        }
+        size += ObjectSizeOf.Sizer.getObjectSize(distinct);
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return getTop(capacity) + " of ~" + getDistinctValues() + " values, others <= " + missing;
+    }
+    
+    /**
+     * A value with its approximate count.
+     */
+    public static class Facet {
+        private final String value;
+        private final long count;
+        private final long error;
+        
+        public Facet(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        /**
+         * @return an upper bound on the number of documents holding the value
+         */
+        public long getCount() {
+            return count;
+        }
+        
+        /**
+         * @return how much the count may overestimate the true count
+         */
+        public long getError() {
+            return error;
+        }
+        
+        @Override
+        public String toString() {
+            return value + "=" + count + "(+/-" + error + ")";
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package datawave.query.attributes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.WritableUtils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import datawave.query.collections.FunctionalSet;
+import datawave.query.jexl.DatawaveJexlContext;
+
+/**
+ * An attribute carrying the {@link FacetSketch} of one facet field, used by approximate faceted searches in place of a {@link Cardinality} per field value.
+ */
+public class FacetSummary extends Attribute<FacetSummary> {
+    
+    protected FacetSketch content;
+    
+    protected FacetSummary() {
+        super(null, true);
+    }
+    
+    public FacetSummary(FacetSketch content, Key docKey, boolean toKeep) {
+        super(docKey, toKeep);
+        this.content = content;
+    }
+    
+    @Override
+    public long sizeInBytes() {
+        return super.sizeInBytes(4) + content.sizeInBytes();
+        // 4 for content reference
+    }
+    
+    public FacetSketch getContent() {
+        return this.content;
+    }
+    
+    @Override
+    public Object getData() {
+        return getContent();
+    }
+    
+    @Override
+    public void write(DataOutput out) throws IOException {
+        write(out, false);
+    }
+    
+    @Override
+    public void write(DataOutput out, boolean reducedResponse) throws IOException {
+        writeMetadata(out, reducedResponse);
+        WritableUtils.writeCompressedByteArray(out, content.getBytes());
+    }
+    
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        readMetadata(in);
+        content = new FacetSketch(WritableUtils.readCompressedByteArray(in));
+    }
+    
+    @Override
+    public int compareTo(FacetSummary other) {
+        return compareMetadata(other);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        // sketches are only merged explicitly, so distinct sketches are never equal
+        if (o instanceof FacetSummary) {
+            return content == ((FacetSummary) o).content && 0 == compareTo((FacetSummary) o);
+        }
+        return false;
+    }
+    
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+    
+    @Override
+    public void write(Kryo kryo, Output output) {
+        write(kryo, output, false);
+    }
+    
+    @Override
+    public void write(Kryo kryo, Output output, Boolean reducedResponse) {
+        super.writeMetadata(kryo, output, reducedResponse);
+        try {
+            byte[] sketch = this.content.getBytes();
+            output.writeInt(sketch.length);
+            output.write(sketch);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public void read(Kryo kryo, Input input) {
+        super.readMetadata(kryo, input);
+        byte[] sketch = new byte[input.readInt()];
+        input.read(sketch);
+        try {
+            this.content = new FacetSketch(sketch);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Override
+    public FacetSummary copy() {
+        return new FacetSummary(this.getContent(), this.getMetadata(), this.isToKeep());
+    }
+    
+    @Override
+    public Collection<ValueTuple> visit(Collection<String> fieldNames, DatawaveJexlContext context) {
+        return FunctionalSet.singleton(new ValueTuple(fieldNames, this.content, this.content, this));
+    }
+}
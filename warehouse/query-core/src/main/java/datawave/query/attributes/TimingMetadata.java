@@ -4,7 +4,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
- * Holds timing information for query iterator next, source, seek, and yield counts.
+ * Holds timing information for query iterator next, source, seek, and yield counts, and the document cache hits and misses.
  */
 public class TimingMetadata extends Metadata {
     
@@ -12,6 +12,8 @@ public class TimingMetadata extends Metadata {
     private static final String SOURCE_COUNT = "SOURCE_COUNT";
     private static final String SEEK_COUNT = "SEEK_COUNT";
     private static final String YIELD_COUNT = "YIELD_COUNT";
+    private static final String DOCUMENT_CACHE_HITS = "DOCUMENT_CACHE_HITS";
+    private static final String DOCUMENT_CACHE_MISSES = "DOCUMENT_CACHE_MISSES";
     private static final String STAGE_TIMERS = "STAGE_TIMERS";
     private static final String HOST = "HOST";
     
@@ -68,6 +70,32 @@ public class TimingMetadata extends Metadata {
         put(YIELD_COUNT, new Numeric(yieldCount, this.getMetadata(), this.isToKeep()));
     }
     
+    public long getDocumentCacheHits() {
+        Numeric numericValue = (Numeric) get(DOCUMENT_CACHE_HITS);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setDocumentCacheHits(long documentCacheHits) {
+        put(DOCUMENT_CACHE_HITS, new Numeric(documentCacheHits, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getDocumentCacheMisses() {
+        Numeric numericValue = (Numeric) get(DOCUMENT_CACHE_MISSES);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setDocumentCacheMisses(long documentCacheMisses) {
+        put(DOCUMENT_CACHE_MISSES, new Numeric(documentCacheMisses, this.getMetadata(), this.isToKeep()));
+    }
+    
     public void addStageTimer(String stageName, Numeric elapsed) {
         Metadata stageTimers = (Metadata) get(STAGE_TIMERS);
         if (stageTimers == null) {
@@ -82,6 +82,12 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean collapseUids = false;
     private int collapseUidsThreshold = -1;
     private boolean sequentialScheduler = false;
+    // return results in key (shard date) order, scanning orderedScanLookahead ranges ahead of the merge
+    private boolean orderedScheduler = false;
+    private int orderedScanLookahead = 8;
+    private int orderedScanQueueSize = 1000;
+    // when positive, only return the topK newest results, scanning shard days newest first
+    private int topK = -1;
     private boolean collectTimingDetails = false;
     private boolean logTimingDetails = false;
     private boolean sendTimingToStatsd = true;
@@ -140,6 +146,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private String metadataTableName = TableName.METADATA;
     private String dateIndexTableName = TableName.DATE_INDEX;
     private String indexStatsTableName = TableName.INDEX_STATS;
+    private String fieldStatsTableName = TableName.FIELD_STATS;
     private String defaultDateTypeName = "EVENT";
     // should we cleanup the shards and days hints that are sent to the tservers?
     private boolean cleanupShardsAndDaysQueryHints = true;
@@ -213,6 +220,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean rawTypes = false;
     // Used to choose how "selective" a term is (indexStats)
     private double minSelectivity = -1.0;
+    // Used to order intersections and choose the terms looked up in the global index from the estimated term costs (fieldStats)
+    private boolean costBasedPlanning = false;
+    // Terms of an intersection that are this many times more costly than the cheapest term are evaluated instead of looked up
+    private double maxTermCostRatio = 100.0;
+    // The estimated cost of the planned query, or -1 if it was not estimated
+    private long estimatedQueryCost = -1;
+    // How long the results of identical index expansions may be shared between queries (IndexExpansionService), 0 to always run them
+    private long indexExpansionCacheMillis = 0;
     // Used to add the event datatype to the event as an event field.
     private boolean includeDataTypeAsField = false;
     // Used to add the event RECORD_ID to the event as an event field
@@ -238,6 +253,16 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
      * By default don't use speculative scanning.
      */
     private boolean speculativeScanning = false;
+    
+    /**
+     * By default don't hedge slow scans. When enabled, a scan that has gone longer without a result than the hedgedScanPercentile of its session's recent
+     * scans, and at least hedgedScanMinDelay milliseconds, is duplicated. A scan is duplicated at most once, and the duplicates of a session are limited to
+     * hedgedScanBudget as a fraction of all of its scans.
+     */
+    private boolean hedgedScanning = false;
+    private double hedgedScanPercentile = 0.95;
+    private long hedgedScanMinDelay = 1000;
+    private double hedgedScanBudget = 0.05;
     private boolean disableEvaluation = false;
     private boolean containsIndexOnlyTerms = false;
     private boolean containsCompositeTerms = false;
@@ -298,6 +323,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean compositeFilterFunctionsEnabled = false;
     
     private int groupFieldsBatchSize;
+    // the number of distinct groups a tserver holds before returning a partial aggregate
+    private int groupFieldsMaxGroups = 100000;
+    // the number of unique documents a tserver remembers within a scan
+    private int uniqueFieldsMaxEntries = 500000;
     private boolean accrueStats = false;
     private Set<String> groupFields = new HashSet<>(0);
     private Set<String> uniqueFields = new HashSet<>(0);
@@ -306,6 +335,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
      * should the sizes of documents be tracked for this query
      */
     private boolean trackSizes = true;
+    /**
+     * should the tservers share the fetched event data of documents between queries with the same authorizations
+     */
+    private boolean documentCache = false;
+    /**
+     * the number of keys the field index sources read forward to reach a nearby seek before seeking, or 0 to always seek
+     */
+    private int sourceNextsBeforeSeek = 0;
     
     private List<String> contentFieldNames = Collections.emptyList();
     
@@ -340,6 +377,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setCollapseUids(other.getCollapseUids());
         this.setCollapseUidsThreshold(other.getCollapseUidsThreshold());
         this.setSequentialScheduler(other.getSequentialScheduler());
+        this.setOrderedScheduler(other.getOrderedScheduler());
+        this.setOrderedScanLookahead(other.getOrderedScanLookahead());
+        this.setOrderedScanQueueSize(other.getOrderedScanQueueSize());
+        this.setTopK(other.getTopK());
         this.setCollectTimingDetails(other.getCollectTimingDetails());
         this.setLogTimingDetails(other.getLogTimingDetails());
         this.setSendTimingToStatsd(other.getSendTimingToStatsd());
@@ -365,6 +406,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setMetadataTableName(other.getMetadataTableName());
         this.setDateIndexTableName(other.getDateIndexTableName());
         this.setIndexStatsTableName(other.getIndexStatsTableName());
+        this.setFieldStatsTableName(other.getFieldStatsTableName());
         this.setDefaultDateTypeName(other.getDefaultDateTypeName());
         this.setCleanupShardsAndDaysQueryHints(other.isCleanupShardsAndDaysQueryHints());
         this.setNumQueryThreads(other.getNumQueryThreads());
@@ -413,6 +455,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setFailOutsideValidDateRange(other.isFailOutsideValidDateRange());
         this.setRawTypes(other.isRawTypes());
         this.setMinSelectivity(other.getMinSelectivity());
+        this.setCostBasedPlanning(other.isCostBasedPlanning());
+        this.setMaxTermCostRatio(other.getMaxTermCostRatio());
+        this.setEstimatedQueryCost(other.getEstimatedQueryCost());
+        this.setIndexExpansionCacheMillis(other.getIndexExpansionCacheMillis());
         this.setIncludeDataTypeAsField(other.getIncludeDataTypeAsField());
         this.setIncludeRecordId(other.getIncludeRecordId());
         this.setIncludeHierarchyFields(other.getIncludeHierarchyFields());
@@ -423,6 +469,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setReducedResponse(other.isReducedResponse());
         this.setAllowShortcutEvaluation(other.getAllowShortcutEvaluation());
         this.setSpeculativeScanning(other.getSpeculativeScanning());
+        this.setHedgedScanning(other.getHedgedScanning());
+        this.setHedgedScanPercentile(other.getHedgedScanPercentile());
+        this.setHedgedScanMinDelay(other.getHedgedScanMinDelay());
+        this.setHedgedScanBudget(other.getHedgedScanBudget());
         this.setDisableEvaluation(other.isDisableEvaluation());
         this.setContainsIndexOnlyTerms(other.isContainsIndexOnlyTerms());
         this.setContainsCompositeTerms(other.isContainsCompositeTerms());
@@ -469,11 +519,15 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setIndexOnlyFilterFunctionsEnabled(other.isIndexOnlyFilterFunctionsEnabled());
         this.setCompositeFilterFunctionsEnabled(other.isCompositeFilterFunctionsEnabled());
         this.setGroupFieldsBatchSize(other.getGroupFieldsBatchSize());
+        this.setGroupFieldsMaxGroups(other.getGroupFieldsMaxGroups());
+        this.setUniqueFieldsMaxEntries(other.getUniqueFieldsMaxEntries());
         this.setAccrueStats(other.getAccrueStats());
         this.setGroupFields(null == other.getGroupFields() ? null : Sets.newHashSet(other.getGroupFields()));
         this.setUniqueFields(null == other.getUniqueFields() ? null : Sets.newHashSet(other.getUniqueFields()));
         this.setCacheModel(other.getCacheModel());
         this.setTrackSizes(other.isTrackSizes());
+        this.setDocumentCache(other.isDocumentCache());
+        this.setSourceNextsBeforeSeek(other.getSourceNextsBeforeSeek());
         this.setContentFieldNames(null == other.getContentFieldNames() ? null : Lists.newArrayList(other.getContentFieldNames()));
     }
     
@@ -653,6 +707,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.indexStatsTableName = statsTableName;
     }
     
+    public String getFieldStatsTableName() {
+        return fieldStatsTableName;
+    }
+    
+    public void setFieldStatsTableName(String fieldStatsTableName) {
+        this.fieldStatsTableName = fieldStatsTableName;
+    }
+    
     public Integer getNumQueryThreads() {
         return numQueryThreads;
     }
@@ -1450,6 +1512,22 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         return "" + groupFieldsBatchSize;
     }
     
+    public int getGroupFieldsMaxGroups() {
+        return groupFieldsMaxGroups;
+    }
+    
+    public void setGroupFieldsMaxGroups(int groupFieldsMaxGroups) {
+        this.groupFieldsMaxGroups = groupFieldsMaxGroups;
+    }
+    
+    public int getUniqueFieldsMaxEntries() {
+        return uniqueFieldsMaxEntries;
+    }
+    
+    public void setUniqueFieldsMaxEntries(int uniqueFieldsMaxEntries) {
+        this.uniqueFieldsMaxEntries = uniqueFieldsMaxEntries;
+    }
+    
     public Set<String> getUniqueFields() {
         return uniqueFields;
     }
@@ -1494,6 +1572,38 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.minSelectivity = minSelectivity;
     }
     
+    public boolean isCostBasedPlanning() {
+        return costBasedPlanning;
+    }
+    
+    public void setCostBasedPlanning(boolean costBasedPlanning) {
+        this.costBasedPlanning = costBasedPlanning;
+    }
+    
+    public double getMaxTermCostRatio() {
+        return maxTermCostRatio;
+    }
+    
+    public void setMaxTermCostRatio(double maxTermCostRatio) {
+        this.maxTermCostRatio = maxTermCostRatio;
+    }
+    
+    public long getEstimatedQueryCost() {
+        return estimatedQueryCost;
+    }
+    
+    public void setEstimatedQueryCost(long estimatedQueryCost) {
+        this.estimatedQueryCost = estimatedQueryCost;
+    }
+    
+    public long getIndexExpansionCacheMillis() {
+        return indexExpansionCacheMillis;
+    }
+    
+    public void setIndexExpansionCacheMillis(long indexExpansionCacheMillis) {
+        this.indexExpansionCacheMillis = indexExpansionCacheMillis;
+    }
+    
     /**
      * Checks for non-null, sane values for the configured values
      *
@@ -1794,6 +1904,38 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.sequentialScheduler = sequentialScheduler;
     }
     
+    public boolean getOrderedScheduler() {
+        return orderedScheduler;
+    }
+    
+    public void setOrderedScheduler(boolean orderedScheduler) {
+        this.orderedScheduler = orderedScheduler;
+    }
+    
+    public int getOrderedScanLookahead() {
+        return orderedScanLookahead;
+    }
+    
+    public void setOrderedScanLookahead(int orderedScanLookahead) {
+        this.orderedScanLookahead = orderedScanLookahead;
+    }
+    
+    public int getOrderedScanQueueSize() {
+        return orderedScanQueueSize;
+    }
+    
+    public void setOrderedScanQueueSize(int orderedScanQueueSize) {
+        this.orderedScanQueueSize = orderedScanQueueSize;
+    }
+    
+    public int getTopK() {
+        return topK;
+    }
+    
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+    
     public boolean getLimitAnyFieldLookups() {
         return limitAnyFieldLookups;
     }
@@ -1936,6 +2078,38 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.speculativeScanning = speculativeScanning;
     }
     
+    public boolean getHedgedScanning() {
+        return hedgedScanning;
+    }
+    
+    public void setHedgedScanning(boolean hedgedScanning) {
+        this.hedgedScanning = hedgedScanning;
+    }
+    
+    public double getHedgedScanPercentile() {
+        return hedgedScanPercentile;
+    }
+    
+    public void setHedgedScanPercentile(double hedgedScanPercentile) {
+        this.hedgedScanPercentile = hedgedScanPercentile;
+    }
+    
+    public long getHedgedScanMinDelay() {
+        return hedgedScanMinDelay;
+    }
+    
+    public void setHedgedScanMinDelay(long hedgedScanMinDelay) {
+        this.hedgedScanMinDelay = hedgedScanMinDelay;
+    }
+    
+    public double getHedgedScanBudget() {
+        return hedgedScanBudget;
+    }
+    
+    public void setHedgedScanBudget(double hedgedScanBudget) {
+        this.hedgedScanBudget = hedgedScanBudget;
+    }
+    
     public boolean getSerializeQueryIterator() {
         return serializeQueryIterator;
     }
@@ -1968,6 +2142,22 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.trackSizes = trackSizes;
     }
     
+    public boolean isDocumentCache() {
+        return documentCache;
+    }
+    
+    public void setDocumentCache(boolean documentCache) {
+        this.documentCache = documentCache;
+    }
+    
+    public int getSourceNextsBeforeSeek() {
+        return sourceNextsBeforeSeek;
+    }
+    
+    public void setSourceNextsBeforeSeek(int sourceNextsBeforeSeek) {
+        this.sourceNextsBeforeSeek = sourceNextsBeforeSeek;
+    }
+    
     public List<String> getContentFieldNames() {
         return contentFieldNames;
     }
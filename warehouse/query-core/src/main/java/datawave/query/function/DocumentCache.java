@@ -0,0 +1,263 @@
+package datawave.query.function;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * This singleton is used on the tservers. It holds the event entries of recently fetched documents, so that a document returned by many concurrent queries,
+ * such as a recent alert, is read from the tablet once instead of once per query. A document is keyed on the table, the shard and the datatype\0uid, and the
+ * authorizations of the scan, since the entries a scan can see depend on its authorizations.
+ * <p>
+ * The cache holds at most {@value #MAX_BYTES_PROPERTY} bytes of entries, evicting the least recently used documents. An iterator cannot observe the files of
+ * its tablet, so rather than being invalidated when they change, a document expires {@value #EXPIRE_MILLIS_PROPERTY} milliseconds after it was read, which
+ * bounds how long a query can miss updates to it.
+ * <p>
+ * The cached keys and values are shared, and must not be modified by their users.
+ */
+public class DocumentCache {
+    
+    private static final Logger log = Logger.getLogger(DocumentCache.class);
+    
+    public static final String MAX_BYTES_PROPERTY = "datawave.query.document.cache.max.bytes";
+    public static final String EXPIRE_MILLIS_PROPERTY = "datawave.query.document.cache.expire.millis";
+    
+    // the approximate memory used by an entry beyond its key and value data
+    private static final int ENTRY_OVERHEAD = 96;
+    
+    private static class InstanceHolder {
+        private static final DocumentCache INSTANCE = new DocumentCache(Long.getLong(MAX_BYTES_PROPERTY, 256L * 1024 * 1024), Long.getLong(
+                        EXPIRE_MILLIS_PROPERTY, TimeUnit.MINUTES.toMillis(1)));
+    }
+    
+    public static DocumentCache getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+    
+    private final Cache<List<Object>,CachedDocument> cache;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    /**
+     * @param maxBytes
+     *            the maximum size of the cached entries
+     * @param expireMillis
+     *            how long a document is cached after it is read
+     */
+    public DocumentCache(long maxBytes, long expireMillis) {
+        this.cache = CacheBuilder.newBuilder().maximumWeight(maxBytes).weigher((List<Object> key, CachedDocument document) -> document.getWeight())
+                        .expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS).concurrencyLevel(16).build();
+    }
+    
+    /**
+     * @param table
+     *            the table being scanned
+     * @param authorizations
+     *            the authorizations of the scan
+     * @param documentKey
+     *            a key of the document, of the form "shard datatype\0uid:"
+     * @return the cache key of the document
+     */
+    public static List<Object> getCacheKey(String table, Authorizations authorizations, Key documentKey) {
+        return Arrays.asList(table, authorizations, new ArrayByteSequence(documentKey.getRowData().toArray()), new ArrayByteSequence(documentKey
+                        .getColumnFamilyData().toArray()));
+    }
+    
+    /**
+     * @param cacheKey
+     *            the cache key of the document
+     * @return the document, or null if it is not cached
+     */
+    public CachedDocument getIfPresent(List<Object> cacheKey) {
+        CachedDocument document = cache.getIfPresent(cacheKey);
+        if (null != document) {
+            hits.incrementAndGet();
+        }
+        return document;
+    }
+    
+    /**
+     * Get a document, reading it if it is not cached. Concurrent requests for the same document wait for a single read.
+     *
+     * @param cacheKey
+     *            the cache key of the document
+     * @param loader
+     *            reads the document from the tablet
+     * @return the document
+     * @throws IOException
+     *             if the loader failed
+     */
+    public CachedDocument get(List<Object> cacheKey, Callable<CachedDocument> loader) throws IOException {
+        try {
+            return cache.get(cacheKey, () -> {
+                misses.incrementAndGet();
+                if (log.isTraceEnabled()) {
+                    log.trace("reading document " + cacheKey.subList(2, 4));
+                }
+                return loader.call();
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    /**
+     * Remove all cached documents
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    public long size() {
+        return cache.size();
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * The event entries of a document, in key order
+     */
+    public static class CachedDocument {
+        
+        private final Key[] keys;
+        private final Value[] values;
+        private final int weight;
+        
+        /**
+         * @param entries
+         *            the entries of the document, in key order, which are not copied
+         */
+        public CachedDocument(List<Map.Entry<Key,Value>> entries) {
+            this.keys = new Key[entries.size()];
+            this.values = new Value[entries.size()];
+            long weight = 0;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).getKey();
+                values[i] = entries.get(i).getValue();
+                weight += keys[i].getSize() + values[i].getSize() + ENTRY_OVERHEAD;
+            }
+            this.weight = (int) Math.min(weight, Integer.MAX_VALUE);
+        }
+        
+        public int size() {
+            return keys.length;
+        }
+        
+        public int getWeight() {
+            return weight;
+        }
+        
+        /**
+         * @return a new iterator over the entries of the document
+         */
+        public SortedKeyValueIterator<Key,Value> iterator() {
+            return new CachedDocumentIterator(this);
+        }
+    }
+    
+    /**
+     * Iterates over the entries of a cached document, as the tablet would have returned them
+     */
+    private static class CachedDocumentIterator implements SortedKeyValueIterator<Key,Value> {
+        
+        private final CachedDocument document;
+        
+        private Range range = null;
+        private Collection<ByteSequence> columnFamilies;
+        private boolean inclusive;
+        
+        private int position;
+        
+        CachedDocumentIterator(CachedDocument document) {
+            this.document = document;
+        }
+        
+        @Override
+        public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public boolean hasTop() {
+            return null != range && position < document.keys.length && !range.afterEndKey(document.keys[position]);
+        }
+        
+        @Override
+        public void next() throws IOException {
+            position++;
+            skipColumnFamilies();
+        }
+        
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+            this.range = range;
+            this.columnFamilies = columnFamilies;
+            this.inclusive = inclusive;
+            
+            // find the first key that is not before the range
+            int low = 0;
+            int high = document.keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (range.beforeStartKey(document.keys[mid])) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            position = low;
+            skipColumnFamilies();
+        }
+        
+        private void skipColumnFamilies() {
+            while (position < document.keys.length && inclusive != columnFamilies.contains(document.keys[position].getColumnFamilyData())) {
+                position++;
+            }
+        }
+        
+        @Override
+        public Key getTopKey() {
+            return document.keys[position];
+        }
+        
+        @Override
+        public Value getTopValue() {
+            return document.values[position];
+        }
+        
+        @Override
+        public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+            return new CachedDocumentIterator(document);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package datawave.query.function;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import datawave.marking.MarkingFunctions;
+import datawave.query.attributes.Attribute;
+import datawave.query.attributes.Attributes;
+import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+/**
+ * Merges the {@link FacetSummary} attributes returned by each tablet of an approximate faceted search, returning the merged sketches after each input.
+ */
+public class FacetSketchMerge implements Function<Entry<Key,Document>,Entry<Key,Document>> {
+    
+    private static final Logger log = Logger.getLogger(FacetSketchMerge.class);
+    private static final Text EMPTY_TEXT = new Text();
+    
+    protected final MarkingFunctions markingFunctions = MarkingFunctions.Factory.createMarkingFunctions();
+    
+    protected final Map<String,FacetSummary> merged = Maps.newTreeMap();
+    
+    @Override
+    public Entry<Key,Document> apply(Entry<Key,Document> input) {
+        for (Entry<String,Attribute<? extends Comparable<?>>> attr : input.getValue().getDictionary().entrySet()) {
+            if (attr.getValue() instanceof Attributes) {
+                for (Attribute<?> attribute : ((Attributes) attr.getValue()).getAttributes()) {
+                    merge(attr.getKey(), attribute);
+                }
+            } else {
+                merge(attr.getKey(), attr.getValue());
+            }
+        }
+        
+        Document document = new Document();
+        for (Entry<String,FacetSummary> summary : merged.entrySet()) {
+            document.put(summary.getKey(), summary.getValue());
+        }
+        return Maps.immutableEntry(input.getKey(), document);
+    }
+    
+    protected void merge(String field, Attribute<?> attribute) {
+        if (!(attribute instanceof FacetSummary)) {
+            if (log.isTraceEnabled()) {
+                log.trace("Ignoring " + field + " which is a " + attribute.getClass());
+            }
+            return;
+        }
+        
+        FacetSummary summary = (FacetSummary) attribute;
+        FacetSummary existing = merged.get(field);
+        if (null == existing) {
+            FacetSketch sketch = new FacetSketch(summary.getContent().getCapacity());
+            existing = new FacetSummary(sketch, summary.getMetadata(), summary.isToKeep());
+            merged.put(field, existing);
+        }
+        
+        try {
+            existing.getContent().merge(summary.getContent());
+        } catch (CardinalityMergeException e) {
+            throw new RuntimeException(e);
+        }
+        
+        if (!existing.getColumnVisibility().equals(summary.getColumnVisibility())) {
+            try {
+                ColumnVisibility combined = markingFunctions.combine(Arrays.asList(existing.getColumnVisibility(), summary.getColumnVisibility()));
+                existing = new FacetSummary(existing.getContent(), new Key(EMPTY_TEXT, EMPTY_TEXT, EMPTY_TEXT, combined, -1), existing.isToKeep());
+                merged.put(field, existing);
+            } catch (MarkingFunctions.Exception e) {
+                throw new RuntimeException("Could not combine the visibilities of the " + field + " facets", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package datawave.query.function;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import datawave.marking.MarkingFunctions;
+import datawave.query.attributes.Attribute;
+import datawave.query.attributes.Attributes;
+import datawave.query.attributes.Cardinality;
+import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Summarizes the faceted fields of a stream of documents into one {@link FacetSketch} per field, so that the size of the result depends on the sketch size
+ * rather than on the number of distinct field values. Each document is counted once per distinct value of a field.
+ */
+public class FacetSketching implements Function<Entry<Key,Document>,Entry<Key,Document>> {
+    
+    private static final Text EMPTY_TEXT = new Text();
+    
+    protected final int sketchSize;
+    
+    protected final MarkingFunctions markingFunctions = MarkingFunctions.Factory.createMarkingFunctions();
+    
+    protected final Map<String,FacetSketch> sketches = Maps.newTreeMap();
+    
+    protected final Map<String,Set<ColumnVisibility>> visibilities = Maps.newHashMap();
+    
+    protected Key referenceKey = null;
+    
+    public FacetSketching(int sketchSize) {
+        this.sketchSize = sketchSize;
+    }
+    
+    /**
+     * Count the values of the faceted fields of a document.
+     *
+     * @param input
+     * @return the document, unchanged
+     */
+    @Override
+    public Entry<Key,Document> apply(Entry<Key,Document> input) {
+        Key topKey = input.getKey();
+        
+        // reduce the key to the document key pieces only
+        referenceKey = new Key(topKey.getRow(), topKey.getColumnFamily());
+        
+        for (Entry<String,Attribute<? extends Comparable<?>>> attr : input.getValue().getDictionary().entrySet()) {
+            if (attr.getKey().equals(Document.DOCKEY_FIELD_NAME)) {
+                continue;
+            }
+            
+            Set<String> values = Sets.newHashSet();
+            Set<ColumnVisibility> fieldVisibilities = visibilities.computeIfAbsent(attr.getKey(), k -> Sets.newHashSet());
+            if (attr.getValue() instanceof Attributes) {
+                for (Attribute<?> attribute : ((Attributes) attr.getValue()).getAttributes()) {
+                    addValue(attribute, values, fieldVisibilities);
+                }
+            } else {
+                addValue(attr.getValue(), values, fieldVisibilities);
+            }
+            
+            FacetSketch sketch = sketches.computeIfAbsent(attr.getKey(), k -> new FacetSketch(sketchSize));
+            for (String value : values) {
+                sketch.offer(value);
+            }
+        }
+        
+        return input;
+    }
+    
+    private void addValue(Attribute<?> attribute, Set<String> values, Set<ColumnVisibility> fieldVisibilities) {
+        if (attribute instanceof Cardinality) {
+            values.add(((Cardinality) attribute).getContent().getFloorValue());
+        } else {
+            values.add(attribute.getData().toString());
+        }
+        if (attribute.isMetadataSet()) {
+            fieldVisibilities.add(attribute.getColumnVisibility());
+        }
+    }
+    
+    /**
+     * @return a document holding the sketch of each field, marked with the combined visibility of the values that were counted
+     */
+    public Entry<Key,Document> getTop() {
+        Document document = new Document();
+        for (Entry<String,FacetSketch> sketch : sketches.entrySet()) {
+            ColumnVisibility visibility;
+            try {
+                visibility = markingFunctions.combine(visibilities.get(sketch.getKey()));
+            } catch (MarkingFunctions.Exception e) {
+                throw new RuntimeException("Could not combine the visibilities of the " + sketch.getKey() + " facets", e);
+            }
+            
+            // for sketches, only use the visibility metadata
+            Key metadata = new Key(EMPTY_TEXT, EMPTY_TEXT, EMPTY_TEXT, visibility, -1);
+            document.put(sketch.getKey(), new FacetSummary(sketch.getValue(), metadata, true));
+        }
+        return Maps.immutableEntry(referenceKey, document);
+    }
+}
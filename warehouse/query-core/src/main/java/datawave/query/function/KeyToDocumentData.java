@@ -18,6 +18,7 @@ import datawave.query.attributes.Document;
 import datawave.query.exceptions.DatawaveFatalQueryException;
 import datawave.query.iterator.QueryOptions;
 import datawave.query.iterator.aggregation.DocumentData;
+import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.predicate.EventDataQueryFilter;
 import datawave.query.util.Tuple3;
 import datawave.webservice.query.exception.DatawaveErrorCode;
@@ -31,6 +32,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.mutable.MutableInt;
@@ -62,6 +64,14 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
     
     private boolean includeParent = false;
     
+    private DocumentCache documentCache = null;
+    
+    private String documentCacheTable = null;
+    
+    private Authorizations authorizations = null;
+    
+    private QuerySpan trackingSpan = null;
+    
     public KeyToDocumentData(SortedKeyValueIterator<Key,Value> source) {
         this(source, new PrefixEquality(PartialKey.ROW_COLFAM), false, false);
     }
@@ -99,6 +109,26 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         }
     }
     
+    /**
+     * Share the event entries of the documents fetched by this function with other queries through a tserver wide cache. Only the entries of a single
+     * document are cached, so the cache is not used for key ranges that span documents.
+     * 
+     * @param documentCache
+     *            the cache
+     * @param table
+     *            the table being scanned
+     * @param authorizations
+     *            the authorizations of the scan
+     * @param trackingSpan
+     *            the span to count cache hits and misses on, or null
+     */
+    public void setDocumentCache(DocumentCache documentCache, String table, Authorizations authorizations, QuerySpan trackingSpan) {
+        this.documentCache = documentCache;
+        this.documentCacheTable = table;
+        this.authorizations = authorizations;
+        this.trackingSpan = trackingSpan;
+    }
+    
     /**
      * Append hierarchy fields, including parent and descendant counts, based on the specified range and key
      * 
@@ -124,16 +154,27 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         
         try {
             
-            source.seek(keyRange, columnFamilies, inclusive);
+            final SortedKeyValueIterator<Key,Value> documentSource;
+            if (null != documentCache && isSingleDocument(keyRange, from.getKey())) {
+                documentSource = getCachedDocument(from.getKey());
+            } else {
+                documentSource = source;
+            }
+            
+            documentSource.seek(keyRange, columnFamilies, inclusive);
             
             if (log.isDebugEnabled())
-                log.debug(source.hasTop() + " Key range is " + keyRange);
+                log.debug(documentSource.hasTop() + " Key range is " + keyRange);
             
             final List<Entry<Key,Value>> attrs; // Assign only once for
                                                 // efficiency
             final Set<Key> docKeys = new HashSet<>();
-            if (source.hasTop()) {
-                attrs = this.collectDocumentAttributes(from.getKey(), docKeys, keyRange);
+            if (documentSource.hasTop()) {
+                if (documentSource == source) {
+                    attrs = this.collectDocumentAttributes(from.getKey(), docKeys, keyRange);
+                } else {
+                    attrs = collectAttributesForDocumentKey(from.getKey(), documentSource, equality, filter, docKeys, keyRange);
+                }
                 this.appendHierarchyFields(attrs, keyRange, from.getKey());
             } else {
                 attrs = Collections.emptyList();
@@ -148,6 +189,52 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         
     }
     
+    /**
+     * @param keyRange
+     *            the range to fetch
+     * @param documentKey
+     *            a key of the document
+     * @return true if the range is within the column family of the document
+     */
+    private static boolean isSingleDocument(Range keyRange, Key documentKey) {
+        Key start = keyRange.getStartKey();
+        Key end = keyRange.getEndKey();
+        return null != start && null != end && start.getRowData().equals(documentKey.getRowData())
+                        && start.getColumnFamilyData().equals(documentKey.getColumnFamilyData())
+                        && end.compareTo(documentKey.followingKey(PartialKey.ROW_COLFAM)) <= 0;
+    }
+    
+    /**
+     * Get the event entries of a document from the document cache, reading the whole column family of the document from the source if it is not cached
+     * 
+     * @param documentKey
+     *            a key of the document
+     * @return an iterator over the entries of the document
+     * @throws IOException
+     */
+    private SortedKeyValueIterator<Key,Value> getCachedDocument(final Key documentKey) throws IOException {
+        List<Object> cacheKey = DocumentCache.getCacheKey(documentCacheTable, authorizations, documentKey);
+        DocumentCache.CachedDocument document = documentCache.getIfPresent(cacheKey);
+        if (null == document) {
+            document = documentCache.get(cacheKey, () -> {
+                Key start = new Key(documentKey.getRow(), documentKey.getColumnFamily());
+                source.seek(new Range(start, true, start.followingKey(PartialKey.ROW_COLFAM), false), columnFamilies, inclusive);
+                List<Entry<Key,Value>> entries = new ArrayList<>(256);
+                while (source.hasTop()) {
+                    entries.add(Maps.immutableEntry(new Key(source.getTopKey()), new Value(source.getTopValue())));
+                    source.next();
+                }
+                return new DocumentCache.CachedDocument(entries);
+            });
+            if (null != trackingSpan) {
+                trackingSpan.documentCacheMiss();
+            }
+        } else if (null != trackingSpan) {
+            trackingSpan.documentCacheHit();
+        }
+        return document.iterator();
+    }
+    
     /**
      * Given a Key pointing to the start of an document to aggregate, construct a list of attributes, adding the names of the attributes to the specified set of
      * "docKeys".
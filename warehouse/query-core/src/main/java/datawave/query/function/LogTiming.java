@@ -52,6 +52,10 @@ public class LogTiming implements Function<Entry<Key,Document>,Entry<Key,Documen
                 timingMetadata.setSourceCount(querySpan.getSourceCount());
                 timingMetadata.setSeekCount(querySpan.getSeekCount());
                 timingMetadata.setNextCount(querySpan.getNextCount());
+                if (querySpan.getDocumentCacheHits() > 0 || querySpan.getDocumentCacheMisses() > 0) {
+                    timingMetadata.setDocumentCacheHits(querySpan.getDocumentCacheHits());
+                    timingMetadata.setDocumentCacheMisses(querySpan.getDocumentCacheMisses());
+                }
                 if (querySpan.getYield()) {
                     timingMetadata.setYieldCount(1L);
                 } else {
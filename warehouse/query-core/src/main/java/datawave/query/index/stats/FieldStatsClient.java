@@ -0,0 +1,136 @@
+package datawave.query.index.stats;
+
+import datawave.core.iterators.filter.CsvKeyFilter;
+import datawave.data.FieldStatsSketch;
+import datawave.iterators.IteratorSettingHelper;
+import datawave.util.TableName;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * API for getting field cardinalities from the incrementally maintained field stats table. The table holds one {@link FieldStatsSketch} per field name, day and
+ * datatype, which are merged on read across the requested days and datatypes.
+ */
+public class FieldStatsClient {
+    
+    private static final Logger log = Logger.getLogger(FieldStatsClient.class);
+    
+    private final Connector con;
+    private String table;
+    
+    public FieldStatsClient(Connector connector) {
+        this(connector, TableName.FIELD_STATS);
+    }
+    
+    public FieldStatsClient(Connector connector, String tableName) {
+        this.con = connector;
+        this.table = tableName;
+    }
+    
+    public void setTable(String table) {
+        this.table = table;
+    }
+    
+    /**
+     * If getStats throws any exceptions, return no stats instead of throwing the exception.
+     */
+    public Map<String,FieldStatsSketch> safeGetStats(Set<String> fields, Set<String> dataTypes, Date begin, Date end, Authorizations auths) {
+        try {
+            return getStats(fields, dataTypes, begin, end, auths);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Caught exception getting field stats, returning no stats", e);
+            }
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * Merge the daily sketches of each field across a date range.
+     *
+     * @param fields
+     *            the fields to get stats for, all fields when empty
+     * @param dataTypes
+     *            the datatypes to include, all datatypes when empty
+     * @param begin
+     *            the first day to include
+     * @param end
+     *            the last day to include
+     * @param auths
+     *            the authorizations to scan with
+     * @return a merged sketch per field, fields without any stats are omitted
+     * @throws TableNotFoundException
+     *             if the field stats table does not exist
+     * @throws IOException
+     *             if a sketch cannot be read
+     */
+    public Map<String,FieldStatsSketch> getStats(Set<String> fields, Set<String> dataTypes, Date begin, Date end, Authorizations auths)
+                    throws TableNotFoundException, IOException {
+        BatchScanner scanner = con.createBatchScanner(table, auths, Math.max(1, Math.min(fields.size(), 8)));
+        try {
+            scanner.setRanges(buildRanges(fields));
+            configureScanIterators(scanner, dataTypes, DateHelper.format(begin), DateHelper.format(end));
+            
+            Map<String,FieldStatsSketch> stats = new HashMap<>();
+            for (Entry<Key,Value> entry : scanner) {
+                String field = entry.getKey().getRow().toString();
+                FieldStatsSketch sketch = new FieldStatsSketch(entry.getValue());
+                FieldStatsSketch merged = stats.putIfAbsent(field, sketch);
+                if (merged != null) {
+                    merged.merge(sketch);
+                }
+            }
+            return stats;
+        } finally {
+            scanner.close();
+        }
+    }
+    
+    public void configureScanIterators(ScannerBase scanner, Collection<String> dataTypes, String beginDate, String endDate) {
+        // only the days within the date range
+        IteratorSetting cfg = new IteratorSetting(IteratorSettingHelper.BASE_ITERATOR_PRIORITY + 30, MinMaxIterator.class);
+        cfg.addOption(MinMaxIterator.MIN_OPT, beginDate);
+        cfg.addOption(MinMaxIterator.MAX_OPT, endDate);
+        scanner.addScanIterator(cfg);
+        
+        // only want these data types
+        if (!dataTypes.isEmpty()) {
+            cfg = new IteratorSetting(IteratorSettingHelper.BASE_ITERATOR_PRIORITY + 31, CsvKeyFilter.class);
+            cfg.addOption(CsvKeyFilter.ALLOWED_OPT, StringUtils.join(dataTypes, ','));
+            cfg.addOption(CsvKeyFilter.KEY_PART_OPT, "colq");
+            scanner.addScanIterator(cfg);
+        }
+    }
+    
+    public List<Range> buildRanges(Collection<String> fields) {
+        List<Range> ranges = new ArrayList<>(Math.max(1, fields.size()));
+        if (fields.isEmpty()) {
+            ranges.add(new Range());
+        }
+        for (String field : fields) {
+            ranges.add(Range.exact(field));
+        }
+        return ranges;
+    }
+}
@@ -96,8 +96,9 @@ public class MinMaxIterator implements SortedKeyValueIterator<Key,Value> {
                 if (log.isTraceEnabled()) {
                     log.trace("Setting matching key to " + src.getTopKey().toStringNoTime());
                 }
-                matchingKey = src.getTopKey();
-                topValue = src.getTopValue();
+                // copied because the source may reuse its key and value when it moves on
+                matchingKey = new Key(src.getTopKey());
+                topValue = new Value(src.getTopValue());
                 src.next();
                 return;
             }
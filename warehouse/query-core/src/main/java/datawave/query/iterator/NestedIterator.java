@@ -19,6 +19,10 @@ public interface NestedIterator<T> extends Iterator<T> {
     
     /**
      * Tells the underlying iterator to return the first element that is greater than or equal to <code>minimum</code>.
+     * <p>
+     * A sorted batch of candidates is moved through by calling this with each candidate in ascending order, skipping those below the element last returned.
+     * The targets are then close together, so leaves whose sources read forward (see {@link SourceManager#setNextsBeforeSeek(int)}) reach them with calls to
+     * next() rather than seeks.
      * 
      * @param minimum
      * @return the first Key in the iterator greater than or equal to minimum or null if no Key exists
@@ -21,6 +21,7 @@ import datawave.query.attributes.ValueTuple;
 import datawave.query.composite.CompositeMetadata;
 import datawave.query.function.Aggregation;
 import datawave.query.function.DataTypeAsField;
+import datawave.query.function.DocumentCache;
 import datawave.query.function.DocumentMetadata;
 import datawave.query.function.DocumentPermutation;
 import datawave.query.function.DocumentProjection;
@@ -82,6 +83,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.YieldCallback;
 import org.apache.accumulo.core.iterators.YieldingKeyValueIterator;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
 import org.apache.accumulo.tserver.tablet.TabletClosedException;
@@ -770,8 +772,10 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 }
             };
         } else {
-            docMapper = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getEvaluationFilter(),
+            KeyToDocumentData keyToDocumentData = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getEvaluationFilter(),
                             this.includeHierarchyFields, this.includeHierarchyFields);
+            configureDocumentCache(keyToDocumentData, trackingSpan);
+            docMapper = keyToDocumentData;
         }
         
         Iterator<Entry<DocumentData,Document>> sourceIterator = Iterators.transform(documentSpecificSource, from -> {
@@ -1010,6 +1014,29 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         }
     }
     
+    /**
+     * Share the documents fetched by the mapper with other queries on this tserver, if the query enabled the document cache
+     * 
+     * @param docMapper
+     *            the document mapper
+     * @param trackingSpan
+     *            the span to count cache hits and misses on, or null
+     */
+    protected void configureDocumentCache(KeyToDocumentData docMapper, QuerySpan trackingSpan) {
+        if (null == getDocumentCacheTable() || null == myEnvironment) {
+            return;
+        }
+        
+        final Authorizations authorizations;
+        try {
+            authorizations = myEnvironment.getAuthorizations();
+        } catch (UnsupportedOperationException e) {
+            log.debug("The document cache requires the scan authorizations, which are not available in this environment", e);
+            return;
+        }
+        docMapper.setDocumentCache(DocumentCache.getInstance(), getDocumentCacheTable(), authorizations, trackingSpan);
+    }
+    
     protected Iterator<Entry<Key,Document>> mapDocument(SortedKeyValueIterator<Key,Value> deepSourceCopy, Iterator<Entry<Key,Document>> documents,
                     CompositeMetadata compositeMetadata) {
         // now lets pull the data if we need to
@@ -1019,6 +1046,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         if (fieldIndexSatisfiesQuery) {
             final KeyToDocumentData docMapper = new KeyToDocumentData(deepSourceCopy, this.myEnvironment, this.documentOptions, super.equality,
                             getEvaluationFilter(), this.includeHierarchyFields, this.includeHierarchyFields);
+            configureDocumentCache(docMapper, trackingSpan);
             Iterator<Tuple2<Key,Document>> mappedDocuments = Iterators.transform(
                             documents,
                             new GetDocument(docMapper, new Aggregation(this.getTimeFilter(), typeMetadataWithNonIndexed, compositeMetadata, this
@@ -1322,6 +1350,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         // @formatter:off
         return c.newInstance()
                 .setSource(this, this.myEnvironment)
+                .setSourceNextsBeforeSeek(this.getSourceNextsBeforeSeek())
                 .setTimeFilter(this.getTimeFilter())
                 .setTypeMetadata(this.getTypeMetadata())
                 .setFieldsToAggregate(this.getNonEventFields())
@@ -1445,7 +1474,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         if (uniqueTransform == null && getUniqueFields() != null & !getUniqueFields().isEmpty()) {
             synchronized (getUniqueFields()) {
                 if (uniqueTransform == null) {
-                    uniqueTransform = new UniqueTransform(getUniqueFields());
+                    uniqueTransform = new UniqueTransform(getUniqueFields(), getUniqueFieldsMaxEntries());
                 }
             }
         }
@@ -1458,6 +1487,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 if (groupingTransform == null) {
                     groupingTransform = new GroupingTransform(null, getGroupFields(), true);
                     groupingTransform.initialize(null, MarkingFunctionsFactory.createMarkingFunctions());
+                    groupingTransform.setMaxGroups(getGroupFieldsMaxGroups());
                 }
             }
         }
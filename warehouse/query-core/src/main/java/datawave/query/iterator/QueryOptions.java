@@ -26,6 +26,7 @@ import datawave.query.DocumentSerialization;
 import datawave.query.attributes.Document;
 import datawave.query.composite.CompositeMetadata;
 import datawave.query.function.ConfiguredFunction;
+import datawave.query.function.DocumentCache;
 import datawave.query.function.DocumentPermutation;
 import datawave.query.function.Equality;
 import datawave.query.function.GetStartKey;
@@ -46,6 +47,7 @@ import datawave.query.predicate.TimeFilter;
 import datawave.query.statsd.QueryStatsDClient;
 import datawave.query.tables.async.Scan;
 import datawave.query.util.TypeMetadata;
+import datawave.query.util.TypeMetadataCache;
 import datawave.query.util.TypeMetadataProvider;
 import datawave.util.StringUtils;
 import datawave.util.UniversalSet;
@@ -81,6 +83,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -109,6 +112,7 @@ public class QueryOptions implements OptionDescriber {
     public static final String QUERY_ID = "query.id";
     public static final String TYPE_METADATA = "type.metadata";
     public static final String TYPE_METADATA_AUTHS = "type.metadata.auths";
+    public static final String TYPE_METADATA_VERSION = "type.metadata.version";
     public static final String METADATA_TABLE_NAME = "model.table.name";
     
     public static final String REDUCED_RESPONSE = "reduced.response";
@@ -133,7 +137,9 @@ public class QueryOptions implements OptionDescriber {
     public static final String LIMIT_FIELDS_FIELD = "limit.fields.field";
     public static final String GROUP_FIELDS = "group.fields";
     public static final String GROUP_FIELDS_BATCH_SIZE = "group.fields.batch.size";
+    public static final String GROUP_FIELDS_MAX_GROUPS = "group.fields.max.groups";
     public static final String UNIQUE_FIELDS = "unique.fields";
+    public static final String UNIQUE_FIELDS_MAX_ENTRIES = "unique.fields.max.entries";
     public static final String TYPE_METADATA_IN_HDFS = "type.metadata.in.hdfs";
     public static final String HITS_ONLY = "hits.only";
     public static final String HIT_LIST = "hit.list";
@@ -232,6 +238,10 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String SORTED_UIDS = "sorted.uids";
     
+    public static final String DOCUMENT_CACHE_TABLE = "document.cache.table";
+    
+    public static final String SOURCE_NEXTS_BEFORE_SEEK = "source.nexts.before.seek";
+    
     protected Map<String,String> options;
     
     protected String scanId;
@@ -261,7 +271,9 @@ public class QueryOptions implements OptionDescriber {
     
     protected Set<String> groupFields = Sets.newHashSet();
     protected int groupFieldsBatchSize = Integer.MAX_VALUE;
+    protected int groupFieldsMaxGroups = 0;
     protected Set<String> uniqueFields = Sets.newHashSet();
+    protected int uniqueFieldsMaxEntries = 0;
     
     protected Set<String> hitsOnlySet = new HashSet<>();
     
@@ -372,6 +384,16 @@ public class QueryOptions implements OptionDescriber {
      */
     protected boolean trackSizes = true;
     
+    /**
+     * the table being scanned, when the fetched event data of documents is shared with other queries through the {@link DocumentCache}
+     */
+    protected String documentCacheTable = null;
+    
+    /**
+     * the number of keys the field index sources read forward to reach a nearby seek before seeking, see {@link SourceManager#setNextsBeforeSeek(int)}
+     */
+    protected int sourceNextsBeforeSeek = 0;
+    
     public void deepCopy(QueryOptions other) {
         this.options = other.options;
         this.query = other.query;
@@ -450,6 +472,8 @@ public class QueryOptions implements OptionDescriber {
         this.limitFieldsField = other.limitFieldsField;
         this.groupFields = other.groupFields;
         this.groupFieldsBatchSize = other.groupFieldsBatchSize;
+        this.groupFieldsMaxGroups = other.groupFieldsMaxGroups;
+        this.uniqueFieldsMaxEntries = other.uniqueFieldsMaxEntries;
         this.hitsOnlySet = other.hitsOnlySet;
         
         this.compressedMappings = other.compressedMappings;
@@ -485,6 +509,10 @@ public class QueryOptions implements OptionDescriber {
         this.debugMultithreadedSources = other.debugMultithreadedSources;
         
         this.trackSizes = other.trackSizes;
+        
+        this.documentCacheTable = other.documentCacheTable;
+        
+        this.sourceNextsBeforeSeek = other.sourceNextsBeforeSeek;
     }
     
     public String getQuery() {
@@ -943,6 +971,14 @@ public class QueryOptions implements OptionDescriber {
         this.groupFieldsBatchSize = groupFieldsBatchSize;
     }
     
+    public int getGroupFieldsMaxGroups() {
+        return groupFieldsMaxGroups;
+    }
+    
+    public void setGroupFieldsMaxGroups(int groupFieldsMaxGroups) {
+        this.groupFieldsMaxGroups = groupFieldsMaxGroups;
+    }
+    
     public Set<String> getUniqueFields() {
         return uniqueFields;
     }
@@ -951,6 +987,14 @@ public class QueryOptions implements OptionDescriber {
         this.uniqueFields = uniqueFields;
     }
     
+    public int getUniqueFieldsMaxEntries() {
+        return uniqueFieldsMaxEntries;
+    }
+    
+    public void setUniqueFieldsMaxEntries(int uniqueFieldsMaxEntries) {
+        this.uniqueFieldsMaxEntries = uniqueFieldsMaxEntries;
+    }
+    
     public Set<String> getHitsOnlySet() {
         return hitsOnlySet;
     }
@@ -975,6 +1019,22 @@ public class QueryOptions implements OptionDescriber {
         this.sortedUIDs = sortedUIDs;
     }
     
+    public String getDocumentCacheTable() {
+        return documentCacheTable;
+    }
+    
+    public void setDocumentCacheTable(String documentCacheTable) {
+        this.documentCacheTable = documentCacheTable;
+    }
+    
+    public int getSourceNextsBeforeSeek() {
+        return sourceNextsBeforeSeek;
+    }
+    
+    public void setSourceNextsBeforeSeek(int sourceNextsBeforeSeek) {
+        this.sourceNextsBeforeSeek = sourceNextsBeforeSeek;
+    }
+    
     public boolean isDebugMultithreadedSources() {
         return debugMultithreadedSources;
     }
@@ -996,6 +1056,7 @@ public class QueryOptions implements OptionDescriber {
         options.put(QUERY, "The JEXL query to evaluate documents against");
         options.put(QUERY_ID, "The UUID of the query");
         options.put(TYPE_METADATA, "A mapping of field name to a set of DataType class names");
+        options.put(TYPE_METADATA_VERSION, "A version id of the type metadata, used to share its parsed form across scan sessions on a tserver");
         options.put(METADATA_TABLE_NAME, "The name of the metadata table");
         options.put(QUERY_MAPPING_COMPRESS, "Boolean value to indicate Normalizer mapping is compressed");
         options.put(REDUCED_RESPONSE, "Whether or not to return visibility markings on each attribute. Default: " + reducedResponse);
@@ -1026,7 +1087,9 @@ public class QueryOptions implements OptionDescriber {
         options.put(LIMIT_FIELDS, "limit fields");
         options.put(GROUP_FIELDS, "group fields");
         options.put(GROUP_FIELDS_BATCH_SIZE, "group fields.batch.size");
+        options.put(GROUP_FIELDS_MAX_GROUPS, "The number of distinct groups to hold before returning a partial aggregate, 0 for no limit");
         options.put(UNIQUE_FIELDS, "unique fields");
+        options.put(UNIQUE_FIELDS_MAX_ENTRIES, "The number of unique documents to remember within a scan, 0 for no limit");
         options.put(HIT_LIST, "hit list");
         options.put(NON_INDEXED_DATATYPES, "Normalizers to apply only at aggregation time");
         options.put(CONTAINS_INDEX_ONLY_TERMS, "Does the query being evaluated contain any terms which are index-only");
@@ -1065,6 +1128,11 @@ public class QueryOptions implements OptionDescriber {
         
         options.put(DEBUG_MULTITHREADED_SOURCES, "If provided, the SourceThreadTrackingIterator will be used");
         
+        options.put(DOCUMENT_CACHE_TABLE,
+                        "The name of the table being scanned. If provided, fetched documents are shared with queries on the tserver with the same authorizations");
+        
+        options.put(SOURCE_NEXTS_BEFORE_SEEK, "The number of keys the field index sources read forward to reach a nearby seek before seeking. Defaults to 0, always seek");
+        
         options.put(METADATA_TABLE_NAME, this.metadataTableName);
         options.put(LIMIT_FIELDS_PRE_QUERY_EVALUATION, "If true, non-query fields limits will be applied immediately off the iterator");
         options.put(LIMIT_FIELDS_FIELD, "When " + LIMIT_FIELDS_PRE_QUERY_EVALUATION
@@ -1336,6 +1404,10 @@ public class QueryOptions implements OptionDescriber {
             this.setGroupFieldsBatchSize(batchSize);
         }
         
+        if (options.containsKey(GROUP_FIELDS_MAX_GROUPS)) {
+            this.setGroupFieldsMaxGroups(Integer.parseInt(options.get(GROUP_FIELDS_MAX_GROUPS)));
+        }
+        
         if (options.containsKey(UNIQUE_FIELDS)) {
             String uniqueFields = options.get(UNIQUE_FIELDS);
             for (String param : Splitter.on(',').omitEmptyStrings().trimResults().split(uniqueFields)) {
@@ -1343,6 +1415,10 @@ public class QueryOptions implements OptionDescriber {
             }
         }
         
+        if (options.containsKey(UNIQUE_FIELDS_MAX_ENTRIES)) {
+            this.setUniqueFieldsMaxEntries(Integer.parseInt(options.get(UNIQUE_FIELDS_MAX_ENTRIES)));
+        }
+        
         if (options.containsKey(HIT_LIST)) {
             log.debug("Adding hitList to QueryOptions? " + options.get(HIT_LIST));
             if (Boolean.parseBoolean(options.get(HIT_LIST))) {
@@ -1511,6 +1587,14 @@ public class QueryOptions implements OptionDescriber {
             this.debugMultithreadedSources = Boolean.parseBoolean(options.get(DEBUG_MULTITHREADED_SOURCES));
         }
         
+        if (options.containsKey(DOCUMENT_CACHE_TABLE)) {
+            this.documentCacheTable = options.get(DOCUMENT_CACHE_TABLE);
+        }
+        
+        if (options.containsKey(SOURCE_NEXTS_BEFORE_SEEK)) {
+            this.sourceNextsBeforeSeek = Integer.parseInt(options.get(SOURCE_NEXTS_BEFORE_SEEK));
+        }
+        
         return true;
     }
     
@@ -1537,13 +1621,16 @@ public class QueryOptions implements OptionDescriber {
         }
         // Serialized version of a mapping from field name to DataType used
         if (options.containsKey(TYPE_METADATA)) {
-            String typeMetadataString = options.get(TYPE_METADATA);
+            final String typeMetadataString = options.get(TYPE_METADATA);
+            final String typeMetadataVersion = options.get(TYPE_METADATA_VERSION);
             try {
-                if (compressedMappings) {
-                    typeMetadataString = decompressOption(typeMetadataString, QueryOptions.UTF8);
+                if (typeMetadataVersion != null) {
+                    // only decoded by the first scan session on this tserver to see this version
+                    this.typeMetadata = TypeMetadataCache.get(typeMetadataVersion, () -> decodeTypeMetadata(typeMetadataString));
+                } else {
+                    this.typeMetadata = decodeTypeMetadata(typeMetadataString);
                 }
-                this.typeMetadata = buildTypeMetadata(typeMetadataString);
-            } catch (IOException e) {
+            } catch (IOException | ExecutionException e) {
                 throw new RuntimeException(e);
             }
             
@@ -1557,6 +1644,13 @@ public class QueryOptions implements OptionDescriber {
         
     }
     
+    private TypeMetadata decodeTypeMetadata(String typeMetadataString) throws IOException {
+        if (compressedMappings) {
+            typeMetadataString = decompressOption(typeMetadataString, QueryOptions.UTF8);
+        }
+        return buildTypeMetadata(typeMetadataString);
+    }
+    
     protected static String decompressOption(final String buffer, Charset characterSet) throws IOException {
         final byte[] inBase64 = Base64.decodeBase64(buffer.getBytes());
         
@@ -8,6 +8,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -61,6 +62,24 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
      */
     protected SortedKeyValueIterator<Key,Value> originalSource = null;
     
+    /**
+     * the number of keys a leaf reads forward with next() to reach the start of a seek before seeking its original source, or 0 to always seek
+     */
+    protected int nextsBeforeSeek = 0;
+    
+    /**
+     * the range the original source was last seeked to, which extends to the end of the row of the seeked range when reading forward is enabled
+     */
+    protected Range sourceRange = null;
+    
+    /**
+     * the last key the original source was moved past since it was seeked, or null if it has not been moved
+     */
+    protected Key passedKey = null;
+    
+    protected long seekCount = 0;
+    protected long skippedSeekCount = 0;
+    
     /**
      * used when this souce should not be used for deep copies but should delegate to its child until an original source is found
      */
@@ -93,6 +112,7 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
     
     protected SourceManager createSource() {
         SourceManager child = new SourceManager(0, originalSource.deepCopy(originalEnv));
+        child.setNextsBeforeSeek(nextsBeforeSeek);
         createdSize++;
         return child;
     }
@@ -110,6 +130,28 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
         this.child = child;
     }
     
+    /**
+     * Successive seeks of a source are often close together, such as the ranges of a batch of documents in the same shard, and reading forward to a nearby key
+     * is cheaper than seeking the underlying file iterators again. When set, a leaf seeks its original source to the end of the row of the range, and serves
+     * a later seek that starts ahead of its position in that row with up to this many calls to next() before falling back to a seek.
+     * 
+     * @param nextsBeforeSeek
+     *            the number of keys to read forward before seeking, or 0 to always seek
+     */
+    public void setNextsBeforeSeek(int nextsBeforeSeek) {
+        this.nextsBeforeSeek = nextsBeforeSeek;
+        if (null != child) {
+            child.setNextsBeforeSeek(nextsBeforeSeek);
+        }
+        for (SourceManager source : sourceQueue) {
+            source.setNextsBeforeSeek(nextsBeforeSeek);
+        }
+    }
+    
+    public int getNextsBeforeSeek() {
+        return nextsBeforeSeek;
+    }
+    
     public void setInitialSize(long initialSize) {
         this.initialSize = initialSize;
         if (initialSize > 0)
@@ -145,14 +187,27 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
                 rangeDone = true;
             }
         } else {
-            originalSource.next();
-            if (originalSource.hasTop()) {
-                lastKey = originalSource.getTopKey();
-                lastValue = originalSource.getTopValue();
-            } else {
-                lastKey = null;
-                lastValue = null;
+            if (nextsBeforeSeek > 0 && originalSource.hasTop()) {
+                passedKey = originalSource.getTopKey();
             }
+            originalSource.next();
+            setTopFromOriginalSource(lastRange);
+        }
+    }
+    
+    /**
+     * Take the top of the original source, unless the source has been seeked beyond the end of the range and passed it
+     * 
+     * @param range
+     *            the range seeked by the user of this source
+     */
+    private void setTopFromOriginalSource(Range range) {
+        if (originalSource.hasTop() && (nextsBeforeSeek <= 0 || !range.afterEndKey(originalSource.getTopKey()))) {
+            lastKey = originalSource.getTopKey();
+            lastValue = originalSource.getTopValue();
+        } else {
+            lastKey = null;
+            lastValue = null;
         }
     }
     
@@ -209,12 +264,16 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
                 log.debug("DeepCopy at " + sourceQueue.size() + ", deepCopies: " + deepCopiesCalled + ", sources: " + sources + " original source seek to "
                                 + range);
             if (null != originalSource) {
-                originalSource.seek(range, columnFamilies, inclusive);
-                
-                if (originalSource.hasTop()) {
-                    lastKey = originalSource.getTopKey();
-                    lastValue = originalSource.getTopValue();
+                if (nextsBeforeSeek > 0) {
+                    moveOriginalSource(range, columnFamilies, inclusive);
+                } else {
+                    originalSource.seek(range, columnFamilies, inclusive);
+                    sourceRange = range;
+                    passedKey = null;
+                    seekCount++;
                 }
+                
+                setTopFromOriginalSource(range);
             }
             
         }
@@ -223,6 +282,45 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
         this.inclusive = inclusive;
     }
     
+    /**
+     * Position the original source at the start of the range, reading forward to it when it is at most nextsBeforeSeek keys ahead of the keys already passed
+     * within the range the source was last seeked to, and seeking otherwise
+     */
+    private void moveOriginalSource(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        if (isAhead(range, columnFamilies, inclusive)) {
+            for (int i = 0; i < nextsBeforeSeek && originalSource.hasTop() && range.beforeStartKey(originalSource.getTopKey()); i++) {
+                passedKey = originalSource.getTopKey();
+                originalSource.next();
+            }
+            if (!originalSource.hasTop() || !range.beforeStartKey(originalSource.getTopKey())) {
+                skippedSeekCount++;
+                return;
+            }
+        }
+        
+        // seek to the end of the row, so that the following seeks within the row can read forward instead
+        sourceRange = range;
+        if (null != range.getEndKey()) {
+            sourceRange = new Range(range.getStartKey(), range.isStartKeyInclusive(), range.getEndKey().followingKey(PartialKey.ROW), false);
+        }
+        originalSource.seek(sourceRange, columnFamilies, inclusive);
+        passedKey = null;
+        seekCount++;
+    }
+    
+    /**
+     * @return true if no key of the range has been passed by the original source, and the range is within the range it was last seeked to
+     */
+    private boolean isAhead(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) {
+        if (null == sourceRange || null == range.getStartKey() || inclusive != this.inclusive || !columnFamilies.equals(this.columnFamilies)) {
+            return false;
+        }
+        if (null == passedKey ? sourceRange.beforeStartKey(range.getStartKey()) : range.getStartKey().compareTo(passedKey) <= 0) {
+            return false;
+        }
+        return null == sourceRange.getEndKey() || (null != range.getEndKey() && !sourceRange.afterEndKey(range.getEndKey()));
+    }
+    
     /**
      * TODO: Since we keep track of last key in the bottom source, perhaps we could look at those which are closer when selecting the source. Right now we are
      * given a source and re-use it; however, there is no reason we can't return it for another -- In some experiments this didn't seem fruitful. i.e. it added
@@ -258,6 +356,12 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
             } else {
                 if (log.isDebugEnabled())
                     log.debug("DeepCopy at " + sourceQueue.size() + ", deepCopies: " + deepCopiesCalled + ", sources: " + sources);
+                if (nextsBeforeSeek > 0) {
+                    // wrap the copy so that its seeks may read forward as well
+                    SourceManager copy = new SourceManager(originalSource.deepCopy(env));
+                    copy.setNextsBeforeSeek(nextsBeforeSeek);
+                    return copy;
+                }
                 return originalSource.deepCopy(env);
             }
         }
@@ -324,4 +428,18 @@ public class SourceManager implements SortedKeyValueIterator<Key,Value> {
         return initialSize;
     }
     
+    /**
+     * @return the number of times the original source was seeked
+     */
+    public long getSeekCount() {
+        return null != child ? child.getSeekCount() : seekCount;
+    }
+    
+    /**
+     * @return the number of seeks served by reading the original source forward
+     */
+    public long getSkippedSeekCount() {
+        return null != child ? child.getSkippedSeekCount() : skippedSeekCount;
+    }
+    
 }
@@ -0,0 +1,150 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+import datawave.query.iterator.profile.FinalDocumentTrackingIterator;
+
+/**
+ * Keeps the K newest results of its source for each seek, by the timestamp of the result keys which is the event date, and returns them in key order. Put
+ * above the query iterator, it bounds the results a tablet returns for a top-K query to K, instead of returning every matching document to be sorted by the
+ * client.
+ * <p>
+ * If the scan is torn down and re-seeked after the last key returned, the newest results of the remaining range are returned. These may include results that
+ * are not in the top K of the whole range, which the client discards when it merges the results of all tablets.
+ * <p>
+ * Results are only ranked by the timestamp of their key. The final document entries, which carry the query stats, are not results and are always returned.
+ */
+public class TopKIterator implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
+    
+    private static final Logger log = Logger.getLogger(TopKIterator.class);
+    
+    public static final String K = "top.k";
+    
+    /**
+     * Orders results oldest first, so that the head of a bounded heap is the result to evict
+     */
+    public static final Comparator<Key> OLDEST_FIRST = (first, second) -> {
+        int result = Long.compare(first.getTimestamp(), second.getTimestamp());
+        return result != 0 ? result : second.compareTo(first);
+    };
+    
+    private SortedKeyValueIterator<Key,Value> source;
+    
+    private int k;
+    
+    private Iterator<Entry<Key,Value>> results = null;
+    
+    private Entry<Key,Value> top = null;
+    
+    public TopKIterator() {}
+    
+    private TopKIterator(TopKIterator other, IteratorEnvironment env) {
+        this.source = other.source.deepCopy(env);
+        this.k = other.k;
+    }
+    
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+        if (!validateOptions(options)) {
+            throw new IllegalArgumentException("Invalid options " + options);
+        }
+        this.source = source;
+        this.k = Integer.parseInt(options.get(K));
+    }
+    
+    @Override
+    public boolean hasTop() {
+        return null != top;
+    }
+    
+    @Override
+    public void next() throws IOException {
+        top = results.hasNext() ? results.next() : null;
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        source.seek(range, columnFamilies, inclusive);
+        
+        PriorityQueue<Key> newest = new PriorityQueue<>(k + 1, OLDEST_FIRST);
+        TreeMap<Key,Value> kept = new TreeMap<>();
+        long seen = 0;
+        while (source.hasTop()) {
+            Key key = source.getTopKey();
+            if (FinalDocumentTrackingIterator.isFinalDocumentKey(key)) {
+                // the stats of the scan, whose timestamp says nothing about the age of a result
+                kept.put(new Key(key), new Value(source.getTopValue()));
+                source.next();
+                continue;
+            }
+            seen++;
+            if (newest.size() < k || OLDEST_FIRST.compare(key, newest.peek()) > 0) {
+                // the source may reuse its key and value
+                Key copy = new Key(key);
+                newest.add(copy);
+                kept.put(copy, new Value(source.getTopValue()));
+                if (newest.size() > k) {
+                    kept.remove(newest.poll());
+                }
+            }
+            source.next();
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Kept " + kept.size() + " of " + seen + " results for " + range);
+        }
+        
+        results = kept.entrySet().iterator();
+        next();
+    }
+    
+    @Override
+    public Key getTopKey() {
+        return top.getKey();
+    }
+    
+    @Override
+    public Value getTopValue() {
+        return top.getValue();
+    }
+    
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        return new TopKIterator(this, env);
+    }
+    
+    @Override
+    public IteratorOptions describeOptions() {
+        return new IteratorOptions(getClass().getSimpleName(), "Returns the K newest results of its source for each seek, in key order",
+                        Collections.singletonMap(K, "the number of results to keep"), null);
+    }
+    
+    @Override
+    public boolean validateOptions(Map<String,String> options) {
+        try {
+            Preconditions.checkArgument(Integer.parseInt(options.get(K)) > 0);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -33,6 +33,7 @@ import datawave.query.function.Aggregation;
 import datawave.query.function.AttributeToCardinality;
 import datawave.query.function.CardinalitySummation;
 import datawave.query.function.DocumentCountCardinality;
+import datawave.query.function.FacetSketching;
 import datawave.query.function.JexlEvaluation;
 import datawave.query.function.KeyToDocumentData;
 import datawave.query.function.MinimumEstimation;
@@ -60,6 +61,7 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
     public static String FACETED_SEARCH_TYPE = "query.facet.type";
     public static String FACETED_MINIMUM = "query.facet.minimum";
     public static String FACETED_SEARCH_FIELDS = "query.facet.fields";
+    public static String FACETED_SKETCH_SIZE = "query.facet.sketch.size";
     
     FacetedConfiguration configuration;
     
@@ -76,6 +78,7 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
         options.put(FACETED_SEARCH_TYPE, "Type of faceted search");
         options.put(FACETED_MINIMUM, "Minimum Facet count. Defaults to 0");
         options.put(FACETED_SEARCH_FIELDS, "Comma separated list of facets that we must include. If this is empty, we return all facets");
+        options.put(FACETED_SKETCH_SIZE, "Number of values kept in a sketch of each faceted field. Defaults to 0, which returns exact facets");
         
         return new IteratorOptions(getClass().getSimpleName(), "Runs a Faceted search against event data", options, null);
     }
@@ -102,6 +105,15 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
             }
         }
         
+        if (options.containsKey(FACETED_SKETCH_SIZE)) {
+            try {
+                configuration.setSketchSize(Integer.parseInt(options.get(FACETED_SKETCH_SIZE)));
+            } catch (NumberFormatException nfe) {
+                log.error(nfe);
+                // defaulting to exact facets
+            }
+        }
+        
         String fields = "";
         if (options.containsKey(FACETED_SEARCH_FIELDS)) {
             
@@ -249,11 +261,16 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
         // so we should convert each Attribute into a Cardinality
         fieldIndexDocuments = Iterators.transform(fieldIndexDocuments, new AttributeToCardinality());
         
-        // convert the stream into a single document, so that we can summarize the cardinality
-        fieldIndexDocuments = summarize(fieldIndexDocuments);
-        
-        // minimize the list of facets that are returned.
-        fieldIndexDocuments = Iterators.transform(fieldIndexDocuments, new MinimumEstimation(configuration.getMinimumFacetCount()));
+        if (configuration.isSketchEnabled()) {
+            // convert the stream into a single document of fixed size sketches. The minimum count is applied once the sketches are merged
+            fieldIndexDocuments = sketch(fieldIndexDocuments);
+        } else {
+            // convert the stream into a single document, so that we can summarize the cardinality
+            fieldIndexDocuments = summarize(fieldIndexDocuments);
+            
+            // minimize the list of facets that are returned.
+            fieldIndexDocuments = Iterators.transform(fieldIndexDocuments, new MinimumEstimation(configuration.getMinimumFacetCount()));
+        }
         
         if (this.getReturnType() == ReturnType.kryo) {
             // Serialize the Document using Kryo
@@ -297,4 +314,17 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
         } else
             return fieldIndexDocuments;
     }
+    
+    protected Iterator<Entry<Key,Document>> sketch(Iterator<Entry<Key,Document>> fieldIndexDocuments) {
+        
+        if (fieldIndexDocuments.hasNext()) {
+            FacetSketching sketcher = new FacetSketching(configuration.getSketchSize());
+            while (fieldIndexDocuments.hasNext()) {
+                sketcher.apply(fieldIndexDocuments.next());
+            }
+            
+            return Iterators.singletonIterator(sketcher.getTop());
+        } else
+            return fieldIndexDocuments;
+    }
 }
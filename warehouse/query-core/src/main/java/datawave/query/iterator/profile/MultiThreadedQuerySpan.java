@@ -52,17 +52,37 @@ public class MultiThreadedQuerySpan extends QuerySpan {
     }
     
     @Override
-    public synchronized void next() {
+    public long getDocumentCacheHits() {
+        return getThreadSpecificQuerySpan().getDocumentCacheHits();
+    }
+    
+    @Override
+    public long getDocumentCacheMisses() {
+        return getThreadSpecificQuerySpan().getDocumentCacheMisses();
+    }
+    
+    @Override
+    public void next() {
         getThreadSpecificQuerySpan().next();
     }
     
     @Override
-    public synchronized void seek() {
+    public void seek() {
         getThreadSpecificQuerySpan().seek();
     }
     
     @Override
-    public synchronized void yield() {
+    public void documentCacheHit() {
+        getThreadSpecificQuerySpan().documentCacheHit();
+    }
+    
+    @Override
+    public void documentCacheMiss() {
+        getThreadSpecificQuerySpan().documentCacheMiss();
+    }
+    
+    @Override
+    public void yield() {
         getThreadSpecificQuerySpan().yield();
     }
     
@@ -107,6 +127,16 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().setYield(yield);
     }
     
+    @Override
+    public void setDocumentCacheHits(long documentCacheHits) {
+        getThreadSpecificQuerySpan().setDocumentCacheHits(documentCacheHits);
+    }
+    
+    @Override
+    public void setDocumentCacheMisses(long documentCacheMisses) {
+        getThreadSpecificQuerySpan().setDocumentCacheMisses(documentCacheMisses);
+    }
+    
     @Override
     public void setSourceCount(long sourceCount) {
         getThreadSpecificQuerySpan().setSourceCount(sourceCount);
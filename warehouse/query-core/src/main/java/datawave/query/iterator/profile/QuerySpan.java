@@ -3,6 +3,8 @@ package datawave.query.iterator.profile;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.collect.Lists;
 import datawave.query.statsd.QueryStatsDClient;
@@ -13,10 +15,14 @@ import org.apache.log4j.Logger;
  * 
  * Note that spans imply a hierarchy. We don't need that hierarchy. We just want aggregated times.
  * 
+ * The next and seek counts are kept in striped counters and the stage timers in an array indexed by stage, so that counting the calls of every source
+ * iterator takes no locks. Counts taken while the span is being reset may be lost.
  */
 public class QuerySpan {
     
-    private Logger log = Logger.getLogger(this.getClass());
+    private static final Logger log = Logger.getLogger(QuerySpan.class);
+    
+    private static final Stage[] STAGES = Stage.values();
     
     protected Collection<QuerySpan> sources;
     
@@ -24,15 +30,20 @@ public class QuerySpan {
     
     protected long sourceCount = 1;
     
-    protected long next = 0;
+    protected final LongAdder next = new LongAdder();
+    
+    protected final LongAdder seek = new LongAdder();
     
-    protected long seek = 0;
+    protected volatile boolean yield = false;
     
-    protected boolean yield = false;
+    protected final LongAdder documentCacheHits = new LongAdder();
     
-    private Map<String,Long> stageTimers = new LinkedHashMap<>();
+    protected final LongAdder documentCacheMisses = new LongAdder();
     
-    private long stageTimerTotal = 0;
+    // the latest elapsed time of each stage, or -1 if the stage has not run
+    private final AtomicLongArray stageTimers = new AtomicLongArray(STAGES.length);
+    
+    private final LongAdder stageTimerTotal = new LongAdder();
     
     public enum Stage {
         EmptyTree,
@@ -57,6 +68,7 @@ public class QuerySpan {
         this.client = client;
         this.sources = Lists.newArrayList();
         this.sourceCount = 1;
+        clearStageTimers();
     }
     
     public QuerySpan createSource() {
@@ -81,7 +93,7 @@ public class QuerySpan {
     }
     
     public long getNextCount() {
-        long nextCount = next;
+        long nextCount = next.sum();
         for (QuerySpan subSpan : sources) {
             nextCount += subSpan.getNextCount();
         }
@@ -89,13 +101,29 @@ public class QuerySpan {
     }
     
     public long getSeekCount() {
-        long seekCount = seek;
+        long seekCount = seek.sum();
         for (QuerySpan subSpan : sources) {
             seekCount += subSpan.getSeekCount();
         }
         return seekCount;
     }
     
+    public long getDocumentCacheHits() {
+        long hits = documentCacheHits.sum();
+        for (QuerySpan subSpan : sources) {
+            hits += subSpan.getDocumentCacheHits();
+        }
+        return hits;
+    }
+    
+    public long getDocumentCacheMisses() {
+        long misses = documentCacheMisses.sum();
+        for (QuerySpan subSpan : sources) {
+            misses += subSpan.getDocumentCacheMisses();
+        }
+        return misses;
+    }
+    
     public boolean getYield() {
         if (yield) {
             return true;
@@ -111,7 +139,8 @@ public class QuerySpan {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString()).append(" sources:").append(getSourceCount()).append(" next:").append(getNextCount()).append(" seek:")
-                        .append(getSeekCount()).append(" yield:").append(getYield());
+                        .append(getSeekCount()).append(" yield:").append(getYield()).append(" documentCacheHits:").append(getDocumentCacheHits())
+                        .append(" documentCacheMisses:").append(getDocumentCacheMisses());
         return sb.toString();
     }
     
@@ -126,8 +155,8 @@ public class QuerySpan {
         log.trace(sb.toString());
     }
     
-    public synchronized void next() {
-        next++;
+    public void next() {
+        next.increment();
         if (client != null) {
             client.next();
         }
@@ -136,8 +165,8 @@ public class QuerySpan {
         }
     }
     
-    public synchronized void seek() {
-        seek++;
+    public void seek() {
+        seek.increment();
         if (client != null) {
             client.seek();
         }
@@ -146,7 +175,15 @@ public class QuerySpan {
         }
     }
     
-    public synchronized void yield() {
+    public void documentCacheHit() {
+        documentCacheHits.increment();
+    }
+    
+    public void documentCacheMiss() {
+        documentCacheMisses.increment();
+    }
+    
+    public void yield() {
         yield = true;
         if (client != null) {
             client.yield();
@@ -161,23 +198,32 @@ public class QuerySpan {
             source.reset();
         }
         sourceCount = 0;
-        next = 0;
-        seek = 0;
+        next.reset();
+        seek.reset();
+        documentCacheHits.reset();
+        documentCacheMisses.reset();
         yield = false;
-        stageTimerTotal = 0;
-        stageTimers.clear();
+        stageTimerTotal.reset();
+        clearStageTimers();
+    }
+    
+    private void clearStageTimers() {
+        for (int i = 0; i < STAGES.length; i++) {
+            stageTimers.set(i, -1);
+        }
     }
     
     public void addStageTimer(QuerySpan.Stage stageName, long elapsed) {
-        stageTimers.put(stageName.toString(), elapsed);
-        stageTimerTotal += elapsed;
+        stageTimers.set(stageName.ordinal(), elapsed);
+        stageTimerTotal.add(elapsed);
         if (client != null) {
-            client.timing(stageName.toString(), elapsed);
+            client.timing(stageName.name(), elapsed);
         }
     }
     
     public boolean hasEntries() {
-        if (this.getSeekCount() > 0 || this.getNextCount() > 0 || this.getYield() || this.getSourceCount() > 0 || !this.stageTimers.isEmpty()) {
+        if (this.getSeekCount() > 0 || this.getNextCount() > 0 || this.getYield() || this.getSourceCount() > 0 || this.getDocumentCacheHits() > 0
+                        || this.getDocumentCacheMisses() > 0 || !this.getStageTimers().isEmpty()) {
             return true;
         } else {
             return false;
@@ -185,35 +231,63 @@ public class QuerySpan {
     }
     
     public Long getStageTimer(String stageName) {
-        return stageTimers.get(stageName);
+        for (Stage stage : STAGES) {
+            if (stage.name().equals(stageName)) {
+                long elapsed = stageTimers.get(stage.ordinal());
+                return elapsed < 0 ? null : elapsed;
+            }
+        }
+        return null;
     }
     
+    /**
+     * @return a copy of the stage timers that have run, in stage order
+     */
     public Map<String,Long> getStageTimers() {
-        return stageTimers;
+        Map<String,Long> timers = new LinkedHashMap<>();
+        for (Stage stage : STAGES) {
+            long elapsed = stageTimers.get(stage.ordinal());
+            if (elapsed >= 0) {
+                timers.put(stage.name(), elapsed);
+            }
+        }
+        return timers;
     }
     
     public long getStageTimerTotal() {
-        return stageTimerTotal;
+        return stageTimerTotal.sum();
     }
     
     public void setSeek(long seek) {
-        this.seek = seek;
+        this.seek.reset();
+        this.seek.add(seek);
     }
     
     public void setNext(long next) {
-        this.next = next;
+        this.next.reset();
+        this.next.add(next);
     }
     
     public void setYield(boolean yield) {
         this.yield = yield;
     }
     
+    public void setDocumentCacheHits(long documentCacheHits) {
+        this.documentCacheHits.reset();
+        this.documentCacheHits.add(documentCacheHits);
+    }
+    
+    public void setDocumentCacheMisses(long documentCacheMisses) {
+        this.documentCacheMisses.reset();
+        this.documentCacheMisses.add(documentCacheMisses);
+    }
+    
     public void setSourceCount(long sourceCount) {
         this.sourceCount = sourceCount;
     }
     
     public void setStageTimers(Map<String,Long> stageTimers) {
-        this.stageTimers.clear();
+        clearStageTimers();
         for (Map.Entry<String,Long> entry : stageTimers.entrySet()) {
             addStageTimer(QuerySpan.Stage.valueOf(entry.getKey()), entry.getValue());
         }
@@ -12,6 +12,8 @@ public class QuerySpanCollector {
     private AtomicLong nextCount = new AtomicLong();
     private AtomicBoolean yield = new AtomicBoolean();
     private AtomicLong sourceCount = new AtomicLong();
+    private AtomicLong documentCacheHits = new AtomicLong();
+    private AtomicLong documentCacheMisses = new AtomicLong();
     private Map<String,Long> stageTimers = new LinkedHashMap<>();
     private Logger log = Logger.getLogger(QuerySpan.class);
     
@@ -23,6 +25,8 @@ public class QuerySpanCollector {
                 nextCount.addAndGet(querySpan.getNextCount());
                 yield.set(querySpan.getYield());
                 sourceCount.addAndGet(querySpan.getSourceCount());
+                documentCacheHits.addAndGet(querySpan.getDocumentCacheHits());
+                documentCacheMisses.addAndGet(querySpan.getDocumentCacheMisses());
                 Map<String,Long> timers = querySpan.getStageTimers();
                 for (Map.Entry<String,Long> entry : timers.entrySet()) {
                     String k = entry.getKey();
@@ -51,6 +55,8 @@ public class QuerySpanCollector {
                 combinedQuerySpan.setSeek(this.seekCount.getAndSet(0));
                 combinedQuerySpan.setYield(this.yield.getAndSet(false));
                 combinedQuerySpan.setSourceCount(this.sourceCount.getAndSet(0));
+                combinedQuerySpan.setDocumentCacheHits(this.documentCacheHits.getAndSet(0));
+                combinedQuerySpan.setDocumentCacheMisses(this.documentCacheMisses.getAndSet(0));
                 combinedQuerySpan.setStageTimers(this.stageTimers);
                 this.stageTimers.clear();
             }
@@ -60,7 +66,7 @@ public class QuerySpanCollector {
     
     public boolean hasEntries() {
         if (this.seekCount.intValue() > 0 || this.nextCount.intValue() > 0 || this.yield.get() || this.sourceCount.intValue() > 0
-                        || !this.stageTimers.isEmpty()) {
+                        || this.documentCacheHits.intValue() > 0 || this.documentCacheMisses.intValue() > 0 || !this.stageTimers.isEmpty()) {
             return true;
         } else {
             return false;
@@ -118,6 +124,14 @@ public class QuerySpanCollector {
         return sourceCount.longValue();
     }
     
+    public long getDocumentCacheHits() {
+        return documentCacheHits.longValue();
+    }
+    
+    public long getDocumentCacheMisses() {
+        return documentCacheMisses.longValue();
+    }
+    
     public Map<String,Long> getStageTimers() {
         return Collections.unmodifiableMap(stageTimers);
     }
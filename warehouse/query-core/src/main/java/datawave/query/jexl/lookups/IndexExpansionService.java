@@ -0,0 +1,325 @@
+package datawave.query.jexl.lookups;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.exceptions.DatawaveFatalQueryException;
+import datawave.query.tables.ScannerFactory;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.log4j.Logger;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the global index lookups that expand regex and range terms on behalf of every query in the web server.
+ * <p>
+ * The service owns a single bounded pool of lookup threads, instead of one pool per query, and shares the results of identical lookups. Two lookups are
+ * identical when they expand the same terms ({@link IndexLookup#getCacheKey()}) against the same Accumulo instance, index tables, date range, datatypes,
+ * authorizations, thresholds and timeout. A lookup that is already running for another query is joined rather than run again, and when
+ * {@link ShardQueryConfiguration#getIndexExpansionCacheMillis()} is positive a completed result, including any exceeded threshold markers, is reused for that
+ * long. Every caller gets its own copy of the result.
+ * <p>
+ * Each query runs its lookups through its own view of the pool ({@link #getExecutor(ShardQueryConfiguration)}), which runs at most
+ * {@link ShardQueryConfiguration#getNumIndexLookupThreads()} of them at a time and hands their uncaught exceptions to the query.
+ * <p>
+ * The number of threads and the number of cached results are set with the {@value #THREADS_PROPERTY} and {@value #CACHE_SIZE_PROPERTY} system properties.
+ */
+public class IndexExpansionService {
+    
+    private static final Logger log = Logger.getLogger(IndexExpansionService.class);
+    
+    public static final String THREADS_PROPERTY = "datawave.query.index.expansion.threads";
+    public static final String CACHE_SIZE_PROPERTY = "datawave.query.index.expansion.cache.size";
+    public static final String MAX_CACHE_MILLIS_PROPERTY = "datawave.query.index.expansion.cache.max.millis";
+    
+    private static class InstanceHolder {
+        private static final IndexExpansionService INSTANCE = new IndexExpansionService(Integer.getInteger(THREADS_PROPERTY, 64), Integer.getInteger(
+                        CACHE_SIZE_PROPERTY, 10000), Long.getLong(MAX_CACHE_MILLIS_PROPERTY, TimeUnit.MINUTES.toMillis(10)));
+    }
+    
+    public static IndexExpansionService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+    
+    private final ExecutorService executor;
+    private final Cache<List<Object>,CachedLookup> cache;
+    private final ConcurrentMap<List<Object>,FutureTask<IndexLookupMap>> inFlight = new ConcurrentHashMap<>();
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    
+    /**
+     * @param threads
+     *            the number of lookup threads
+     * @param cacheSize
+     *            the maximum number of cached results
+     * @param maxCacheMillis
+     *            the longest time that any query may reuse a result for
+     */
+    public IndexExpansionService(int threads, int cacheSize, long maxCacheMillis) {
+        this.executor = Executors.newFixedThreadPool(threads, new ExpansionThreadFactory());
+        this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(maxCacheMillis, TimeUnit.MILLISECONDS).concurrencyLevel(16).build();
+    }
+    
+    /**
+     * Get an executor for the index lookups of one query. The lookups run on the threads shared by all queries, but no more than
+     * {@link ShardQueryConfiguration#getNumIndexLookupThreads()} of them at a time, so that one query cannot take every thread. Shutting the executor down
+     * leaves the shared threads running.
+     *
+     * @param config
+     *            the query configuration
+     * @return the executor of the query
+     */
+    public ExecutorService getExecutor(ShardQueryConfiguration config) {
+        Integer threads = config.getNumIndexLookupThreads();
+        UncaughtExceptionHandler handler = (config.getQuery() == null) ? null : config.getQuery().getUncaughtExceptionHandler();
+        return new QueryExecutor(executor, (threads == null) ? 1 : Math.max(threads, 1), handler);
+    }
+    
+    /**
+     * Run a lookup, or share the result of an identical lookup that is running or recently completed.
+     *
+     * @param lookup
+     *            the lookup
+     * @param config
+     *            the query configuration
+     * @param scannerFactory
+     *            the scanner factory of the query
+     * @param timeout
+     *            the lookup timeout
+     * @return the result of the lookup, which belongs to the caller
+     */
+    public IndexLookupMap lookup(IndexLookup lookup, ShardQueryConfiguration config, ScannerFactory scannerFactory, long timeout) {
+        List<Object> key = getKey(lookup, config, timeout);
+        if (key == null) {
+            return lookup.lookup(config, scannerFactory, timeout);
+        }
+        
+        long cacheMillis = config.getIndexExpansionCacheMillis();
+        if (cacheMillis > 0) {
+            CachedLookup cached = cache.getIfPresent(key);
+            if (cached != null && (System.currentTimeMillis() - cached.created) <= cacheMillis) {
+                hits.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("Reusing index expansion of " + key.get(0));
+                }
+                return new IndexLookupMap(cached.result);
+            }
+        }
+        
+        FutureTask<IndexLookupMap> task = new FutureTask<>(() -> lookup.lookup(config, scannerFactory, timeout));
+        FutureTask<IndexLookupMap> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            misses.incrementAndGet();
+            running = task;
+            try {
+                task.run();
+                if (!task.isCancelled()) {
+                    cache.put(key, new CachedLookup(task.get()));
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                // surfaced below
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            joined.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Joining running index expansion of " + key.get(0));
+            }
+        }
+        
+        try {
+            return new IndexLookupMap(running.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatawaveFatalQueryException("Interrupted while waiting for the index expansion of " + key.get(0), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new DatawaveFatalQueryException(e.getCause());
+        }
+    }
+    
+    /**
+     * @return the key identifying the result of the lookup, or null if it cannot be shared
+     */
+    protected List<Object> getKey(IndexLookup lookup, ShardQueryConfiguration config, long timeout) {
+        String lookupKey = lookup.getCacheKey();
+        Connector connector = config.getConnector();
+        if (lookupKey == null || connector == null) {
+            return null;
+        }
+        return Arrays.asList(lookupKey, connector.getInstance().getInstanceID(), config.getIndexTableName(), config.getReverseIndexTableName(),
+                        config.getBeginDate(), config.getEndDate(), copy(config.getDatatypeFilter()), copy(config.getAuthorizations()),
+                        config.getMaxUnfieldedExpansionThreshold(), config.getMaxValueExpansionThreshold(), config.getFullTableScanEnabled(), timeout);
+    }
+    
+    private static Object copy(Collection<?> collection) {
+        return (collection == null) ? null : new HashSet<>(collection);
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public long getJoined() {
+        return joined.get();
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    private static class CachedLookup {
+        private final IndexLookupMap result;
+        private final long created = System.currentTimeMillis();
+        
+        private CachedLookup(IndexLookupMap result) {
+            this.result = result;
+        }
+    }
+    
+    /**
+     * Queues the tasks of one query and runs them on the shared executor as permits become available
+     */
+    private static class QueryExecutor extends AbstractExecutorService {
+        private final ExecutorService executor;
+        private final int threads;
+        private final Semaphore permits;
+        private final UncaughtExceptionHandler handler;
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private volatile boolean shutdown = false;
+        
+        private QueryExecutor(ExecutorService executor, int threads, UncaughtExceptionHandler handler) {
+            this.executor = executor;
+            this.threads = threads;
+            this.permits = new Semaphore(threads);
+            this.handler = handler;
+        }
+        
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("The index lookups of this query have been shut down");
+            }
+            pending.add(command);
+            dispatch();
+        }
+        
+        private void dispatch() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                Runnable next = pending.poll();
+                if (next == null) {
+                    release();
+                    continue;
+                }
+                try {
+                    executor.execute(() -> run(next));
+                } catch (RejectedExecutionException e) {
+                    release();
+                    throw e;
+                }
+            }
+        }
+        
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                if (handler != null) {
+                    handler.uncaughtException(Thread.currentThread(), t);
+                }
+                throw t;
+            } finally {
+                release();
+                dispatch();
+            }
+        }
+        
+        private synchronized void release() {
+            permits.release();
+            notifyAll();
+        }
+        
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+        
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> dropped = new ArrayList<>();
+            Runnable next;
+            while ((next = pending.poll()) != null) {
+                dropped.add(next);
+            }
+            return dropped;
+        }
+        
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+        
+        @Override
+        public boolean isTerminated() {
+            return shutdown && pending.isEmpty() && permits.availablePermits() == threads;
+        }
+        
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+    }
+    
+    private static class ExpansionThreadFactory implements ThreadFactory {
+        private final ThreadFactory dtf = Executors.defaultThreadFactory();
+        private final AtomicInteger threadNum = new AtomicInteger(1);
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = dtf.newThread(r);
+            thread.setName("Datawave Index Expansion -" + threadNum.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -38,6 +38,16 @@ public abstract class IndexLookup {
         return false;
     }
     
+    /**
+     * Identifies the terms that this lookup expands, independent of the query configuration, so that the results of identical lookups can be shared by the
+     * {@link IndexExpansionService}.
+     * 
+     * @return the key, or null if the results of this lookup cannot be shared
+     */
+    public String getCacheKey() {
+        return null;
+    }
+    
     public void setLimitToTerms(boolean limitToTerms) {
         this.limitToTerms = limitToTerms;
     }
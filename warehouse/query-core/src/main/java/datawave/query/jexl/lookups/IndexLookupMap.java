@@ -23,6 +23,20 @@ public class IndexLookupMap implements Map<String,ValueSet>, Serializable {
         this.valueThreshold = valueThreshold;
     }
     
+    /**
+     * Copy constructor, which also copies the value sets so the copy can be modified without affecting the original
+     * 
+     * @param other
+     */
+    public IndexLookupMap(IndexLookupMap other) {
+        this(other.keyThreshold, other.valueThreshold);
+        this.exceededKeyThreshold = other.exceededKeyThreshold;
+        this.patterns = (other.patterns == null) ? null : new HashSet<>(other.patterns);
+        for (Entry<String,ValueSet> entry : other.index.entrySet()) {
+            this.index.put(entry.getKey(), new ValueSet(entry.getValue()));
+        }
+    }
+    
     public boolean isKeyThresholdExceeded() {
         return this.exceededKeyThreshold;
     }
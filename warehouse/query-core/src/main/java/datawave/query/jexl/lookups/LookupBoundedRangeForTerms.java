@@ -36,6 +36,7 @@ import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 
 public class LookupBoundedRangeForTerms extends IndexLookup {
@@ -49,6 +50,11 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
         datatypeFilter = Sets.newHashSet();
     }
     
+    @Override
+    public String getCacheKey() {
+        return "range:" + literalRange + ':' + new TreeSet<>(datatypeFilter) + ':' + limitToTerms;
+    }
+    
     @Override
     public IndexLookupMap lookup(ShardQueryConfiguration config, ScannerFactory scannerFactory, long maxLookup) {
         String startDay = DateHelper.format(config.getBeginDate());
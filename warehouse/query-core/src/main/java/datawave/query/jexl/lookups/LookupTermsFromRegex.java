@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
@@ -58,6 +59,12 @@ public class LookupTermsFromRegex extends RegexIndexLookup {
         this(Collections.singleton(fieldName), Collections.singleton(fieldName), patterns, metadata, false);
     }
     
+    @Override
+    public String getCacheKey() {
+        return "regex:" + new TreeSet<>(fields) + ':' + new TreeSet<>(reverseFields) + ':' + new TreeSet<>(patterns) + ':' + unfieldedLookup + ':'
+                        + limitToTerms;
+    }
+    
     public void setMetadataHelper(MetadataHelper helper) {
         this.helperRef = helper;
     }
@@ -22,6 +22,12 @@ public class ValueSet implements Set<String>, Serializable {
         this.threshold = _threshold;
     }
     
+    public ValueSet(ValueSet other) {
+        this(other.threshold);
+        this.values.addAll(other.values);
+        this.exceededThreshold = other.exceededThreshold;
+    }
+    
     public boolean isThresholdExceeded() {
         return this.exceededThreshold;
     }
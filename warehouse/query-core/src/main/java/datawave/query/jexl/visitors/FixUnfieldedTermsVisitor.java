@@ -145,11 +145,8 @@ public class FixUnfieldedTermsVisitor extends ParallelIndexExpansion {
             }
             concurrentExecution();
         } finally {
-            log.debug("Shutting down executor");
-            // no need for this anymore.
-            if (executor != null) {
-                executor.shutdownNow();
-            }
+            // the executor is shared, so only drop our reference to it
+            executor = null;
         }
         
         LookupRemark remark = new LookupRemark();
@@ -1465,6 +1465,16 @@ public class IteratorBuildingVisitor extends BaseVisitor {
         return this;
     }
     
+    /**
+     * @param nextsBeforeSeek
+     *            the number of keys the sources read forward to reach a nearby seek before seeking
+     * @return this visitor
+     */
+    public IteratorBuildingVisitor setSourceNextsBeforeSeek(int nextsBeforeSeek) {
+        this.source.setNextsBeforeSeek(nextsBeforeSeek);
+        return this;
+    }
+    
     public IteratorBuildingVisitor setTimeFilter(TimeFilter timeFilter) {
         this.timeFilter = timeFilter;
         return this;
@@ -0,0 +1,188 @@
+package datawave.query.jexl.visitors;
+
+import datawave.data.FieldStatsSketch;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.nodes.QueryPropertyMarker;
+import datawave.query.planner.pushdown.Cost;
+import datawave.query.planner.pushdown.FieldStatsCostEstimator;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTNENode;
+import org.apache.commons.jexl2.parser.ASTNRNode;
+import org.apache.commons.jexl2.parser.ASTNotNode;
+import org.apache.commons.jexl2.parser.ASTReference;
+import org.apache.commons.jexl2.parser.ASTReferenceExpression;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.JexlNodes;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Visitor that orders the children of every intersection from the least to the most costly term, using the costs estimated from the field stats. The cheapest
+ * terms are looked up in the global index and evaluated first. Terms with unknown costs follow, and negations, unindexed terms and terms that are already
+ * delayed are left last.
+ * <p>
+ * An indexed term that is more than {@link ShardQueryConfiguration#getMaxTermCostRatio()} times as costly as the cheapest term of its intersection is delayed,
+ * so that it is evaluated against the documents found by the cheaper term instead of driving the RangeStream. A delayed regex or range is not expanded, which
+ * means that no ivarator is built for it. Terms are only delayed when both terms have field stats, and terms on index only or other non-event fields are never
+ * delayed, since a delayed term is evaluated against the event fields of the documents.
+ */
+public class OrderByCostVisitor extends BaseVisitor {
+    
+    private static final Logger log = Logger.getLogger(OrderByCostVisitor.class);
+    
+    // the rank of a term, terms are ordered by rank and then by cost
+    private static final int KNOWN_COST = 0;
+    private static final int UNKNOWN_COST = 1;
+    private static final int NOT_INDEXED = 2;
+    
+    protected ShardQueryConfiguration config;
+    protected FieldStatsCostEstimator estimator;
+    protected Set<String> nonEventFields;
+    
+    public OrderByCostVisitor(ShardQueryConfiguration config, FieldStatsCostEstimator estimator, Set<String> nonEventFields) {
+        this.config = config;
+        this.estimator = estimator;
+        this.nonEventFields = nonEventFields;
+    }
+    
+    public static <T extends JexlNode> T order(T queryTree, ShardQueryConfiguration config, FieldStatsCostEstimator estimator, Set<String> nonEventFields) {
+        estimator.prefetch(JexlASTHelper.getIdentifierNames(queryTree));
+        OrderByCostVisitor visitor = new OrderByCostVisitor(config, estimator, nonEventFields);
+        queryTree.jjtAccept(visitor, null);
+        return queryTree;
+    }
+    
+    @Override
+    public Object visit(ASTReferenceExpression node, Object data) {
+        // if not already delayed somehow
+        if (!QueryPropertyMarker.instanceOf(node, null)) {
+            return super.visit(node, data);
+        }
+        return data;
+    }
+    
+    @Override
+    public Object visit(ASTReference node, Object data) {
+        // if not already delayed somehow
+        if (!QueryPropertyMarker.instanceOf(node, null)) {
+            return super.visit(node, data);
+        }
+        return data;
+    }
+    
+    @Override
+    public Object visit(ASTAndNode node, Object data) {
+        if (QueryPropertyMarker.instanceOf(node, null)) {
+            return data;
+        }
+        
+        // order the nested intersections first
+        node.childrenAccept(this, data);
+        
+        List<TermCost> terms = new ArrayList<>(node.jjtGetNumChildren());
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            terms.add(new TermCost(node.jjtGetChild(i), i));
+        }
+        Collections.sort(terms);
+        
+        TermCost cheapest = terms.get(0);
+        JexlNode[] children = new JexlNode[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            TermCost term = terms.get(i);
+            children[i] = term.node;
+            if (i > 0 && shouldDelay(cheapest, term)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Delaying " + JexlStringBuildingVisitor.buildQuery(term.node) + " with a cost of " + term.cost.totalCost() + ", "
+                                    + JexlStringBuildingVisitor.buildQuery(cheapest.node) + " costs " + cheapest.cost.totalCost());
+                }
+                children[i] = ASTDelayedPredicate.create(term.node);
+            }
+        }
+        JexlNodes.children(node, children);
+        
+        return data;
+    }
+    
+    protected boolean shouldDelay(TermCost cheapest, TermCost term) {
+        if (config.isExpandAllTerms() || cheapest.rank != KNOWN_COST || term.rank != KNOWN_COST || cheapest.cost.totalCost() <= 0) {
+            return false;
+        }
+        
+        JexlNode cheapestNode = JexlASTHelper.dereference(cheapest.node);
+        JexlNode termNode = JexlASTHelper.dereference(term.node);
+        if (!(cheapestNode instanceof ASTEQNode) || !(termNode instanceof ASTEQNode || termNode instanceof ASTERNode)) {
+            return false;
+        }
+        if (!hasStats(cheapestNode) || !hasStats(termNode) || isNonEventField(termNode)) {
+            return false;
+        }
+        
+        return term.cost.totalCost() > cheapest.cost.totalCost() * config.getMaxTermCostRatio();
+    }
+    
+    private boolean isNonEventField(JexlNode node) {
+        try {
+            return nonEventFields.contains(JexlASTHelper.deconstructIdentifier(JexlASTHelper.getIdentifier(node)));
+        } catch (NoSuchElementException e) {
+            // not knowing the field, do not delay it
+            return true;
+        }
+    }
+    
+    private boolean hasStats(JexlNode node) {
+        try {
+            FieldStatsSketch stats = estimator.getStats(JexlASTHelper.getIdentifier(node));
+            return stats != null && stats.getCount() > 0;
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+    
+    protected class TermCost implements Comparable<TermCost> {
+        private final JexlNode node;
+        private final int index;
+        private final int rank;
+        private final Cost cost;
+        
+        TermCost(JexlNode node, int index) {
+            this.node = node;
+            this.index = index;
+            
+            JexlNode deref = JexlASTHelper.dereference(node);
+            if (QueryPropertyMarker.instanceOf(node, null) || deref instanceof ASTNotNode || deref instanceof ASTNENode || deref instanceof ASTNRNode) {
+                this.cost = Cost.INFINITE;
+                this.rank = NOT_INDEXED;
+            } else {
+                this.cost = estimator.computeCostForSubtree(node);
+                if (cost.getERCost() == Long.MAX_VALUE || cost.getOtherCost() == Long.MAX_VALUE || cost.getERCost() < 0 || cost.getOtherCost() < 0) {
+                    this.rank = NOT_INDEXED;
+                } else if (cost.totalCost() == 0) {
+                    this.rank = UNKNOWN_COST;
+                } else {
+                    this.rank = KNOWN_COST;
+                }
+            }
+        }
+        
+        @Override
+        public int compareTo(TermCost other) {
+            int result = Integer.compare(rank, other.rank);
+            if (result == 0 && rank == KNOWN_COST) {
+                result = Long.compare(cost.totalCost(), other.cost.totalCost());
+            }
+            if (result == 0) {
+                result = Integer.compare(index, other.index);
+            }
+            return result;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import datawave.query.exceptions.EmptyUnfieldedTermExpansionException;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.JexlNodeFactory;
 import datawave.query.jexl.JexlNodeFactory.ContainerType;
+import datawave.query.jexl.lookups.IndexExpansionService;
 import datawave.query.jexl.lookups.IndexLookup;
 import datawave.query.jexl.lookups.IndexLookupMap;
 import datawave.query.jexl.lookups.ShardIndexQueryTableStaticMethods;
@@ -26,7 +27,6 @@ import datawave.query.planner.pushdown.Cost;
 import datawave.query.planner.pushdown.CostEstimator;
 import datawave.query.tables.ScannerFactory;
 import datawave.query.util.MetadataHelper;
-import datawave.webservice.query.Query;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.commons.jexl2.parser.ASTAndNode;
 import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
@@ -57,9 +57,7 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
 
 import static datawave.query.jexl.JexlASTHelper.isIndexed;
 import static datawave.query.jexl.JexlASTHelper.isLiteralEquality;
@@ -125,38 +123,14 @@ public class ParallelIndexExpansion extends RebuildingVisitor {
         else
             this.expansionFields = Sets.newHashSet();
         this.helper = helper;
-        costAnalysis = new CostEstimator(config, scannerFactory, helper);
-    }
-    
-    protected class ParallelExpansionFactory implements ThreadFactory {
-        
-        private ThreadFactory dtf = Executors.defaultThreadFactory();
-        private int threadNum = 1;
-        private String threadIdentifier;
-        protected String name = "Datawave ParallelIndexExpansion";
-        
-        public ParallelExpansionFactory(Query query, String name) {
-            if (query == null || query.getId() == null) {
-                this.threadIdentifier = "(unknown)";
-            } else {
-                this.threadIdentifier = query.getId().toString();
-            }
-            this.name = name;
-        }
-        
-        public Thread newThread(Runnable r) {
-            Thread thread = dtf.newThread(r);
-            thread.setName(name + " Session " + threadIdentifier + " -" + threadNum++);
-            thread.setDaemon(true);
-            thread.setUncaughtExceptionHandler(config.getQuery().getUncaughtExceptionHandler());
-            return thread;
-        }
-        
+        costAnalysis = CostEstimator.create(config, scannerFactory, helper);
     }
     
+    /**
+     * The lookups run on the threads shared by all queries, at most numIndexLookupThreads at a time
+     */
     protected void setupThreadResources() {
-        int threads = this.config.getNumIndexLookupThreads().intValue();
-        executor = Executors.newFixedThreadPool((int) Math.max(Math.ceil(threads), 10), new ParallelExpansionFactory(this.config.getQuery(), this.threadName));
+        executor = IndexExpansionService.getInstance().getExecutor(config);
     }
     
     @Override
@@ -717,7 +691,7 @@ public class ParallelIndexExpansion extends RebuildingVisitor {
                 long timeout = -1;
                 if (enforceTimeout)
                     timeout = config.getMaxIndexScanTimeMillis();
-                fieldsToValues = lookup.lookup(config, scannerFactory, timeout);
+                fieldsToValues = IndexExpansionService.getInstance().lookup(lookup, config, scannerFactory, timeout);
             } catch (Exception e) {
                 log.error(e);
                 throw e;
@@ -9,6 +9,7 @@ import datawave.query.index.stats.IndexStatsClient;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.JexlNodeFactory;
 import datawave.query.jexl.LiteralRange;
+import datawave.query.jexl.lookups.IndexExpansionService;
 import datawave.query.jexl.lookups.IndexLookup;
 import datawave.query.jexl.lookups.IndexLookupMap;
 import datawave.query.jexl.lookups.ShardIndexQueryTableStaticMethods;
@@ -76,7 +77,7 @@ public class RangeConjunctionRebuildingVisitor extends RebuildingVisitor {
         this.allFields = helper.getAllFields(config.getDatatypeFilter());
         this.scannerFactory = scannerFactory;
         stats = new IndexStatsClient(this.config.getConnector(), this.config.getIndexStatsTableName());
-        costAnalysis = new CostEstimator(config, scannerFactory, helper);
+        costAnalysis = CostEstimator.create(config, scannerFactory, helper);
         this.expandFields = expandFields;
         this.expandValues = expandValues;
     }
@@ -193,7 +194,7 @@ public class RangeConjunctionRebuildingVisitor extends RebuildingVisitor {
             IndexLookupMap fieldsToTerms = null;
             
             try {
-                fieldsToTerms = lookup.lookup(config, scannerFactory, config.getMaxIndexScanTimeMillis());
+                fieldsToTerms = IndexExpansionService.getInstance().lookup(lookup, config, scannerFactory, config.getMaxIndexScanTimeMillis());
             } catch (IllegalRangeArgumentException e) {
                 log.info("Cannot expand "
                                 + range
@@ -57,6 +57,7 @@ import datawave.query.jexl.visitors.IvaratorRequiredVisitor;
 import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
 import datawave.query.jexl.visitors.QueryPruningVisitor;
 import datawave.query.jexl.visitors.RewriteNegationsVisitor;
+import datawave.query.jexl.visitors.OrderByCostVisitor;
 import datawave.query.jexl.visitors.ParallelIndexExpansion;
 import datawave.query.jexl.visitors.PrintingVisitor;
 import datawave.query.jexl.visitors.PullupUnexecutableNodesVisitor;
@@ -78,6 +79,7 @@ import datawave.query.jexl.visitors.ValidPatternVisitor;
 import datawave.query.model.QueryModel;
 import datawave.query.planner.comparator.DefaultQueryPlanComparator;
 import datawave.query.planner.comparator.GeoWaveQueryPlanComparator;
+import datawave.query.planner.pushdown.FieldStatsCostEstimator;
 import datawave.query.planner.pushdown.PushDownVisitor;
 import datawave.query.planner.pushdown.rules.PushDownRule;
 import datawave.query.planner.rules.NodeTransformRule;
@@ -89,6 +91,7 @@ import datawave.query.util.DateIndexHelper;
 import datawave.query.util.MetadataHelper;
 import datawave.query.util.QueryStopwatch;
 import datawave.query.util.Tuple2;
+import datawave.query.util.TypeMetadataCache;
 import datawave.util.time.TraceStopwatch;
 import datawave.webservice.common.logging.ThreadConfigurableLogger;
 import datawave.webservice.query.Query;
@@ -243,6 +246,11 @@ public class DefaultQueryPlanner extends QueryPlanner {
     
     protected String plannedScript = null;
     
+    /**
+     * Estimates the cost of the query terms when cost based planning is enabled
+     */
+    protected FieldStatsCostEstimator costEstimator = null;
+    
     protected MetadataHelper metadataHelper = null;
     
     protected DateIndexHelper dateIndexHelper = null;
@@ -392,6 +400,7 @@ public class DefaultQueryPlanner extends QueryPlanner {
         final QueryData queryData = new QueryData();
         
         settingFuture = null;
+        costEstimator = null;
         
         IteratorSetting cfg = null;
         
@@ -457,6 +466,12 @@ public class DefaultQueryPlanner extends QueryPlanner {
         stopwatch.stop();
         
         this.plannedScript = newQueryString;
+        if (null != costEstimator) {
+            config.setEstimatedQueryCost(costEstimator.computeCostForSubtree(queryTree).totalCost());
+            if (log.isDebugEnabled()) {
+                log.debug("Estimated query cost is " + config.getEstimatedQueryCost());
+            }
+        }
         // docsToCombineForEvaluation is only enabled when threading is used
         if (config.getMaxEvaluationPipelines() == 1)
             docsToCombineForEvaluation = -1;
@@ -509,7 +524,9 @@ public class DefaultQueryPlanner extends QueryPlanner {
         addOption(cfg, QueryOptions.LIMIT_FIELDS, config.getLimitFieldsAsString(), true);
         addOption(cfg, QueryOptions.GROUP_FIELDS, config.getGroupFieldsAsString(), true);
         addOption(cfg, QueryOptions.GROUP_FIELDS_BATCH_SIZE, config.getGroupFieldsBatchSizeAsString(), true);
+        addOption(cfg, QueryOptions.GROUP_FIELDS_MAX_GROUPS, Integer.toString(config.getGroupFieldsMaxGroups()), false);
         addOption(cfg, QueryOptions.UNIQUE_FIELDS, config.getUniqueFieldsAsString(), true);
+        addOption(cfg, QueryOptions.UNIQUE_FIELDS_MAX_ENTRIES, Integer.toString(config.getUniqueFieldsMaxEntries()), false);
         addOption(cfg, QueryOptions.HIT_LIST, Boolean.toString(config.isHitList()), false);
         addOption(cfg, QueryOptions.TYPE_METADATA_IN_HDFS, Boolean.toString(config.isTypeMetadataInHdfs()), true);
         addOption(cfg, QueryOptions.TERM_FREQUENCY_FIELDS, Joiner.on(',').join(config.getQueryTermFrequencyFields()), false);
@@ -518,6 +535,12 @@ public class DefaultQueryPlanner extends QueryPlanner {
         addOption(cfg, QueryOptions.QUERY_ID, config.getQuery().getId().toString(), false);
         addOption(cfg, QueryOptions.FULL_TABLE_SCAN_ONLY, Boolean.toString(isFullTable), false);
         addOption(cfg, QueryOptions.TRACK_SIZES, Boolean.toString(config.isTrackSizes()), true);
+        if (config.isDocumentCache()) {
+            addOption(cfg, QueryOptions.DOCUMENT_CACHE_TABLE, config.getShardTableName(), false);
+        }
+        if (config.getSourceNextsBeforeSeek() > 0) {
+            addOption(cfg, QueryOptions.SOURCE_NEXTS_BEFORE_SEEK, Integer.toString(config.getSourceNextsBeforeSeek()), false);
+        }
         // Set the start and end dates
         configureTypeMappings(config, cfg, metadataHelper, compressMappings);
     }
@@ -1108,6 +1131,28 @@ public class DefaultQueryPlanner extends QueryPlanner {
             }
         }
         
+        // order the intersections by the estimated cost of their terms
+        if (config.isCostBasedPlanning()) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Order terms by cost");
+            
+            if (null == nonEventFields) {
+                try {
+                    nonEventFields = metadataHelper.getNonEventFields(config.getDatatypeFilter());
+                } catch (TableNotFoundException te) {
+                    QueryException qe = new QueryException(DatawaveErrorCode.METADATA_ACCESS_ERROR, te);
+                    throw new DatawaveFatalQueryException(qe);
+                }
+            }
+            
+            costEstimator = new FieldStatsCostEstimator(config, scannerFactory, metadataHelper);
+            queryTree = OrderByCostVisitor.order(queryTree, config, costEstimator, nonEventFields);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after ordering terms by cost:");
+            }
+            
+            stopwatch.stop();
+        }
+        
         // apply the node transform rules
         queryTree = applyNodeTransformRules(queryTree, getTransformRules(), config, metadataHelper, "Pre pushdown-pullup");
         
@@ -1776,6 +1821,7 @@ public class DefaultQueryPlanner extends QueryPlanner {
             
             String nonIndexedTypes = QueryOptions.buildFieldNormalizerString(nonIndexedQueryFieldsDatatypes);
             String typeMetadataString = metadataHelper.getTypeMetadata(config.getDatatypeFilter()).toString();
+            String typeMetadataVersion = TypeMetadataCache.getVersion(typeMetadataString);
             String requiredAuthsString = metadataHelper.getUsersMetadataAuthorizationSubset();
             
             if (compressMappings) {
@@ -1785,7 +1831,9 @@ public class DefaultQueryPlanner extends QueryPlanner {
             }
             addOption(cfg, QueryOptions.NON_INDEXED_DATATYPES, nonIndexedTypes, false);
             if (config.isTypeMetadataInHdfs() == false) {
+                // the version id only lets the tservers skip parsing a type metadata they have seen, it is still sent in full
                 addOption(cfg, QueryOptions.TYPE_METADATA, typeMetadataString, false);
+                addOption(cfg, QueryOptions.TYPE_METADATA_VERSION, typeMetadataVersion, false);
             }
             addOption(cfg, QueryOptions.TYPE_METADATA_AUTHS, requiredAuthsString, false);
             
@@ -73,6 +73,9 @@ public class FacetedQueryPlanner extends IndexQueryPlanner {
         cfg.addOption(DynamicFacetIterator.FACETED_SEARCH_TYPE, facetedConfig.getType().toString());
         cfg.addOption(DynamicFacetIterator.FACETED_MINIMUM, Integer.valueOf(facetedConfig.getMinimumFacetCount()).toString());
         cfg.addOption(DynamicFacetIterator.FACETED_SEARCH_FIELDS, Joiner.on(",").join(facetedConfig.getFacetedFields()));
+        if (facetedConfig.isSketchEnabled()) {
+            cfg.addOption(DynamicFacetIterator.FACETED_SKETCH_SIZE, Integer.toString(facetedConfig.getSketchSize()));
+        }
         
         if (log.isTraceEnabled())
             log.trace("Configuration is " + facetedConfig);
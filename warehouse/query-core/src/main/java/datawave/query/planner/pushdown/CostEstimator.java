@@ -42,6 +42,21 @@ public class CostEstimator {
         
     }
     
+    /**
+     * Create the cost estimator for a query, which uses the field stats table when cost based planning is enabled.
+     *
+     * @param config
+     * @param scannerFactory
+     * @param helper
+     * @return the cost estimator
+     */
+    public static CostEstimator create(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper) {
+        if (config.isCostBasedPlanning()) {
+            return new FieldStatsCostEstimator(config, scannerFactory, helper);
+        }
+        return new CostEstimator(config, scannerFactory, helper);
+    }
+    
     public Cost computeCostForSubtree(JexlNode node) {
         
         switch (id(node)) {
@@ -73,8 +88,7 @@ public class CostEstimator {
                         }
                     }
                     
-                    return new Cost(helper.getCountsByFieldForDays(fieldName, config.getBeginDate(), config.getEndDate(), config.getDatatypeFilter())
-                                    * Cost.ER_COST_MULTIPLIER, 0l);
+                    return new Cost(getFieldCost(fieldName) * Cost.ER_COST_MULTIPLIER, 0l);
                 } catch (NoSuchElementException e) {
                     log.trace("Could not find field name for ER node, ignoring for cost");
                     return new Cost();
@@ -98,7 +112,7 @@ public class CostEstimator {
                         log.error("Could not find metadata table", e);
                     }
                     
-                    return new Cost(0l, helper.getCountsByFieldForDays(fieldName, config.getBeginDate(), config.getEndDate(), config.getDatatypeFilter()));
+                    return new Cost(0l, getTermCost(fieldName));
                 } catch (NoSuchElementException e) {
                     log.trace("Could not find field name for EQ node, ignoring for cost");
                     return new Cost();
@@ -145,4 +159,26 @@ public class CostEstimator {
         }
     }
     
+    /**
+     * The cost of scanning every value of a field in the global index over the query date range.
+     *
+     * @param fieldName
+     *            the field name
+     * @return the number of index entries for the field
+     */
+    protected long getFieldCost(String fieldName) {
+        return helper.getCountsByFieldForDays(fieldName, config.getBeginDate(), config.getEndDate(), config.getDatatypeFilter());
+    }
+    
+    /**
+     * The cost of looking up a single value of a field in the global index over the query date range. Without any knowledge of the value distribution, this is
+     * the cost of the whole field.
+     *
+     * @param fieldName
+     *            the field name
+     * @return the expected number of index entries for a value
+     */
+    protected long getTermCost(String fieldName) {
+        return getFieldCost(fieldName);
+    }
 }
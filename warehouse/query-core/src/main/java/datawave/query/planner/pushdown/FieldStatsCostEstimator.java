@@ -0,0 +1,120 @@
+package datawave.query.planner.pushdown;
+
+import datawave.data.FieldStatsSketch;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.index.stats.FieldStatsClient;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.util.MetadataHelper;
+import datawave.util.UniversalSet;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CostEstimator} that uses the field stats sketches to estimate the cost of a term. The cost of a single value is the expected number of index
+ * entries for one value of the field (the number of values divided by the number of distinct values) rather than the number of entries for the whole field.
+ * Fields without any stats fall back to the metadata counts.
+ */
+public class FieldStatsCostEstimator extends CostEstimator {
+    
+    private static final Logger log = Logger.getLogger(FieldStatsCostEstimator.class);
+    
+    protected FieldStatsClient stats;
+    
+    // the merged sketch for each field that was looked up, null when the field has no stats
+    protected Map<String,FieldStatsSketch> sketches = new HashMap<>();
+    
+    private Authorizations auths;
+    
+    public FieldStatsCostEstimator(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper) {
+        this(config, scannerFactory, helper, new FieldStatsClient(config.getConnector(), config.getFieldStatsTableName()));
+    }
+    
+    public FieldStatsCostEstimator(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper, FieldStatsClient stats) {
+        super(config, scannerFactory, helper);
+        this.stats = stats;
+    }
+    
+    /**
+     * Fetch the stats for a set of fields with a single scan.
+     *
+     * @param fieldNames
+     *            the fields
+     */
+    public void prefetch(Collection<String> fieldNames) {
+        Set<String> fields = new HashSet<>(fieldNames);
+        fields.removeAll(sketches.keySet());
+        if (!fields.isEmpty()) {
+            Map<String,FieldStatsSketch> fetched = stats.safeGetStats(fields, getDataTypes(), config.getBeginDate(), config.getEndDate(), getAuthorizations());
+            for (String field : fields) {
+                sketches.put(field, fetched.get(field));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Fetched field stats " + fetched);
+            }
+        }
+    }
+    
+    /**
+     * @param fieldName
+     *            the field name
+     * @return the merged sketch for the field over the query date range, or null if the field has no stats
+     */
+    public FieldStatsSketch getStats(String fieldName) {
+        prefetch(Collections.singleton(fieldName));
+        return sketches.get(fieldName);
+    }
+    
+    @Override
+    protected long getFieldCost(String fieldName) {
+        FieldStatsSketch sketch = getStats(fieldName);
+        if (sketch == null) {
+            return super.getFieldCost(fieldName);
+        }
+        return sketch.getCount();
+    }
+    
+    @Override
+    protected long getTermCost(String fieldName) {
+        FieldStatsSketch sketch = getStats(fieldName);
+        if (sketch == null || sketch.getCardinality() == 0) {
+            return super.getTermCost(fieldName);
+        }
+        return Math.max(1, Math.round((double) sketch.getCount() / sketch.getCardinality()));
+    }
+    
+    private Set<String> getDataTypes() {
+        Set<String> dataTypes = config.getDatatypeFilter();
+        return (dataTypes == null || dataTypes instanceof UniversalSet) ? Collections.emptySet() : dataTypes;
+    }
+    
+    /**
+     * The stats are scanned with the authorizations of the query, so the cost of a query never depends on data its user cannot see. A query with several
+     * authorizations sees an entry only when every one of them does, so the stats are scanned with the authorizations common to all of them.
+     */
+    private Authorizations getAuthorizations() {
+        if (auths == null) {
+            Set<String> common = null;
+            for (Authorizations queryAuths : config.getAuthorizations()) {
+                Set<String> strings = new HashSet<>();
+                for (byte[] auth : queryAuths.getAuthorizations()) {
+                    strings.add(new String(auth, StandardCharsets.UTF_8));
+                }
+                if (common == null) {
+                    common = strings;
+                } else {
+                    common.retainAll(strings);
+                }
+            }
+            auths = (common == null || common.isEmpty()) ? Authorizations.EMPTY : new Authorizations(common.toArray(new String[0]));
+        }
+        return auths;
+    }
+}
@@ -0,0 +1,378 @@
+package datawave.query.scheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import datawave.query.CloseableIterable;
+import datawave.query.tables.async.ScannerChunk;
+
+/**
+ * Merges the results of scanning a sequence of single range chunks into key order. Each chunk is scanned on its own thread into a bounded queue, up to a
+ * lookahead number of chunks at a time, and the merge only waits on a chunk once no other chunk can return a smaller key. A chunk that has not returned a key
+ * yet is bounded by the start of its range, so when the ranges do not overlap the first results are returned as soon as the first chunk returns them.
+ * <p>
+ * The chunks must be provided in approximately ascending order of their range: a chunk is only merged with the chunks within the lookahead of it. When the
+ * ranges overlap, the merge may need a chunk that has not been started while the lookahead of chunks is already running. Such a chunk is read directly by
+ * the merge rather than on another thread, so no more than the lookahead of threads are ever used.
+ */
+public class OrderedMergeIterator implements Iterator<Entry<Key,Value>>, Closeable {
+    
+    private static final Logger log = Logger.getLogger(OrderedMergeIterator.class);
+    
+    private static final Entry<Key,Value> END = new AbstractMap.SimpleImmutableEntry<>(new Key(), new Value(new byte[0]));
+    
+    private static final Comparator<ChunkScan> BY_BOUND = (first, second) -> compare(first.getBound(), second.getBound());
+    
+    private static final Comparator<ChunkScan> BY_START = (first, second) -> compare(first.range.getStartKey(), second.range.getStartKey());
+    
+    private final Iterator<ScannerChunk> chunks;
+    
+    private final Function<ScannerChunk,CloseableIterable<Entry<Key,Value>>> scanner;
+    
+    private final int lookahead;
+    
+    private final int queueCapacity;
+    
+    /**
+     * Every chunk that has not been exhausted, by the smallest key it can return
+     */
+    private final PriorityQueue<ChunkScan> merge = new PriorityQueue<>(11, BY_BOUND);
+    
+    /**
+     * The chunks that have not been started, by the start of their range
+     */
+    private final PriorityQueue<ChunkScan> waiting = new PriorityQueue<>(11, BY_START);
+    
+    /**
+     * The chunks being scanned on the executor
+     */
+    private final List<ChunkScan> running = Lists.newArrayList();
+    
+    /**
+     * The chunks being read directly by the merge
+     */
+    private final List<ChunkScan> direct = Lists.newArrayList();
+    
+    private final ExecutorService service;
+    
+    private Entry<Key,Value> next = null;
+    
+    private volatile boolean closed = false;
+    
+    private long chunksSeen = 0;
+    
+    /**
+     * @param chunks
+     *            chunks with a single range each, in approximately ascending order
+     * @param scanner
+     *            scans a chunk, returning its results in key order
+     * @param lookahead
+     *            the number of chunks scanned at the same time, and the number of threads used to scan them
+     * @param queueCapacity
+     *            the number of results read ahead for each chunk
+     */
+    public OrderedMergeIterator(Iterator<ScannerChunk> chunks, Function<ScannerChunk,CloseableIterable<Entry<Key,Value>>> scanner, int lookahead,
+                    int queueCapacity) {
+        Preconditions.checkArgument(lookahead > 0, "lookahead must be positive");
+        Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+        this.chunks = chunks;
+        this.scanner = scanner;
+        this.lookahead = lookahead;
+        this.queueCapacity = queueCapacity;
+        this.service = Executors.newFixedThreadPool(lookahead);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (null != next) {
+            return true;
+        }
+        
+        while (true) {
+            fill();
+            
+            ChunkScan scan = merge.poll();
+            if (null == scan) {
+                return false;
+            }
+            
+            if (scan.hasHead()) {
+                next = scan.pollHead();
+                merge.add(scan);
+                return true;
+            }
+            
+            // no other chunk can return a key before this one, so wait for its next result
+            if (!scan.isStarted()) {
+                waiting.remove(scan);
+                start(scan);
+            }
+            if (scan.load()) {
+                merge.add(scan);
+            } else {
+                running.remove(scan);
+                direct.remove(scan);
+                if (closed) {
+                    return false;
+                }
+            }
+        }
+    }
+    
+    @Override
+    public Entry<Key,Value> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<Key,Value> current = next;
+        next = null;
+        return current;
+    }
+    
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        // the running scans stop once they see we are closed
+        closed = true;
+        service.shutdownNow();
+        for (ChunkScan scan : direct) {
+            scan.closeScan();
+        }
+        direct.clear();
+        
+        // wait for the running scans to release their scanners
+        try {
+            if (!service.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Timed out waiting on " + running.size() + " ordered scans to stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * @return the number of chunks pulled from the source so far
+     */
+    public long getChunksSeen() {
+        return chunksSeen;
+    }
+    
+    /**
+     * Pull chunks until a lookahead of them is waiting, and start the earliest of them while fewer than the lookahead are running
+     */
+    private void fill() {
+        while (waiting.size() < lookahead && chunks.hasNext()) {
+            ScannerChunk chunk = chunks.next();
+            Preconditions.checkArgument(chunk.getRanges().size() == 1, "Expected a single range per chunk");
+            ChunkScan scan = new ChunkScan(chunk);
+            chunksSeen++;
+            waiting.add(scan);
+            merge.add(scan);
+        }
+        while (running.size() < lookahead && !waiting.isEmpty()) {
+            start(waiting.poll());
+        }
+    }
+    
+    private void start(ChunkScan scan) {
+        scan.started = true;
+        if (running.size() < lookahead) {
+            running.add(scan);
+            service.submit(scan);
+        } else {
+            // every thread is taken, so the merge reads this chunk itself
+            scan.direct = true;
+            direct.add(scan);
+        }
+    }
+    
+    private static int compare(Key first, Key second) {
+        if (first == second) {
+            return 0;
+        } else if (null == first) {
+            // an infinite start key
+            return -1;
+        } else if (null == second) {
+            return 1;
+        }
+        return first.compareTo(second);
+    }
+    
+    /**
+     * Reads the results of a single chunk ahead of the merge
+     */
+    private class ChunkScan implements Runnable {
+        
+        private final ScannerChunk chunk;
+        
+        private final Range range;
+        
+        private final BlockingQueue<Entry<Key,Value>> results;
+        
+        private volatile Exception failure = null;
+        
+        private boolean started = false;
+        
+        private boolean direct = false;
+        
+        private CloseableIterable<Entry<Key,Value>> scan = null;
+        
+        private Iterator<Entry<Key,Value>> source = null;
+        
+        private Entry<Key,Value> head = null;
+        
+        private Key lastKey = null;
+        
+        ChunkScan(ScannerChunk chunk) {
+            this.chunk = chunk;
+            this.range = chunk.getRanges().iterator().next();
+            this.results = new ArrayBlockingQueue<>(queueCapacity);
+        }
+        
+        /**
+         * @return the smallest key this chunk can return next, null if it is unbounded
+         */
+        Key getBound() {
+            if (null != head) {
+                return head.getKey();
+            } else if (null != lastKey) {
+                return lastKey;
+            }
+            return range.getStartKey();
+        }
+        
+        boolean isStarted() {
+            return started;
+        }
+        
+        boolean hasHead() {
+            return null != head;
+        }
+        
+        Entry<Key,Value> pollHead() {
+            Entry<Key,Value> current = head;
+            lastKey = current.getKey();
+            head = null;
+            return current;
+        }
+        
+        /**
+         * Wait for the next result of this chunk
+         *
+         * @return false if the chunk is exhausted
+         */
+        boolean load() {
+            if (direct) {
+                return loadDirect();
+            }
+            Entry<Key,Value> entry = null;
+            try {
+                while (null == entry && !closed) {
+                    entry = results.poll(25, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted waiting on " + range, e);
+            }
+            if (null == entry || END == entry) {
+                if (null != failure) {
+                    throw new RuntimeException("Failed to scan " + range, failure);
+                }
+                return false;
+            }
+            head = entry;
+            return true;
+        }
+        
+        private boolean loadDirect() {
+            try {
+                if (!closed) {
+                    if (null == source) {
+                        scan = scanner.apply(chunk);
+                        source = scan.iterator();
+                    }
+                    if (source.hasNext()) {
+                        head = source.next();
+                        return true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                closeScan();
+                throw new RuntimeException("Failed to scan " + range, e);
+            }
+            closeScan();
+            return false;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                scan = scanner.apply(chunk);
+                for (Entry<Key,Value> entry : scan) {
+                    if (!offer(entry)) {
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Failed to scan " + range, e);
+                failure = e;
+            } finally {
+                closeScan();
+                offer(END);
+            }
+        }
+        
+        void closeScan() {
+            if (null != scan) {
+                try {
+                    scan.close();
+                } catch (IOException e) {
+                    log.warn("Ignoring error on close", e);
+                }
+                scan = null;
+                source = null;
+            }
+        }
+        
+        private boolean offer(Entry<Key,Value> entry) {
+            try {
+                while (!closed) {
+                    if (results.offer(entry, 25, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // we are being shut down
+            }
+            return false;
+        }
+    }
+}
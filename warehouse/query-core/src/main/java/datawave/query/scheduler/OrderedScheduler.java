@@ -0,0 +1,195 @@
+package datawave.query.scheduler;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import datawave.query.CloseableIterable;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.tables.SessionOptions;
+import datawave.query.tables.ShardQueryLogic;
+import datawave.query.tables.async.ScannerChunk;
+import datawave.query.tables.async.event.VisitorFunction;
+import datawave.query.tables.stats.ScanSessionStats;
+import datawave.query.util.MetadataHelper;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.webservice.common.logging.ThreadConfigurableLogger;
+import datawave.webservice.query.configuration.QueryData;
+
+/**
+ * Returns the results of a query in key order, which for the shard table is the date order of the shards, so that the first page of chronologically ordered
+ * results is returned without materializing and sorting every result. Every range of the planned queries is scanned by its own scanner, up to
+ * orderedScanLookahead ranges ahead of the results being returned, and their results are merged by an {@link OrderedMergeIterator}.
+ * <p>
+ * The range stream plans the shards in ascending order; ranges within a single query data are sorted here.
+ */
+public class OrderedScheduler extends Scheduler {
+    private static final Logger log = ThreadConfigurableLogger.getLogger(OrderedScheduler.class);
+    
+    protected final ShardQueryConfiguration config;
+    protected final ScannerFactory scannerFactory;
+    protected final MetadataHelper metadataHelper;
+    
+    protected OrderedMergeIterator iterator = null;
+    
+    protected int queryDataSeen = 0;
+    
+    public OrderedScheduler(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelperFactory metaFactory) {
+        this(config, scannerFactory, metaFactory.createMetadataHelper(config.getConnector(), config.getMetadataTableName(), config.getAuthorizations()));
+    }
+    
+    protected OrderedScheduler(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper) {
+        this.config = config;
+        this.scannerFactory = scannerFactory;
+        this.metadataHelper = helper;
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Iterable#iterator()
+     */
+    @Override
+    public Iterator<Entry<Key,Value>> iterator() {
+        if (null == this.config) {
+            throw new IllegalArgumentException("Null configuration provided");
+        }
+        
+        final VisitorFunction visitor;
+        try {
+            visitor = new VisitorFunction(config, metadataHelper);
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+        
+        Iterator<ScannerChunk> chunks = Iterators.concat(Iterators.transform(getQueryDataIterator(), this::toChunks));
+        
+        this.iterator = new OrderedMergeIterator(chunks, chunk -> scan(visitor.apply(chunk)), config.getOrderedScanLookahead(),
+                        config.getOrderedScanQueueSize());
+        
+        return this.iterator;
+    }
+    
+    protected Iterator<QueryData> getQueryDataIterator() {
+        return config.getQueries();
+    }
+    
+    /**
+     * @param qd
+     *            the query data
+     * @return a chunk for every range of the query data, in order
+     */
+    protected Iterator<ScannerChunk> toChunks(QueryData qd) {
+        queryDataSeen++;
+        
+        SessionOptions options = new SessionOptions();
+        for (IteratorSetting setting : qd.getSettings()) {
+            options.addScanIterator(setting);
+        }
+        for (IteratorSetting setting : settings) {
+            options.addScanIterator(setting);
+        }
+        for (String cf : qd.getColumnFamilies()) {
+            options.fetchColumnFamily(new Text(cf));
+        }
+        options.setQueryConfig(config);
+        
+        List<Range> ranges = Lists.newArrayList(qd.getRanges());
+        Collections.sort(ranges);
+        
+        List<ScannerChunk> chunks = Lists.newArrayListWithCapacity(ranges.size());
+        for (Range range : ranges) {
+            chunks.add(new ScannerChunk(options, Collections.singleton(range)));
+        }
+        return chunks.iterator();
+    }
+    
+    /**
+     * Scan a single range chunk in key order
+     *
+     * @param chunk
+     * @return the results of the chunk
+     */
+    protected CloseableIterable<Entry<Key,Value>> scan(ScannerChunk chunk) {
+        final Scanner scanner;
+        try {
+            scanner = scannerFactory.newSingleScanner(config.getShardTableName(), config.getAuthorizations(), config.getQuery());
+        } catch (TableNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        
+        scanner.setRange(chunk.getRanges().iterator().next());
+        for (IteratorSetting setting : chunk.getOptions().getIterators()) {
+            scanner.addScanIterator(setting);
+        }
+        for (Column column : chunk.getOptions().getFetchedColumns()) {
+            scanner.fetchColumnFamily(new Text(column.getColumnFamily()));
+        }
+        
+        if (log.isTraceEnabled()) {
+            log.trace("Scanning " + chunk.getRanges() + " in order");
+        }
+        
+        return new CloseableIterable<Entry<Key,Value>>() {
+            @Override
+            public Iterator<Entry<Key,Value>> iterator() {
+                return scanner.iterator();
+            }
+            
+            @Override
+            public void close() {
+                scannerFactory.close(scanner);
+            }
+        };
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (null != this.iterator) {
+            this.iterator.close();
+            log.debug("Ran " + queryDataSeen + " queries and " + iterator.getChunksSeen() + " ordered scans for a single user query");
+        }
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see Scheduler#createBatchScanner(ShardQueryConfiguration, datawave.query.tables.ScannerFactory, datawave.webservice.query.configuration.QueryData)
+     */
+    @Override
+    public BatchScanner createBatchScanner(ShardQueryConfiguration config, ScannerFactory scannerFactory, QueryData qd) throws TableNotFoundException {
+        return ShardQueryLogic.createBatchScanner(config, scannerFactory, qd);
+    }
+    
+    @Override
+    public ScanSessionStats getSchedulerStats() {
+        return null;
+    }
+    
+    public int getQueryDataSeen() {
+        return queryDataSeen;
+    }
+}
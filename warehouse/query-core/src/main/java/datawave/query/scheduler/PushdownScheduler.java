@@ -25,6 +25,7 @@ import datawave.query.config.ShardQueryConfiguration;
 import datawave.query.tables.BatchScannerSession;
 import datawave.query.tables.ScannerFactory;
 import datawave.query.tables.ShardQueryLogic;
+import datawave.query.tables.async.HedgePolicy;
 import datawave.query.tables.async.ScannerChunk;
 import datawave.query.tables.async.event.VisitorFunction;
 import datawave.query.tables.stats.ScanSessionStats;
@@ -125,6 +126,10 @@ public class PushdownScheduler extends Scheduler {
             session.setBackoffEnabled(true);
         }
         
+        if (config.getHedgedScanning()) {
+            session.setHedgePolicy(new HedgePolicy(config.getHedgedScanPercentile(), config.getHedgedScanMinDelay(), config.getHedgedScanBudget()));
+        }
+        
         session.setChunkIter(chunkIter);
         
         session.updateIdentifier(config.getQuery().getId().toString());
@@ -0,0 +1,264 @@
+package datawave.query.scheduler;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.iterator.TopKIterator;
+import datawave.query.iterator.profile.FinalDocumentTrackingIterator;
+import datawave.query.tables.BatchScannerSession;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.tables.stats.ScanSessionStats;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.webservice.common.logging.ThreadConfigurableLogger;
+import datawave.webservice.query.configuration.QueryData;
+
+/**
+ * Returns the topK newest results of a query, by event date. A {@link TopKIterator} above the query iterator bounds the results of each tablet to K, and the
+ * planned ranges are scanned one shard day at a time, newest day first, while the following day is started ahead. Events are stored in the shard of their
+ * date, so once K results newer than every remaining day are confirmed no further days are scanned, and the scans of the day started ahead are cancelled
+ * by closing its session.
+ * <p>
+ * The results are returned newest first, once the scan completes, followed by the final document entries carrying the stats of the scans, which are not
+ * ranked. Results are only ranked by the timestamp of their key.
+ */
+public class TopKScheduler extends PushdownScheduler {
+    private static final Logger log = ThreadConfigurableLogger.getLogger(TopKScheduler.class);
+    
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    
+    /**
+     * The day of ranges whose shard date cannot be determined, which are scanned first
+     */
+    private static final long UNKNOWN_DAY = Long.MAX_VALUE - DAY;
+    
+    private static final Comparator<Entry<Key,Value>> OLDEST_FIRST = (first, second) -> TopKIterator.OLDEST_FIRST.compare(first.getKey(), second.getKey());
+    
+    protected final int k;
+    
+    protected Iterator<QueryData> dayQueryData = null;
+    
+    protected BatchScannerSession nextSession = null;
+    
+    protected ExecutorService prefetch = null;
+    
+    protected ScanSessionStats stats = null;
+    
+    protected int daysScanned = 0;
+    
+    protected int daysSkipped = 0;
+    
+    public TopKScheduler(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelperFactory metaFactory) {
+        super(config, scannerFactory, metaFactory);
+        this.k = config.getTopK();
+        IteratorSetting topK = new IteratorSetting(config.getBaseIteratorPriority() + 50, "topK", TopKIterator.class);
+        topK.addOption(TopKIterator.K, Integer.toString(k));
+        addSetting(topK);
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.lang.Iterable#iterator()
+     */
+    @Override
+    public Iterator<Entry<Key,Value>> iterator() {
+        if (null == this.config) {
+            throw new IllegalArgumentException("Null configuration provided");
+        }
+        
+        return new AbstractIterator<Entry<Key,Value>>() {
+            private Iterator<Entry<Key,Value>> newest = null;
+            
+            @Override
+            protected Entry<Key,Value> computeNext() {
+                if (null == newest) {
+                    newest = findNewest();
+                }
+                return newest.hasNext() ? newest.next() : endOfData();
+            }
+        };
+    }
+    
+    @Override
+    protected Iterator<QueryData> getQueryDataIterator() {
+        return dayQueryData;
+    }
+    
+    /**
+     * Scan the days newest first until the K newest results are known
+     * 
+     * @return the K newest results, newest first
+     */
+    protected Iterator<Entry<Key,Value>> findNewest() {
+        List<Entry<Long,List<QueryData>>> days = Lists.newArrayList(bucketByDay(config.getQueries()).descendingMap().entrySet());
+        PriorityQueue<Entry<Key,Value>> newest = new PriorityQueue<>(k + 1, OLDEST_FIRST);
+        List<Entry<Key,Value>> finalDocuments = Lists.newArrayList();
+        
+        prefetch = Executors.newSingleThreadExecutor();
+        try {
+            BatchScannerSession current = null;
+            Future<Boolean> primed = null;
+            for (int i = 0; i < days.size(); i++) {
+                if (null == current) {
+                    current = startDay(days.get(i).getValue());
+                } else {
+                    // wait for the session started ahead to take over
+                    primed.get();
+                }
+                
+                // start the following day while this one is returned
+                nextSession = null;
+                primed = null;
+                if (i + 1 < days.size()) {
+                    nextSession = startDay(days.get(i + 1).getValue());
+                    primed = prefetch.submit(nextSession::hasNext);
+                }
+                
+                while (current.hasNext()) {
+                    Entry<Key,Value> entry = current.next();
+                    if (FinalDocumentTrackingIterator.isFinalDocumentKey(entry.getKey())) {
+                        finalDocuments.add(entry);
+                        continue;
+                    }
+                    newest.add(entry);
+                    if (newest.size() > k) {
+                        newest.poll();
+                    }
+                }
+                close(current);
+                daysScanned++;
+                
+                if (null != nextSession && newest.size() >= k && newest.peek().getKey().getTimestamp() >= days.get(i + 1).getKey() + DAY) {
+                    // every remaining day is older than the K newest results
+                    daysSkipped = days.size() - i - 1;
+                    log.debug("Found the " + k + " newest results after " + daysScanned + " days, skipping " + daysSkipped + " days");
+                    close(nextSession);
+                    primed.cancel(true);
+                    nextSession = null;
+                    break;
+                }
+                current = nextSession;
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to find the " + k + " newest results", e);
+        } finally {
+            prefetch.shutdownNow();
+        }
+        
+        List<Entry<Key,Value>> results = Lists.newArrayList(newest);
+        Collections.sort(results, OLDEST_FIRST.reversed());
+        results.addAll(finalDocuments);
+        return results.iterator();
+    }
+    
+    /**
+     * Group the ranges of the planned queries by the newest shard day they can contain
+     * 
+     * @param queries
+     * @return the queries of each day, keyed on the start of the day
+     */
+    protected NavigableMap<Long,List<QueryData>> bucketByDay(Iterator<QueryData> queries) {
+        NavigableMap<Long,List<QueryData>> days = new TreeMap<>();
+        while (queries.hasNext()) {
+            QueryData qd = queries.next();
+            Map<Long,List<Range>> ranges = new TreeMap<>();
+            for (Range range : qd.getRanges()) {
+                ranges.computeIfAbsent(getDay(range), day -> Lists.newArrayList()).add(range);
+            }
+            for (Entry<Long,List<Range>> entry : ranges.entrySet()) {
+                QueryData dayQuery = ranges.size() == 1 ? qd : new QueryData(qd.getQuery(), entry.getValue(), qd.getSettings(), qd.getColumnFamilies());
+                days.computeIfAbsent(entry.getKey(), day -> Lists.newArrayList()).add(dayQuery);
+            }
+        }
+        return days;
+    }
+    
+    /**
+     * @param range
+     * @return the start of the newest shard day the range can contain, in milliseconds
+     */
+    protected static long getDay(Range range) {
+        if (null == range.getEndKey()) {
+            return UNKNOWN_DAY;
+        }
+        String row = range.getEndKey().getRow().toString();
+        if (row.length() < 8) {
+            return UNKNOWN_DAY;
+        }
+        try {
+            return LocalDate.parse(row.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_DAY;
+        }
+    }
+    
+    private BatchScannerSession startDay(List<QueryData> queries) {
+        dayQueryData = queries.iterator();
+        return (BatchScannerSession) concatIterators();
+    }
+    
+    private void close(BatchScannerSession daySession) {
+        if (null != daySession.getStatistics()) {
+            if (null == stats) {
+                stats = new ScanSessionStats();
+            }
+            stats.merge(daySession.getStatistics());
+        }
+        scannerFactory.close(daySession);
+    }
+    
+    /*
+     * (non-Javadoc)
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        super.close();
+        if (null != nextSession) {
+            scannerFactory.close(nextSession);
+        }
+        if (null != prefetch) {
+            prefetch.shutdownNow();
+        }
+    }
+    
+    @Override
+    public ScanSessionStats getSchedulerStats() {
+        return stats;
+    }
+    
+    public int getDaysScanned() {
+        return daysScanned;
+    }
+    
+    public int getDaysSkipped() {
+        return daysSkipped;
+    }
+}
@@ -1,8 +1,5 @@
 package datawave.query.statsd;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import com.timgroup.statsd.ConvenienceMethodProvidingStatsDClient;
 import com.timgroup.statsd.NonBlockingUdpSender;
 import com.timgroup.statsd.StatsDClientErrorHandler;
@@ -14,10 +11,16 @@ import java.util.Locale;
 import org.apache.log4j.Logger;
 
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A client that can be used to record live query metrics. This client will cache results and will periodically send them with a specified max cache size.
+ * <p>
+ * The calls are aggregated in striped counters, and the timings in a sum per timer, so that recording a call takes no locks. Since summing the counters costs
+ * more than adding to them, the size of the cache is only checked on a random sample of the calls, at which point the stats are also flushed if they have not
+ * been for {@link #FLUSH_INTERVAL_MS}.
  */
 public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
     private static final Logger log = Logger.getLogger(QueryStatsDClient.class);
@@ -28,13 +31,19 @@ public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
     private final int port;
     private final int maxCacheSize;
     
+    public static final long FLUSH_INTERVAL_MS = 1000;
+    private static final int MAX_SIZE_CHECK_INTERVAL = 64;
+    
     // thread safe caches
-    private final AtomicInteger nextCalls = new AtomicInteger(0);
-    private final AtomicInteger seekCalls = new AtomicInteger(0);
-    private final AtomicInteger yieldCalls = new AtomicInteger(0);
-    private final AtomicInteger sources = new AtomicInteger(0);
-    private final Multimap<String,Long> timings;
+    private final LongAdder nextCalls = new LongAdder();
+    private final LongAdder seekCalls = new LongAdder();
+    private final LongAdder yieldCalls = new LongAdder();
+    private final LongAdder sources = new LongAdder();
+    private final LongAdder timingCalls = new LongAdder();
+    private final Map<String,LongAdder> timings = new ConcurrentHashMap<>();
     private final String prefix;
+    private final int sizeCheckInterval;
+    private volatile long lastFlush = System.currentTimeMillis();
     
     private static final Charset STATS_D_ENCODING = Charset.forName("UTF-8");
     
@@ -50,9 +59,9 @@ public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
         this.host = host;
         this.port = port;
         this.maxCacheSize = maxCacheSize;
-        Multimap<String,Long> temp = HashMultimap.create();
-        this.timings = Multimaps.synchronizedMultimap(temp);
         this.prefix = queryId + ".dwquery.";
+        // check often enough that the cache does not grow far beyond its max size between checks
+        this.sizeCheckInterval = Math.max(1, Math.min(MAX_SIZE_CHECK_INTERVAL, maxCacheSize / 8));
     }
     
     /**
@@ -87,36 +96,35 @@ public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
         }
         boolean flushed = false;
         synchronized (clientMonitor) {
-            long value = nextCalls.getAndSet(0);
+            lastFlush = System.currentTimeMillis();
+            long value = nextCalls.sumThenReset();
             if (value > 0) {
                 count("next_calls", value);
                 flushed = true;
             }
-            value = seekCalls.getAndSet(0);
+            value = seekCalls.sumThenReset();
             if (value > 0) {
                 count("seek_calls", value);
                 flushed = true;
             }
-            value = yieldCalls.getAndSet(0);
+            value = yieldCalls.sumThenReset();
             if (value > 0) {
                 count("yield_calls", value);
                 flushed = true;
             }
-            value = sources.getAndSet(0);
+            value = sources.sumThenReset();
             if (value > 0) {
                 count("sources", value);
                 flushed = true;
             }
-            if (!timings.isEmpty()) {
-                synchronized (timings) {
-                    if (!timings.isEmpty()) {
-                        for (Map.Entry<String,Long> timing : timings.entries()) {
-                            count(timing.getKey(), timing.getValue());
-                        }
-                        flushed = true;
-                        timings.clear();
+            if (timingCalls.sumThenReset() > 0) {
+                for (Map.Entry<String,LongAdder> timing : timings.entrySet()) {
+                    value = timing.getValue().sumThenReset();
+                    if (value > 0) {
+                        count(timing.getKey(), value);
                     }
                 }
+                flushed = true;
             }
             if (flushed && log.isTraceEnabled()) {
                 log.trace("Flushed some STATSD stats for " + queryId);
@@ -126,8 +134,10 @@ public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
     }
     
     private void flushAsNeeded() {
-        if (getSize() > maxCacheSize) {
-            flushStats();
+        if (ThreadLocalRandom.current().nextInt(sizeCheckInterval) == 0) {
+            if (getSize() > maxCacheSize || System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MS) {
+                flushStats();
+            }
         }
     }
     
@@ -136,32 +146,40 @@ public class QueryStatsDClient extends ConvenienceMethodProvidingStatsDClient {
     }
     
     public void next() {
-        nextCalls.incrementAndGet();
+        nextCalls.increment();
         flushAsNeeded();
     }
     
     public void seek() {
-        seekCalls.incrementAndGet();
+        seekCalls.increment();
         flushAsNeeded();
     }
     
     public void yield() {
-        yieldCalls.incrementAndGet();
+        yieldCalls.increment();
         flushAsNeeded();
     }
     
     public void addSource() {
-        sources.incrementAndGet();
+        sources.increment();
         flushAsNeeded();
     }
     
     public void timing(String call, long time) {
-        timings.put(call, time);
+        LongAdder total = timings.get(call);
+        if (total == null) {
+            total = timings.computeIfAbsent(call, k -> new LongAdder());
+        }
+        total.add(time);
+        timingCalls.increment();
         flushAsNeeded();
     }
     
+    /**
+     * @return the number of calls recorded since the last flush
+     */
     public int getSize() {
-        return nextCalls.get() + seekCalls.get() + yieldCalls.get() + sources.get() + timings.size();
+        return (int) (nextCalls.sum() + seekCalls.sum() + yieldCalls.sum() + sources.sum() + timingCalls.sum());
     }
     
     /**
@@ -41,6 +41,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Service;
 
 import datawave.mr.bulk.RfileResource;
+import datawave.query.tables.async.HedgePolicy;
 import datawave.query.tables.async.Scan;
 import datawave.query.tables.async.ScannerChunk;
 import datawave.query.tables.async.SessionArbiter;
@@ -106,6 +107,20 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
     
     protected int threadCount = 5;
     
+    /**
+     * Decides when a slow scan is hedged, null if hedging is disabled.
+     */
+    protected HedgePolicy hedgePolicy = null;
+    
+    /**
+     * Scans that may still be hedged, with a copy of their chunk taken before the scan modified it.
+     */
+    protected Map<Scan,ScannerChunk> hedgeableScans = Maps.newConcurrentMap();
+    
+    private static final long HEDGE_CHECK_INTERVAL = 10;
+    
+    private long lastHedgeCheck = 0;
+    
     private class BatchReaderThreadFactory implements ThreadFactory {
         
         private ThreadFactory dtf = Executors.defaultThreadFactory();
@@ -301,6 +316,7 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
                         throw new InterruptedException("Interrupted while parking");
                     }
                 }
+                hedgeSlowScans();
                 
             }
             if (log.isTraceEnabled())
@@ -315,6 +331,7 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
                         service.shutdownNow();
                         throw new InterruptedException("Interrupted while parking");
                     }
+                    hedgeSlowScans();
                 } else {
                     if (log.isTraceEnabled())
                         log.trace(" no longer running");
@@ -383,6 +400,9 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
                 
             } else {
                 scan = new Scan(localTableName, localAuths, chunk, delegatorReference, delegatedResourceInitializer, resultQueue, listenerService);
+                if (null != hedgePolicy) {
+                    trackForHedging(scan, chunk);
+                }
             }
             
             if (backoffEnabled) {
@@ -433,6 +453,9 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
                 
             } else {
                 scan = new Scan(localTableName, localAuths, chunk, delegatorReference, delegatedResourceInitializer, resultQueue, listenerService);
+                if (null != hedgePolicy) {
+                    trackForHedging(scan, chunk);
+                }
             }
             
             if (backoffEnabled) {
@@ -448,6 +471,65 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
         
     }
     
+    /**
+     * Keep a copy of the chunk of a scan that has not yet been submitted, so that the scan can be duplicated if it is slow.
+     * 
+     * @param scan
+     * @param chunk
+     */
+    protected void trackForHedging(Scan scan, ScannerChunk chunk) {
+        ScannerChunk copy = new ScannerChunk(chunk);
+        if (null != chunk.getOptions()) {
+            copy.setOptions(new SessionOptions(chunk.getOptions()));
+        }
+        scan.enableHedging();
+        hedgeableScans.put(scan, copy);
+        hedgePolicy.scanSubmitted();
+    }
+    
+    /**
+     * Submit a duplicate of every running scan that has gone longer without a result than the hedge policy allows. The duplicate scans the same tablets;
+     * whichever of the two scans returns a result first cancels the other.
+     */
+    protected void hedgeSlowScans() {
+        if (null == hedgePolicy || hedgeableScans.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastHedgeCheck < HEDGE_CHECK_INTERVAL) {
+            return;
+        }
+        lastHedgeCheck = now;
+        
+        for (Entry<Scan,ScannerChunk> entry : hedgeableScans.entrySet()) {
+            Scan scan = entry.getKey();
+            if (scan.getStartTime() == 0 || scan.isClaimed()) {
+                continue;
+            }
+            if (!hedgePolicy.shouldHedge(now - scan.getStartTime())) {
+                continue;
+            }
+            if (service.isShutdown()) {
+                return;
+            }
+            hedgeableScans.remove(scan);
+            
+            Scan hedge = new Scan(localTableName, localAuths, entry.getValue(), delegatorReference, delegatedResourceInitializer, resultQueue, listenerService);
+            if (backoffEnabled) {
+                hedge.setSessionArbiter(this);
+            }
+            hedge.setVisitors(visitorFunctions);
+            hedge.setTimeout(scanLimitTimeout);
+            if (scan.hedgeWith(hedge)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Hedging scan against " + scan.getScanLocation() + " after " + (now - scan.getStartTime()) + " ms");
+                }
+                hedgePolicy.scanHedged();
+                submitScan(hedge, true);
+            }
+        }
+    }
+    
     protected void submitScan(Scan scan, boolean increment) {
         ListenableFuture<Scan> future = (ListenableFuture<Scan>) service.submit(scan);
         if (increment)
@@ -508,6 +590,34 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
             
             finishedScan.close();
             
+            if (null != hedgePolicy) {
+                hedgeableScans.remove(finishedScan);
+                // a scan that finished without results claims them as well
+                boolean won = !finishedScan.isCancelled() && finishedScan.claim();
+                if (won && finishedScan.getTimeToClaim() >= 0) {
+                    hedgePolicy.recordLatency(finishedScan.getTimeToClaim());
+                }
+                if (won && finishedScan.isHedge()) {
+                    hedgePolicy.hedgeWon();
+                }
+                if (null != stats) {
+                    synchronized (stats) {
+                        if (finishedScan.isHedge()) {
+                            stats.incrementHedgedScans();
+                            if (won) {
+                                stats.incrementHedgesWon();
+                            }
+                        } else {
+                            stats.incrementScans();
+                        }
+                    }
+                }
+                if (!won) {
+                    // the work of this scan was discarded in favor of its hedge, or the other way around
+                    return;
+                }
+            }
+            
             if (null != stats && null != finishedScan.getStats()) {
                 synchronized (stats) {
                     stats.merge(finishedScan.getStats());
@@ -692,6 +802,21 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
         this.speculativeScanning = speculative;
     }
     
+    /**
+     * Enable hedging of slow scans, which are duplicated once they have run longer without a result than the policy allows. Hedging does not apply to
+     * speculative scans.
+     * 
+     * @param hedgePolicy
+     *            the policy, or null to disable hedging
+     */
+    public void setHedgePolicy(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+    }
+    
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+    
     @Override
     public void uncaughtException(Thread t, Throwable e) {
         t.interrupt();
@@ -32,9 +32,11 @@ import datawave.query.planner.DefaultQueryPlanner;
 import datawave.query.planner.MetadataHelperQueryModelProvider;
 import datawave.query.planner.QueryModelProvider;
 import datawave.query.planner.QueryPlanner;
+import datawave.query.scheduler.OrderedScheduler;
 import datawave.query.scheduler.PushdownScheduler;
 import datawave.query.scheduler.Scheduler;
 import datawave.query.scheduler.SequentialScheduler;
+import datawave.query.scheduler.TopKScheduler;
 import datawave.query.tables.stats.ScanSessionStats;
 import datawave.query.transformer.DocumentTransformer;
 import datawave.query.transformer.EventQueryDataDecoratorTransformer;
@@ -276,6 +278,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         return config.getQueryString();
     }
     
+    @Override
+    public Long getEstimatedQueryCost() {
+        if (null == config || config.getEstimatedQueryCost() < 0) {
+            return null;
+        }
+        return config.getEstimatedQueryCost();
+    }
+    
     protected String expandQueryMacros(String query) throws ParseException {
         log.trace("query macros are :" + this.queryMacroFunction);
         if (this.queryMacroFunction != null) {
@@ -740,6 +750,12 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
             config.setGroupFieldsBatchSize(groupFieldsBatchSize);
         }
         
+        // Get the TOP_K parameter if given
+        String topKString = settings.findParameter(QueryParameters.TOP_K).getParameterValue().trim();
+        if (org.apache.commons.lang.StringUtils.isNotBlank(topKString)) {
+            config.setTopK(Integer.parseInt(topKString));
+        }
+        
         // Get the UNIQUE_FIELDS parameter if given
         String uniqueFields = settings.findParameter(QueryParameters.UNIQUE_FIELDS).getParameterValue().trim();
         if (org.apache.commons.lang.StringUtils.isNotBlank(uniqueFields)) {
@@ -997,8 +1013,12 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
     }
     
     protected Scheduler getScheduler(ShardQueryConfiguration config, ScannerFactory scannerFactory) {
-        if (config.getSequentialScheduler()) {
+        if (config.getTopK() > 0) {
+            return new TopKScheduler(config, scannerFactory, this.metadataHelperFactory);
+        } else if (config.getSequentialScheduler()) {
             return new SequentialScheduler(config, scannerFactory);
+        } else if (config.getOrderedScheduler()) {
+            return new OrderedScheduler(config, scannerFactory, this.metadataHelperFactory);
         } else {
             return new PushdownScheduler(config, scannerFactory, this.metadataHelperFactory);
         }
@@ -1207,6 +1227,22 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         return getConfig().getGroupFieldsBatchSize();
     }
     
+    public void setGroupFieldsMaxGroups(int groupFieldsMaxGroups) {
+        getConfig().setGroupFieldsMaxGroups(groupFieldsMaxGroups);
+    }
+    
+    public int getGroupFieldsMaxGroups() {
+        return getConfig().getGroupFieldsMaxGroups();
+    }
+    
+    public void setUniqueFieldsMaxEntries(int uniqueFieldsMaxEntries) {
+        getConfig().setUniqueFieldsMaxEntries(uniqueFieldsMaxEntries);
+    }
+    
+    public int getUniqueFieldsMaxEntries() {
+        return getConfig().getUniqueFieldsMaxEntries();
+    }
+    
     public Set<String> getUniqueFields() {
         return getConfig().getUniqueFields();
     }
@@ -1411,6 +1447,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setIndexStatsTableName(indexStatsTableName);
     }
     
+    public String getFieldStatsTableName() {
+        return getConfig().getFieldStatsTableName();
+    }
+    
+    public void setFieldStatsTableName(String fieldStatsTableName) {
+        getConfig().setFieldStatsTableName(fieldStatsTableName);
+    }
+    
     public String getModelTableName() {
         return getConfig().getModelTableName();
     }
@@ -1704,6 +1748,30 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMinSelectivity(d);
     }
     
+    public boolean isCostBasedPlanning() {
+        return getConfig().isCostBasedPlanning();
+    }
+    
+    public void setCostBasedPlanning(boolean costBasedPlanning) {
+        getConfig().setCostBasedPlanning(costBasedPlanning);
+    }
+    
+    public double getMaxTermCostRatio() {
+        return getConfig().getMaxTermCostRatio();
+    }
+    
+    public void setMaxTermCostRatio(double maxTermCostRatio) {
+        getConfig().setMaxTermCostRatio(maxTermCostRatio);
+    }
+    
+    public long getIndexExpansionCacheMillis() {
+        return getConfig().getIndexExpansionCacheMillis();
+    }
+    
+    public void setIndexExpansionCacheMillis(long indexExpansionCacheMillis) {
+        getConfig().setIndexExpansionCacheMillis(indexExpansionCacheMillis);
+    }
+    
     public Map<String,QueryParser> getQuerySyntaxParsers() {
         return querySyntaxParsers;
     }
@@ -1863,6 +1931,7 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         optionalParams.add(QueryParameters.LIMIT_FIELDS);
         optionalParams.add(QueryParameters.GROUP_FIELDS);
         optionalParams.add(QueryParameters.UNIQUE_FIELDS);
+        optionalParams.add(QueryParameters.TOP_K);
         optionalParams.add(QueryOptions.LOG_TIMING_DETAILS);
         return optionalParams;
     }
@@ -1927,6 +1996,38 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setSequentialScheduler(sequentialScheduler);
     }
     
+    public boolean getOrderedScheduler() {
+        return getConfig().getOrderedScheduler();
+    }
+    
+    public void setOrderedScheduler(boolean orderedScheduler) {
+        getConfig().setOrderedScheduler(orderedScheduler);
+    }
+    
+    public int getOrderedScanLookahead() {
+        return getConfig().getOrderedScanLookahead();
+    }
+    
+    public void setOrderedScanLookahead(int orderedScanLookahead) {
+        getConfig().setOrderedScanLookahead(orderedScanLookahead);
+    }
+    
+    public int getOrderedScanQueueSize() {
+        return getConfig().getOrderedScanQueueSize();
+    }
+    
+    public void setOrderedScanQueueSize(int orderedScanQueueSize) {
+        getConfig().setOrderedScanQueueSize(orderedScanQueueSize);
+    }
+    
+    public int getTopK() {
+        return getConfig().getTopK();
+    }
+    
+    public void setTopK(int topK) {
+        getConfig().setTopK(topK);
+    }
+    
     public boolean getCollapseUids() {
         return getConfig().getCollapseUids();
     }
@@ -1975,6 +2076,38 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setSpeculativeScanning(speculativeScanning);
     }
     
+    public boolean getHedgedScanning() {
+        return getConfig().getHedgedScanning();
+    }
+    
+    public void setHedgedScanning(boolean hedgedScanning) {
+        getConfig().setHedgedScanning(hedgedScanning);
+    }
+    
+    public double getHedgedScanPercentile() {
+        return getConfig().getHedgedScanPercentile();
+    }
+    
+    public void setHedgedScanPercentile(double hedgedScanPercentile) {
+        getConfig().setHedgedScanPercentile(hedgedScanPercentile);
+    }
+    
+    public long getHedgedScanMinDelay() {
+        return getConfig().getHedgedScanMinDelay();
+    }
+    
+    public void setHedgedScanMinDelay(long hedgedScanMinDelay) {
+        getConfig().setHedgedScanMinDelay(hedgedScanMinDelay);
+    }
+    
+    public double getHedgedScanBudget() {
+        return getConfig().getHedgedScanBudget();
+    }
+    
+    public void setHedgedScanBudget(double hedgedScanBudget) {
+        getConfig().setHedgedScanBudget(hedgedScanBudget);
+    }
+    
     public boolean getAllowShortcutEvaluation() {
         return getConfig().getAllowShortcutEvaluation();
     }
@@ -2207,6 +2340,22 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setTrackSizes(trackSizes);
     }
     
+    public boolean isDocumentCache() {
+        return getConfig().isDocumentCache();
+    }
+    
+    public void setDocumentCache(boolean documentCache) {
+        getConfig().setDocumentCache(documentCache);
+    }
+    
+    public int getSourceNextsBeforeSeek() {
+        return getConfig().getSourceNextsBeforeSeek();
+    }
+    
+    public void setSourceNextsBeforeSeek(int sourceNextsBeforeSeek) {
+        getConfig().setSourceNextsBeforeSeek(sourceNextsBeforeSeek);
+    }
+    
     public Profile getSelectedProfile() {
         return this.selectedProfile;
     }
@@ -0,0 +1,124 @@
+package datawave.query.tables.async;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Decides when a scan of a {@link ScannerChunk} is slow enough to be hedged with a duplicate scan. A scan is slow once it has run longer than a percentile of
+ * the time it took the recent scans of the session to return their first result, and hedges are limited to a budget relative to the number of scans.
+ */
+public class HedgePolicy {
+    
+    /** The number of recent latencies the percentile is computed over */
+    public static final int WINDOW_SIZE = 1024;
+    
+    /** No scans are hedged until this many latencies have been observed */
+    public static final int MIN_SAMPLES = 20;
+    
+    private final double percentile;
+    private final long minDelay;
+    private final double budget;
+    
+    private final long[] window = new long[WINDOW_SIZE];
+    private int samples = 0;
+    private int next = 0;
+    private long threshold = Long.MAX_VALUE;
+    private boolean stale = false;
+    
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    
+    /**
+     * @param percentile
+     *            the percentile of observed latencies, between 0 and 1, beyond which a scan is hedged
+     * @param minDelay
+     *            the minimum time in milliseconds a scan runs before it is hedged
+     * @param budget
+     *            the maximum number of hedges as a fraction of the number of scans
+     */
+    public HedgePolicy(double percentile, long minDelay, double budget) {
+        Preconditions.checkArgument(percentile > 0 && percentile <= 1, "percentile must be in (0, 1]");
+        Preconditions.checkArgument(minDelay >= 0, "minDelay must not be negative");
+        Preconditions.checkArgument(budget >= 0, "budget must not be negative");
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budget = budget;
+    }
+    
+    /**
+     * Record the time a scan took to return its first result, or to finish without one
+     *
+     * @param latency
+     *            the latency in milliseconds
+     */
+    public synchronized void recordLatency(long latency) {
+        window[next] = latency;
+        next = (next + 1) % WINDOW_SIZE;
+        if (samples < WINDOW_SIZE) {
+            samples++;
+        }
+        stale = true;
+    }
+    
+    /**
+     * @return the time in milliseconds after which a scan without a result is hedged, or Long.MAX_VALUE while too few latencies have been observed
+     */
+    public synchronized long getThreshold() {
+        if (stale) {
+            stale = false;
+            if (samples < MIN_SAMPLES) {
+                threshold = Long.MAX_VALUE;
+            } else {
+                long[] sorted = Arrays.copyOf(window, samples);
+                Arrays.sort(sorted);
+                int index = Math.max(0, (int) Math.ceil(percentile * samples) - 1);
+                threshold = Math.max(minDelay, sorted[index]);
+            }
+        }
+        return threshold;
+    }
+    
+    /**
+     * @param runningTime
+     *            the time in milliseconds a scan has been running without a result
+     * @return true if the scan should be hedged, and the budget allows it
+     */
+    public boolean shouldHedge(long runningTime) {
+        return runningTime > getThreshold() && hedged.get() < budget * scans.get();
+    }
+    
+    public void scanSubmitted() {
+        scans.incrementAndGet();
+    }
+    
+    public void scanHedged() {
+        hedged.incrementAndGet();
+    }
+    
+    public void hedgeWon() {
+        hedgesWon.incrementAndGet();
+    }
+    
+    public long getScans() {
+        return scans.get();
+    }
+    
+    public long getHedged() {
+        return hedged.get();
+    }
+    
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+    
+    /**
+     * @return the fraction of scans that were hedged
+     */
+    public double getHedgeRate() {
+        long total = scans.get();
+        return total == 0 ? 0 : (double) hedged.get() / total;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.impl.ThriftScanner.ScanTimedOutException;
@@ -73,6 +74,21 @@ public class Scan implements Callable<Scan> {
     
     private AccumuloResource delegatedResource = null;
     
+    /**
+     * Shared with a hedged duplicate of this scan. The first of the two to return a result, or to finish without one, claims it and cancels the other.
+     */
+    private AtomicReference<Scan> claim = null;
+    
+    private volatile Scan peer = null;
+    
+    private volatile boolean cancelled = false;
+    
+    private boolean hedge = false;
+    
+    private volatile long startTime = 0;
+    
+    private volatile long claimTime = 0;
+    
     public Scan(String localTableName, Set<Authorizations> localAuths, ScannerChunk chunk, ResourceQueue delegatorReference,
                     Class<? extends AccumuloResource> delegatedResourceInitializer, BlockingQueue<Entry<Key,Value>> results, ExecutorService callingService) {
         myScan = chunk;
@@ -105,7 +121,86 @@ public class Scan implements Callable<Scan> {
         if (caller.isShutdown() && log.isTraceEnabled()) {
             log.trace("Prematurely shutting down because we were forced to stop");
         }
-        return caller.isShutdown() || (currentRange == null && lastSeenKey == null);
+        return cancelled || caller.isShutdown() || (currentRange == null && lastSeenKey == null);
+    }
+    
+    /**
+     * Allow this scan to be hedged. Must be called before the scan is submitted.
+     */
+    public void enableHedging() {
+        claim = new AtomicReference<>();
+    }
+    
+    /**
+     * Link a duplicate of this scan, created from a copy of its chunk, so that only one of the two returns results.
+     * 
+     * @param hedge
+     *            the duplicate scan, which has not been submitted
+     * @return false if this scan has already claimed its results, in which case the hedge must not be submitted
+     */
+    public boolean hedgeWith(Scan hedge) {
+        if (null == claim) {
+            throw new IllegalStateException("Hedging is not enabled for this scan");
+        }
+        hedge.claim = claim;
+        hedge.hedge = true;
+        hedge.peer = this;
+        peer = hedge;
+        return null == claim.get();
+    }
+    
+    /**
+     * Claim the results of this scan over those of its hedge, cancelling the hedge. Scans that cannot be hedged always succeed.
+     * 
+     * @return true if this scan may return results
+     */
+    public boolean claim() {
+        if (null == claim || claim.get() == this) {
+            return true;
+        }
+        if (claim.compareAndSet(null, this)) {
+            claimTime = System.currentTimeMillis();
+            Scan other = peer;
+            if (null != other) {
+                other.cancel();
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean isClaimed() {
+        return null != claim && null != claim.get();
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * @return true if this is the hedge of another scan
+     */
+    public boolean isHedge() {
+        return hedge;
+    }
+    
+    /**
+     * @return the time this scan was first run, or 0 if it has not run
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    /**
+     * @return the milliseconds between the first run of this scan and its claim, or -1 if it has not claimed its results
+     */
+    public long getTimeToClaim() {
+        return claimTime == 0 ? -1 : claimTime - startTime;
+    }
+    
+    private void cancel() {
+        cancelled = true;
+        close();
     }
     
     @Subscribe
@@ -120,6 +215,12 @@ public class Scan implements Callable<Scan> {
      */
     @Override
     public Scan call() throws Exception {
+        if (cancelled) {
+            return this;
+        }
+        if (0 == startTime) {
+            startTime = System.currentTimeMillis();
+        }
         try {
             
             /**
@@ -267,6 +368,13 @@ public class Scan implements Callable<Scan> {
                         throw new Exception("Stopped mid cycle");
                     myEntry = iter.next();
                     
+                    if (!claim()) {
+                        // our hedge has claimed the results
+                        lastSeenKey = null;
+                        currentRange = null;
+                        return this;
+                    }
+                    
                     while (!caller.isShutdown() && !results.offer(myEntry, 25, TimeUnit.MILLISECONDS)) {
                         if (log.isTraceEnabled())
                             log.trace("offering");
@@ -306,6 +414,12 @@ public class Scan implements Callable<Scan> {
         Exception e)
         
         {
+            if (cancelled) {
+                // closed from under us once our hedge claimed the results
+                if (log.isTraceEnabled())
+                    log.trace("cancelled scan stopped with " + e);
+                return this;
+            }
             log.error("exception ", e);
             throw e;
         } finally
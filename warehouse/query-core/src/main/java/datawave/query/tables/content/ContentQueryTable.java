@@ -111,7 +111,7 @@ public class ContentQueryTable extends BaseQueryLogic<Entry<Key,Value>> {
         }
         
         // Configure ranges
-        final Collection<Range> ranges = this.createRanges(settings, end);
+        final Collection<Range> ranges = this.createRanges(connection, settings, auths, end);
         config.setRanges(ranges);
         
         return config;
@@ -148,6 +148,25 @@ public class ContentQueryTable extends BaseQueryLogic<Entry<Key,Value>> {
         }
     }
     
+    /**
+     * Create an ordered collection of Ranges for scanning. Subclasses may override this to find the documents to return from other identifiers.
+     * 
+     * @param connection
+     *            the connector
+     * @param settings
+     *            the query
+     * @param auths
+     *            the authorizations of the query
+     * @param endKeyTerminator
+     *            a string appended to each Range's end key indicating whether or not to include child content
+     * @return one or more Ranges
+     * @throws Exception
+     */
+    protected Collection<Range> createRanges(final Connector connection, final Query settings, final Set<Authorizations> auths, final String endKeyTerminator)
+                    throws Exception {
+        return createRanges(settings, endKeyTerminator);
+    }
+    
     /*
      * Create an ordered collection of Ranges for scanning
      * 
@@ -204,11 +223,7 @@ public class ContentQueryTable extends BaseQueryLogic<Entry<Key,Value>> {
                     log.debug("Received pieces: " + shardId + ", " + datatype + ", " + uid);
                     
                     // Create and add a Range
-                    final String cf = ExtendedDataTypeHandler.FULL_CONTENT_COLUMN_FAMILY;
-                    final String cq = datatype + Constants.NULL_BYTE_STRING + uid;
-                    final Key startKey = new Key(shardId, cf, cq + Constants.NULL_BYTE_STRING);
-                    final Key endKey = new Key(shardId, cf, cq + endKeyTerminator);
-                    final Range r = new Range(startKey, true, endKey, false);
+                    final Range r = createContentRange(shardId, datatype, uid, endKeyTerminator);
                     ranges.add(r);
                     
                     log.debug("Adding range: " + r);
@@ -224,6 +239,31 @@ public class ContentQueryTable extends BaseQueryLogic<Entry<Key,Value>> {
         return ranges;
     }
     
+    /**
+     * Create the Range over the content of one document
+     * 
+     * @param shardId
+     *            the shard of the document
+     * @param datatype
+     *            the datatype of the document
+     * @param uid
+     *            the uid of the document
+     * @param endKeyTerminator
+     *            a string appended to the Range's end key indicating whether or not to include child content
+     * @return the Range
+     */
+    protected static Range createContentRange(final String shardId, final String datatype, final String uid, final String endKeyTerminator) {
+        final String cf = ExtendedDataTypeHandler.FULL_CONTENT_COLUMN_FAMILY;
+        final String cq = datatype + Constants.NULL_BYTE_STRING + uid;
+        final Key startKey = new Key(shardId, cf, cq + Constants.NULL_BYTE_STRING);
+        final Key endKey = new Key(shardId, cf, cq + endKeyTerminator);
+        return new Range(startKey, true, endKey, false);
+    }
+    
+    protected ScannerFactory getScannerFactory() {
+        return this.scannerFactory;
+    }
+    
     @Override
     public AccumuloConnectionFactory.Priority getConnectionPriority() {
         return AccumuloConnectionFactory.Priority.NORMAL;
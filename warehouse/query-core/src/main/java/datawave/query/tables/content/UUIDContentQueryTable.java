@@ -0,0 +1,334 @@
+package datawave.query.tables.content;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import datawave.data.type.Type;
+import datawave.ingest.protobuf.Uid;
+import datawave.query.Constants;
+import datawave.query.config.ContentQueryConfiguration;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.transformer.ContentQueryTransformer;
+import datawave.query.util.MetadataHelper;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.util.time.DateHelper;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+import datawave.webservice.query.logic.QueryLogicTransformer;
+import datawave.webservice.result.BaseQueryResponse;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This query table implementation returns the content of the documents identified by one or more UUIDs in a single query. Instead of running a UUID lookup
+ * query and then a {@link ContentQueryTable} query per batch of events, the UUIDs are resolved to their shard, datatype, and uid with one batch scan of the
+ * shard index (falling back to the field index for values whose uid lists were not kept), and the content of every document is then returned through the
+ * multi-range scan of the {@link ContentQueryTable}, so that results are paged back as they are found.
+ * <p>
+ * The query that needs to be passed to the web service is a LUCENE-style disjunction of UUID terms:
+ *
+ * <pre>
+ *     UUIDTYPE:uuid [OR UUIDTYPE:uuid]*
+ * </pre>
+ *
+ * Terms of the form <code>event:shardId/datatype/uid</code> are looked up directly. The number of documents resolved for a single request is capped by
+ * <code>maxDocuments</code>. When more documents match, every page of the response carries a message saying that the results were truncated.
+ */
+public class UUIDContentQueryTable extends ContentQueryTable {
+    
+    private static final Logger log = Logger.getLogger(UUIDContentQueryTable.class);
+    
+    private static final String EVENT_TYPE_NAME = "event";
+    private static final String FI_PREFIX = "fi" + Constants.NULL_BYTE_STRING;
+    private static final String REGEX_GROUPING_CHARS = "[()]";
+    private static final String REGEX_OR_OPERATOR = "(?i)\\sOR\\s";
+    private static final String REGEX_WHITESPACE_CHARS = "\\s+";
+    private static final String QUOTE = "\"";
+    
+    private String indexTableName;
+    private String metadataTableName;
+    private MetadataHelperFactory metadataHelperFactory;
+    private int maxDocuments = -1;
+    private boolean truncated = false;
+    
+    public UUIDContentQueryTable() {
+        super();
+    }
+    
+    public UUIDContentQueryTable(final UUIDContentQueryTable other) {
+        super(other);
+        this.indexTableName = other.indexTableName;
+        this.metadataTableName = other.metadataTableName;
+        this.metadataHelperFactory = other.metadataHelperFactory;
+        this.maxDocuments = other.maxDocuments;
+        this.setQueryThreads(other.getQueryThreads());
+    }
+    
+    @Override
+    protected Collection<Range> createRanges(final Connector connection, final Query settings, final Set<Authorizations> auths, final String endKeyTerminator)
+                    throws Exception {
+        final Set<Range> ranges = new TreeSet<>();
+        this.truncated = false;
+        
+        // Reformat the query into a series of UUID type/value pairs
+        String pairs = settings.getQuery();
+        pairs = pairs.replaceAll(REGEX_GROUPING_CHARS, " ");
+        pairs = pairs.replaceAll(REGEX_OR_OPERATOR, " ");
+        
+        final Multimap<String,String> uuids = HashMultimap.create();
+        for (final String term : pairs.trim().split(REGEX_WHITESPACE_CHARS)) {
+            final int fieldSeparation = term.indexOf(':');
+            if (fieldSeparation <= 0 || fieldSeparation == term.length() - 1) {
+                throw new IllegalArgumentException("Query term '" + term + "' is not of the form 'UUIDTYPE:uuid' in query: " + settings.getQuery());
+            }
+            final String field = term.substring(0, fieldSeparation).toUpperCase();
+            String value = term.substring(fieldSeparation + 1);
+            if (value.length() > 1 && value.startsWith(QUOTE) && value.endsWith(QUOTE)) {
+                value = value.substring(1, value.length() - 1);
+            }
+            
+            // Internal event identifiers do not need to be resolved
+            if (EVENT_TYPE_NAME.equalsIgnoreCase(field)) {
+                final String[] parts = value.split("/");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Query term '" + term + "' is not of the form 'event:shardId/datatype/eventUID' in query: "
+                                    + settings.getQuery());
+                }
+                addRange(ranges, createContentRange(parts[0], parts[1], parts[2], endKeyTerminator));
+            } else {
+                uuids.put(field, value);
+            }
+        }
+        
+        if (!uuids.isEmpty()) {
+            resolveUUIDs(connection, settings, auths, uuids, endKeyTerminator, ranges);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Resolved " + ranges.size() + " documents for " + uuids.size() + " UUIDs");
+        }
+        
+        return ranges;
+    }
+    
+    /*
+     * Resolve the UUIDs to the documents holding them using a single scan of the shard index, adding a content Range for each document
+     */
+    private void resolveUUIDs(final Connector connection, final Query settings, final Set<Authorizations> auths, final Multimap<String,String> uuids,
+                    final String endKeyTerminator, final Set<Range> ranges) throws Exception {
+        final ScannerFactory scannerFactory = getScannerFactory();
+        
+        // Normalize the UUIDs as they were indexed
+        final MetadataHelper metadataHelper = (null == this.metadataHelperFactory) ? null : this.metadataHelperFactory.createMetadataHelper(connection,
+                        this.metadataTableName, auths);
+        final Set<Range> indexRanges = new TreeSet<>();
+        for (final String field : uuids.keySet()) {
+            for (final String value : normalize(metadataHelper, field, uuids.get(field))) {
+                indexRanges.add(Range.exact(new Text(value), new Text(field)));
+            }
+        }
+        
+        final String beginDay = (null == settings.getBeginDate()) ? null : DateHelper.format(settings.getBeginDate());
+        final String endDay = (null == settings.getEndDate()) ? null : DateHelper.format(settings.getEndDate());
+        
+        // Documents that are only found through the field index because their uids were not kept in the shard index
+        final List<Range> fieldIndexRanges = new ArrayList<>();
+        
+        final BatchScanner indexScanner = scannerFactory.newScanner(this.indexTableName, auths, getQueryThreads(), settings);
+        try {
+            indexScanner.setRanges(indexRanges);
+            for (final Entry<Key,Value> entry : indexScanner) {
+                if (this.truncated) {
+                    break;
+                }
+                
+                final Key key = entry.getKey();
+                final String cq = key.getColumnQualifier().toString();
+                final int separation = cq.indexOf(Constants.NULL_BYTE_STRING);
+                if (separation < 0) {
+                    continue;
+                }
+                final String shardId = cq.substring(0, separation);
+                final String datatype = cq.substring(separation + 1);
+                
+                // Skip shards outside of the date range
+                if ((null != beginDay && shardId.compareTo(beginDay) < 0) || (null != endDay && shardId.compareTo(endDay + Constants.MAX_UNICODE_STRING) > 0)) {
+                    continue;
+                }
+                
+                final Uid.List uidList = Uid.List.parseFrom(entry.getValue().get());
+                if (uidList.getIGNORE()) {
+                    final String field = key.getColumnFamily().toString();
+                    final String value = key.getRow().toString();
+                    final Key start = new Key(shardId, FI_PREFIX + field, value + Constants.NULL_BYTE_STRING + datatype + Constants.NULL_BYTE_STRING);
+                    final Key end = new Key(shardId, FI_PREFIX + field, value + Constants.NULL_BYTE_STRING + datatype + Constants.ONE_BYTE);
+                    fieldIndexRanges.add(new Range(start, true, end, false));
+                } else {
+                    for (final String uid : uidList.getUIDList()) {
+                        addRange(ranges, createContentRange(shardId, datatype, uid, endKeyTerminator));
+                    }
+                }
+            }
+        } finally {
+            scannerFactory.close(indexScanner);
+        }
+        
+        if (!fieldIndexRanges.isEmpty() && isFull(ranges)) {
+            this.truncated = true;
+        } else if (!fieldIndexRanges.isEmpty()) {
+            final BatchScanner fieldIndexScanner = scannerFactory.newScanner(this.getTableName(), auths, getQueryThreads(), settings);
+            try {
+                fieldIndexScanner.setRanges(fieldIndexRanges);
+                for (final Entry<Key,Value> entry : fieldIndexScanner) {
+                    if (this.truncated) {
+                        break;
+                    }
+                    
+                    // the field index column qualifier is value\0datatype\0uid
+                    final String cq = entry.getKey().getColumnQualifier().toString();
+                    final int uidSeparation = cq.lastIndexOf(Constants.NULL_BYTE_STRING);
+                    final int datatypeSeparation = cq.lastIndexOf(Constants.NULL_BYTE_STRING, uidSeparation - 1);
+                    if (datatypeSeparation < 0) {
+                        continue;
+                    }
+                    final String shardId = entry.getKey().getRow().toString();
+                    final String datatype = cq.substring(datatypeSeparation + 1, uidSeparation);
+                    final String uid = cq.substring(uidSeparation + 1);
+                    addRange(ranges, createContentRange(shardId, datatype, uid, endKeyTerminator));
+                }
+            } finally {
+                scannerFactory.close(fieldIndexScanner);
+            }
+        }
+        
+        if (this.truncated) {
+            log.warn("UUID lookup of " + uuids.size() + " UUIDs reached the limit of " + this.maxDocuments + " documents, returning the first "
+                            + this.maxDocuments + " found");
+        }
+    }
+    
+    /*
+     * Normalize the values of a field using the types it was indexed with, keeping the values as is for fields without types
+     */
+    private Collection<String> normalize(final MetadataHelper metadataHelper, final String field, final Collection<String> values) throws Exception {
+        final Set<Type<?>> types = (null == metadataHelper) ? null : metadataHelper.getDatatypesForField(field, Collections.emptySet());
+        if (null == types || types.isEmpty()) {
+            return values;
+        }
+        
+        final Set<String> normalized = new TreeSet<>();
+        for (final Type<?> type : types) {
+            for (final String value : values) {
+                try {
+                    final String normalizedValue = type.normalize(value);
+                    if (null != normalizedValue && !normalizedValue.isEmpty()) {
+                        normalized.add(normalizedValue);
+                    }
+                } catch (Exception e) {
+                    log.debug(type + " failed to normalize value: " + value);
+                }
+            }
+        }
+        return normalized;
+    }
+    
+    private void addRange(final Set<Range> ranges, final Range range) {
+        if (!isFull(ranges)) {
+            ranges.add(range);
+        } else if (!ranges.contains(range)) {
+            this.truncated = true;
+        }
+    }
+    
+    private boolean isFull(final Set<Range> ranges) {
+        return this.maxDocuments > 0 && ranges.size() >= this.maxDocuments;
+    }
+    
+    @Override
+    public void setupQuery(GenericQueryConfiguration genericConfig) throws Exception {
+        // None of the UUIDs may have been found, in which case there is nothing to scan
+        if ((genericConfig instanceof ContentQueryConfiguration) && ((ContentQueryConfiguration) genericConfig).getRanges().isEmpty()) {
+            this.iterator = Collections.emptyIterator();
+            return;
+        }
+        super.setupQuery(genericConfig);
+    }
+    
+    @Override
+    public QueryLogicTransformer getTransformer(Query settings) {
+        return new ContentQueryTransformer(settings, this.markingFunctions) {
+            @Override
+            public BaseQueryResponse createResponse(List<Object> resultList) {
+                BaseQueryResponse response = super.createResponse(resultList);
+                if (isTruncated()) {
+                    response.addMessage("More than " + getMaxDocuments() + " documents matched the UUIDs, only the first " + getMaxDocuments()
+                                    + " are returned");
+                }
+                return response;
+            }
+        };
+    }
+    
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return new UUIDContentQueryTable(this);
+    }
+    
+    public String getIndexTableName() {
+        return indexTableName;
+    }
+    
+    public void setIndexTableName(String indexTableName) {
+        this.indexTableName = indexTableName;
+    }
+    
+    public String getMetadataTableName() {
+        return metadataTableName;
+    }
+    
+    public void setMetadataTableName(String metadataTableName) {
+        this.metadataTableName = metadataTableName;
+    }
+    
+    public MetadataHelperFactory getMetadataHelperFactory() {
+        return metadataHelperFactory;
+    }
+    
+    public void setMetadataHelperFactory(MetadataHelperFactory metadataHelperFactory) {
+        this.metadataHelperFactory = metadataHelperFactory;
+    }
+    
+    /**
+     * @return true if more documents matched the UUIDs of the last query than the maximum number of documents returned
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    public int getMaxDocuments() {
+        return maxDocuments;
+    }
+    
+    /**
+     * Sets the maximum number of documents returned for a single request. A zero or negative value is interpreted as unlimited.
+     *
+     * @param maxDocuments
+     *            the maximum number of documents
+     */
+    public void setMaxDocuments(int maxDocuments) {
+        this.maxDocuments = maxDocuments;
+    }
+}
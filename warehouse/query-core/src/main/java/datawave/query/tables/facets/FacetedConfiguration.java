@@ -26,6 +26,10 @@ public class FacetedConfiguration {
     
     public static final String FACETED_FIELDS = "facet.field.list";
     
+    public static final String SKETCH_SIZE = "facet.sketch.size";
+    
+    public static final String TOP_FACET_COUNT = "facet.sketch.top.count";
+    
     protected int minimumFacetCount = 1;
     
     protected FacetedSearchType type;
@@ -38,6 +42,10 @@ public class FacetedConfiguration {
     
     protected boolean hasFieldLimits = false;
     
+    protected int sketchSize = 0;
+    
+    protected int topFacetCount = Integer.MAX_VALUE;
+    
     /**
      * Sets whether or not we have a limited fields
      * 
@@ -143,6 +151,42 @@ public class FacetedConfiguration {
         return (maximumFacetGroupCount != Integer.MAX_VALUE);
     }
     
+    /**
+     * Sets the number of values kept in the sketch of each faceted field. When positive, each tablet returns a fixed size sketch per faceted field instead of a
+     * cardinality per field value, and the facets are approximate.
+     * 
+     * @param sketchSize
+     */
+    public void setSketchSize(int sketchSize) {
+        this.sketchSize = sketchSize;
+    }
+    
+    public int getSketchSize() {
+        return sketchSize;
+    }
+    
+    /**
+     * Whether facets are approximated with sketches.
+     * 
+     * @return
+     */
+    public boolean isSketchEnabled() {
+        return sketchSize > 0;
+    }
+    
+    /**
+     * Sets the number of values returned for each faceted field when facets are approximated with sketches.
+     * 
+     * @param topFacetCount
+     */
+    public void setTopFacetCount(int topFacetCount) {
+        this.topFacetCount = topFacetCount;
+    }
+    
+    public int getTopFacetCount() {
+        return topFacetCount;
+    }
+    
     /**
      * @param isStreaming
      */
@@ -157,6 +201,10 @@ public class FacetedConfiguration {
         builder.append("Maximum FacetGroupCount : ").append(maximumFacetGroupCount).append("\n");
         builder.append("Minimum Facet Count : ").append(minimumFacetCount).append("\n");
         builder.append("Faceted Fields: ").append(facetedFields).append("\n");
+        if (isSketchEnabled()) {
+            builder.append("Sketch Size : ").append(sketchSize).append("\n");
+            builder.append("Top Facet Count : ").append(topFacetCount).append("\n");
+        }
         return builder.toString();
     }
 }
@@ -24,13 +24,25 @@ public class FacetedFunction implements Function<Entry<Key,Value>,Entry<Key,Valu
     protected DocumentSerializer serializer;
     protected List<Function<Entry<Key,Document>,Entry<Key,Document>>> transforms;
     protected Document mergedDocment = new Document();
-    private MergeSummarization summarizer;
+    private Function<Entry<Key,Document>,Entry<Key,Document>> summarizer;
     
     public FacetedFunction(DocumentDeserializer deserializer, DocumentSerializer serializer, List<Function<Entry<Key,Document>,Entry<Key,Document>>> transforms) {
+        this(deserializer, serializer, null, transforms);
+    }
+    
+    /**
+     * @param deserializer
+     * @param serializer
+     * @param summarizer
+     *            merges each tablet result into the results so far, or null to merge cardinalities with a {@link MergeSummarization}
+     * @param transforms
+     */
+    public FacetedFunction(DocumentDeserializer deserializer, DocumentSerializer serializer, Function<Entry<Key,Document>,Entry<Key,Document>> summarizer,
+                    List<Function<Entry<Key,Document>,Entry<Key,Document>>> transforms) {
         this.deserializer = deserializer;
         this.serializer = serializer;
         this.transforms = transforms;
-        summarizer = null;
+        this.summarizer = summarizer;
     }
     
     /*
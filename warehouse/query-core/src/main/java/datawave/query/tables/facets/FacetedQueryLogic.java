@@ -9,6 +9,7 @@ import java.util.TreeSet;
 
 import datawave.query.DocumentSerialization;
 import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.function.FacetSketchMerge;
 import datawave.query.function.FacetedGrouping;
 import datawave.query.function.deserializer.DocumentDeserializer;
 import datawave.query.function.serializer.DocumentSerializer;
@@ -71,6 +72,7 @@ public class FacetedQueryLogic extends IndexQueryLogic {
         }
         boolean reduced = (this.isReducedResponse() || reducedInSettings);
         FacetedTransformer transformer = new FacetedTransformer(this, settings, markingFunctions, responseObjectFactory, reduced);
+        transformer.setFacetedConfiguration(facetedConfig);
         transformer.setEventQueryDataDecoratorTransformer(eventQueryDataDecoratorTransformer);
         
         transformer.setQm(queryModel);
@@ -122,6 +124,16 @@ public class FacetedQueryLogic extends IndexQueryLogic {
             facetedConfig.setMinimumCount(Integer.valueOf(minimumCount));
         }
         
+        final String sketchSize = settings.findParameter(FacetedConfiguration.SKETCH_SIZE).getParameterValue().trim();
+        if (org.apache.commons.lang.StringUtils.isNotBlank(sketchSize)) {
+            facetedConfig.setSketchSize(Integer.valueOf(sketchSize));
+        }
+        
+        final String topFacetCount = settings.findParameter(FacetedConfiguration.TOP_FACET_COUNT).getParameterValue().trim();
+        if (org.apache.commons.lang.StringUtils.isNotBlank(topFacetCount)) {
+            facetedConfig.setTopFacetCount(Integer.valueOf(topFacetCount));
+        }
+        
         return super.initialize(connection, settings, auths);
         
     }
@@ -142,7 +154,14 @@ public class FacetedQueryLogic extends IndexQueryLogic {
         
         List<Function<Entry<Key,Document>,Entry<Key,Document>>> functionList = Lists.newArrayList();
         
-        functionList.add(new FacetedGrouping(facetedConfig));
+        FacetedFunction facetedFunction;
+        if (facetedConfig.isSketchEnabled()) {
+            // the tablets return sketches, which are merged rather than grouped
+            facetedFunction = new FacetedFunction(deserializer, serializer, new FacetSketchMerge(), functionList);
+        } else {
+            functionList.add(new FacetedGrouping(facetedConfig));
+            facetedFunction = new FacetedFunction(deserializer, serializer, functionList);
+        }
         
         EmptyValueFunction filter = new EmptyValueFunction(deserializer);
         
@@ -150,7 +169,7 @@ public class FacetedQueryLogic extends IndexQueryLogic {
         
         filterList.add(filter);
         
-        iterator = new MergedReadAhead<>(facetedConfig, iterator, new FacetedFunction(deserializer, serializer, functionList), filterList);
+        iterator = new MergedReadAhead<>(facetedConfig, iterator, facetedFunction, filterList);
         
     }
     
@@ -179,6 +198,8 @@ public class FacetedQueryLogic extends IndexQueryLogic {
         optionalParams.add(FacetedConfiguration.FACETED_FIELDS);
         optionalParams.add(FacetedConfiguration.MAXIMUM_GROUP_COUNT);
         optionalParams.add(FacetedConfiguration.STREAMING_ENABLED);
+        optionalParams.add(FacetedConfiguration.SKETCH_SIZE);
+        optionalParams.add(FacetedConfiguration.TOP_FACET_COUNT);
         return optionalParams;
     }
     
@@ -226,4 +247,20 @@ public class FacetedQueryLogic extends IndexQueryLogic {
         facetedConfig.setStreamingMode(isStreaming);
     }
     
+    /**
+     * @param sketchSize
+     *            the number of values kept in the sketch of each faceted field, or 0 for exact facets
+     */
+    public void setSketchSize(int sketchSize) {
+        facetedConfig.setSketchSize(sketchSize);
+    }
+    
+    /**
+     * @param topFacetCount
+     *            the number of values returned for each faceted field when facets are approximated with sketches
+     */
+    public void setTopFacetCount(int topFacetCount) {
+        facetedConfig.setTopFacetCount(topFacetCount);
+    }
+    
 }
@@ -30,6 +30,12 @@ public class ScanSessionStats {
     
     protected MutableLong keysSeen;
     
+    protected MutableLong scans;
+    
+    protected MutableLong hedgedScans;
+    
+    protected MutableLong hedgesWon;
+    
     public ScanSessionStats() {
         timers = new EnumMap<>(TIMERS.class);
         
@@ -41,6 +47,10 @@ public class ScanSessionStats {
         }
         
         keysSeen = new MutableLong();
+        
+        scans = new MutableLong();
+        hedgedScans = new MutableLong();
+        hedgesWon = new MutableLong();
     }
     
     public ScanSessionStats merge(ScanSessionStats other) {
@@ -52,6 +62,9 @@ public class ScanSessionStats {
             long otherTimer = other.getValue(timer);
             timerValue.add(otherTimer);
         }
+        scans.add(other.getScans());
+        hedgedScans.add(other.getHedgedScans());
+        hedgesWon.add(other.getHedgesWon());
         return this;
     }
     
@@ -71,6 +84,36 @@ public class ScanSessionStats {
         keysSeen.add(keys);
     }
     
+    public long getScans() {
+        return scans.longValue();
+    }
+    
+    public void incrementScans() {
+        scans.increment();
+    }
+    
+    /**
+     * @return the number of scans that were duplicated because they were slow to return results
+     */
+    public long getHedgedScans() {
+        return hedgedScans.longValue();
+    }
+    
+    public void incrementHedgedScans() {
+        hedgedScans.increment();
+    }
+    
+    /**
+     * @return the number of duplicated scans that returned results before the scan they duplicated
+     */
+    public long getHedgesWon() {
+        return hedgesWon.longValue();
+    }
+    
+    public void incrementHedgesWon() {
+        hedgesWon.increment();
+    }
+    
     public void initializeTimers() {
         timers.get(TIMERS.HASNEXT).start();
         timers.get(TIMERS.HASNEXT).suspend();
@@ -124,6 +167,13 @@ public class ScanSessionStats {
         sb.append(QueryStopwatch.INDENT).append("Total elapsed: ").append(formatMillis(totalDurationMillis));
         logToUse.debug(sb.toString());
         
+        if (getHedgedScans() > 0) {
+            sb.setLength(0);
+            sb.append(QueryStopwatch.INDENT).append("Hedged scans: ").append(getHedgedScans()).append(" of ").append(getScans());
+            sb.append(String.format(" (%.2f%%), hedges won: ", 100.0 * getHedgedScans() / Math.max(1, getScans()))).append(getHedgesWon());
+            logToUse.debug(sb.toString());
+        }
+        
     }
     
     protected String formatMillis(long elapsedMillis) {
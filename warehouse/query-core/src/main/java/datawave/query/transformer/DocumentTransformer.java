@@ -7,18 +7,22 @@ import datawave.util.StringUtils;
 import datawave.webservice.query.Query;
 import datawave.webservice.query.exception.EmptyObjectException;
 import datawave.webservice.query.logic.BaseQueryLogic;
+import datawave.webservice.query.logic.EventEncodingTransformer;
 import datawave.webservice.query.logic.Flushable;
 import datawave.webservice.query.logic.WritesQueryMetrics;
 import datawave.webservice.query.logic.WritesResultCardinalities;
+import datawave.webservice.query.result.event.DefaultEvent;
 import datawave.webservice.query.result.event.EventBase;
 import datawave.webservice.query.result.event.FieldBase;
 import datawave.webservice.query.result.event.Metadata;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
+import datawave.webservice.result.EventQueryResponseEncoder;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
@@ -32,7 +36,7 @@ import java.util.Map.Entry;
  *
  */
 public class DocumentTransformer extends DocumentTransformerSupport<Entry<Key,Value>,EventBase> implements WritesQueryMetrics, WritesResultCardinalities,
-                Flushable<EventBase> {
+                Flushable<EventBase>, EventEncodingTransformer<Entry<Key,Value>> {
     
     private static final Logger log = Logger.getLogger(DocumentTransformerSupport.class);
     
@@ -162,22 +166,7 @@ public class DocumentTransformer extends DocumentTransformerSupport<Entry<Key,Va
             event = this.responseObjectFactory.getEvent();
             event.setMarkings(markings);
             event.setFields(new ArrayList<>(documentFields));
-            
-            Metadata metadata = new Metadata();
-            String[] colfParts = StringUtils.split(colf, '\0');
-            if (colfParts.length >= 1) {
-                metadata.setDataType(colfParts[0]);
-            }
-            
-            if (colfParts.length >= 2) {
-                metadata.setInternalId(colfParts[1]);
-            }
-            
-            if (this.tableName != null) {
-                metadata.setTable(this.tableName);
-            }
-            metadata.setRow(row);
-            event.setMetadata(metadata);
+            event.setMetadata(buildMetadata(colf, row));
             
             if (eventQueryDataDecoratorTransformer != null) {
                 event = (EventBase) eventQueryDataDecoratorTransformer.transform(event);
@@ -192,4 +181,98 @@ public class DocumentTransformer extends DocumentTransformerSupport<Entry<Key,Va
         return event;
     }
     
+    protected Metadata buildMetadata(String colf, String row) {
+        Metadata metadata = new Metadata();
+        String[] colfParts = StringUtils.split(colf, '\0');
+        if (colfParts.length >= 1) {
+            metadata.setDataType(colfParts[0]);
+        }
+        
+        if (colfParts.length >= 2) {
+            metadata.setInternalId(colfParts[1]);
+        }
+        
+        if (this.tableName != null) {
+            metadata.setTable(this.tableName);
+        }
+        metadata.setRow(row);
+        return metadata;
+    }
+    
+    /**
+     * Transforms an entry into the next event of a response being encoded, without building the event and fields that {@link #transform(Entry)} returns.
+     * Documents whose events are decorated or whose fields have to be collapsed are still built before being encoded.
+     *
+     * @param entry
+     *            the entry to transform
+     * @param encoder
+     *            the encoder of the response
+     * @return true if an event was encoded, false if the document was dropped or only held metadata
+     * @throws IOException
+     *             if the event cannot be encoded
+     */
+    @Override
+    public boolean encode(Entry<Key,Value> entry, EventQueryResponseEncoder encoder) throws IOException {
+        Entry<Key,Document> documentEntry = deserializer.apply(entry);
+        for (DocumentTransform transform : transforms) {
+            if (documentEntry != null) {
+                documentEntry = transform.apply(documentEntry);
+            } else {
+                break;
+            }
+        }
+        if (documentEntry == null) {
+            return false;
+        }
+        
+        Key documentKey = correctKey(documentEntry.getKey());
+        Document document = documentEntry.getValue();
+        
+        if (null == documentKey || null == document)
+            throw new IllegalArgumentException("Null key or value. Key:" + documentKey + ", Value: " + documentEntry.getValue());
+        
+        extractMetrics(document, documentKey);
+        document.debugDocumentSize(documentKey);
+        
+        String row = documentKey.getRow().toString();
+        String colf = documentKey.getColumnFamily().toString();
+        
+        int index = colf.indexOf("\0");
+        Preconditions.checkArgument(-1 != index);
+        
+        String dataType = colf.substring(0, index);
+        String uid = colf.substring(index + 1);
+        
+        ColumnVisibility eventCV = new ColumnVisibility(documentKey.getColumnVisibility());
+        
+        boolean encoded;
+        try {
+            if (eventQueryDataDecoratorTransformer != null || hasMappedFieldCollisions(document)) {
+                EventBase event = buildResponse(document, documentKey, eventCV, colf, row, this.markingFunctions);
+                if (event != null && !(event instanceof DefaultEvent)) {
+                    throw new IllegalStateException("Only a " + DefaultEvent.class.getSimpleName() + " can be encoded, not a " + event.getClass());
+                }
+                encoded = event != null && encoder.addEvent((DefaultEvent) event) > 0;
+            } else {
+                encoder.startEvent(this.markingFunctions.translateFromColumnVisibility(eventCV), buildMetadata(colf, row));
+                encodeDocumentFields(document, this.markingFunctions, encoder);
+                encoded = encoder.endEvent() > 0;
+            }
+        } catch (MarkingFunctions.Exception ex) {
+            log.error("Error encoding response document", ex);
+            throw new RuntimeException(ex);
+        }
+        
+        if (encoded && cardinalityConfiguration != null) {
+            collectCardinalities(document, documentKey, uid, dataType);
+        }
+        
+        return encoded;
+    }
+    
+    @Override
+    public boolean canEncode() {
+        return true;
+    }
+    
 }
@@ -29,6 +29,7 @@ import datawave.webservice.query.result.event.EventBase;
 import datawave.webservice.query.result.event.FieldBase;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
 import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.EventQueryResponseEncoder;
 import datawave.webservice.result.EventQueryResponseBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -38,6 +39,7 @@ import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -72,6 +74,8 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
     private long yieldCount = 0L;
     private long docRanges = 0;
     private long fiRanges = 0;
+    private long documentCacheHits = 0;
+    private long documentCacheMisses = 0;
     private boolean logTimingDetails = false;
     private CardinalityRecord resultCardinalityDocumentDate = null;
     private CardinalityRecord resultCardinalityQueryDate = null;
@@ -170,16 +174,7 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
     protected Collection<FieldBase<?>> buildDocumentFields(Key documentKey, String documentName, Document document, ColumnVisibility topLevelColumnVisibility,
                     MarkingFunctions markingFunctions) {
         
-        // Whether the fields were added to projectFields or removed from blacklistedFields, they user does not want them returned
-        // If neither a projection nor a blacklist was used then the suppressFields set should remain empty
-        Set<String> suppressFields = Collections.emptySet();
-        if (cardinalityConfiguration != null) {
-            if (!projectFields.isEmpty()) {
-                suppressFields = cardinalityConfiguration.getStoredProjectFieldsToAdd(getQm(), projectFields);
-            } else if (!blacklistedFields.isEmpty()) {
-                suppressFields = cardinalityConfiguration.getStoredBlacklistedFieldsToRemove(getQm(), blacklistedFields);
-            }
-        }
+        Set<String> suppressFields = getSuppressFields();
         
         Set<FieldBase<?>> Fields = new HashSet<>();
         final Map<String,Attribute<? extends Comparable<?>>> documentData = document.getDictionary();
@@ -208,6 +203,87 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
         return Fields;
     }
     
+    private Set<String> getSuppressFields() {
+        // Whether the fields were added to projectFields or removed from blacklistedFields, they user does not want them returned
+        // If neither a projection nor a blacklist was used then the suppressFields set should remain empty
+        Set<String> suppressFields = Collections.emptySet();
+        if (cardinalityConfiguration != null) {
+            if (!projectFields.isEmpty()) {
+                suppressFields = cardinalityConfiguration.getStoredProjectFieldsToAdd(getQm(), projectFields);
+            } else if (!blacklistedFields.isEmpty()) {
+                suppressFields = cardinalityConfiguration.getStoredBlacklistedFieldsToRemove(getQm(), blacklistedFields);
+            }
+        }
+        return suppressFields;
+    }
+    
+    /**
+     * Adds the document's fields to the event being encoded as {@link #buildDocumentFields(Key, String, Document, ColumnVisibility, MarkingFunctions)} builds
+     * them, without creating a {@link FieldBase} for each of them.
+     *
+     * @param document
+     * @param markingFunctions
+     * @param encoder
+     */
+    protected void encodeDocumentFields(Document document, MarkingFunctions markingFunctions, EventQueryResponseEncoder encoder) {
+        Set<String> suppressFields = getSuppressFields();
+        
+        for (Entry<String,Attribute<? extends Comparable<?>>> data : document.getDictionary().entrySet()) {
+            // skip metadata fields
+            if (data.getValue() instanceof datawave.query.attributes.Metadata) {
+                continue;
+            }
+            String fn = data.getKey();
+            if (!suppressFields.contains(JexlASTHelper.removeGroupingContext(fn))) {
+                // Apply the reverse mapping to make the field name human-readable again
+                if (null != this.getQm()) {
+                    fn = this.getQm().aliasFieldNameReverseModel(fn);
+                }
+                encodeDocumentFields(fn, data.getValue(), markingFunctions, encoder);
+            }
+        }
+    }
+    
+    private void encodeDocumentFields(String fieldName, Attribute<?> attr, MarkingFunctions markingFunctions, EventQueryResponseEncoder encoder) {
+        if (attr instanceof Attributes) {
+            for (Attribute<? extends Comparable<?>> embeddedAttr : ((Attributes) attr).getAttributes()) {
+                encodeDocumentFields(fieldName, embeddedAttr, markingFunctions, encoder);
+            }
+        } else if (!this.reducedResponse) {
+            try {
+                Map<String,String> markings = markingFunctions.translateFromColumnVisibility(attr.getColumnVisibility());
+                ColumnVisibility cv = attr.getColumnVisibility();
+                encoder.addField(fieldName, (cv == null) ? null : new String(cv.getExpression(), StandardCharsets.UTF_8), markings, attr.getTimestamp(),
+                                attr.getData());
+            } catch (Exception ex) {
+                log.error("unable to process markings:" + ex);
+            }
+        } else {
+            Attribute<?> value = this.transformValuePrefixFields.contains(fieldName) ? convertMappedAttribute(attr) : attr;
+            encoder.addField(fieldName, null, EMPTY_MARKINGS, null, value.getData());
+        }
+    }
+    
+    /**
+     * The fields built for a document are collapsed into a set, which the encoder does not do. As the reverse mapping of the query model may map several
+     * fields of a document onto the same name, such documents have to be built rather than encoded.
+     *
+     * @param document
+     * @return whether several fields of the document are mapped onto the same name
+     */
+    protected boolean hasMappedFieldCollisions(Document document) {
+        if (null == this.getQm()) {
+            return false;
+        }
+        Set<String> names = new HashSet<>();
+        for (String field : document.getDictionary().keySet()) {
+            if (!names.add(this.getQm().aliasFieldNameReverseModel(field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     protected void extractMetrics(Document document, Key documentKey) {
         
         Map<String,Attribute<? extends Comparable<?>>> dictionary = document.getDictionary();
@@ -223,6 +299,8 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             nextCount += currentNextCount;
             seekCount += currentSeekCount;
             yieldCount += currentYieldCount;
+            documentCacheHits += timingMetadata.getDocumentCacheHits();
+            documentCacheMisses += timingMetadata.getDocumentCacheMisses();
             Map<String,Long> stageTimers = timingMetadata.getStageTimers();
             if (stageTimers.containsKey(QuerySpan.Stage.DocumentSpecificTree.toString())) {
                 docRanges++;
@@ -235,7 +313,8 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
                 sb.append("retrieved document from host:").append(host).append(" at key:").append(documentKey.toStringNoTime()).append(" stageTimers:")
                                 .append(stageTimers);
                 sb.append(" sourceCount:").append(currentSourceCount).append(" nextCount:").append(currentNextCount).append(" seekCount:")
-                                .append(currentSeekCount).append(" yieldCount:").append(currentYieldCount);
+                                .append(currentSeekCount).append(" yieldCount:").append(currentYieldCount).append(" documentCacheHits:")
+                                .append(timingMetadata.getDocumentCacheHits()).append(" documentCacheMisses:").append(timingMetadata.getDocumentCacheMisses());
                 if (log.isTraceEnabled()) {
                     log.trace(sb.toString());
                 } else {
@@ -260,6 +339,9 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             metric.setDocRanges(docRanges);
             metric.setFiRanges(fiRanges);
         }
+        if (documentCacheHits > 0 || documentCacheMisses > 0) {
+            log.debug("document cache hits:" + documentCacheHits + " misses:" + documentCacheMisses + " for query " + metric.getQueryId());
+        }
     }
     
     protected List<String> getFieldValues(Document document, String field, boolean shortCircuit) {
@@ -7,7 +7,10 @@ import datawave.query.attributes.Attribute;
 import datawave.query.attributes.Attributes;
 import datawave.query.attributes.Cardinality;
 import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
 import datawave.query.attributes.FieldValueCardinality;
+import datawave.query.tables.facets.FacetedConfiguration;
 import datawave.webservice.query.Query;
 import datawave.webservice.query.exception.EmptyObjectException;
 import datawave.webservice.query.logic.BaseQueryLogic;
@@ -34,6 +37,8 @@ public class FacetedTransformer extends DocumentTransformerSupport<Entry<Key,Val
     
     private static final Logger log = Logger.getLogger(FacetedTransformer.class);
     
+    protected FacetedConfiguration facetedConfig = null;
+    
     /**
      * By default, assume each cell still has the visibility attached to it
      * 
@@ -127,6 +132,12 @@ public class FacetedTransformer extends DocumentTransformerSupport<Entry<Key,Val
                 } catch (Exception e) {
                     log.error("unable to process markings:" + e);
                 }
+            } else if (attr instanceof FacetSummary) {
+                try {
+                    myFields.addAll(buildFacets((FacetSummary) attr, markingFunctions));
+                } catch (Exception e) {
+                    log.error("unable to process markings:" + e);
+                }
             }
             
         }
@@ -134,6 +145,51 @@ public class FacetedTransformer extends DocumentTransformerSupport<Entry<Key,Val
         return myFields;
     }
     
+    /**
+     * Turns the merged sketch of a field into its most frequent values, with the error bound of each count.
+     *
+     * @param summary
+     * @param markingFunctions
+     * @return
+     * @throws MarkingFunctions.Exception
+     */
+    protected Collection<FieldCardinalityBase> buildFacets(FacetSummary summary, MarkingFunctions markingFunctions) throws MarkingFunctions.Exception {
+        int topFacetCount = Integer.MAX_VALUE;
+        int minimumCount = 1;
+        if (null != facetedConfig) {
+            topFacetCount = facetedConfig.getTopFacetCount();
+            minimumCount = facetedConfig.getMinimumFacetCount();
+        }
+        
+        FacetSketch sketch = summary.getContent();
+        if (log.isDebugEnabled()) {
+            log.debug("Facet sketch has about " + sketch.getDistinctValues() + " distinct values, others have at most " + sketch.getMissingCount());
+        }
+        
+        Map<String,String> markings = markingFunctions.translateFromColumnVisibilityForAuths(summary.getColumnVisibility(), auths);
+        String columnVisibility = new String(markingFunctions.translateToColumnVisibility(markings).flatten());
+        
+        List<FieldCardinalityBase> myFields = new ArrayList<>();
+        for (FacetSketch.Facet facet : sketch.getTop(topFacetCount)) {
+            if (facet.getCount() < minimumCount) {
+                break;
+            }
+            FieldCardinalityBase fc = this.responseObjectFactory.getFieldCardinality();
+            fc.setMarkings(markings);
+            fc.setColumnVisibility(columnVisibility);
+            fc.setLower(facet.getValue());
+            fc.setUpper(facet.getValue());
+            fc.setCardinality(facet.getCount());
+            fc.setError(facet.getError());
+            myFields.add(fc);
+        }
+        return myFields;
+    }
+    
+    public void setFacetedConfiguration(FacetedConfiguration facetedConfig) {
+        this.facetedConfig = facetedConfig;
+    }
+    
     protected FacetsBase buildResponse(Document document, Key documentKey, ColumnVisibility eventCV, String colf, String row, MarkingFunctions mf)
                     throws MarkingFunctions.Exception {
         
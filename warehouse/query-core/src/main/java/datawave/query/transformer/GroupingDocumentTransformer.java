@@ -67,6 +67,12 @@ public class GroupingDocumentTransformer extends DocumentTransformer {
         }
     }
     
+    @Override
+    public boolean canEncode() {
+        // the response is created from the events of the page
+        return false;
+    }
+    
     @Override
     /**
      * count the desired fields and create a new response with one event.
@@ -26,7 +26,6 @@ import org.springframework.util.Assert;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
 import java.util.AbstractMap;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -39,7 +38,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -52,6 +50,10 @@ import static org.slf4j.LoggerFactory.getLogger;
  * Because the tserver may tear down and start a new iterator at any time after a next() call, there can be no saved state in this class. For that reason, each
  * next call on the tserver will flatten the aggregated data into a single Entry&gt;Key,Document&lt; to return to the web server. The web server will then
  * aggregate these documents by count.
+ *
+ * The tserver holds at most {@link #setMaxGroups(int) maxGroups} distinct groups at a time. When that many have been collected, the groups are flushed early as
+ * a partial aggregate, and the web server merges the partial counts. Each partial count carries the combined visibility of the documents that contributed to
+ * its group, so that the web server does not mark a group with the visibilities of the other groups flattened into the same document.
  */
 public class GroupingTransform extends DocumentTransform.DefaultDocumentTransform {
     
@@ -89,9 +91,14 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
     private Map<String,String> reverseModelMapping = null;
     
     /**
-     * list of keys that have been read, in order to keep track of where we left off when a new iterator is created
+     * the most recent key that has been read, in order to keep track of where we left off when a new iterator is created
      */
-    private List<Key> keys = new ArrayList<>();
+    private Key lastKey;
+    
+    /**
+     * the number of distinct groups to hold before flushing a partial aggregate, 0 for no limit
+     */
+    private int maxGroups;
     
     /**
      * flatten or not. true on the tserver, false on the webserver
@@ -131,6 +138,18 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
         return fields.stream().map(field -> JexlASTHelper.deconstructIdentifier(field)).collect(Collectors.toSet());
     }
     
+    public int getMaxGroups() {
+        return maxGroups;
+    }
+    
+    /**
+     * @param maxGroups
+     *            the number of distinct groups to hold before flushing them as a partial aggregate, or 0 to flush only at the end of each batch
+     */
+    public void setMaxGroups(int maxGroups) {
+        this.maxGroups = maxGroups;
+    }
+    
     @Override
     public void initialize(Query settings, MarkingFunctions markingFunctions) {
         super.initialize(settings, markingFunctions);
@@ -174,11 +193,15 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
                 for (int i = 0; i < groupFieldsBatchSize; i++) {
                     if (in.hasNext()) {
                         GroupingTransform.this.apply(in.next());
+                        if (maxGroups > 0 && countingMap.size() >= maxGroups) {
+                            log.trace("flushing a partial aggregate of {} groups", countingMap.size());
+                            break;
+                        }
                     } else if (yieldCallback != null && yieldCallback.hasYielded()) {
                         log.trace("hasNext is false because yield was called");
                         if (countingMap != null && !countingMap.isEmpty()) {
                             // reset the yield and use its key in the flattened document prepared below
-                            keys.add(yieldCallback.getPositionAndReset());
+                            lastKey = yieldCallback.getPositionAndReset();
                         }
                         break;
                     } else {
@@ -224,20 +247,22 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
                 } catch (Exception e) {
                     throw new IllegalStateException("Unable to merge column visibilities: " + fieldVisibilities.get(entry), e);
                 }
-                // grab a key from those saved during getListKeyCounts
-                Assert.notEmpty(keys, "no available keys for grouping results");
-                // use the last (most recent) key so a new iterator will know where to start
-                Key docKey = keys.get(keys.size() - 1);
-                Document d = new Document(docKey, true);
+                // use the last (most recent) key saved during getListKeyCounts so a new iterator will know where to start
+                Assert.notNull(lastKey, "no available keys for grouping results");
+                Document d = new Document(lastKey, true);
                 d.setColumnVisibility(columnVisibility);
                 
                 entry.forEach(base -> d.put(getFieldName(base), base));
                 NumberType type = new NumberType();
                 type.setDelegate(new BigDecimal(countingMap.get(entry)));
                 TypeAttribute<BigDecimal> attr = new TypeAttribute<>(type, new Key("count"), true);
+                // the count carries the visibility of its group through flattening
+                attr.setColumnVisibility(columnVisibility);
                 d.put("COUNT", attr);
                 documents.add(d);
             }
+            // the groups are done once flushed, so nothing is held between batches
+            fieldVisibilities.clear();
             if (flatten) {
                 // flatten to just one document on the tserver.
                 flatten(documents);
@@ -247,9 +272,9 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
             log.trace("{} will flush first of {} documents: {}", this.hashCode(), documents.size(), documents);
             Document d = documents.pop();
             Key key;
-            if (keys.size() > 0 && flatten) {
+            if (lastKey != null && flatten) {
                 // use the last (most recent) key so a new iterator will know where to start
-                key = keys.get(keys.size() - 1);
+                key = lastKey;
             } else {
                 key = d.getMetadata();
             }
@@ -340,6 +365,7 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
     private Multimap<String,String> getFieldToFieldWithGroupingContextMap(Document d, Set<String> expandedGroupFieldsList) {
         
         Multimap<String,String> fieldToFieldWithContextMap = TreeMultimap.create();
+        fieldMap.clear();
         for (Map.Entry<String,Attribute<? extends Comparable<?>>> entry : d.entrySet()) {
             Attribute<?> field = entry.getValue();
             log.trace("field is {}", field);
@@ -393,7 +419,7 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
     private void getListKeyCounts(Entry<Key,Document> entry) {
         
         log.trace("{} get list key counts for: {}", flatten ? "t" : "web" + "server", entry);
-        keys.add(entry.getKey());
+        lastKey = entry.getKey();
         
         Set<String> expandedGroupFieldsList = new LinkedHashSet<>();
         // if the incoming Documents have been aggregated on the tserver, they will have a COUNT field.
@@ -402,11 +428,16 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
         // field sets in the countingMap
         Map<String,Attribute<? extends Comparable<?>>> dictionary = entry.getValue().getDictionary();
         Map<String,Integer> countKeyMap = new HashMap<>();
+        Map<String,ColumnVisibility> countVisibilityMap = new HashMap<>();
         dictionary.keySet().stream().filter(key -> key.startsWith("COUNT")).filter(countKey -> entry.getValue().getDictionary().containsKey(countKey))
                         .forEach(countKey -> {
                             TypeAttribute countTypeAttribute = ((TypeAttribute) entry.getValue().getDictionary().get(countKey));
                             int count = ((BigDecimal) countTypeAttribute.getType().getDelegate()).intValue();
                             countKeyMap.put(countKey, count);
+                            ColumnVisibility countVisibility = countTypeAttribute.getColumnVisibility();
+                            if (countVisibility != null && countVisibility.getExpression().length > 0) {
+                                countVisibilityMap.put(countKey, countVisibility);
+                            }
                         });
         
         Multimap<String,String> fieldToFieldWithContextMap = this.getFieldToFieldWithGroupingContextMap(entry.getValue(), expandedGroupFieldsList);
@@ -441,11 +472,15 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
                 Integer count = countKeyMap.get("COUNT." + currentGroupingContext);
                 if (count == null)
                     count = 1;
+                // a partial count from the tserver carries the visibility of its own group, rather than that of the whole flattened document
+                ColumnVisibility visibility = countVisibilityMap.get("COUNT." + currentGroupingContext);
+                if (visibility == null)
+                    visibility = getColumnVisibility(entry);
                 // see above comment about the COUNT field
                 log.trace("{} adding {} of {} to counting map", flatten ? "tserver" : "webserver", count, fieldCollection);
-                IntStream.range(0, count).forEach(j -> countingMap.add(fieldCollection));
-                fieldVisibilities.put(fieldCollection, getColumnVisibility(entry));
-                log.trace("put {} to {} into fieldVisibilities {}", fieldCollection, getColumnVisibility(entry), fieldVisibilities);
+                countingMap.add(fieldCollection, count);
+                fieldVisibilities.put(fieldCollection, visibility);
+                log.trace("put {} to {} into fieldVisibilities {}", fieldCollection, visibility, fieldVisibilities);
             } else {
                 log.trace("fieldList.size() != this.expandedGroupFieldsList.size()");
                 log.trace("fieldList: {}", fieldCollection);
@@ -478,31 +513,58 @@ public class GroupingTransform extends DocumentTransform.DefaultDocumentTransfor
         
         private MarkingFunctions markingFunctions;
         
+        /**
+         * the key held by the map for each group, whose attributes carry the aggregated visibilities
+         */
+        private final Map<Collection<GroupingTypeAttribute<?>>,Collection<GroupingTypeAttribute<?>>> groupKeys = new HashMap<>();
+        
         public GroupCountingHashMap(MarkingFunctions markingFunctions) {
             this.markingFunctions = markingFunctions;
         }
         
         public int add(Collection<GroupingTypeAttribute<?>> in) {
+            return add(in, 1);
+        }
+        
+        /**
+         * Adds a partial count for a group.
+         * 
+         * @param in
+         *            the group
+         * @param partialCount
+         *            the number of times the group was seen
+         * @return the count of the group
+         */
+        public int add(Collection<GroupingTypeAttribute<?>> in, int partialCount) {
             int count = 0;
-            if (super.containsKey(in)) {
-                count = super.get(in);
+            Collection<GroupingTypeAttribute<?>> existing = groupKeys.get(in);
+            if (existing != null) {
+                count = super.get(existing);
                 // aggregate the visibilities
-                combine(this.keySet(), in);
+                combine(existing, in);
+            } else {
+                groupKeys.put(in, in);
+                existing = in;
             }
-            count++;
-            super.put(in, count);
+            count += partialCount;
+            super.put(existing, count);
             return count;
         }
         
-        private void combine(Set<Collection<GroupingTypeAttribute<?>>> existingMapKeys, Collection<? extends Attribute<?>> incomingAttributes) {
+        @Override
+        public void clear() {
+            super.clear();
+            groupKeys.clear();
+        }
+        
+        private void combine(Collection<GroupingTypeAttribute<?>> existingMapKey, Collection<? extends Attribute<?>> incomingAttributes) {
             
-            // for each Attribute in the incomingAttributes, find the existing map key attribute that matches its data.
+            // for each Attribute in the incomingAttributes, find the attribute of the existing map key for the same group that matches its data.
             // combine the column visibilities of the incoming attribute and the existing one, and set
             // the column visibility of the EXISTING map key to the new value.
             // Note that the hashCode and equals methods for the GroupingTypeAttribute will ignore the metadata (which contains the column visibility)
             incomingAttributes.forEach(incomingAttribute -> {
-                existingMapKeys.stream()
-                                .flatMap(Collection::stream)
+                existingMapKey.stream()
                                 // if the existing and incoming attributes are equal (other than the metadata), the incoming attribute's visibility will be
                                 // considered for merging into the existing attribute unless the column visibilities are already equal
                                 .filter(existingAttribute -> existingAttribute.getData().equals(incomingAttribute.getData())
@@ -37,4 +37,10 @@ public class ParentDocumentTransformer extends DocumentTransformer {
         md.setInternalId(parentId);
         return event;
     }
+    
+    @Override
+    public boolean canEncode() {
+        // the events are encoded with their own ids
+        return false;
+    }
 }
@@ -42,20 +42,40 @@ import java.util.stream.Collectors;
 /**
  * This is a iterator that will filter documents base on a uniqueness across a set of configured fields. Only the first instance of an event with a unique set
  * of those fields will be returned. This transform is thread safe.
+ * <p>
+ * On the tserver this transform only removes the duplicates within a scan, and the web server removes the remaining duplicates across scans. The tserver may
+ * therefore bound its memory with a {@code maxEntries}: once that many unique documents have been seen, the seen documents are forgotten and later duplicates
+ * of them are passed on to the web server.
  */
 public class UniqueTransform extends DocumentTransform.DefaultDocumentTransform {
     
     private static final Logger log = Logger.getLogger(GroupingTransform.class);
     
+    private static final int DEFAULT_EXPECTED_ENTRIES = 500000;
+    
     private BloomFilter<byte[]> bloom = null;
+    private final int maxEntries;
+    private int numEntries;
     private HashSet<ByteSequence> seen;
     private Set<String> fields;
     private Multimap<String,String> modelMapping;
     private final boolean DEBUG = false;
     
     public UniqueTransform(Set<String> fields) {
+        this(fields, 0);
+    }
+    
+    /**
+     * tserver calls this CTOR to bound the documents remembered within a scan. Called by QueryIterator::seek
+     *
+     * @param fields
+     * @param maxEntries
+     *            the number of unique documents to remember before forgetting them, or 0 to remember all of them
+     */
+    public UniqueTransform(Set<String> fields, int maxEntries) {
         this.fields = deconstruct(fields);
-        this.bloom = BloomFilter.create(new ByteFunnel(), 500000, 1e-15);
+        this.maxEntries = maxEntries;
+        this.bloom = createBloomFilter();
         if (DEBUG) {
             this.seen = new HashSet<>();
         }
@@ -63,6 +83,10 @@ public class UniqueTransform extends DocumentTransform.DefaultDocumentTransform
             log.trace("unique fields: " + this.fields);
     }
     
+    private BloomFilter<byte[]> createBloomFilter() {
+        return BloomFilter.create(new ByteFunnel(), maxEntries > 0 ? maxEntries : DEFAULT_EXPECTED_ENTRIES, 1e-15);
+    }
+    
     private Set<String> deconstruct(Collection<String> fields) {
         return fields.stream().map(field -> JexlASTHelper.deconstructIdentifier(field)).collect(Collectors.toSet());
     }
@@ -125,7 +149,7 @@ public class UniqueTransform extends DocumentTransform.DefaultDocumentTransform
     private boolean isDuplicate(Document document) throws IOException {
         byte[] bytes = getBytes(document);
         ByteSequence byteSeq = new ArrayByteSequence(bytes);
-        synchronized (bloom) {
+        synchronized (this) {
             if (bloom.mightContain(bytes)) {
                 if (DEBUG && !seen.contains(byteSeq)) {
                     throw new IllegalStateException("This event is 1 in 1Q!");
@@ -133,7 +157,17 @@ public class UniqueTransform extends DocumentTransform.DefaultDocumentTransform
                     return true;
                 }
             }
+            if (maxEntries > 0 && numEntries >= maxEntries) {
+                // forget what has been seen rather than let the false positive rate grow, the web server removes the duplicates that get through
+                log.debug("Seen " + numEntries + " unique documents, resetting the unique filter");
+                bloom = createBloomFilter();
+                numEntries = 0;
+                if (DEBUG) {
+                    seen.clear();
+                }
+            }
             bloom.put(bytes);
+            numEntries++;
             if (DEBUG) {
                 seen.add(byteSeq);
             }
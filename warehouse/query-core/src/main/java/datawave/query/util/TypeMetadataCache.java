@@ -0,0 +1,89 @@
+package datawave.query.util;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This singleton is used on the tservers. It holds the TypeMetadata passed to the query iterators, keyed by a version id of its serialized form, so that every
+ * scan session of a query, and every query planned against the same metadata, share one TypeMetadata instead of each decompressing and parsing the option.
+ * When the metadata changes the planner sends a new version id, and the entries for older versions expire once they are no longer used.
+ * <p>
+ * Only the parsing is memoized: the serialized TypeMetadata is still sent with the options of every scan, along with its version id. Queries that should not
+ * ship it at all have to load it from hdfs through the {@link TypeMetadataProvider} instead, by setting typeMetadataInHdfs.
+ * <p>
+ * The cached TypeMetadata is shared, and must not be modified by its users.
+ */
+public class TypeMetadataCache {
+    
+    private static final Logger log = Logger.getLogger(TypeMetadataCache.class);
+    
+    public static final int MAX_VERSIONS = 32;
+    public static final long EXPIRE_AFTER_ACCESS_MINUTES = 30;
+    
+    private static final Cache<String,TypeMetadata> cache = CacheBuilder.newBuilder().maximumSize(MAX_VERSIONS)
+                    .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES).build();
+    
+    private TypeMetadataCache() {}
+    
+    /**
+     * @param typeMetadataString
+     *            the serialized TypeMetadata, before compression
+     * @return the version id of the serialized TypeMetadata
+     */
+    public static String getVersion(String typeMetadataString) {
+        return Hashing.murmur3_128().hashString(typeMetadataString, Charsets.UTF_8).toString();
+    }
+    
+    /**
+     * Get the TypeMetadata for a version, loading it if this tserver has not seen the version yet. Concurrent requests for the same version wait for a single
+     * load.
+     *
+     * @param version
+     *            the version id, as computed by {@link #getVersion(String)}
+     * @param loader
+     *            decodes the TypeMetadata from the query options
+     * @return the TypeMetadata
+     * @throws ExecutionException
+     *             if the loader failed
+     */
+    public static TypeMetadata get(String version, Callable<TypeMetadata> loader) throws ExecutionException {
+        try {
+            return cache.get(version, () -> {
+                if (log.isDebugEnabled()) {
+                    log.debug("loading TypeMetadata version " + version);
+                }
+                return loader.call();
+            });
+        } catch (UncheckedExecutionException e) {
+            throw new ExecutionException(e.getCause());
+        }
+    }
+    
+    /**
+     * @param version
+     *            the version id
+     * @return the TypeMetadata for the version, or null if it is not cached
+     */
+    public static TypeMetadata getIfPresent(String version) {
+        return cache.getIfPresent(version);
+    }
+    
+    /**
+     * Remove all cached versions
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    public static long size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,548 @@
+package datawave.query.util.regex;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.log4j.Logger;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.MinimizationOperations;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the UTF-8 bytes of index terms against a Java regex using a deterministic automaton, without decoding the terms into strings.
+ * <p>
+ * The regex is compiled into a byte level {@link ByteRunAutomaton} when it only uses the regular subset of the Java syntax: literals and escapes, {@code .},
+ * character classes including {@code \d \w \s}, the greedy and reluctant quantifiers, alternation and groups. Any other construct (back references,
+ * lookaround, boundaries, embedded flags, possessive quantifiers, ...) falls back to a {@link Pattern}, which always gives the same answer as
+ * {@link Pattern#matches(String, CharSequence)}.
+ * <p>
+ * Because the automaton is sorted by byte, it can also compute the smallest byte string that could match and is not less than a term that did not match (see
+ * {@link #nextPossibleMatch(byte[], int, int)}), which lets a scan seek past whole runs of non-matching keys instead of rejecting them one at a time.
+ */
+public class RegexAutomaton {
+    
+    private static final Logger log = Logger.getLogger(RegexAutomaton.class);
+    
+    private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+    
+    // the line terminators are the only characters not matched by '.'
+    private static final int[] DOT = {0, 0x09, 0x0B, 0x0C, 0x0E, 0x84, 0x86, 0x2027, 0x202A, MAX_CODE_POINT};
+    private static final int[] DIGIT = {'0', '9'};
+    private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final int[] SPACE = {0x09, 0x0D, ' ', ' '};
+    
+    private final String regex;
+    private final boolean reverse;
+    private final ByteRunAutomaton automaton;
+    private final Pattern pattern;
+    
+    /**
+     * @param regex
+     *            the Java regex
+     * @param reverse
+     *            true if the terms are stored reversed, in which case the bytes are matched against the reversed regex
+     */
+    public RegexAutomaton(String regex, boolean reverse) {
+        this.regex = regex;
+        this.reverse = reverse;
+        ByteRunAutomaton automaton = null;
+        try {
+            Automaton a = new Parser(regex).parse();
+            if (reverse) {
+                a = Operations.reverse(a);
+            }
+            a = MinimizationOperations.minimize(a, Operations.DEFAULT_MAX_DETERMINIZED_STATES);
+            automaton = new ByteRunAutomaton(a);
+        } catch (UnsupportedRegexException | TooComplexToDeterminizeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Matching " + regex + " with java.util.regex: " + e.getMessage());
+            }
+        }
+        this.automaton = automaton;
+        this.pattern = (automaton == null) ? Pattern.compile(regex) : null;
+    }
+    
+    public RegexAutomaton(String regex) {
+        this(regex, false);
+    }
+    
+    public String getRegex() {
+        return regex;
+    }
+    
+    /**
+     * @return true if the regex was compiled into an automaton, false if it is matched with java.util.regex
+     */
+    public boolean isAutomaton() {
+        return automaton != null;
+    }
+    
+    public boolean matches(ByteSequence bytes) {
+        if (bytes.isBackedByArray()) {
+            return matches(bytes.getBackingArray(), bytes.offset(), bytes.length());
+        }
+        byte[] array = bytes.toArray();
+        return matches(array, 0, array.length);
+    }
+    
+    /**
+     * @param bytes
+     *            the UTF-8 bytes of a term
+     * @param offset
+     *            the offset of the term
+     * @param length
+     *            the length of the term
+     * @return true if the entire term matches the regex
+     */
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (automaton != null) {
+            return automaton.run(bytes, offset, length);
+        }
+        String term = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        if (reverse) {
+            term = new StringBuilder(term).reverse().toString();
+        }
+        return pattern.matcher(term).matches();
+    }
+    
+    public byte[] nextPossibleMatch(ByteSequence bytes) {
+        if (bytes.isBackedByArray()) {
+            return nextPossibleMatch(bytes.getBackingArray(), bytes.offset(), bytes.length());
+        }
+        byte[] array = bytes.toArray();
+        return nextPossibleMatch(array, 0, array.length);
+    }
+    
+    /**
+     * Finds a lower bound for the next matching term. Every term that matches the regex and sorts at or after the given term sorts at or after the returned
+     * bytes, so a scan can safely skip everything in between.
+     *
+     * @param bytes
+     *            the UTF-8 bytes of a term
+     * @param offset
+     *            the offset of the term
+     * @param length
+     *            the length of the term
+     * @return the lower bound, which is equal to the term if it matches or if no better bound can be computed, or null if no term at or after the given term
+     *         can match
+     */
+    public byte[] nextPossibleMatch(byte[] bytes, int offset, int length) {
+        if (automaton == null) {
+            return Arrays.copyOfRange(bytes, offset, offset + length);
+        }
+        
+        // run the term as far as it goes, remembering the state before each byte
+        int[] states = new int[length + 1];
+        int depth = 0;
+        while (depth < length) {
+            int next = automaton.step(states[depth], bytes[offset + depth] & 0xff);
+            if (next == -1) {
+                break;
+            }
+            states[++depth] = next;
+        }
+        
+        if (depth == length) {
+            if (automaton.isAccept(states[depth])) {
+                return Arrays.copyOfRange(bytes, offset, offset + length);
+            }
+            // every extension sorts before a term that differs from this one at or before the last byte
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length + 8);
+            out.write(bytes, offset, length);
+            appendMinimalSuffix(out, states[depth]);
+            return out.toByteArray();
+        }
+        
+        // find the last position where a larger byte leads somewhere
+        for (int i = depth; i >= 0; i--) {
+            for (int c = (bytes[offset + i] & 0xff) + 1; c <= 0xff; c++) {
+                int next = automaton.step(states[i], c);
+                if (next != -1) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(i + 8);
+                    out.write(bytes, offset, i);
+                    out.write(c);
+                    appendMinimalSuffix(out, next);
+                    return out.toByteArray();
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Appends the smallest transitions from a live state until reaching an accept state, or a state that was already visited in which case the bytes written
+     * so far are still a lower bound.
+     */
+    private void appendMinimalSuffix(ByteArrayOutputStream out, int state) {
+        Set<Integer> visited = new HashSet<>();
+        while (!automaton.isAccept(state) && visited.add(state)) {
+            int next = -1;
+            for (int c = 0; c <= 0xff && next == -1; c++) {
+                next = automaton.step(state, c);
+                if (next != -1) {
+                    out.write(c);
+                }
+            }
+            if (next == -1) {
+                break;
+            }
+            state = next;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return regex;
+    }
+    
+    /**
+     * Thrown when a regex uses a construct that cannot be represented by a finite automaton with the same semantics as java.util.regex.
+     */
+    static class UnsupportedRegexException extends Exception {
+        UnsupportedRegexException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * A recursive descent parser for the regular subset of the java.util.regex syntax, producing an automaton over code points.
+     */
+    static class Parser {
+        private final String regex;
+        private int pos = 0;
+        
+        Parser(String regex) {
+            this.regex = regex;
+        }
+        
+        Automaton parse() throws UnsupportedRegexException {
+            int end = regex.length();
+            // anchors at the very start and end of the regex are implied by matches()
+            if (regex.startsWith("^")) {
+                pos = 1;
+            }
+            if (end > pos && regex.charAt(end - 1) == '$' && !isEscaped(end - 1)) {
+                end--;
+            }
+            Automaton a = parseAlternation(end);
+            if (pos != end) {
+                throw unsupported("unbalanced ')'");
+            }
+            return a;
+        }
+        
+        private boolean isEscaped(int index) {
+            int backslashes = 0;
+            for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+                backslashes++;
+            }
+            return (backslashes % 2) == 1;
+        }
+        
+        private UnsupportedRegexException unsupported(String reason) {
+            return new UnsupportedRegexException(reason + " at index " + pos + " of " + regex);
+        }
+        
+        private Automaton parseAlternation(int end) throws UnsupportedRegexException {
+            List<Automaton> alternatives = new ArrayList<>();
+            alternatives.add(parseSequence(end));
+            while (pos < end && regex.charAt(pos) == '|') {
+                pos++;
+                alternatives.add(parseSequence(end));
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : Operations.union(alternatives);
+        }
+        
+        private Automaton parseSequence(int end) throws UnsupportedRegexException {
+            List<Automaton> items = new ArrayList<>();
+            while (pos < end && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+                items.add(parseQuantifier(parseAtom(end), end));
+            }
+            if (items.isEmpty()) {
+                return Automata.makeEmptyString();
+            }
+            return items.size() == 1 ? items.get(0) : Operations.concatenate(items);
+        }
+        
+        private Automaton parseQuantifier(Automaton atom, int end) throws UnsupportedRegexException {
+            if (pos < end) {
+                char c = regex.charAt(pos);
+                if (c == '*') {
+                    pos++;
+                    atom = Operations.repeat(atom);
+                } else if (c == '+') {
+                    pos++;
+                    atom = Operations.repeat(atom, 1);
+                } else if (c == '?') {
+                    pos++;
+                    atom = Operations.optional(atom);
+                } else if (c == '{') {
+                    pos++;
+                    int min = parseNumber(end);
+                    int max = min;
+                    if (pos < end && regex.charAt(pos) == ',') {
+                        pos++;
+                        max = (pos < end && regex.charAt(pos) == '}') ? -1 : parseNumber(end);
+                    }
+                    if (pos >= end || regex.charAt(pos) != '}' || (max != -1 && max < min)) {
+                        throw unsupported("bad repetition");
+                    }
+                    pos++;
+                    atom = (max == -1) ? Operations.repeat(atom, min) : Operations.repeat(atom, min, max);
+                } else {
+                    return atom;
+                }
+                
+                // reluctant quantifiers match the same strings, possessive ones may not
+                if (pos < end && regex.charAt(pos) == '?') {
+                    pos++;
+                } else if (pos < end && regex.charAt(pos) == '+') {
+                    throw unsupported("possessive quantifier");
+                }
+            }
+            return atom;
+        }
+        
+        private int parseNumber(int end) throws UnsupportedRegexException {
+            int start = pos;
+            while (pos < end && Character.isDigit(regex.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos || pos - start > 4) {
+                throw unsupported("bad repetition count");
+            }
+            return Integer.parseInt(regex.substring(start, pos));
+        }
+        
+        private Automaton parseAtom(int end) throws UnsupportedRegexException {
+            int c = regex.codePointAt(pos);
+            switch (c) {
+                case '(':
+                    pos++;
+                    if (pos < end && regex.charAt(pos) == '?') {
+                        if (pos + 1 < end && regex.charAt(pos + 1) == ':') {
+                            pos += 2;
+                        } else {
+                            throw unsupported("special group");
+                        }
+                    }
+                    Automaton group = parseAlternation(end);
+                    if (pos >= end || regex.charAt(pos) != ')') {
+                        throw unsupported("unclosed group");
+                    }
+                    pos++;
+                    return group;
+                case '[':
+                    return ranges(parseClass(end));
+                case '.':
+                    pos++;
+                    return ranges(DOT);
+                case '\\':
+                    return parseEscape(end);
+                case '^':
+                case '$':
+                    throw unsupported("anchor");
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw unsupported("dangling quantifier");
+                default:
+                    pos += Character.charCount(c);
+                    return Automata.makeChar(c);
+            }
+        }
+        
+        private Automaton parseEscape(int end) throws UnsupportedRegexException {
+            if (pos + 1 < end && regex.charAt(pos + 1) == 'Q') {
+                int quoteEnd = regex.indexOf("\\E", pos + 2);
+                if (quoteEnd == -1 || quoteEnd > end) {
+                    quoteEnd = end;
+                }
+                Automaton quoted = Automata.makeString(regex.substring(pos + 2, quoteEnd));
+                pos = Math.min(quoteEnd + 2, end);
+                return quoted;
+            }
+            return ranges(parseEscapedRanges(end));
+        }
+        
+        /**
+         * Parses an escape sequence into sorted, non overlapping code point ranges
+         */
+        private int[] parseEscapedRanges(int end) throws UnsupportedRegexException {
+            pos++;
+            if (pos >= end) {
+                throw unsupported("trailing backslash");
+            }
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c) {
+                case 'd':
+                    return DIGIT;
+                case 'D':
+                    return complement(DIGIT);
+                case 'w':
+                    return WORD;
+                case 'W':
+                    return complement(WORD);
+                case 's':
+                    return SPACE;
+                case 'S':
+                    return complement(SPACE);
+                case 't':
+                    return single('\t');
+                case 'n':
+                    return single('\n');
+                case 'r':
+                    return single('\r');
+                case 'f':
+                    return single('\f');
+                case 'a':
+                    return single('\u0007');
+                case 'e':
+                    return single('\u001B');
+                case 'x':
+                    return single(parseHex(2, end));
+                case 'u':
+                    return single(parseHex(4, end));
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        throw unsupported("escape \\" + new String(Character.toChars(c)));
+                    }
+                    return single(c);
+            }
+        }
+        
+        private int parseHex(int digits, int end) throws UnsupportedRegexException {
+            if (pos + digits > end) {
+                throw unsupported("bad hex escape");
+            }
+            try {
+                int value = Integer.parseInt(regex.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            } catch (NumberFormatException e) {
+                throw unsupported("bad hex escape");
+            }
+        }
+        
+        private int[] parseClass(int end) throws UnsupportedRegexException {
+            pos++;
+            boolean negated = false;
+            if (pos < end && regex.charAt(pos) == '^') {
+                negated = true;
+                pos++;
+            }
+            if (pos < end && regex.charAt(pos) == ']') {
+                throw unsupported("empty class");
+            }
+            List<int[]> members = new ArrayList<>();
+            while (pos < end && regex.charAt(pos) != ']') {
+                char c = regex.charAt(pos);
+                if (c == '[' || (c == '&' && pos + 1 < end && regex.charAt(pos + 1) == '&')) {
+                    throw unsupported("nested class");
+                }
+                int[] member;
+                if (c == '\\') {
+                    member = parseEscapedRanges(end);
+                } else {
+                    int cp = regex.codePointAt(pos);
+                    pos += Character.charCount(cp);
+                    member = single(cp);
+                }
+                // a range between two single characters
+                if (member.length == 2 && member[0] == member[1] && pos + 1 < end && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    int[] upper;
+                    if (regex.charAt(pos) == '\\') {
+                        upper = parseEscapedRanges(end);
+                    } else if (regex.charAt(pos) == '[') {
+                        throw unsupported("nested class");
+                    } else {
+                        int cp = regex.codePointAt(pos);
+                        pos += Character.charCount(cp);
+                        upper = single(cp);
+                    }
+                    if (upper.length != 2 || upper[0] != upper[1] || upper[0] < member[0]) {
+                        throw unsupported("bad class range");
+                    }
+                    member = new int[] {member[0], upper[0]};
+                }
+                members.add(member);
+            }
+            if (pos >= end) {
+                throw unsupported("unclosed class");
+            }
+            pos++;
+            int[] union = union(members);
+            return negated ? complement(union) : union;
+        }
+        
+        private static int[] single(int c) {
+            return new int[] {c, c};
+        }
+        
+        private static int[] union(List<int[]> members) {
+            List<int[]> ranges = new ArrayList<>();
+            for (int[] member : members) {
+                for (int i = 0; i < member.length; i += 2) {
+                    ranges.add(new int[] {member[i], member[i + 1]});
+                }
+            }
+            ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+            List<int[]> merged = new ArrayList<>();
+            for (int[] range : ranges) {
+                int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && range[0] <= last[1] + 1) {
+                    last[1] = Math.max(last[1], range[1]);
+                } else {
+                    merged.add(range);
+                }
+            }
+            int[] union = new int[merged.size() * 2];
+            for (int i = 0; i < merged.size(); i++) {
+                union[2 * i] = merged.get(i)[0];
+                union[2 * i + 1] = merged.get(i)[1];
+            }
+            return union;
+        }
+        
+        private static int[] complement(int[] ranges) {
+            List<Integer> complement = new ArrayList<>();
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) {
+                    complement.add(next);
+                    complement.add(ranges[i] - 1);
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= MAX_CODE_POINT) {
+                complement.add(next);
+                complement.add(MAX_CODE_POINT);
+            }
+            return complement.stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        private static Automaton ranges(int[] ranges) {
+            if (ranges.length == 0) {
+                return Automata.makeEmpty();
+            }
+            List<Automaton> automata = new ArrayList<>(ranges.length / 2);
+            for (int i = 0; i < ranges.length; i += 2) {
+                automata.add(Automata.makeCharRange(ranges[i], ranges[i + 1]));
+            }
+            return automata.size() == 1 ? automata.get(0) : Operations.union(automata);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package datawave.core.iterators;
+
+import datawave.core.iterators.filter.GlobalIndexTermMatchingFilter;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class GlobalIndexTermMatchingIteratorTest {
+    
+    private static final String[] TERMS = {"apple", "banana", "bar", "barn", "baz", "car", "cart", "dog", "zebra"};
+    
+    private SortedMap<Key,Value> data;
+    private SortedMap<Key,Value> reverseData;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        reverseData = new TreeMap<>();
+        for (String term : TERMS) {
+            for (int shard = 0; shard < 10; shard++) {
+                data.put(new Key(term, "FIELD", "20190101_" + shard + "\0datatype"), new Value(new byte[0]));
+                String reversed = new StringBuilder(term).reverse().toString();
+                reverseData.put(new Key(reversed, "FIELD", "20190101_" + shard + "\0datatype"), new Value(new byte[0]));
+            }
+        }
+    }
+    
+    @Test
+    public void testPattern() throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 1, "ba.");
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 2, "car?t");
+        
+        CountingIterator source = new CountingIterator(data);
+        Assert.assertEquals(Arrays.asList("bar", "baz", "cart"), scan(source, options, new Range()));
+        
+        // the runs of non matching terms are skipped with a seek rather than visited
+        Assert.assertTrue(source.visited < data.size() / 2);
+    }
+    
+    @Test
+    public void testLiteralAndPattern() throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(GlobalIndexTermMatchingFilter.LITERAL + 1, "dog");
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 1, "b.*n.*");
+        
+        Assert.assertEquals(Arrays.asList("banana", "barn", "dog"), scan(new CountingIterator(data), options, new Range()));
+        Assert.assertEquals(Arrays.asList("barn"), scan(new CountingIterator(data), options, new Range("bar", "cat")));
+    }
+    
+    @Test
+    public void testReverseIndex() throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 1, ".*r");
+        options.put(GlobalIndexTermMatchingFilter.LITERAL + 1, "zebra");
+        options.put(GlobalIndexTermMatchingFilter.REVERSE_INDEX, "true");
+        
+        Assert.assertEquals(Arrays.asList("arbez", "rab", "rac"), scan(new CountingIterator(reverseData), options, new Range()));
+    }
+    
+    @Test
+    public void testUnsupportedPattern() throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 1, "(b|c)a\\1?r.*");
+        
+        Assert.assertEquals(Arrays.asList("bar", "barn", "car", "cart"), scan(new CountingIterator(data), options, new Range()));
+    }
+    
+    private List<String> scan(CountingIterator source, Map<String,String> options, Range range) throws IOException {
+        GlobalIndexTermMatchingIterator iterator = new GlobalIndexTermMatchingIterator();
+        options.put(GlobalIndexTermMatchingIterator.UNIQUE_TERMS_IN_FIELD, "true");
+        iterator.init(source, options, null);
+        iterator.seek(range, Collections.emptyList(), false);
+        
+        List<String> rows = new ArrayList<>();
+        while (iterator.hasTop()) {
+            rows.add(iterator.getTopKey().getRow().toString());
+            iterator.next();
+        }
+        return rows;
+    }
+    
+    private static class CountingIterator extends WrappingIterator {
+        private int visited = 0;
+        
+        private CountingIterator(SortedMap<Key,Value> data) {
+            setSource(new SortedMapIterator(data));
+        }
+        
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+            super.seek(range, columnFamilies, inclusive);
+            if (hasTop()) {
+                visited++;
+            }
+        }
+        
+        @Override
+        public void next() throws IOException {
+            super.next();
+            if (hasTop()) {
+                visited++;
+            }
+        }
+    }
+}
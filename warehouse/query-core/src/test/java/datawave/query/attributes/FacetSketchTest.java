@@ -0,0 +1,93 @@
+package datawave.query.attributes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class FacetSketchTest {
+    
+    @Test
+    public void testExactUnderCapacity() throws Exception {
+        FacetSketch sketch = new FacetSketch(10);
+        for (String value : new String[] {"a", "b", "a", "c", "a", "b"}) {
+            sketch.offer(value);
+        }
+        
+        List<FacetSketch.Facet> top = sketch.getTop(2);
+        Assert.assertEquals(2, top.size());
+        assertFacet(top.get(0), "a", 3, 0);
+        assertFacet(top.get(1), "b", 2, 0);
+        Assert.assertEquals(0, sketch.getMissingCount());
+        Assert.assertEquals(3, sketch.getDistinctValues());
+    }
+    
+    @Test
+    public void testMergedBounds() throws Exception {
+        Random random = new Random(42);
+        Map<String,Long> actual = new HashMap<>();
+        List<FacetSketch> tablets = new ArrayList<>();
+        for (int tablet = 0; tablet < 8; tablet++) {
+            FacetSketch sketch = new FacetSketch(20);
+            for (int i = 0; i < 5000; i++) {
+                // a skewed distribution over 500 values
+                String value = "v" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 500);
+                sketch.offer(value);
+                actual.merge(value, 1L, Long::sum);
+            }
+            tablets.add(new FacetSketch(sketch.getBytes()));
+        }
+        
+        FacetSketch merged = new FacetSketch(20);
+        for (FacetSketch sketch : tablets) {
+            merged.merge(sketch);
+        }
+        
+        List<FacetSketch.Facet> top = merged.getTop(20);
+        Assert.assertEquals(20, top.size());
+        for (FacetSketch.Facet facet : top) {
+            long count = actual.get(facet.getValue());
+            Assert.assertTrue(facet.toString(), facet.getCount() >= count);
+            Assert.assertTrue(facet.toString(), facet.getCount() - facet.getError() <= count);
+        }
+        for (Map.Entry<String,Long> entry : actual.entrySet()) {
+            boolean kept = top.stream().anyMatch(f -> f.getValue().equals(entry.getKey()));
+            Assert.assertTrue(entry.toString(), kept || entry.getValue() <= merged.getMissingCount());
+        }
+        
+        // the heaviest values are found
+        Assert.assertEquals("v0", top.get(0).getValue());
+        Assert.assertEquals(500, merged.getDistinctValues(), 25);
+    }
+    
+    @Test
+    public void testSerialization() throws Exception {
+        FacetSketch sketch = new FacetSketch(2);
+        for (String value : new String[] {"a", "b", "a", "c", "a"}) {
+            sketch.offer(value);
+        }
+        
+        FacetSketch copy = new FacetSketch(sketch.getBytes());
+        Assert.assertEquals(2, copy.getCapacity());
+        Assert.assertEquals(sketch.getTop(2).toString(), copy.getTop(2).toString());
+        Assert.assertEquals(sketch.getMissingCount(), copy.getMissingCount());
+        Assert.assertEquals(sketch.getDistinctValues(), copy.getDistinctValues());
+        
+        // values offered after a merge are folded in as another sketch, c having replaced b with an error of 1
+        copy.offer("c");
+        copy.offer("c");
+        List<FacetSketch.Facet> top = copy.getTop(2);
+        assertFacet(top.get(0), "c", 4, 1);
+        assertFacet(top.get(1), "a", 3, 0);
+    }
+    
+    private static void assertFacet(FacetSketch.Facet facet, String value, long count, long error) {
+        Assert.assertEquals(value, facet.getValue());
+        Assert.assertEquals(count, facet.getCount());
+        Assert.assertEquals(error, facet.getError());
+    }
+}
@@ -59,6 +59,10 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(Long.MAX_VALUE, config.getMaxIndexScanTimeMillis());
         Assert.assertFalse(config.getCollapseUids());
         Assert.assertFalse(config.getSequentialScheduler());
+        Assert.assertFalse(config.getOrderedScheduler());
+        Assert.assertEquals(8, config.getOrderedScanLookahead());
+        Assert.assertEquals(1000, config.getOrderedScanQueueSize());
+        Assert.assertEquals(-1, config.getTopK());
         Assert.assertFalse(config.getCollectTimingDetails());
         Assert.assertFalse(config.getLogTimingDetails());
         Assert.assertTrue(config.getSendTimingToStatsd());
@@ -84,6 +88,7 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(TableName.METADATA, config.getMetadataTableName());
         Assert.assertEquals(TableName.DATE_INDEX, config.getDateIndexTableName());
         Assert.assertEquals(TableName.INDEX_STATS, config.getIndexStatsTableName());
+        Assert.assertEquals(TableName.FIELD_STATS, config.getFieldStatsTableName());
         Assert.assertEquals("EVENT", config.getDefaultDateTypeName());
         Assert.assertTrue(config.isCleanupShardsAndDaysQueryHints());
         Assert.assertEquals(new Integer(8), config.getNumQueryThreads());
@@ -128,6 +133,10 @@ public class ShardQueryConfigurationTest {
         Assert.assertTrue(config.isFailOutsideValidDateRange());
         Assert.assertFalse(config.isRawTypes());
         Assert.assertEquals(-1.0, config.getMinSelectivity(), 0);
+        Assert.assertFalse(config.isCostBasedPlanning());
+        Assert.assertEquals(100.0, config.getMaxTermCostRatio(), 0);
+        Assert.assertEquals(-1, config.getEstimatedQueryCost());
+        Assert.assertEquals(0, config.getIndexExpansionCacheMillis());
         Assert.assertFalse(config.getIncludeDataTypeAsField());
         Assert.assertTrue(config.getIncludeRecordId());
         Assert.assertFalse(config.getIncludeHierarchyFields());
@@ -139,6 +148,10 @@ public class ShardQueryConfigurationTest {
         Assert.assertTrue(config.getAllowShortcutEvaluation());
         Assert.assertFalse(config.getBypassAccumulo());
         Assert.assertFalse(config.getSpeculativeScanning());
+        Assert.assertFalse(config.getHedgedScanning());
+        Assert.assertEquals(0.95, config.getHedgedScanPercentile(), 0.0);
+        Assert.assertEquals(1000, config.getHedgedScanMinDelay());
+        Assert.assertEquals(0.05, config.getHedgedScanBudget(), 0.0);
         Assert.assertFalse(config.isDisableEvaluation());
         Assert.assertFalse(config.isContainsIndexOnlyTerms());
         Assert.assertFalse(config.isContainsCompositeTerms());
@@ -181,11 +194,15 @@ public class ShardQueryConfigurationTest {
         Assert.assertFalse(config.isIndexOnlyFilterFunctionsEnabled());
         Assert.assertFalse(config.isCompositeFilterFunctionsEnabled());
         Assert.assertEquals(0, config.getGroupFieldsBatchSize());
+        Assert.assertEquals(100000, config.getGroupFieldsMaxGroups());
+        Assert.assertEquals(500000, config.getUniqueFieldsMaxEntries());
         Assert.assertFalse(config.getAccrueStats());
         Assert.assertEquals(Sets.newHashSet(), config.getGroupFields());
         Assert.assertEquals(Sets.newHashSet(), config.getUniqueFields());
         Assert.assertFalse(config.getCacheModel());
         Assert.assertTrue(config.isTrackSizes());
+        Assert.assertFalse(config.isDocumentCache());
+        Assert.assertEquals(0, config.getSourceNextsBeforeSeek());
         Assert.assertEquals(Lists.newArrayList(), config.getContentFieldNames());
     }
     
@@ -431,7 +448,7 @@ public class ShardQueryConfigurationTest {
      */
     @Test
     public void testCheckForNewAdditions() throws IOException {
-        int expectedObjectCount = 167;
+        int expectedObjectCount = 179;
         ShardQueryConfiguration config = ShardQueryConfiguration.create();
         ObjectMapper mapper = new ObjectMapper();
         JsonNode root = mapper.readTree(mapper.writeValueAsString(config));
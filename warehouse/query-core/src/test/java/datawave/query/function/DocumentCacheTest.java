@@ -0,0 +1,171 @@
+package datawave.query.function;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.accumulo.core.iterators.system.ColumnFamilySkippingIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import datawave.query.attributes.Document;
+import datawave.query.iterator.aggregation.DocumentData;
+import datawave.query.iterator.profile.QuerySpan;
+
+public class DocumentCacheTest {
+    
+    private static final Authorizations AUTHS = new Authorizations("A", "B");
+    
+    private SortedMap<Key,Value> data;
+    
+    private DocumentCache cache;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        for (String uid : new String[] {"uid1", "uid2"}) {
+            for (int i = 0; i < 10; i++) {
+                data.put(new Key("20190101_0", "datatype\u0000" + uid, "FIELD" + i + "\u0000value" + i, "A"), new Value(new byte[0]));
+            }
+            data.put(new Key("20190101_0", "tf", "datatype\u0000" + uid + "\u0000value\u0000FIELD0"), new Value(new byte[0]));
+        }
+        cache = new DocumentCache(1024 * 1024, 60000);
+    }
+    
+    @Test
+    public void testLoadedOncePerDocument() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        Key documentKey = new Key("20190101_0", "datatype\u0000uid1");
+        List<Object> cacheKey = DocumentCache.getCacheKey("shard", AUTHS, documentKey);
+        
+        Assert.assertNull(cache.getIfPresent(cacheKey));
+        DocumentCache.CachedDocument first = cache.get(cacheKey, () -> {
+            loads.incrementAndGet();
+            return document("uid1");
+        });
+        DocumentCache.CachedDocument second = cache.get(DocumentCache.getCacheKey("shard", new Authorizations("B", "A"), documentKey), () -> {
+            loads.incrementAndGet();
+            return document("uid1");
+        });
+        Assert.assertSame(first, second);
+        Assert.assertSame(first, cache.getIfPresent(cacheKey));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        
+        // other authorizations and tables do not share the document
+        Assert.assertNull(cache.getIfPresent(DocumentCache.getCacheKey("shard", new Authorizations("A"), documentKey)));
+        Assert.assertNull(cache.getIfPresent(DocumentCache.getCacheKey("errorShard", AUTHS, documentKey)));
+    }
+    
+    @Test
+    public void testFailedLoadIsNotCached() throws IOException {
+        List<Object> cacheKey = DocumentCache.getCacheKey("shard", AUTHS, new Key("20190101_0", "datatype\u0000uid1"));
+        try {
+            cache.get(cacheKey, () -> {
+                throw new IOException("tablet closed");
+            });
+            Assert.fail("Expected an IOException");
+        } catch (IOException e) {
+            Assert.assertEquals("tablet closed", e.getMessage());
+        }
+        Assert.assertNull(cache.getIfPresent(cacheKey));
+    }
+    
+    @Test
+    public void testEvictedBySize() throws IOException {
+        DocumentCache.CachedDocument document = document("uid1");
+        long maxBytes = document.getWeight() * 20L;
+        DocumentCache small = new DocumentCache(maxBytes, 60000);
+        for (int shard = 0; shard < 100; shard++) {
+            small.get(DocumentCache.getCacheKey("shard", AUTHS, new Key("20190101_" + shard, "datatype\u0000uid1")), () -> document);
+        }
+        Assert.assertTrue(small.size() > 0);
+        Assert.assertTrue(small.size() * document.getWeight() <= maxBytes);
+    }
+    
+    @Test
+    public void testCachedDocumentIterator() throws IOException {
+        SortedKeyValueIterator<Key,Value> iterator = document("uid1").iterator();
+        
+        iterator.seek(new Range(new Key("20190101_0", "datatype\u0000uid1", "FIELD5"), true, null, true), Collections.<ByteSequence> emptyList(), false);
+        Assert.assertEquals(5, count(iterator));
+        
+        iterator.seek(new Range(new Key("20190101_0", "datatype\u0000uid1", "FIELD3"), false, new Key("20190101_0", "datatype\u0000uid1",
+                        "FIELD4"), true), Collections.<ByteSequence> emptyList(), false);
+        Assert.assertEquals(1, count(iterator));
+        
+        iterator.seek(new Range(), Collections.<ByteSequence> singleton(new ArrayByteSequence("datatype\u0000uid1")), false);
+        Assert.assertFalse(iterator.hasTop());
+    }
+    
+    @Test
+    public void testKeyToDocumentDataSharesDocuments() throws IOException {
+        Key documentKey = new Key("20190101_0", "datatype\u0000uid2");
+        Map.Entry<Key,Document> from = Maps.immutableEntry(documentKey, new Document());
+        
+        Map.Entry<DocumentData,Document> expected = new KeyToDocumentData(source(new AtomicInteger())).apply(from);
+        
+        QuerySpan span = new QuerySpan(null);
+        AtomicInteger firstReads = new AtomicInteger();
+        KeyToDocumentData first = new KeyToDocumentData(source(firstReads));
+        first.setDocumentCache(cache, "shard", AUTHS, span);
+        AtomicInteger secondReads = new AtomicInteger();
+        KeyToDocumentData second = new KeyToDocumentData(source(secondReads));
+        second.setDocumentCache(cache, "shard", AUTHS, span);
+        
+        Assert.assertEquals(expected.getKey().getData(), first.apply(from).getKey().getData());
+        Assert.assertEquals(expected.getKey().getData(), second.apply(from).getKey().getData());
+        Assert.assertEquals(10, expected.getKey().getData().size());
+        Assert.assertTrue(firstReads.get() > 0);
+        Assert.assertEquals(0, secondReads.get());
+        Assert.assertEquals(1, span.getDocumentCacheHits());
+        Assert.assertEquals(1, span.getDocumentCacheMisses());
+    }
+    
+    private DocumentCache.CachedDocument document(String uid) {
+        Key start = new Key("20190101_0", "datatype\u0000" + uid);
+        return new DocumentCache.CachedDocument(Lists.newArrayList(data.subMap(start, start.followingKey(PartialKey.ROW_COLFAM)).entrySet()));
+    }
+    
+    private SortedKeyValueIterator<Key,Value> source(AtomicInteger reads) {
+        return new WrappingIterator() {
+            {
+                setSource(new ColumnFamilySkippingIterator(new SortedMapIterator(data)));
+            }
+            
+            @Override
+            public void next() throws IOException {
+                reads.incrementAndGet();
+                super.next();
+            }
+        };
+    }
+    
+    private int count(SortedKeyValueIterator<Key,Value> iterator) throws IOException {
+        int count = 0;
+        while (iterator.hasTop()) {
+            count++;
+            iterator.next();
+        }
+        return count;
+    }
+}
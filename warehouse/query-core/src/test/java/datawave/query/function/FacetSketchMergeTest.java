@@ -0,0 +1,101 @@
+package datawave.query.function;
+
+import com.google.common.collect.Maps;
+import datawave.query.attributes.Content;
+import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+public class FacetSketchMergeTest {
+    
+    private static final int SHARDS = 6;
+    private static final int DOCUMENTS_PER_SHARD = 2000;
+    private static final int SKETCH_SIZE = 20;
+    
+    @Test
+    public void testMergedCountsWithinErrorBounds() {
+        Random random = new Random(7);
+        Map<String,Long> exact = new HashMap<>();
+        
+        FacetSketchMerge merge = new FacetSketchMerge();
+        Entry<Key,Document> merged = null;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            // each shard sees a different skew over the same 300 values, so the sketches disagree on the lighter values
+            double skew = 2 + shard % 3;
+            FacetSketching sketching = new FacetSketching(SKETCH_SIZE);
+            for (int i = 0; i < DOCUMENTS_PER_SHARD; i++) {
+                String value = "v" + (int) Math.floor(Math.pow(random.nextDouble(), skew) * 300);
+                exact.merge(value, 1L, Long::sum);
+                
+                Key key = new Key("2019010" + shard + "_0", "datatype\u0000uid" + i);
+                Document doc = new Document(key, true);
+                doc.put("COLOR", new Content(value, new Key(key.getRow().toString(), key.getColumnFamily().toString(), "", "A", 0), true));
+                sketching.apply(Maps.immutableEntry(key, doc));
+            }
+            merged = merge.apply(sketching.getTop());
+        }
+        
+        FacetSketch sketch = ((FacetSummary) merged.getValue().get("COLOR")).getContent();
+        List<FacetSketch.Facet> top = sketch.getTop(SKETCH_SIZE);
+        Assert.assertEquals(SKETCH_SIZE, top.size());
+        
+        // every count overestimates the exact count by no more than its error
+        for (FacetSketch.Facet facet : top) {
+            long count = exact.get(facet.getValue());
+            Assert.assertTrue(facet + " exact " + count, facet.getCount() >= count);
+            Assert.assertTrue(facet + " exact " + count, facet.getCount() - facet.getError() <= count);
+        }
+        
+        // and no value that was dropped could have been counted more than the missing count
+        for (Entry<String,Long> entry : exact.entrySet()) {
+            boolean kept = top.stream().anyMatch(f -> f.getValue().equals(entry.getKey()));
+            Assert.assertTrue(entry.toString(), kept || entry.getValue() <= sketch.getMissingCount());
+        }
+        
+        // the heaviest value is found
+        String heaviest = exact.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
+        Assert.assertEquals(heaviest, top.get(0).getValue());
+        Assert.assertEquals(exact.size(), sketch.getDistinctValues(), exact.size() * 0.1);
+    }
+    
+    @Test
+    public void testMergesVisibilitiesAndIgnoresOtherAttributes() {
+        FacetSketchMerge merge = new FacetSketchMerge();
+        
+        merge.apply(Maps.immutableEntry(new Key("20190101_0"), summary("COLOR", "A", "red", "red", "blue")));
+        Document other = summary("COLOR", "B", "red");
+        other.put("OTHER", new Content("value", new Key("20190101_0", "datatype\u0000uid0", "", "C"), true));
+        Entry<Key,Document> merged = merge.apply(Maps.immutableEntry(new Key("20190101_1"), other));
+        
+        Assert.assertEquals(new Key("20190101_1"), merged.getKey());
+        Assert.assertEquals(1, merged.getValue().getDictionary().size());
+        FacetSummary color = (FacetSummary) merged.getValue().get("COLOR");
+        Assert.assertEquals(new ColumnVisibility("A&B"), color.getColumnVisibility());
+        
+        List<FacetSketch.Facet> top = color.getContent().getTop(10);
+        Assert.assertEquals("red", top.get(0).getValue());
+        Assert.assertEquals(3, top.get(0).getCount());
+        Assert.assertEquals("blue", top.get(1).getValue());
+        Assert.assertEquals(1, top.get(1).getCount());
+    }
+    
+    private static Document summary(String field, String visibility, String... values) {
+        FacetSketch sketch = new FacetSketch(SKETCH_SIZE);
+        for (String value : values) {
+            sketch.offer(value);
+        }
+        Document doc = new Document();
+        doc.put(field, new FacetSummary(sketch, new Key("", "", "", visibility, -1), true));
+        return doc;
+    }
+}
@@ -0,0 +1,112 @@
+package datawave.query.function;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import datawave.query.attributes.Content;
+import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+public class FacetSketchingTest {
+    
+    private static final String ROW = "20190101_0";
+    
+    @Test
+    public void testCountsEachDocumentOncePerValue() {
+        FacetSketching sketching = new FacetSketching(10);
+        
+        // the first document holds red twice, which only counts once
+        Document first = document("uid0");
+        put(first, "COLOR", "red", "A", 0);
+        put(first, "COLOR", "red", "A", 1);
+        put(first, "COLOR", "blue", "A", 2);
+        sketching.apply(Maps.immutableEntry(key("uid0"), first));
+        
+        Document second = document("uid1");
+        put(second, "COLOR", "red", "B", 0);
+        put(second, "SHAPE", "square", "A", 0);
+        sketching.apply(Maps.immutableEntry(key("uid1"), second));
+        
+        Entry<Key,Document> top = sketching.getTop();
+        Assert.assertEquals(key("uid1"), top.getKey());
+        Assert.assertEquals(Sets.newHashSet("COLOR", "SHAPE"), top.getValue().getDictionary().keySet());
+        
+        FacetSummary color = (FacetSummary) top.getValue().get("COLOR");
+        List<FacetSketch.Facet> facets = color.getContent().getTop(10);
+        Assert.assertEquals(2, facets.size());
+        assertFacet(facets.get(0), "red", 2);
+        assertFacet(facets.get(1), "blue", 1);
+        Assert.assertEquals(2, color.getContent().getDistinctValues());
+        
+        // each sketch is marked with the combined visibility of the values that were counted for its field
+        Assert.assertEquals(new ColumnVisibility("A&B"), color.getColumnVisibility());
+        FacetSummary shape = (FacetSummary) top.getValue().get("SHAPE");
+        Assert.assertEquals(new ColumnVisibility("A"), shape.getColumnVisibility());
+        assertFacet(shape.getContent().getTop(10).get(0), "square", 1);
+    }
+    
+    @Test
+    public void testCardinalities() {
+        // the iterator converts the values to cardinalities before they are sketched
+        FacetSketching sketching = new FacetSketching(10);
+        for (int i = 0; i < 3; i++) {
+            Document doc = document("uid" + i);
+            put(doc, "COLOR", (i == 0) ? "blue" : "red", "A", 0);
+            sketching.apply(new AttributeToCardinality().apply(Maps.immutableEntry(key("uid" + i), doc)));
+        }
+        
+        List<FacetSketch.Facet> facets = ((FacetSummary) sketching.getTop().getValue().get("COLOR")).getContent().getTop(10);
+        Assert.assertEquals(2, facets.size());
+        assertFacet(facets.get(0), "red", 2);
+        assertFacet(facets.get(1), "blue", 1);
+    }
+    
+    @Test
+    public void testSketchSize() {
+        // the sketch keeps at most the sketch size values, with the heaviest values and bounds on the others
+        FacetSketching sketching = new FacetSketching(2);
+        int uid = 0;
+        for (String value : new String[] {"a", "a", "a", "a", "a", "a", "b", "c", "d"}) {
+            Document doc = document("uid" + uid);
+            put(doc, "FIELD", value, "A", 0);
+            sketching.apply(Maps.immutableEntry(key("uid" + uid++), doc));
+        }
+        
+        FacetSketch sketch = ((FacetSummary) sketching.getTop().getValue().get("FIELD")).getContent();
+        List<FacetSketch.Facet> facets = sketch.getTop(10);
+        Assert.assertEquals(2, facets.size());
+        assertFacet(facets.get(0), "a", 6);
+        
+        // the values that were dropped are bounded by the missing count, and the kept one overestimates by at most its error
+        Assert.assertEquals(3, sketch.getMissingCount());
+        Assert.assertTrue(facets.get(1).getCount() - facets.get(1).getError() <= 1);
+        Assert.assertEquals(4, sketch.getDistinctValues());
+    }
+    
+    private static Key key(String uid) {
+        return new Key(ROW, "datatype\u0000" + uid);
+    }
+    
+    private static Document document(String uid) {
+        return new Document(key(uid), true);
+    }
+    
+    private static void put(Document doc, String field, String value, String visibility, long timestamp) {
+        // the timestamp keeps repeated values of a field apart
+        Key metadata = new Key(doc.getMetadata().getRow().toString(), doc.getMetadata().getColumnFamily().toString(), "", visibility, timestamp);
+        doc.put(field, new Content(value, metadata, true));
+    }
+    
+    private static void assertFacet(FacetSketch.Facet facet, String value, long count) {
+        Assert.assertEquals(value, facet.getValue());
+        Assert.assertEquals(count, facet.getCount());
+        Assert.assertEquals(0, facet.getError());
+    }
+}
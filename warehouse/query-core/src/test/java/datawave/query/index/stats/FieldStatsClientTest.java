@@ -0,0 +1,124 @@
+package datawave.query.index.stats;
+
+import com.google.common.collect.Sets;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.FieldStatsSketch;
+import datawave.iterators.FieldStatsSketchCombiner;
+import datawave.util.TableName;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+public class FieldStatsClientTest {
+    
+    private static final Authorizations AUTHS = new Authorizations("A");
+    
+    private Connector connector;
+    private FieldStatsClient client;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A", "B"));
+        connector.tableOperations().create(TableName.FIELD_STATS);
+        
+        // the same combiner that the FieldStatsTableConfigHelper configures
+        IteratorSetting setting = new IteratorSetting(19, FieldStatsSketchCombiner.class);
+        Combiner.setCombineAllColumns(setting, true);
+        connector.tableOperations().attachIterator(TableName.FIELD_STATS, setting);
+        
+        // FIELD_A is written twice for the first day, as separate ingest jobs would
+        write("FIELD_A", "20190601", "dtA", 0, 1000, "A");
+        write("FIELD_A", "20190601", "dtA", 0, 1000, "A");
+        write("FIELD_A", "20190602", "dtA", 500, 1500, "A");
+        write("FIELD_A", "20190602", "dtB", 0, 100, "A");
+        write("FIELD_A", "20190603", "dtA", 2000, 3000, "A");
+        write("FIELD_B", "20190601", "dtA", 0, 10, "A");
+        write("FIELD_C", "20190601", "dtA", 0, 10, "B");
+        
+        client = new FieldStatsClient(connector);
+    }
+    
+    @Test
+    public void testMergesDaysAndDataTypes() throws Exception {
+        Map<String,FieldStatsSketch> stats = client.getStats(Collections.singleton("FIELD_A"), Collections.emptySet(), DateHelper.parse("20190601"),
+                        DateHelper.parse("20190602"), AUTHS);
+        Assert.assertEquals(Collections.singleton("FIELD_A"), stats.keySet());
+        
+        // the third day is outside of the date range, and the overlapping values of the first two days are only counted once
+        FieldStatsSketch sketch = stats.get("FIELD_A");
+        Assert.assertEquals(3100, sketch.getCount());
+        Assert.assertEquals(1500, sketch.getCardinality(), 1500 * 0.05);
+    }
+    
+    @Test
+    public void testDataTypes() throws Exception {
+        Map<String,FieldStatsSketch> stats = client.getStats(Collections.singleton("FIELD_A"), Collections.singleton("dtB"), DateHelper.parse("20190601"),
+                        DateHelper.parse("20190603"), AUTHS);
+        Assert.assertEquals(100, stats.get("FIELD_A").getCount());
+        Assert.assertEquals(100, stats.get("FIELD_A").getCardinality(), 100 * 0.05);
+    }
+    
+    @Test
+    public void testAllFields() throws Exception {
+        Map<String,FieldStatsSketch> stats = client.getStats(Collections.emptySet(), Collections.emptySet(), DateHelper.parse("20190601"),
+                        DateHelper.parse("20190601"), AUTHS);
+        
+        // FIELD_C is not visible with these authorizations
+        Assert.assertEquals(Sets.newHashSet("FIELD_A", "FIELD_B"), stats.keySet());
+        Assert.assertEquals(2000, stats.get("FIELD_A").getCount());
+        Assert.assertEquals(1000, stats.get("FIELD_A").getCardinality(), 1000 * 0.05);
+        Assert.assertEquals(10, stats.get("FIELD_B").getCount());
+        Assert.assertEquals(10, stats.get("FIELD_B").getCardinality());
+    }
+    
+    @Test
+    public void testFieldsWithoutStatsAreOmitted() throws Exception {
+        Map<String,FieldStatsSketch> stats = client.getStats(Sets.newHashSet("FIELD_B", "FIELD_C", "MISSING"), Collections.emptySet(),
+                        DateHelper.parse("20190601"), DateHelper.parse("20190603"), AUTHS);
+        Assert.assertEquals(Collections.singleton("FIELD_B"), stats.keySet());
+        
+        stats = client.getStats(Sets.newHashSet("FIELD_B", "FIELD_C", "MISSING"), Collections.emptySet(), DateHelper.parse("20190601"),
+                        DateHelper.parse("20190603"), new Authorizations("A", "B"));
+        Assert.assertEquals(Sets.newHashSet("FIELD_B", "FIELD_C"), stats.keySet());
+    }
+    
+    @Test(expected = TableNotFoundException.class)
+    public void testMissingTable() throws Exception {
+        new FieldStatsClient(connector, "missing").getStats(Collections.singleton("FIELD_A"), Collections.emptySet(), DateHelper.parse("20190601"),
+                        DateHelper.parse("20190603"), AUTHS);
+    }
+    
+    @Test
+    public void testSafeGetStatsMissingTable() {
+        Assert.assertTrue(new FieldStatsClient(connector, "missing").safeGetStats(Collections.singleton("FIELD_A"), Collections.emptySet(),
+                        DateHelper.parse("20190601"), DateHelper.parse("20190603"), AUTHS).isEmpty());
+    }
+    
+    private void write(String field, String day, String dataType, int from, int to, String visibility) throws Exception {
+        FieldStatsSketch sketch = new FieldStatsSketch();
+        for (int i = from; i < to; i++) {
+            sketch.offer("value" + i);
+        }
+        BatchWriter writer = connector.createBatchWriter(TableName.FIELD_STATS, new BatchWriterConfig());
+        Mutation m = new Mutation(field);
+        m.put(day, dataType, new ColumnVisibility(visibility), sketch.getValue());
+        writer.addMutation(m);
+        writer.close();
+    }
+}
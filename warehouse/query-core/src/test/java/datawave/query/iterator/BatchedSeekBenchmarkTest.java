@@ -0,0 +1,255 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import datawave.query.attributes.Document;
+
+/**
+ * A microbenchmark of intersecting sorted batches of candidate documents with a large synthetic field index, as a selective term of an AND does, with and
+ * without the sources reading forward to nearby candidates. The seeks of the field index are counted, since the time of a seek of an in memory map says
+ * little about the time of a seek of an RFile.
+ */
+public class BatchedSeekBenchmarkTest {
+    
+    private static final Logger log = Logger.getLogger(BatchedSeekBenchmarkTest.class);
+    
+    private static final String SHARD = "20190101_0";
+    private static final String FIELD_INDEX = "fi\u0000FOO";
+    private static final int DOCUMENTS = 20000;
+    private static final int CANDIDATES = 200;
+    
+    private static final Key END = new Key(SHARD, FIELD_INDEX, "bar\u0001");
+    
+    private static SortedMap<Key,Value> data;
+    
+    @BeforeClass
+    public static void setup() {
+        // every other document has FOO == bar, along with the event keys of every document
+        data = new TreeMap<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            if (i % 2 == 0) {
+                data.put(new Key(SHARD, FIELD_INDEX, "bar\u0000" + uid(i)), new Value(new byte[0]));
+            }
+            data.put(new Key(SHARD, uid(i), "FOO\u0000bar"), new Value(new byte[0]));
+        }
+    }
+    
+    @Test
+    public void testDenseCandidates() throws IOException {
+        NavigableSet<Key> candidates = candidates(4);
+        List<Key> expected = run(candidates, 0).found;
+        
+        Result reading = run(candidates, 32);
+        Assert.assertEquals(expected, reading.found);
+        Assert.assertTrue(reading.seeks * 10 < CANDIDATES);
+    }
+    
+    @Test
+    public void testSparseCandidates() throws IOException {
+        NavigableSet<Key> candidates = candidates(50);
+        Result seeking = run(candidates, 0);
+        Assert.assertTrue(seeking.seeks <= CANDIDATES);
+        Assert.assertEquals(0, seeking.nexts);
+        
+        // most candidates are too far apart to read forward to, which costs at most the nexts before each seek
+        Result reading = run(candidates, 4);
+        Assert.assertEquals(seeking.found, reading.found);
+        Assert.assertTrue(reading.seeks <= seeking.seeks);
+        Assert.assertTrue(reading.nexts <= 4L * CANDIDATES);
+    }
+    
+    /**
+     * Reports the seeks, nexts, and time of each combination of candidate density and reading forward; not run with the unit tests
+     */
+    @Ignore
+    @Test
+    public void benchmark() throws IOException {
+        for (int gap : new int[] {2, 8, 32, 96}) {
+            NavigableSet<Key> candidates = candidates(gap);
+            List<Key> expected = null;
+            for (int nextsBeforeSeek : new int[] {0, 8, 64, 512}) {
+                Result result = run(candidates, nextsBeforeSeek);
+                if (null == expected) {
+                    expected = result.found;
+                }
+                Assert.assertEquals(expected, result.found);
+                log.info("gap " + gap + ", nexts before seek " + nextsBeforeSeek + ": found " + result.found.size() + " of " + candidates.size() + " with "
+                                + result.seeks + " seeks and " + result.nexts + " nexts in " + result.millis + "ms");
+            }
+        }
+    }
+    
+    private static String uid(int i) {
+        return String.format("datatype\u0000uid%07d", i);
+    }
+    
+    /**
+     * @param gap
+     *            the average distance between the candidates, in documents
+     * @return the candidate document keys
+     */
+    private static NavigableSet<Key> candidates(int gap) {
+        Random random = new Random(gap);
+        NavigableSet<Key> candidates = new TreeSet<>();
+        int i = 0;
+        while (candidates.size() < CANDIDATES) {
+            i += 1 + random.nextInt(2 * gap);
+            candidates.add(new Key(SHARD, uid(i % DOCUMENTS)));
+        }
+        return candidates;
+    }
+    
+    private static Result run(NavigableSet<Key> candidates, int nextsBeforeSeek) throws IOException {
+        SeekCounter counter = new SeekCounter(new SortedMapIterator(data));
+        SourceManager source = new SourceManager(counter);
+        source.setNextsBeforeSeek(nextsBeforeSeek);
+        
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+        result.found = moveAll(new FieldIndexIterator(source), candidates);
+        result.millis = System.currentTimeMillis() - start;
+        result.seeks = counter.seeks;
+        result.nexts = counter.nexts;
+        
+        Assert.assertEquals(counter.seeks, source.getSeekCount());
+        return result;
+    }
+    
+    /**
+     * Moves through a sorted batch of candidates, returning those that the iterator contains. Each move starts from the first candidate at or after the
+     * element last found, so candidates that are passed over are skipped without a move.
+     */
+    private static List<Key> moveAll(NestedIterator<Key> iterator, NavigableSet<Key> candidates) {
+        List<Key> found = new ArrayList<>();
+        Key candidate = candidates.isEmpty() ? null : candidates.first();
+        while (null != candidate) {
+            Key next = iterator.move(candidate);
+            if (null == next) {
+                break;
+            }
+            if (candidates.contains(next)) {
+                found.add(next);
+            }
+            candidate = candidates.higher(next);
+        }
+        return found;
+    }
+    
+    private static class Result {
+        List<Key> found;
+        long seeks;
+        long nexts;
+        long millis;
+    }
+    
+    /**
+     * Moves through the field index FOO == bar by seeking to each target, as an index iterator does for the ranges of a batch
+     */
+    private static class FieldIndexIterator implements NestedIterator<Key> {
+        
+        private final SortedKeyValueIterator<Key,Value> source;
+        
+        FieldIndexIterator(SortedKeyValueIterator<Key,Value> source) {
+            this.source = source;
+        }
+        
+        @Override
+        public void initialize() {}
+        
+        @Override
+        public Key move(Key minimum) {
+            try {
+                Key start = new Key(SHARD, FIELD_INDEX, "bar\u0000" + minimum.getColumnFamily());
+                source.seek(new Range(start, true, END, false), Collections.<ByteSequence> emptyList(), false);
+                return source.hasTop() ? getDocument(source.getTopKey()) : null;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return source.hasTop();
+        }
+        
+        @Override
+        public Key next() {
+            try {
+                Key document = getDocument(source.getTopKey());
+                source.next();
+                return document;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        
+        private Key getDocument(Key fieldIndexKey) {
+            String cq = fieldIndexKey.getColumnQualifier().toString();
+            return new Key(SHARD, cq.substring(cq.indexOf('\u0000') + 1));
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> leaves() {
+            return Collections.<NestedIterator<Key>> singleton(this);
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> children() {
+            return Collections.emptyList();
+        }
+        
+        @Override
+        public Document document() {
+            return null;
+        }
+    }
+    
+    private static class SeekCounter extends WrappingIterator {
+        long seeks = 0;
+        long nexts = 0;
+        
+        SeekCounter(SortedKeyValueIterator<Key,Value> source) {
+            setSource(source);
+        }
+        
+        @Override
+        public void next() throws IOException {
+            nexts++;
+            super.next();
+        }
+        
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+            seeks++;
+            super.seek(range, columnFamilies, inclusive);
+        }
+        
+        @Override
+        public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+            return new SeekCounter(getSource().deepCopy(env));
+        }
+    }
+}
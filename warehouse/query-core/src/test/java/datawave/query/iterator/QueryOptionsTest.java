@@ -1,6 +1,8 @@
 package datawave.query.iterator;
 
 import com.google.common.collect.Sets;
+import datawave.query.util.TypeMetadata;
+import datawave.query.util.TypeMetadataCache;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.junit.BeforeClass;
@@ -11,6 +13,8 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class QueryOptionsTest {
     
@@ -93,4 +97,31 @@ public class QueryOptionsTest {
         Set<String> dataTypeKeys = QueryOptions.fetchDataTypeKeys(data);
         assertEquals("Failed to parse null option string", expectedDataTypeKeys, dataTypeKeys);
     }
+    
+    @Test
+    public void testTypeMetadataSharedByVersion() {
+        TypeMetadata typeMetadata = new TypeMetadata();
+        typeMetadata.put("FIELD1", "datatype", "datawave.data.type.LcNoDiacriticsType");
+        typeMetadata.put("FIELD2", "datatype", "datawave.data.type.NumberType");
+        String typeMetadataString = typeMetadata.toString();
+        
+        Map<String,String> options = new HashMap<>();
+        options.put(QueryOptions.TYPE_METADATA, typeMetadataString);
+        options.put(QueryOptions.TYPE_METADATA_VERSION, TypeMetadataCache.getVersion(typeMetadataString));
+        
+        // scan sessions of the same version share the parsed TypeMetadata
+        QueryOptions first = new QueryOptions();
+        first.validateTypeMetadata(options);
+        QueryOptions second = new QueryOptions();
+        second.validateTypeMetadata(options);
+        assertEquals(typeMetadataString, first.getTypeMetadata().toString());
+        assertSame(first.getTypeMetadata(), second.getTypeMetadata());
+        
+        // without a version the option is parsed by each session
+        options.remove(QueryOptions.TYPE_METADATA_VERSION);
+        QueryOptions unversioned = new QueryOptions();
+        unversioned.validateTypeMetadata(options);
+        assertEquals(typeMetadataString, unversioned.getTypeMetadata().toString());
+        assertNotSame(first.getTypeMetadata(), unversioned.getTypeMetadata());
+    }
 }
@@ -13,13 +13,16 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeMap;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
 import org.apache.accumulo.core.client.sample.SamplerConfiguration;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.rfile.RFileOperations;
@@ -27,6 +30,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.system.ColumnFamilySkippingIterator;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.util.CachedConfiguration;
 import org.apache.hadoop.conf.Configuration;
@@ -36,6 +40,7 @@ import org.junit.Test;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class SourceManagerTest {
     private static final SimpleDateFormat shardFormatter = new SimpleDateFormat("yyyyMMdd HHmmss");
@@ -262,6 +267,111 @@ public class SourceManagerTest {
         assertEquals(9, maker.children.size());
     }
     
+    @Test
+    public void nextsBeforeSeek_sameKeys() throws IOException, ParseException {
+        SortedMap<Key,Value> testData = createTestData();
+        List<Range> ranges = documentRanges(testData);
+        
+        SourceManager seeking = new SourceManager(new SortedMapIterator(testData));
+        SourceManager reading = new SourceManager(new SortedMapIterator(testData));
+        reading.setNextsBeforeSeek(8);
+        assertEquals(8, reading.getNextsBeforeSeek());
+        
+        for (Range range : ranges) {
+            seeking.seek(range, Collections.emptyList(), false);
+            reading.seek(range, Collections.emptyList(), false);
+            assertEquals("unexpected keys for " + range, keys(seeking), keys(reading));
+        }
+        
+        assertEquals(ranges.size(), seeking.getSeekCount());
+        assertEquals(0, seeking.getSkippedSeekCount());
+        
+        // one seek per row, the following ranges of the row are read forward
+        assertEquals(3, reading.getSeekCount());
+        assertEquals(ranges.size() - 3, reading.getSkippedSeekCount());
+    }
+    
+    @Test
+    public void nextsBeforeSeek_seeksWhenFar() throws IOException, ParseException {
+        SourceManager reading = new SourceManager(new ColumnFamilySkippingIterator(new SortedMapIterator(createTestData())));
+        reading.setNextsBeforeSeek(1);
+        
+        Key endOfRow = new Key("20121126_0").followingKey(PartialKey.ROW);
+        Collection<ByteSequence> fi = Collections.singleton(new Key("", "fi\0FOO").getColumnFamilyData());
+        reading.seek(new Range("20121126_0"), fi, true);
+        assertTrue(reading.hasTop());
+        
+        // more than one key ahead
+        reading.seek(new Range(new Key("20121126_0", "fi\0FOO", "bar\0foobar\0" + 3), true, endOfRow, false), fi, true);
+        assertEquals(1, keys(reading).size());
+        
+        // behind the current position
+        reading.seek(new Range(new Key("20121126_0", "fi\0FOO"), true, endOfRow, false), fi, true);
+        assertEquals(3, keys(reading).size());
+        
+        // other column families
+        reading.seek(new Range("20121126_1"), Collections.emptyList(), false);
+        assertEquals(7, keys(reading).size());
+        
+        assertEquals(4, reading.getSeekCount());
+        assertEquals(0, reading.getSkippedSeekCount());
+    }
+    
+    @Test
+    public void nextsBeforeSeek_sharedSources() throws IOException, ParseException {
+        SortedMap<Key,Value> testData = createTestData();
+        List<Range> ranges = documentRanges(testData);
+        
+        SourceManager manager = new SourceManager(new SortedListKeyValueIterator(testData));
+        manager.setInitialSize(1);
+        manager.setNextsBeforeSeek(8);
+        SortedKeyValueIterator<Key,Value> copy1 = manager.deepCopy(null);
+        SortedKeyValueIterator<Key,Value> copy2 = manager.deepCopy(null);
+        
+        // interleave the copies, which share a source
+        for (Range range : ranges) {
+            SortedMap<Key,Value> expected = testData.subMap(range.getStartKey(), range.getEndKey());
+            copy1.seek(range, Collections.emptyList(), false);
+            copy2.seek(new Range(), Collections.emptyList(), false);
+            copy2.next();
+            assertEquals(Lists.newArrayList(expected.keySet()), keys(copy1));
+        }
+    }
+    
+    @Test
+    public void nextsBeforeSeek_wrapsDeepCopies() {
+        SourceManager manager = new SourceManager(counter);
+        assertFalse(manager.deepCopy(null) instanceof SourceManager);
+        
+        manager.setNextsBeforeSeek(8);
+        SortedKeyValueIterator<Key,Value> copy = manager.deepCopy(null);
+        assertTrue(copy instanceof SourceManager);
+        assertEquals(8, ((SourceManager) copy).getNextsBeforeSeek());
+    }
+    
+    private static List<Range> documentRanges(SortedMap<Key,Value> testData) {
+        SortedSet<Key> documents = Sets.newTreeSet();
+        for (Key key : testData.keySet()) {
+            if (!key.getColumnFamily().toString().startsWith("fi\0")) {
+                documents.add(new Key(key.getRow(), key.getColumnFamily()));
+            }
+        }
+        List<Range> ranges = Lists.newArrayList();
+        for (Key document : documents) {
+            ranges.add(new Range(document, true, document.followingKey(PartialKey.ROW_COLFAM), false));
+        }
+        return ranges;
+    }
+    
+    private static List<Key> keys(SortedKeyValueIterator<Key,Value> iterator) throws IOException {
+        List<Key> keys = Lists.newArrayList();
+        while (iterator.hasTop()) {
+            keys.add(iterator.getTopKey());
+            iterator.next();
+        }
+        return keys;
+    }
+    
     public static SortedMap<Key,Value> createTestData() throws ParseException {
         return createTestData("");
     }
@@ -0,0 +1,127 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TopKIteratorTest {
+    
+    private SortedMap<Key,Value> data;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        Random random = new Random(13);
+        for (int uid = 0; uid < 500; uid++) {
+            data.put(new Key("20190101_0", "datatype\u0000" + String.format("uid%03d", uid), "", random.nextInt(100000)), new Value(Integer.toString(uid)
+                            .getBytes()));
+        }
+    }
+    
+    @Test
+    public void testKeepsNewestInKeyOrder() throws IOException {
+        TopKIterator iterator = topK(10);
+        iterator.seek(new Range(), Collections.<ByteSequence> emptyList(), false);
+        
+        List<Key> expected = newest(data.keySet(), 10);
+        Assert.assertEquals(expected, keys(iterator));
+    }
+    
+    @Test
+    public void testReseekAfterLastReturned() throws IOException {
+        TopKIterator iterator = topK(10);
+        iterator.seek(new Range(), Collections.<ByteSequence> emptyList(), false);
+        List<Key> all = keys(iterator);
+        
+        // a torn down scan is resumed after the last key returned, which only returns results after it
+        Key last = all.get(4);
+        iterator.seek(new Range(last, false, null, true), Collections.<ByteSequence> emptyList(), false);
+        List<Key> resumed = keys(iterator);
+        Assert.assertEquals(newest(data.tailMap(last).keySet().stream().filter(key -> !key.equals(last)).collect(Collectors.toList()), 10), resumed);
+        Assert.assertTrue(resumed.containsAll(all.subList(5, all.size())));
+    }
+    
+    @Test
+    public void testFewerThanK() throws IOException {
+        TopKIterator iterator = topK(1000);
+        iterator.seek(new Range(), Collections.<ByteSequence> emptyList(), false);
+        Assert.assertEquals(Lists.newArrayList(data.keySet()), keys(iterator));
+        
+        iterator.seek(new Range("20190102"), Collections.<ByteSequence> emptyList(), false);
+        Assert.assertFalse(iterator.hasTop());
+    }
+    
+    @Test
+    public void testFinalDocumentIsNotRanked() throws IOException {
+        // the stats entry that ends a scan usually carries the newest possible timestamp
+        Key stats = new Key("20190101_0", "datatype\u0000uid999", "\u2735FinalDocument\u2735", Long.MAX_VALUE);
+        data.put(stats, new Value("stats".getBytes()));
+        List<Key> results = Lists.newArrayList(data.keySet());
+        results.remove(stats);
+        
+        TopKIterator iterator = topK(10);
+        iterator.seek(new Range(), Collections.<ByteSequence> emptyList(), false);
+        
+        List<Key> expected = newest(results, 10);
+        expected.add(stats);
+        Assert.assertEquals(expected, keys(iterator));
+    }
+    
+    @Test
+    public void testDeepCopy() throws IOException {
+        SortedKeyValueIterator<Key,Value> copy = topK(3).deepCopy(null);
+        copy.seek(new Range(), Collections.<ByteSequence> emptyList(), false);
+        Assert.assertEquals(newest(data.keySet(), 3), keys(copy));
+    }
+    
+    @Test
+    public void testValidateOptions() {
+        TopKIterator iterator = new TopKIterator();
+        Assert.assertTrue(iterator.validateOptions(Collections.singletonMap(TopKIterator.K, "5")));
+        Assert.assertFalse(iterator.validateOptions(Collections.singletonMap(TopKIterator.K, "0")));
+        Assert.assertFalse(iterator.validateOptions(Collections.singletonMap(TopKIterator.K, "many")));
+        Assert.assertFalse(iterator.validateOptions(Collections.<String,String> emptyMap()));
+    }
+    
+    private TopKIterator topK(int k) throws IOException {
+        Map<String,String> options = Collections.singletonMap(TopKIterator.K, Integer.toString(k));
+        TopKIterator iterator = new TopKIterator();
+        iterator.init(new SortedMapIterator(data), options, null);
+        return iterator;
+    }
+    
+    private List<Key> newest(Iterable<Key> keys, int k) {
+        List<Key> sorted = Lists.newArrayList(keys);
+        sorted.sort(TopKIterator.OLDEST_FIRST.reversed());
+        List<Key> newest = Lists.newArrayList(sorted.subList(0, Math.min(k, sorted.size())));
+        Collections.sort(newest);
+        return newest;
+    }
+    
+    private List<Key> keys(SortedKeyValueIterator<Key,Value> iterator) throws IOException {
+        List<Key> keys = Lists.newArrayList();
+        while (iterator.hasTop()) {
+            keys.add(iterator.getTopKey());
+            Assert.assertEquals(data.get(iterator.getTopKey()), iterator.getTopValue());
+            iterator.next();
+        }
+        return keys;
+    }
+}
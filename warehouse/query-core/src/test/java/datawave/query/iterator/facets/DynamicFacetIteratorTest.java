@@ -0,0 +1,70 @@
+package datawave.query.iterator.facets;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import datawave.query.attributes.Content;
+import datawave.query.attributes.Document;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+import datawave.query.function.AttributeToCardinality;
+import datawave.query.tables.facets.FacetedConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+public class DynamicFacetIteratorTest {
+    
+    private DynamicFacetIterator iterator;
+    
+    @Before
+    public void setup() {
+        iterator = new DynamicFacetIterator();
+        iterator.configuration = new FacetedConfiguration();
+        iterator.configuration.setSketchSize(2);
+    }
+    
+    @Test
+    public void testOneSketchPerTablet() {
+        List<Entry<Key,Document>> documents = new ArrayList<>();
+        String[] colors = {"red", "red", "red", "red", "blue", "green"};
+        for (int i = 0; i < colors.length; i++) {
+            Key key = new Key("20190101_0", "datatype\u0000uid" + i);
+            Document doc = new Document(key, true);
+            doc.put("COLOR", new Content(colors[i], new Key("20190101_0", "datatype\u0000uid" + i, "", "A", 0), true));
+            doc.put("SHAPE", new Content("square", new Key("20190101_0", "datatype\u0000uid" + i, "", "A", 0), true));
+            documents.add(Maps.immutableEntry(key, doc));
+        }
+        
+        // the documents reach the sketch as cardinalities, as they do within the iterator
+        Iterator<Entry<Key,Document>> sketched = iterator.sketch(Iterators.transform(documents.iterator(), new AttributeToCardinality()));
+        Assert.assertTrue(sketched.hasNext());
+        Entry<Key,Document> tablet = sketched.next();
+        Assert.assertFalse(sketched.hasNext());
+        
+        // a single summary per field, holding no more values than the sketch size
+        Assert.assertEquals(2, tablet.getValue().getDictionary().size());
+        FacetSketch color = ((FacetSummary) tablet.getValue().get("COLOR")).getContent();
+        Assert.assertEquals(2, color.getCapacity());
+        List<FacetSketch.Facet> top = color.getTop(10);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals("red", top.get(0).getValue());
+        Assert.assertEquals(4, top.get(0).getCount());
+        Assert.assertEquals(0, top.get(0).getError());
+        Assert.assertEquals(3, color.getDistinctValues());
+        
+        FacetSketch shape = ((FacetSummary) tablet.getValue().get("SHAPE")).getContent();
+        Assert.assertEquals(6, shape.getTop(10).get(0).getCount());
+    }
+    
+    @Test
+    public void testNoDocuments() {
+        Assert.assertFalse(iterator.sketch(Collections.emptyIterator()).hasNext());
+    }
+}
@@ -1,8 +1,16 @@
 package datawave.query.iterator.profile;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
 import org.apache.accumulo.core.util.SimpleThreadPool;
 import org.junit.Assert;
 import org.junit.Test;
@@ -102,6 +110,110 @@ public class QuerySpanTest {
         Assert.assertEquals(12, qs4.getSourceCount());
     }
     
+    @Test
+    public void testConcurrentCounts() throws InterruptedException {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        ExecutorService executorService = new SimpleThreadPool(4, "QSExecutor");
+        for (int i = 0; i < 4; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    qs1.next();
+                    if (j % 100 == 0) {
+                        qs1.seek();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        
+        Assert.assertEquals(400000, qs1.getNextCount());
+        Assert.assertEquals(4000, qs1.getSeekCount());
+    }
+    
+    @Test
+    public void testStageTimers() {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        Assert.assertTrue(qs1.getStageTimers().isEmpty());
+        qs1.addStageTimer(QuerySpan.Stage.DocumentEvaluation, 5);
+        qs1.addStageTimer(QuerySpan.Stage.FieldIndexTree, 10);
+        qs1.addStageTimer(QuerySpan.Stage.DocumentEvaluation, 7);
+        
+        // the latest time of each stage, in stage order
+        Assert.assertEquals(Arrays.asList("FieldIndexTree", "DocumentEvaluation"), Arrays.asList(qs1.getStageTimers().keySet().toArray()));
+        Assert.assertEquals(Long.valueOf(7), qs1.getStageTimer("DocumentEvaluation"));
+        Assert.assertNull(qs1.getStageTimer("Aggregation"));
+        Assert.assertEquals(22, qs1.getStageTimerTotal());
+        
+        qs1.reset();
+        Assert.assertTrue(qs1.getStageTimers().isEmpty());
+        Assert.assertEquals(0, qs1.getStageTimerTotal());
+    }
+    
+    @Test
+    public void testDocumentCacheCounts() {
+        
+        MultiThreadedQuerySpan qs1 = new MultiThreadedQuerySpan(null);
+        QuerySpan qs2 = qs1.createSource();
+        qs1.documentCacheMiss();
+        qs2.documentCacheHit();
+        qs2.documentCacheHit();
+        Assert.assertEquals(2, qs1.getDocumentCacheHits());
+        Assert.assertEquals(1, qs1.getDocumentCacheMisses());
+        
+        QuerySpanCollector collector = new QuerySpanCollector();
+        collector.addQuerySpan(qs1);
+        Assert.assertEquals(0, qs1.getDocumentCacheHits());
+        Assert.assertTrue(collector.hasEntries());
+        
+        QuerySpan combined = collector.getCombinedQuerySpan(null);
+        Assert.assertEquals(2, combined.getDocumentCacheHits());
+        Assert.assertEquals(1, combined.getDocumentCacheMisses());
+        Assert.assertEquals(0, collector.getDocumentCacheHits());
+    }
+    
+    @Test
+    public void testSourceTrackingCounts() throws Exception {
+        
+        TreeMap<Key,Value> data = new TreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            data.put(new Key(String.format("row%02d", i)), new Value(new byte[0]));
+        }
+        
+        QuerySpan span = new MultiThreadedQuerySpan(null);
+        SourceTrackingIterator iterator = new SourceTrackingIterator(span, new SortedMapIterator(data));
+        Assert.assertEquals(10, scan(iterator, new Range()));
+        Assert.assertEquals(1, span.getSeekCount());
+        Assert.assertEquals(10, span.getNextCount());
+        Assert.assertEquals(1, span.getSourceCount());
+        
+        // a deep copy counts its calls on a new source of the same span
+        SourceTrackingIterator copy = (SourceTrackingIterator) iterator.deepCopy(null);
+        Assert.assertNotSame(span, copy.getQuerySpan());
+        Assert.assertEquals(2, span.getSourceCount());
+        Assert.assertEquals(3, scan(copy, new Range("row02", "row04")));
+        Assert.assertEquals(1, copy.getQuerySpan().getSeekCount());
+        Assert.assertEquals(3, copy.getQuerySpan().getNextCount());
+        Assert.assertEquals(2, span.getSeekCount());
+        Assert.assertEquals(13, span.getNextCount());
+        
+        span.reset();
+        Assert.assertEquals(0, span.getSeekCount());
+        Assert.assertEquals(0, span.getNextCount());
+    }
+    
+    private int scan(SortedKeyValueIterator<Key,Value> iterator, Range range) throws Exception {
+        int count = 0;
+        iterator.seek(range, Collections.emptyList(), false);
+        while (iterator.hasTop()) {
+            count++;
+            iterator.next();
+        }
+        return count;
+    }
+    
     private class QSRunnable implements Runnable {
         
         private QuerySpan querySpan = null;
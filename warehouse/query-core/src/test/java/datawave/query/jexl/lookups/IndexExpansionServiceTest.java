@@ -0,0 +1,221 @@
+package datawave.query.jexl.lookups;
+
+import com.google.common.collect.Sets;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.tables.ScannerFactory;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.util.QueryUncaughtExceptionHandler;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IndexExpansionServiceTest {
+    
+    private IndexExpansionService service;
+    private ShardQueryConfiguration config;
+    
+    @Before
+    public void setup() throws Exception {
+        service = new IndexExpansionService(4, 100, TimeUnit.MINUTES.toMillis(1));
+        config = new ShardQueryConfiguration();
+        config.setConnector(new InMemoryInstance().getConnector("", new PasswordToken(new byte[0])));
+        config.setAuthorizations(Collections.singleton(new Authorizations("A", "B")));
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date(1000));
+        config.setDatatypeFilter(Sets.newHashSet("datatype"));
+    }
+    
+    @Test
+    public void testCached() {
+        config.setIndexExpansionCacheMillis(TimeUnit.MINUTES.toMillis(1));
+        CountingLookup lookup = new CountingLookup("FOO", "bar");
+        
+        IndexLookupMap first = service.lookup(lookup, config, null, -1);
+        IndexLookupMap second = service.lookup(new CountingLookup("FOO", "bar"), config, null, -1);
+        Assert.assertEquals(1, lookup.lookups.get());
+        Assert.assertEquals(Sets.newHashSet("bar"), second.get("FOO"));
+        Assert.assertEquals(1, service.getHits());
+        Assert.assertEquals(1, service.getMisses());
+        
+        // each caller gets its own copy
+        first.get("FOO").add("baz");
+        first.removeFields(Collections.singleton("FOO"));
+        Assert.assertEquals(Sets.newHashSet("bar"), service.lookup(lookup, config, null, -1).get("FOO"));
+    }
+    
+    @Test
+    public void testNotCachedByDefault() {
+        CountingLookup lookup = new CountingLookup("FOO", "bar");
+        service.lookup(lookup, config, null, -1);
+        service.lookup(lookup, config, null, -1);
+        Assert.assertEquals(2, lookup.lookups.get());
+        Assert.assertEquals(0, service.getHits());
+    }
+    
+    @Test
+    public void testAuthorizationsAreNotShared() {
+        config.setIndexExpansionCacheMillis(TimeUnit.MINUTES.toMillis(1));
+        CountingLookup lookup = new CountingLookup("FOO", "bar");
+        service.lookup(lookup, config, null, -1);
+        
+        config.setAuthorizations(Collections.singleton(new Authorizations("A")));
+        service.lookup(lookup, config, null, -1);
+        Assert.assertEquals(2, lookup.lookups.get());
+        
+        config.setAuthorizations(Collections.singleton(new Authorizations("B", "A")));
+        service.lookup(lookup, config, null, -1);
+        Assert.assertEquals(2, lookup.lookups.get());
+    }
+    
+    @Test
+    public void testThresholdMarkersAreCached() {
+        config.setIndexExpansionCacheMillis(TimeUnit.MINUTES.toMillis(1));
+        CountingLookup lookup = new CountingLookup("FOO", "bar");
+        lookup.exceeded = true;
+        
+        service.lookup(lookup, config, null, -1);
+        IndexLookupMap cached = service.lookup(lookup, config, null, -1);
+        Assert.assertEquals(1, lookup.lookups.get());
+        Assert.assertTrue(cached.get("FOO").isThresholdExceeded());
+    }
+    
+    @Test
+    public void testConcurrentLookupsAreJoined() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLookup lookup = new CountingLookup("FOO", "bar") {
+            @Override
+            public IndexLookupMap lookup(ShardQueryConfiguration config, ScannerFactory scannerFactory, long timer) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.lookup(config, scannerFactory, timer);
+            }
+        };
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<IndexLookupMap> first = executor.submit(() -> service.lookup(lookup, config, null, -1));
+            started.await();
+            Future<IndexLookupMap> second = executor.submit(() -> service.lookup(lookup, config, null, -1));
+            while (service.getJoined() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            
+            Assert.assertEquals(Sets.newHashSet("bar"), first.get().get("FOO"));
+            Assert.assertEquals(Sets.newHashSet("bar"), second.get().get("FOO"));
+            Assert.assertEquals(1, lookup.lookups.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testFailuresAreNotCached() {
+        config.setIndexExpansionCacheMillis(TimeUnit.MINUTES.toMillis(1));
+        CountingLookup lookup = new CountingLookup("FOO", "bar");
+        lookup.fail = true;
+        try {
+            service.lookup(lookup, config, null, -1);
+            Assert.fail("Expected the lookup to fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        
+        lookup.fail = false;
+        Assert.assertEquals(Sets.newHashSet("bar"), service.lookup(lookup, config, null, -1).get("FOO"));
+        Assert.assertEquals(2, lookup.lookups.get());
+    }
+    
+    @Test
+    public void testQueryConcurrencyIsBounded() throws Exception {
+        config.setNumIndexLookupThreads(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return now;
+            });
+        }
+        
+        ExecutorService executor = service.getExecutor(config);
+        for (Future<Integer> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        Assert.assertEquals(2, maxRunning.get());
+    }
+    
+    @Test
+    public void testUncaughtExceptionsGoToTheQuery() throws Exception {
+        QueryImpl query = new QueryImpl();
+        QueryUncaughtExceptionHandler handler = new QueryUncaughtExceptionHandler();
+        query.setUncaughtExceptionHandler(handler);
+        config.setQuery(query);
+        
+        ExecutorService executor = service.getExecutor(config);
+        executor.execute(() -> {
+            throw new IllegalStateException("lookup failed");
+        });
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        Assert.assertTrue(handler.getThrowable() instanceof IllegalStateException);
+    }
+    
+    private static class CountingLookup extends IndexLookup {
+        private final String field;
+        private final String value;
+        private final AtomicInteger lookups = new AtomicInteger();
+        private boolean exceeded = false;
+        private boolean fail = false;
+        
+        private CountingLookup(String field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+        
+        @Override
+        public String getCacheKey() {
+            return "counting:" + field + ':' + value;
+        }
+        
+        @Override
+        public IndexLookupMap lookup(ShardQueryConfiguration config, ScannerFactory scannerFactory, long timer) {
+            lookups.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("lookup failed");
+            }
+            IndexLookupMap map = new IndexLookupMap(config.getMaxUnfieldedExpansionThreshold(), config.getMaxValueExpansionThreshold());
+            map.put(field, value);
+            if (exceeded) {
+                map.get(field).setThresholdExceeded();
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package datawave.query.jexl.visitors;
+
+import com.google.common.collect.Sets;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.FieldStatsSketch;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.index.stats.FieldStatsClient;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.planner.pushdown.FieldStatsCostEstimator;
+import datawave.iterators.FieldStatsSketchCombiner;
+import datawave.query.util.MockMetadataHelper;
+import datawave.util.TableName;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class OrderByCostVisitorTest {
+    
+    private ShardQueryConfiguration config;
+    private MockMetadataHelper helper;
+    private Set<String> nonEventFields;
+    
+    @Before
+    public void setup() throws Exception {
+        Connector connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A", "B"));
+        connector.tableOperations().create(TableName.FIELD_STATS);
+        IteratorSetting setting = new IteratorSetting(19, FieldStatsSketchCombiner.class);
+        Combiner.setCombineAllColumns(setting, true);
+        connector.tableOperations().attachIterator(TableName.FIELD_STATS, setting);
+        
+        config = new ShardQueryConfiguration();
+        config.setConnector(connector);
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date());
+        config.setDatatypeFilter(Sets.newHashSet("datatype"));
+        
+        helper = new MockMetadataHelper();
+        helper.setIndexedFields(Sets.newHashSet("COMMON", "RARE", "UNIQUE", "NOSTATS"));
+        
+        // COMMON has 10 values per distinct value, RARE 2 and UNIQUE 1
+        BatchWriter writer = connector.createBatchWriter(TableName.FIELD_STATS, new BatchWriterConfig());
+        writer.addMutation(stats("COMMON", 1000, 100));
+        writer.addMutation(stats("RARE", 200, 100));
+        writer.addMutation(stats("UNIQUE", 100, 100));
+        writer.addMutation(stats("HIDDEN", 10, 10, new ColumnVisibility("A")));
+        writer.close();
+        
+        nonEventFields = new HashSet<>();
+    }
+    
+    @Test
+    public void testOrderByCost() throws ParseException {
+        assertOrdered("COMMON == 'a' && RARE == 'b' && UNIQUE == 'c'", "UNIQUE == 'c' && RARE == 'b' && COMMON == 'a'");
+        assertOrdered("COMMON == 'a' && (RARE == 'b' || UNIQUE == 'c')", "(RARE == 'b' || UNIQUE == 'c') && COMMON == 'a'");
+    }
+    
+    @Test
+    public void testNestedIntersections() throws ParseException {
+        assertOrdered("COMMON == 'a' || (RARE == 'b' && UNIQUE == 'c')", "COMMON == 'a' || (UNIQUE == 'c' && RARE == 'b')");
+    }
+    
+    @Test
+    public void testUnindexedAndNegatedTermsLast() throws ParseException {
+        assertOrdered("UNINDEXED == 'x' && !(RARE == 'b') && COMMON == 'a' && filter:includeRegex(OTHER, 'y.*') && UNIQUE == 'c'",
+                        "UNIQUE == 'c' && COMMON == 'a' && filter:includeRegex(OTHER, 'y.*') && UNINDEXED == 'x' && !(RARE == 'b')");
+    }
+    
+    @Test
+    public void testDelayCostlyTerms() throws ParseException {
+        config.setMaxTermCostRatio(5);
+        ASTJexlScript script = order("COMMON == 'a' && RARE == 'b' && UNIQUE == 'c'");
+        
+        // COMMON costs 10 times as much as UNIQUE
+        Assert.assertEquals("UNIQUE == 'c' && RARE == 'b' && ((ASTDelayedPredicate = true) && (COMMON == 'a'))", JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    @Test
+    public void testDoNotDelayWithoutStats() throws ParseException {
+        config.setMaxTermCostRatio(1);
+        ASTJexlScript script = order("NOSTATS == 'a' && UNIQUE == 'c'");
+        Assert.assertEquals("UNIQUE == 'c' && NOSTATS == 'a'", JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    @Test
+    public void testDoNotDelayNonEventFields() throws ParseException {
+        config.setMaxTermCostRatio(1);
+        nonEventFields.add("COMMON");
+        
+        // an index only term is not in the event, so it must be looked up rather than evaluated
+        assertOrdered("COMMON == 'a' && RARE == 'b' && UNIQUE == 'c'", "UNIQUE == 'c' && ((ASTDelayedPredicate = true) && (RARE == 'b')) && COMMON == 'a'");
+    }
+    
+    @Test
+    public void testDoNotDelayWhenExpandingAllTerms() throws ParseException {
+        config.setMaxTermCostRatio(1);
+        config.setExpandAllTerms(true);
+        assertOrdered("COMMON == 'a' && UNIQUE == 'c'", "UNIQUE == 'c' && COMMON == 'a'");
+    }
+    
+    @Test
+    public void testStatsScannedWithQueryAuths() {
+        // the connector can see the stats of HIDDEN, but a query can only use them with its own authorizations
+        Assert.assertNull(estimator().getStats("HIDDEN"));
+        
+        config.setAuthorizations(Collections.singleton(new Authorizations("A")));
+        Assert.assertNotNull(estimator().getStats("HIDDEN"));
+        
+        // an entry is only visible to a query with several authorizations when every one of them can see it
+        config.setAuthorizations(Sets.newHashSet(new Authorizations("A", "B"), new Authorizations("B")));
+        Assert.assertNull(estimator().getStats("HIDDEN"));
+        Assert.assertNotNull(estimator().getStats("UNIQUE"));
+    }
+    
+    private void assertOrdered(String query, String expected) throws ParseException {
+        Assert.assertEquals(expected, JexlStringBuildingVisitor.buildQuery(order(query)));
+    }
+    
+    private ASTJexlScript order(String query) throws ParseException {
+        return OrderByCostVisitor.order(JexlASTHelper.parseJexlQuery(query), config, estimator(), nonEventFields);
+    }
+    
+    private FieldStatsCostEstimator estimator() {
+        return new FieldStatsCostEstimator(config, null, helper, new FieldStatsClient(config.getConnector())) {
+            @Override
+            protected long getFieldCost(String fieldName) {
+                // the metadata counts of fields without stats
+                return (getStats(fieldName) == null) ? 500 : super.getFieldCost(fieldName);
+            }
+        };
+    }
+    
+    private Mutation stats(String field, int count, int cardinality) throws IOException {
+        return stats(field, count, cardinality, new ColumnVisibility());
+    }
+    
+    private Mutation stats(String field, int count, int cardinality, ColumnVisibility visibility) throws IOException {
+        FieldStatsSketch sketch = new FieldStatsSketch();
+        for (int i = 0; i < count; i++) {
+            sketch.offer("value" + (i % cardinality));
+        }
+        Mutation m = new Mutation(field);
+        m.put(new Text(DateHelper.format(config.getEndDate())), new Text("datatype"), visibility, sketch.getValue());
+        return m;
+    }
+}
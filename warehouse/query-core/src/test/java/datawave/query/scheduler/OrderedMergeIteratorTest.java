@@ -0,0 +1,154 @@
+package datawave.query.scheduler;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import datawave.query.CloseableIterable;
+import datawave.query.tables.SessionOptions;
+import datawave.query.tables.async.ScannerChunk;
+
+public class OrderedMergeIteratorTest {
+    
+    private static final String[] SHARDS = {"20190101_0", "20190101_1", "20190102_0", "20190102_1", "20190103_0", "20190104_0", "20190104_1", "20190105_0"};
+    
+    private SortedMap<Key,Value> data;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        for (String shard : SHARDS) {
+            for (int uid = 0; uid < 50; uid++) {
+                data.put(new Key(shard, "datatype\u0000" + String.format("uid%03d", uid)), new Value(new byte[0]));
+            }
+        }
+    }
+    
+    @Test
+    public void testShardsMergedInOrder() throws IOException {
+        // shards planned slightly out of order within the lookahead
+        List<Range> ranges = Lists.newArrayList(shard("20190101_1"), shard("20190101_0"), shard("20190102_0"), shard("20190103_0"), shard("20190102_1"),
+                        shard("20190104_0"), shard("20190105_0"), shard("20190104_1"));
+        
+        assertMerged(ranges, 3, 7);
+    }
+    
+    @Test
+    public void testOverlappingRangesMergedInOrder() throws IOException {
+        // day ranges overlapping shard and document ranges
+        List<Range> ranges = Lists.newArrayList(new Range("20190101", true, "20190102", false), shard("20190101_1"),
+                        new Range(new Key("20190102_0", "datatype\u0000uid010"), true, new Key("20190102_0", "datatype\u0000uid020"), false),
+                        new Range("20190102", true, "20190106", false));
+        
+        assertMerged(ranges, 1, 3);
+    }
+    
+    @Test(timeout = 10000)
+    public void testFirstResultsBeforeLaterRangesFinish() throws IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        Function<ScannerChunk,CloseableIterable<Entry<Key,Value>>> scanner = chunk -> {
+            Range range = chunk.getRanges().iterator().next();
+            if (!range.contains(new Key(SHARDS[0]))) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return scan(range);
+        };
+        
+        List<Range> ranges = Lists.newArrayList();
+        for (String shard : SHARDS) {
+            ranges.add(shard(shard));
+        }
+        try (OrderedMergeIterator iterator = new OrderedMergeIterator(chunks(ranges), scanner, 4, 10)) {
+            // the whole first shard is returned while the later shards are still blocked
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(SHARDS[0], iterator.next().getKey().getRow().toString());
+            }
+            release.countDown();
+            Assert.assertEquals(SHARDS[1], iterator.next().getKey().getRow().toString());
+        }
+    }
+    
+    @Test
+    public void testFailurePropagates() throws IOException {
+        Function<ScannerChunk,CloseableIterable<Entry<Key,Value>>> scanner = chunk -> {
+            throw new IllegalStateException("tserver unavailable");
+        };
+        try (OrderedMergeIterator iterator = new OrderedMergeIterator(chunks(Collections.singletonList(shard(SHARDS[0]))), scanner, 2, 10)) {
+            iterator.hasNext();
+            Assert.fail("Expected the scan failure");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+    
+    private void assertMerged(List<Range> ranges, int lookahead, int queueCapacity) throws IOException {
+        List<Key> expected = Lists.newArrayList();
+        for (Range range : ranges) {
+            for (Entry<Key,Value> entry : scan(range)) {
+                expected.add(entry.getKey());
+            }
+        }
+        Collections.sort(expected);
+        
+        List<Key> actual = Lists.newArrayList();
+        Set<Thread> threads = Sets.newConcurrentHashSet();
+        Function<ScannerChunk,CloseableIterable<Entry<Key,Value>>> scanner = chunk -> {
+            threads.add(Thread.currentThread());
+            return scan(chunk.getRanges().iterator().next());
+        };
+        try (OrderedMergeIterator iterator = new OrderedMergeIterator(chunks(ranges), scanner, lookahead, queueCapacity)) {
+            while (iterator.hasNext()) {
+                actual.add(iterator.next().getKey());
+            }
+            Assert.assertEquals(ranges.size(), iterator.getChunksSeen());
+        }
+        Assert.assertEquals(expected, actual);
+        
+        // chunks started beyond the lookahead are read by the merge itself
+        threads.remove(Thread.currentThread());
+        Assert.assertTrue(threads.size() <= lookahead);
+    }
+    
+    private Iterator<ScannerChunk> chunks(List<Range> ranges) {
+        return ranges.stream().map(range -> new ScannerChunk(new SessionOptions(), Collections.singleton(range))).collect(Collectors.toList()).iterator();
+    }
+    
+    private CloseableIterable<Entry<Key,Value>> scan(Range range) {
+        List<Entry<Key,Value>> results = data.entrySet().stream().filter(entry -> range.contains(entry.getKey())).collect(Collectors.toList());
+        return new CloseableIterable<Entry<Key,Value>>() {
+            @Override
+            public Iterator<Entry<Key,Value>> iterator() {
+                return results.iterator();
+            }
+            
+            @Override
+            public void close() {}
+        };
+    }
+    
+    private static Range shard(String shard) {
+        return new Range(shard);
+    }
+}
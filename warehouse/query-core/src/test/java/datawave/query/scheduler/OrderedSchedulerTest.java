@@ -0,0 +1,177 @@
+package datawave.query.scheduler;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.util.MetadataHelper;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.configuration.QueryData;
+
+public class OrderedSchedulerTest {
+    
+    private static final String TABLE_NAME = "shard";
+    private static final String[] SHARDS = {"20190101_0", "20190101_1", "20190102_0", "20190103_0"};
+    private static final int UIDS = 5;
+    
+    private Connector connector;
+    private CountingScannerFactory scannerFactory;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(TABLE_NAME);
+        scannerFactory = new CountingScannerFactory(connector);
+        
+        BatchWriter writer = connector.createBatchWriter(TABLE_NAME, new BatchWriterConfig());
+        for (String shard : SHARDS) {
+            Mutation m = new Mutation(shard);
+            for (int uid = 0; uid < UIDS; uid++) {
+                m.put("datatype\u0000uid" + uid, "FOO\u0000bar", new Value(new byte[0]));
+            }
+            writer.addMutation(m);
+        }
+        writer.close();
+    }
+    
+    @Test
+    public void testMergesRangesInOrder() throws Exception {
+        // the ranges of a single query data are not in order
+        OrderedScheduler scheduler = scheduler(2, 1, queryData(shard(SHARDS[1]), shard(SHARDS[0])), queryData(shard(SHARDS[2])), queryData(shard(SHARDS[3])));
+        
+        List<Key> keys = results(scheduler);
+        Assert.assertEquals(SHARDS.length * UIDS, keys.size());
+        Assert.assertEquals(sorted(keys), keys);
+        
+        // a scanner for every range, each released through the factory
+        Assert.assertEquals(SHARDS.length, scannerFactory.created.size());
+        Assert.assertEquals(scannerFactory.created, scannerFactory.closed);
+        Assert.assertTrue(scannerFactory.currentScanners().isEmpty());
+    }
+    
+    @Test
+    public void testOverlappingRanges() throws Exception {
+        // a day range overlapping a shard range, merged with a single thread
+        OrderedScheduler scheduler = scheduler(1, 1, queryData(new Range("20190101", true, "20190104", false), shard(SHARDS[2])));
+        
+        List<Key> keys = results(scheduler);
+        Assert.assertEquals((SHARDS.length + 1) * UIDS, keys.size());
+        Assert.assertEquals(sorted(keys), keys);
+        Assert.assertEquals(2, scannerFactory.created.size());
+        Assert.assertEquals(scannerFactory.created, scannerFactory.closed);
+        Assert.assertTrue(scannerFactory.currentScanners().isEmpty());
+    }
+    
+    @Test
+    public void testCloseEarlyReleasesScanners() throws Exception {
+        OrderedScheduler scheduler = scheduler(3, 1, queryData(shard(SHARDS[0]), shard(SHARDS[1]), shard(SHARDS[2]), shard(SHARDS[3])));
+        
+        Iterator<Entry<Key,Value>> iterator = scheduler.iterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals(SHARDS[0], iterator.next().getKey().getRow().toString());
+        scheduler.close();
+        
+        // the scans still running when the scheduler was closed released their scanners
+        Assert.assertFalse(scannerFactory.created.isEmpty());
+        Assert.assertEquals(scannerFactory.created, scannerFactory.closed);
+        Assert.assertTrue(scannerFactory.currentScanners().isEmpty());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    private OrderedScheduler scheduler(int lookahead, int queueSize, QueryData... queries) throws Exception {
+        QueryImpl query = new QueryImpl();
+        query.setId(UUID.randomUUID());
+        
+        ShardQueryConfiguration config = new ShardQueryConfiguration();
+        config.setConnector(connector);
+        config.setShardTableName(TABLE_NAME);
+        config.setAuthorizations(Collections.singleton(new Authorizations()));
+        config.setQuery(query);
+        config.setIndexedFields(Collections.singleton("FOO"));
+        config.setOrderedScanLookahead(lookahead);
+        config.setOrderedScanQueueSize(queueSize);
+        config.setQueries(Lists.newArrayList(queries).iterator());
+        
+        MetadataHelperFactory metadataHelperFactory = EasyMock.createMock(MetadataHelperFactory.class);
+        EasyMock.expect(metadataHelperFactory.createMetadataHelper(EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject()))
+                        .andReturn(EasyMock.createNiceMock(MetadataHelper.class)).anyTimes();
+        EasyMock.replay(metadataHelperFactory);
+        return new OrderedScheduler(config, scannerFactory, metadataHelperFactory);
+    }
+    
+    private List<Key> results(OrderedScheduler scheduler) throws Exception {
+        List<Key> keys = Lists.newArrayList();
+        try {
+            for (Entry<Key,Value> entry : scheduler) {
+                keys.add(entry.getKey());
+            }
+        } finally {
+            scheduler.close();
+        }
+        return keys;
+    }
+    
+    private static QueryData queryData(Range... ranges) {
+        return new QueryData("FOO == 'bar'", Lists.newArrayList(ranges), Collections.emptyList());
+    }
+    
+    private static List<Key> sorted(List<Key> keys) {
+        List<Key> sorted = Lists.newArrayList(keys);
+        Collections.sort(sorted);
+        return sorted;
+    }
+    
+    private static Range shard(String shard) {
+        return new Range(shard);
+    }
+    
+    private static class CountingScannerFactory extends ScannerFactory {
+        private final Set<ScannerBase> created = Sets.newIdentityHashSet();
+        private final Set<ScannerBase> closed = Sets.newIdentityHashSet();
+        
+        private CountingScannerFactory(Connector connector) {
+            super(connector);
+        }
+        
+        @Override
+        public synchronized Scanner newSingleScanner(String tableName, Set<Authorizations> auths, Query query) throws TableNotFoundException {
+            Scanner scanner = super.newSingleScanner(tableName, auths, query);
+            created.add(scanner);
+            return scanner;
+        }
+        
+        @Override
+        public synchronized boolean close(ScannerBase bs) {
+            closed.add(bs);
+            return super.close(bs);
+        }
+    }
+}
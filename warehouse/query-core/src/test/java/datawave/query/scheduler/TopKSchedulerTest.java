@@ -0,0 +1,225 @@
+package datawave.query.scheduler;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.tables.BatchScannerSession;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.tables.ScannerSession;
+import datawave.query.util.MetadataHelper;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.configuration.QueryData;
+
+public class TopKSchedulerTest {
+    
+    private static final String TABLE_NAME = "shard";
+    private static final String[] DAYS = {"20190101", "20190102", "20190103"};
+    
+    private Connector connector;
+    private CountingScannerFactory scannerFactory;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(UUID.randomUUID().toString()).getConnector("root", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(TABLE_NAME);
+        scannerFactory = new CountingScannerFactory(connector);
+    }
+    
+    @Test
+    public void testStopsOnceOlderDaysCannotRank() throws Exception {
+        write(DAYS[2], "uid0", start(DAYS[2]) + 100);
+        write(DAYS[2], "uid1", start(DAYS[2]) + 200);
+        write(DAYS[2], "uid2", start(DAYS[2]) + 300);
+        write(DAYS[1], "uid3", start(DAYS[1]) + 100);
+        write(DAYS[0], "uid4", start(DAYS[0]) + 100);
+        
+        TopKScheduler scheduler = scheduler(2);
+        Assert.assertEquals(Lists.newArrayList("uid2", "uid1"), results(scheduler));
+        Assert.assertEquals(1, scheduler.getDaysScanned());
+        Assert.assertEquals(2, scheduler.getDaysSkipped());
+        
+        // the day started ahead was cancelled by closing its session
+        Assert.assertEquals(2, scannerFactory.created.size());
+        Assert.assertEquals(scannerFactory.created, scannerFactory.closed);
+        Assert.assertTrue(scannerFactory.currentSessions().isEmpty());
+    }
+    
+    @Test
+    public void testMergesMultipleDays() throws Exception {
+        write(DAYS[2], "uid0", start(DAYS[2]) + 100);
+        write(DAYS[1], "uid1", start(DAYS[1]) + 100);
+        write(DAYS[1], "uid2", start(DAYS[1]) + 200);
+        write(DAYS[0], "uid3", start(DAYS[0]) + 100);
+        
+        TopKScheduler scheduler = scheduler(3);
+        Assert.assertEquals(Lists.newArrayList("uid0", "uid2", "uid1"), results(scheduler));
+        Assert.assertEquals(2, scheduler.getDaysScanned());
+        Assert.assertEquals(1, scheduler.getDaysSkipped());
+        Assert.assertTrue(scannerFactory.currentSessions().isEmpty());
+    }
+    
+    @Test
+    public void testScansEveryDayWhenTooFewResults() throws Exception {
+        write(DAYS[2], "uid0", start(DAYS[2]) + 100);
+        write(DAYS[1], "uid1", start(DAYS[1]) + 100);
+        write(DAYS[0], "uid2", start(DAYS[0]) + 100);
+        
+        TopKScheduler scheduler = scheduler(10);
+        Assert.assertEquals(Lists.newArrayList("uid0", "uid1", "uid2"), results(scheduler));
+        Assert.assertEquals(3, scheduler.getDaysScanned());
+        Assert.assertEquals(0, scheduler.getDaysSkipped());
+        Assert.assertEquals(3, scannerFactory.created.size());
+        Assert.assertEquals(scannerFactory.created, scannerFactory.closed);
+        Assert.assertTrue(scannerFactory.currentSessions().isEmpty());
+    }
+    
+    @Test
+    public void testResultsAtTheStartOfADay() throws Exception {
+        // a result at the very start of a day is newer than every result of the day before
+        write(DAYS[2], "uid0", start(DAYS[2]));
+        write(DAYS[2], "uid1", start(DAYS[2]));
+        write(DAYS[1], "uid2", start(DAYS[2]) - 1);
+        
+        TopKScheduler scheduler = scheduler(1);
+        // equal timestamps are ranked by key, so the first key wins
+        Assert.assertEquals(Lists.newArrayList("uid0"), results(scheduler));
+        Assert.assertEquals(1, scheduler.getDaysScanned());
+        Assert.assertEquals(2, scheduler.getDaysSkipped());
+    }
+    
+    @Test
+    public void testResultsAtTheEndOfADay() throws Exception {
+        // a result stamped with the last moment of the day before could tie with that day, so that day is still scanned
+        write(DAYS[2], "uid0", start(DAYS[2]) - 1);
+        write(DAYS[1], "uid1", start(DAYS[1]) + 100);
+        write(DAYS[0], "uid2", start(DAYS[0]) + 100);
+        
+        TopKScheduler scheduler = scheduler(1);
+        Assert.assertEquals(Lists.newArrayList("uid0"), results(scheduler));
+        Assert.assertEquals(2, scheduler.getDaysScanned());
+        Assert.assertEquals(1, scheduler.getDaysSkipped());
+    }
+    
+    @Test
+    public void testBucketByDay() throws Exception {
+        TopKScheduler scheduler = scheduler(1);
+        QueryData qd = new QueryData("FOO == 'bar'", Lists.newArrayList(shard(DAYS[0]), shard(DAYS[1]), new Range(), new Range("a", "b")),
+                        Collections.emptyList());
+        List<Entry<Long,List<QueryData>>> days = Lists.newArrayList(scheduler.bucketByDay(Collections.singleton(qd).iterator()).entrySet());
+        
+        Assert.assertEquals(3, days.size());
+        Assert.assertEquals(start(DAYS[0]), days.get(0).getKey().longValue());
+        Assert.assertEquals(Collections.singletonList(shard(DAYS[0])), Lists.newArrayList(days.get(0).getValue().get(0).getRanges()));
+        Assert.assertEquals(start(DAYS[1]), days.get(1).getKey().longValue());
+        
+        // ranges without a shard date are scanned first
+        Assert.assertEquals(2, days.get(2).getValue().get(0).getRanges().size());
+        Assert.assertTrue(days.get(2).getKey() > start(DAYS[2]));
+        
+        Assert.assertEquals(start(DAYS[1]), TopKScheduler.getDay(new Range("20190101_0", "20190102_3")));
+    }
+    
+    private TopKScheduler scheduler(int k) throws Exception {
+        QueryImpl query = new QueryImpl();
+        query.setId(UUID.randomUUID());
+        
+        ShardQueryConfiguration config = new ShardQueryConfiguration();
+        config.setConnector(connector);
+        config.setShardTableName(TABLE_NAME);
+        config.setAuthorizations(Collections.singleton(new Authorizations()));
+        config.setQuery(query);
+        config.setIndexedFields(Collections.singleton("FOO"));
+        config.setTopK(k);
+        
+        List<QueryData> queries = Lists.newArrayList();
+        for (String day : DAYS) {
+            queries.add(new QueryData("FOO == 'bar'", Collections.singletonList(shard(day)), Collections.emptyList()));
+        }
+        config.setQueries(queries.iterator());
+        
+        MetadataHelperFactory metadataHelperFactory = EasyMock.createMock(MetadataHelperFactory.class);
+        EasyMock.expect(metadataHelperFactory.createMetadataHelper(EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject()))
+                        .andReturn(EasyMock.createNiceMock(MetadataHelper.class)).anyTimes();
+        EasyMock.replay(metadataHelperFactory);
+        return new TopKScheduler(config, scannerFactory, metadataHelperFactory);
+    }
+    
+    private List<String> results(TopKScheduler scheduler) throws Exception {
+        List<String> uids = Lists.newArrayList();
+        try {
+            for (Entry<Key,Value> entry : scheduler) {
+                uids.add(entry.getKey().getColumnFamily().toString().split("\u0000")[1]);
+            }
+        } finally {
+            scheduler.close();
+        }
+        return uids;
+    }
+    
+    private void write(String day, String uid, long timestamp) throws Exception {
+        BatchWriter writer = connector.createBatchWriter(TABLE_NAME, new BatchWriterConfig());
+        Mutation m = new Mutation(day + "_0");
+        m.put("datatype\u0000" + uid, "FOO\u0000bar", timestamp, new Value(new byte[0]));
+        writer.addMutation(m);
+        writer.close();
+    }
+    
+    private static Range shard(String day) {
+        return new Range(day + "_0");
+    }
+    
+    private static long start(String day) {
+        return LocalDate.parse(day, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+    
+    private static class CountingScannerFactory extends ScannerFactory {
+        private final Set<ScannerSession> created = Sets.newIdentityHashSet();
+        private final Set<ScannerSession> closed = Sets.newIdentityHashSet();
+        
+        private CountingScannerFactory(Connector connector) {
+            super(connector);
+        }
+        
+        @Override
+        public synchronized BatchScannerSession newQueryScanner(String tableName, Set<Authorizations> auths, Query settings) throws Exception {
+            BatchScannerSession session = super.newQueryScanner(tableName, auths, settings);
+            created.add(session);
+            return session;
+        }
+        
+        @Override
+        public void close(ScannerSession bs) {
+            synchronized (this) {
+                closed.add(bs);
+            }
+            super.close(bs);
+        }
+    }
+}
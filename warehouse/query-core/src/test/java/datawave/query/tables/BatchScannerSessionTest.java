@@ -0,0 +1,116 @@
+package datawave.query.tables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Iterators;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.query.tables.async.HedgePolicy;
+import datawave.query.tables.async.ScannerChunk;
+import datawave.webservice.query.QueryImpl;
+
+public class BatchScannerSessionTest {
+    
+    private static final String TABLE_NAME = "shard";
+    private static final int ROWS = 10;
+    private static final int COLUMNS = 3;
+    
+    private static Connector connector;
+    
+    @BeforeClass
+    public static void setup() throws Exception {
+        InMemoryInstance instance = new InMemoryInstance();
+        connector = instance.getConnector("", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(TABLE_NAME);
+        
+        BatchWriter bw = connector.createBatchWriter(TABLE_NAME, new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS).setMaxWriteThreads(1));
+        for (int row = 0; row < ROWS; row++) {
+            Mutation mutation = new Mutation("row" + row);
+            for (int column = 0; column < COLUMNS; column++) {
+                mutation.put("cf", "cq" + column, new Value(new byte[0]));
+            }
+            bw.addMutation(mutation);
+        }
+        bw.close();
+    }
+    
+    /**
+     * The scan of one chunk is held back until its hedge has won, after which it still reads its range. Its entries must only be returned by the hedge.
+     */
+    @Test
+    public void testHedgedChunkReturnsResultsOnce() throws Exception {
+        ScannerFactory scannerFactory = new ScannerFactory(connector, 4);
+        QueryImpl query = new QueryImpl();
+        query.setId(UUID.randomUUID());
+        BatchScannerSession session = scannerFactory.newQueryScanner(TABLE_NAME, Collections.singleton(new Authorizations()), query);
+        
+        // hedge scans that have gone 200 ms without a result, which only the held back scan will do
+        HedgePolicy policy = new HedgePolicy(0.5, 200, 1.0);
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+            policy.recordLatency(0);
+        }
+        session.setHedgePolicy(policy);
+        
+        Range slowRange = new Range("row5");
+        AtomicBoolean slowed = new AtomicBoolean(false);
+        session.addVisitor(chunk -> {
+            if (chunk.getRanges().contains(slowRange) && slowed.compareAndSet(false, true)) {
+                long deadline = System.currentTimeMillis() + 30000;
+                while (policy.getHedgesWon() == 0 && System.currentTimeMillis() < deadline) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            return chunk;
+        });
+        
+        List<ScannerChunk> chunks = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            chunks.add(new ScannerChunk(new SessionOptions(), Collections.singletonList(new Range("row" + row))));
+        }
+        session.setChunkIter(Iterators.singletonIterator(chunks));
+        
+        List<Key> keys = new ArrayList<>();
+        try {
+            while (session.hasNext()) {
+                Entry<Key,Value> entry = session.next();
+                keys.add(entry.getKey());
+            }
+        } finally {
+            scannerFactory.close(session);
+        }
+        
+        Assert.assertTrue(slowed.get());
+        Assert.assertEquals(1, policy.getHedged());
+        Assert.assertEquals(1, policy.getHedgesWon());
+        
+        Set<Key> distinct = new HashSet<>(keys);
+        Assert.assertEquals(ROWS * COLUMNS, distinct.size());
+        Assert.assertEquals("results were returned more than once", distinct.size(), keys.size());
+    }
+}
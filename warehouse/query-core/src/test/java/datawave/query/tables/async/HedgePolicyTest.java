@@ -0,0 +1,131 @@
+package datawave.query.tables.async;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.accumulo.core.data.Range;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import datawave.query.tables.SessionOptions;
+
+public class HedgePolicyTest {
+    
+    private ExecutorService service;
+    
+    @Before
+    public void setup() {
+        service = Executors.newSingleThreadExecutor();
+    }
+    
+    @After
+    public void teardown() {
+        service.shutdownNow();
+    }
+    
+    @Test
+    public void testNoHedgingUntilEnoughSamples() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 1.0);
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES - 1; i++) {
+            policy.scanSubmitted();
+            policy.recordLatency(10);
+        }
+        Assert.assertEquals(Long.MAX_VALUE, policy.getThreshold());
+        Assert.assertFalse(policy.shouldHedge(Long.MAX_VALUE - 1));
+        
+        policy.recordLatency(10);
+        Assert.assertEquals(10, policy.getThreshold());
+    }
+    
+    @Test
+    public void testThresholdIsPercentile() {
+        HedgePolicy policy = new HedgePolicy(0.95, 0, 1.0);
+        for (int i = 1; i <= 100; i++) {
+            policy.scanSubmitted();
+            policy.recordLatency(i);
+        }
+        Assert.assertEquals(95, policy.getThreshold());
+        Assert.assertFalse(policy.shouldHedge(95));
+        Assert.assertTrue(policy.shouldHedge(96));
+        
+        // the window only keeps the most recent latencies
+        for (int i = 0; i < HedgePolicy.WINDOW_SIZE; i++) {
+            policy.recordLatency(5);
+        }
+        Assert.assertEquals(5, policy.getThreshold());
+    }
+    
+    @Test
+    public void testMinDelay() {
+        HedgePolicy policy = new HedgePolicy(0.5, 250, 1.0);
+        for (int i = 0; i < 100; i++) {
+            policy.scanSubmitted();
+            policy.recordLatency(3);
+        }
+        Assert.assertEquals(250, policy.getThreshold());
+    }
+    
+    @Test
+    public void testBudget() {
+        HedgePolicy policy = new HedgePolicy(0.5, 0, 0.05);
+        for (int i = 0; i < 40; i++) {
+            policy.scanSubmitted();
+            policy.recordLatency(1);
+        }
+        Assert.assertTrue(policy.shouldHedge(100));
+        policy.scanHedged();
+        Assert.assertTrue(policy.shouldHedge(100));
+        policy.scanHedged();
+        // 2 hedges of 40 scans uses the 5% budget
+        Assert.assertFalse(policy.shouldHedge(100));
+        Assert.assertEquals(0.05, policy.getHedgeRate(), 0.0);
+        
+        policy.scanSubmitted();
+        policy.hedgeWon();
+        Assert.assertEquals(41, policy.getScans());
+        Assert.assertEquals(2, policy.getHedged());
+        Assert.assertEquals(1, policy.getHedgesWon());
+    }
+    
+    @Test
+    public void testFirstClaimCancelsPeer() {
+        Scan primary = newScan();
+        Scan hedge = newScan();
+        
+        primary.enableHedging();
+        Assert.assertTrue(primary.hedgeWith(hedge));
+        Assert.assertTrue(hedge.isHedge());
+        Assert.assertFalse(primary.isHedge());
+        Assert.assertFalse(primary.isClaimed());
+        
+        Assert.assertTrue(hedge.claim());
+        Assert.assertTrue(hedge.claim());
+        Assert.assertTrue(primary.isClaimed());
+        Assert.assertTrue(primary.isCancelled());
+        Assert.assertTrue(primary.finished());
+        Assert.assertFalse(hedge.isCancelled());
+        Assert.assertFalse(primary.claim());
+    }
+    
+    @Test
+    public void testNoHedgeOnceClaimed() {
+        Scan primary = newScan();
+        primary.enableHedging();
+        Assert.assertTrue(primary.claim());
+        
+        Scan hedge = newScan();
+        Assert.assertFalse(primary.hedgeWith(hedge));
+        Assert.assertFalse(hedge.claim());
+        
+        // scans that are not hedged always claim their results
+        Assert.assertTrue(newScan().claim());
+    }
+    
+    private Scan newScan() {
+        ScannerChunk chunk = new ScannerChunk(new SessionOptions(), Collections.singleton(new Range("a", "b")));
+        return new Scan("shard", Collections.emptySet(), chunk, null, null, null, service);
+    }
+}
@@ -0,0 +1,166 @@
+package datawave.query.tables.content;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.ingest.protobuf.Uid;
+import datawave.query.config.ContentQueryConfiguration;
+import datawave.util.time.DateHelper;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.result.BaseQueryResponse;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static datawave.util.TableName.SHARD;
+import static datawave.util.TableName.SHARD_INDEX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UUIDContentQueryTableTest {
+    
+    private static final ColumnVisibility VISIBILITY = new ColumnVisibility("A");
+    private static final Set<Authorizations> AUTHS = Collections.singleton(new Authorizations("A"));
+    
+    private static Connector connector;
+    
+    private static Mutation indexMutation(String field, String value, String shard, String datatype, boolean ignore, String... uids) {
+        Uid.List.Builder builder = Uid.List.newBuilder();
+        builder.setIGNORE(ignore);
+        builder.setCOUNT(ignore ? 1000 : uids.length);
+        if (!ignore) {
+            builder.addAllUID(Arrays.asList(uids));
+        }
+        
+        Mutation mutation = new Mutation(value);
+        mutation.put(field, shard + '\u0000' + datatype, VISIBILITY, new Value(builder.build().toByteArray()));
+        return mutation;
+    }
+    
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        InMemoryInstance instance = new InMemoryInstance();
+        connector = instance.getConnector("", new PasswordToken(new byte[0]));
+        connector.tableOperations().create(SHARD_INDEX);
+        connector.tableOperations().create(SHARD);
+        
+        BatchWriterConfig bwConfig = new BatchWriterConfig().setMaxMemory(1024L).setMaxLatency(1, TimeUnit.SECONDS).setMaxWriteThreads(1);
+        BatchWriter bw = connector.createBatchWriter(SHARD_INDEX, bwConfig);
+        bw.addMutation(indexMutation("UUID", "abc", "20190314_0", "dt", false, "uid1"));
+        // the uids of this value were not kept, so it is found through the field index
+        bw.addMutation(indexMutation("UUID", "def", "20190314_1", "dt", true));
+        // outside of the date range
+        bw.addMutation(indexMutation("UUID", "old", "20180101_0", "dt", false, "uid4"));
+        bw.close();
+        
+        bw = connector.createBatchWriter(SHARD, bwConfig);
+        Mutation mutation = new Mutation("20190314_0");
+        mutation.put("d", "dt\u0000uid1\u0000CONTENT", VISIBILITY, new Value("one".getBytes()));
+        mutation.put("d", "dt\u0000uid3\u0000CONTENT", VISIBILITY, new Value("three".getBytes()));
+        bw.addMutation(mutation);
+        mutation = new Mutation("20190314_1");
+        mutation.put("fi\u0000UUID", "def\u0000dt\u0000uid2", VISIBILITY, new Value(new byte[0]));
+        mutation.put("d", "dt\u0000uid2\u0000CONTENT", VISIBILITY, new Value("two".getBytes()));
+        bw.addMutation(mutation);
+        mutation = new Mutation("20180101_0");
+        mutation.put("d", "dt\u0000uid4\u0000CONTENT", VISIBILITY, new Value("four".getBytes()));
+        bw.addMutation(mutation);
+        bw.close();
+    }
+    
+    private static UUIDContentQueryTable createLogic() {
+        UUIDContentQueryTable logic = new UUIDContentQueryTable();
+        logic.setTableName(SHARD);
+        logic.setIndexTableName(SHARD_INDEX);
+        logic.setQueryThreads(1);
+        return logic;
+    }
+    
+    private static QueryImpl createQuery(String query) {
+        QueryImpl settings = new QueryImpl();
+        settings.setQuery(query);
+        settings.setBeginDate(DateHelper.parse("20190301"));
+        settings.setEndDate(DateHelper.parse("20190401"));
+        return settings;
+    }
+    
+    private static Set<String> lookup(UUIDContentQueryTable logic, String query) throws Exception {
+        ContentQueryConfiguration config = (ContentQueryConfiguration) logic.initialize(connector, createQuery(query), AUTHS);
+        logic.setupQuery(config);
+        
+        Set<String> values = new TreeSet<>();
+        Iterator<Entry<Key,Value>> results = logic.iterator();
+        while (results.hasNext()) {
+            values.add(results.next().getValue().toString());
+        }
+        logic.close();
+        return values;
+    }
+    
+    @Test
+    public void testLookup() throws Exception {
+        UUIDContentQueryTable logic = createLogic();
+        Set<String> values = lookup(logic, "UUID:\"abc\" OR (UUID:def) OR event:20190314_0/dt/uid3 OR UUID:old");
+        assertEquals(new TreeSet<>(Arrays.asList("one", "three", "two")), values);
+        assertFalse(logic.isTruncated());
+    }
+    
+    @Test
+    public void testMaxDocuments() throws Exception {
+        UUIDContentQueryTable logic = createLogic();
+        logic.setMaxDocuments(2);
+        Set<String> values = lookup(logic, "UUID:abc OR UUID:def OR event:20190314_0/dt/uid3");
+        assertEquals(2, values.size());
+        
+        // the caller is told that documents were left out
+        assertTrue(logic.isTruncated());
+        BaseQueryResponse response = logic.getTransformer(createQuery("UUID:abc")).createResponse(Collections.emptyList());
+        assertEquals(1, response.getMessages().size());
+        assertTrue(response.getMessages().get(0).contains("only the first 2"));
+    }
+    
+    @Test
+    public void testMaxDocumentsReachedExactly() throws Exception {
+        UUIDContentQueryTable logic = createLogic();
+        logic.setMaxDocuments(2);
+        Set<String> values = lookup(logic, "UUID:abc OR event:20190314_0/dt/uid3 OR event:20190314_0/dt/uid3");
+        assertEquals(2, values.size());
+        assertFalse(logic.isTruncated());
+    }
+    
+    @Test
+    public void testNoDocuments() throws Exception {
+        Set<String> values = lookup(createLogic(), "UUID:missing OR UUID:old");
+        assertTrue(values.isEmpty());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedEvent() throws Exception {
+        lookup(createLogic(), "event:20190314_0/uid3");
+    }
+    
+    @Test
+    public void testClone() throws Exception {
+        UUIDContentQueryTable logic = createLogic();
+        logic.setMaxDocuments(5);
+        UUIDContentQueryTable clone = (UUIDContentQueryTable) logic.clone();
+        assertEquals(SHARD_INDEX, clone.getIndexTableName());
+        assertEquals(5, clone.getMaxDocuments());
+        assertFalse(clone == logic);
+    }
+}
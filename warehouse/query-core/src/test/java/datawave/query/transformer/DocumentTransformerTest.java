@@ -9,9 +9,16 @@ import datawave.query.function.deserializer.KryoDocumentDeserializer;
 import datawave.webservice.query.Query;
 import datawave.webservice.query.QueryImpl;
 import datawave.webservice.query.logic.BaseQueryLogic;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.query.result.event.EventBase;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
 import datawave.webservice.query.result.event.SimpleEvent;
 import datawave.webservice.query.result.event.SimpleField;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.EventQueryResponseEncoder;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.easymock.EasyMock;
@@ -24,10 +31,13 @@ import org.powermock.api.easymock.annotation.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -255,4 +265,68 @@ public class DocumentTransformerTest { // extends EasyMockSupport {
         Assert.assertTrue(foundFields.containsAll(expectedFields));
         Assert.assertTrue(expectedFields.containsAll(foundFields));
     }
+    
+    @Test
+    public void encode_sameEventAsTransformTest() throws Exception {
+        Key key = new Key("shard", "dataType" + Constants.NULL + "uid");
+        Value value = new Value();
+        AbstractMap.SimpleEntry<Key,Value> entry = new AbstractMap.SimpleEntry<>(key, value);
+        
+        Document d = new Document();
+        d.put("field1", new Numeric("5", key, true));
+        d.put("field3", new Numeric("6", key, true));
+        d.put("field2", new Numeric("7", key, true));
+        
+        PowerMock.mockStatic(DocumentSerialization.class);
+        EasyMock.expect(DocumentSerialization.getDocumentDeserializer(mockQuery)).andReturn(mockDeserializer);
+        EasyMock.expect(mockLogic.getTableName()).andReturn("table1");
+        EasyMock.expect(mockQuery.getQueryAuthorizations()).andReturn("A,B,C");
+        EasyMock.expect(mockQuery.findParameter("log.timing.details")).andReturn(new QueryImpl.Parameter("", ""));
+        EasyMock.expect(mockDeserializer.apply(entry)).andReturn(new AbstractMap.SimpleEntry<>(key, d)).times(2);
+        EasyMock.expect(mockMarkingFunctions.translateFromColumnVisibility(key.getColumnVisibilityParsed())).andReturn(Collections.EMPTY_MAP).times(2);
+        // only transform builds the event and its fields
+        EasyMock.expect(mockResponseFactory.getEvent()).andReturn(new DefaultEvent());
+        EasyMock.expect(mockResponseFactory.getField()).andReturn(new DefaultField()).andReturn(new DefaultField()).andReturn(new DefaultField());
+        EasyMock.expect(mockResponseFactory.getEventQueryResponse()).andReturn(new DefaultEventQueryResponse());
+        
+        PowerMock.replayAll();
+        
+        transformer = new DocumentTransformer(mockLogic, mockQuery, mockMarkingFunctions, mockResponseFactory, true);
+        EventBase event = transformer.transform(entry);
+        DefaultEventQueryResponse built = (DefaultEventQueryResponse) transformer.createResponse(Collections.<Object> singletonList(event));
+        
+        EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(EventQueryResponseEncoder.Format.PROTOBUF);
+        Assert.assertTrue(transformer.encode(entry, encoder));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeTo(new DefaultEventQueryResponse(), out);
+        
+        PowerMock.verifyAll();
+        
+        DefaultEventQueryResponse expected = parse(serialize(built));
+        DefaultEventQueryResponse actual = parse(out.toByteArray());
+        
+        Assert.assertEquals(expected.getFields(), actual.getFields());
+        Assert.assertEquals(expected.getReturnedEvents(), actual.getReturnedEvents());
+        Assert.assertEquals(1, actual.getEvents().size());
+        
+        // the fields of a built event are collected in a set, so only their order may differ
+        DefaultEvent expectedEvent = (DefaultEvent) expected.getEvents().get(0);
+        DefaultEvent actualEvent = (DefaultEvent) actual.getEvents().get(0);
+        Assert.assertEquals(expectedEvent.getMarkings(), actualEvent.getMarkings());
+        Assert.assertEquals(expectedEvent.getMetadata(), actualEvent.getMetadata());
+        Assert.assertEquals(3, actualEvent.getFields().size());
+        Assert.assertEquals(new HashSet<>(expectedEvent.getFields()), new HashSet<>(actualEvent.getFields()));
+    }
+    
+    private static byte[] serialize(DefaultEventQueryResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProtobufIOUtil.writeTo(out, response, response.cachedSchema(), LinkedBuffer.allocate(4096));
+        return out.toByteArray();
+    }
+    
+    private static DefaultEventQueryResponse parse(byte[] bytes) {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        ProtobufIOUtil.mergeFrom(bytes, response, response.cachedSchema());
+        return response;
+    }
 }
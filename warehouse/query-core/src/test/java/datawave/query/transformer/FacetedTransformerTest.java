@@ -0,0 +1,76 @@
+package datawave.query.transformer;
+
+import datawave.marking.MarkingFunctions;
+import datawave.query.attributes.FacetSketch;
+import datawave.query.attributes.FacetSummary;
+import datawave.query.tables.facets.FacetedConfiguration;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.result.event.DefaultResponseObjectFactory;
+import datawave.webservice.query.result.event.FieldCardinalityBase;
+import org.apache.accumulo.core.data.Key;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class FacetedTransformerTest {
+    
+    private MarkingFunctions markingFunctions;
+    private FacetedTransformer transformer;
+    private FacetSummary summary;
+    
+    @Before
+    public void setup() {
+        QueryImpl settings = new QueryImpl();
+        settings.setQueryAuthorizations("A,B");
+        markingFunctions = new MarkingFunctions.Default();
+        transformer = new FacetedTransformer("shard", settings, markingFunctions, new DefaultResponseObjectFactory(), false);
+        
+        // red 5 times, blue 3, green 2 and yellow once, with room for only three of them
+        FacetSketch sketch = new FacetSketch(3);
+        for (String value : new String[] {"red", "red", "red", "red", "red", "blue", "blue", "blue", "green", "green", "yellow"}) {
+            sketch.offer(value);
+        }
+        summary = new FacetSummary(sketch, new Key("", "", "", "A&B", -1), true);
+    }
+    
+    @Test
+    public void testAllFacets() throws Exception {
+        List<FieldCardinalityBase> facets = new ArrayList<>(transformer.buildFacets(summary, markingFunctions));
+        Assert.assertEquals(3, facets.size());
+        
+        assertFacet(facets.get(0), "red", 5, 0);
+        assertFacet(facets.get(1), "blue", 3, 0);
+        // yellow replaced green, so its count is bounded by the count it took over
+        assertFacet(facets.get(2), "yellow", 3, 2);
+        for (FieldCardinalityBase facet : facets) {
+            Assert.assertEquals("A&B", facet.getColumnVisibility());
+        }
+    }
+    
+    @Test
+    public void testTopAndMinimumCount() throws Exception {
+        FacetedConfiguration config = new FacetedConfiguration();
+        config.setTopFacetCount(2);
+        transformer.setFacetedConfiguration(config);
+        
+        Collection<FieldCardinalityBase> facets = transformer.buildFacets(summary, markingFunctions);
+        Assert.assertEquals(2, facets.size());
+        
+        config.setTopFacetCount(10);
+        config.setMinimumCount(4);
+        List<FieldCardinalityBase> minimum = new ArrayList<>(transformer.buildFacets(summary, markingFunctions));
+        Assert.assertEquals(1, minimum.size());
+        assertFacet(minimum.get(0), "red", 5, 0);
+    }
+    
+    private static void assertFacet(FieldCardinalityBase facet, String value, long count, long error) {
+        Assert.assertEquals(value, facet.getLower());
+        Assert.assertEquals(value, facet.getUpper());
+        Assert.assertEquals(count, facet.getCardinality().longValue());
+        Assert.assertEquals(error, facet.getError().longValue());
+    }
+}
@@ -514,6 +514,39 @@ public abstract class GroupingTest {
         }
     }
     
+    @Test
+    public void testCountingMapPartialCounts() {
+        MarkingFunctions markingFunctions = new MarkingFunctions.Default();
+        GroupingTransform.GroupCountingHashMap map = new GroupingTransform.GroupCountingHashMap(markingFunctions);
+        
+        GroupingTypeAttribute<?> attr1a = new GroupingTypeAttribute(new LcType("FOO"), new Key("NAME"), true);
+        attr1a.setColumnVisibility(new ColumnVisibility("A"));
+        GroupingTypeAttribute<?> attr1b = new GroupingTypeAttribute(new NumberType("5"), new Key("AGE"), true);
+        attr1b.setColumnVisibility(new ColumnVisibility("C"));
+        Assert.assertEquals(3, map.add(Sets.newHashSet(attr1a, attr1b), 3));
+        
+        // a different group with the same NAME does not share its visibility
+        GroupingTypeAttribute<?> attr2a = new GroupingTypeAttribute(new LcType("FOO"), new Key("NAME"), true);
+        attr2a.setColumnVisibility(new ColumnVisibility("B"));
+        GroupingTypeAttribute<?> attr2b = new GroupingTypeAttribute(new NumberType("6"), new Key("AGE"), true);
+        attr2b.setColumnVisibility(new ColumnVisibility("D"));
+        Assert.assertEquals(1, map.add(Sets.newHashSet(attr2a, attr2b)));
+        
+        GroupingTypeAttribute<?> attr3a = new GroupingTypeAttribute(new LcType("FOO"), new Key("NAME"), true);
+        attr3a.setColumnVisibility(new ColumnVisibility("E"));
+        GroupingTypeAttribute<?> attr3b = new GroupingTypeAttribute(new NumberType("5"), new Key("AGE"), true);
+        attr3b.setColumnVisibility(new ColumnVisibility("C"));
+        Assert.assertEquals(5, map.add(Sets.newHashSet(attr3a, attr3b), 2));
+        
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(new ColumnVisibility("A&E"), attr1a.getColumnVisibility());
+        Assert.assertEquals(new ColumnVisibility("C"), attr1b.getColumnVisibility());
+        Assert.assertEquals(new ColumnVisibility("B"), attr2a.getColumnVisibility());
+        
+        map.clear();
+        Assert.assertEquals(1, map.add(Sets.newHashSet(attr3a, attr3b)));
+    }
+    
     private static RemoteEdgeDictionary mockRemoteEdgeDictionary = EasyMock.createMock(RemoteEdgeDictionary.class);
     
     public static class Producer {
@@ -192,6 +192,26 @@ public class UniqueTransformTest {
         Assert.assertNull(transform.apply(null));
     }
     
+    @Test
+    public void testMaxEntries() {
+        List<Document> input = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Document d = new Document();
+            d.put("Attr0", new DiacriticContent(values.get(i), d.getMetadata(), true), true, false);
+            input.add(d);
+        }
+        
+        UniqueTransform transform = new UniqueTransform(Sets.newHashSet("Attr0"), 2);
+        Assert.assertNotNull(transform.apply(Maps.immutableEntry(new Key(), input.get(0))));
+        Assert.assertNotNull(transform.apply(Maps.immutableEntry(new Key(), input.get(1))));
+        Assert.assertNull(transform.apply(Maps.immutableEntry(new Key(), input.get(0))));
+        
+        // a third unique document exceeds the limit, so the first two are forgotten
+        Assert.assertNotNull(transform.apply(Maps.immutableEntry(new Key(), input.get(2))));
+        Assert.assertNull(transform.apply(Maps.immutableEntry(new Key(), input.get(2))));
+        Assert.assertNotNull(transform.apply(Maps.immutableEntry(new Key(), input.get(0))));
+    }
+    
     /**
      * Test that groups get placed into separate field sets
      */
@@ -0,0 +1,54 @@
+package datawave.query.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TypeMetadataCacheTest {
+    
+    @Before
+    public void setup() {
+        TypeMetadataCache.invalidateAll();
+    }
+    
+    @Test
+    public void testLoadedOncePerVersion() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        String version = TypeMetadataCache.getVersion("FIELD:[datatype:datawave.data.type.LcNoDiacriticsType]");
+        
+        TypeMetadata first = TypeMetadataCache.get(version, () -> {
+            loads.incrementAndGet();
+            return new TypeMetadata();
+        });
+        TypeMetadata second = TypeMetadataCache.get(version, () -> {
+            loads.incrementAndGet();
+            return new TypeMetadata();
+        });
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, loads.get());
+        
+        // a changed TypeMetadata has a new version, and is loaded again
+        String changed = TypeMetadataCache.getVersion("FIELD:[datatype:datawave.data.type.NumberType]");
+        Assert.assertNotEquals(version, changed);
+        Assert.assertNotSame(first, TypeMetadataCache.get(changed, TypeMetadata::new));
+        Assert.assertEquals(2, TypeMetadataCache.size());
+    }
+    
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+        String version = TypeMetadataCache.getVersion("bad");
+        try {
+            TypeMetadataCache.get(version, () -> {
+                throw new IllegalArgumentException("unparseable");
+            });
+            Assert.fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        Assert.assertNull(TypeMetadataCache.getIfPresent(version));
+        Assert.assertNotNull(TypeMetadataCache.get(version, TypeMetadata::new));
+    }
+}
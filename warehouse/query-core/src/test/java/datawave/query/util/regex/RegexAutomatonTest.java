@@ -0,0 +1,134 @@
+package datawave.query.util.regex;
+
+import com.google.common.primitives.UnsignedBytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+public class RegexAutomatonTest {
+    
+    private static final String[] SUPPORTED = {"abc", "ab.*", ".*ab", "a.c", "a|b|cd", "(ab)+", "(?:a|b)c?", "[a-c]+1", "[^a]b", "\\d+", "\\w\\s\\W", "a{2}",
+            "a{1,3}b", "a{2,}", "a*?b", "\\.", "\\Q.*\\E", "^ab$", "\u00e9.", "[\u4e2d\u00e9]+", "\\u4e2d.*", "\\x61b", "[\\d_]*", "a\\$"};
+    
+    private static final String[] UNSUPPORTED = {"(a)\\1", "a(?=b)", "\\bab", "(?i)ab", "a*+", "[a&&b]", "\\p{Lower}", "a^b", "$a"};
+    
+    private static final Comparator<byte[]> BYTES = UnsignedBytes.lexicographicalComparator();
+    
+    private static final String ALPHABET = "abc1_ .\n$\u00e9\u4e2d";
+    
+    @Test
+    public void testSupported() {
+        for (String regex : SUPPORTED) {
+            Assert.assertTrue(regex, new RegexAutomaton(regex).isAutomaton());
+        }
+        for (String regex : UNSUPPORTED) {
+            Assert.assertFalse(regex, new RegexAutomaton(regex).isAutomaton());
+        }
+    }
+    
+    @Test
+    public void testMatchesLikePattern() {
+        List<String> terms = terms();
+        for (String regex : concat(SUPPORTED, UNSUPPORTED)) {
+            Pattern pattern = Pattern.compile(regex);
+            RegexAutomaton automaton = new RegexAutomaton(regex);
+            RegexAutomaton reverse = new RegexAutomaton(regex, true);
+            for (String term : terms) {
+                boolean expected = pattern.matcher(term).matches();
+                byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+                Assert.assertEquals(regex + " / " + term, expected, automaton.matches(bytes, 0, bytes.length));
+                
+                byte[] reversed = new StringBuilder(term).reverse().toString().getBytes(StandardCharsets.UTF_8);
+                Assert.assertEquals(regex + " / " + term + " reversed", expected, reverse.matches(reversed, 0, reversed.length));
+            }
+        }
+    }
+    
+    @Test
+    public void testNextPossibleMatch() {
+        List<byte[]> terms = new ArrayList<>();
+        for (String term : terms()) {
+            terms.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+        terms.sort(BYTES);
+        
+        for (String regex : concat(SUPPORTED, UNSUPPORTED)) {
+            for (boolean reverse : new boolean[] {false, true}) {
+                RegexAutomaton automaton = new RegexAutomaton(regex, reverse);
+                for (int i = 0; i < terms.size(); i++) {
+                    byte[] term = terms.get(i);
+                    byte[] next = automaton.nextPossibleMatch(term, 0, term.length);
+                    String message = regex + (reverse ? " reversed / " : " / ") + new String(term, StandardCharsets.UTF_8);
+                    if (automaton.matches(term, 0, term.length)) {
+                        Assert.assertArrayEquals(message, term, next);
+                    } else if (next != null) {
+                        Assert.assertTrue(message, BYTES.compare(next, term) >= 0);
+                    }
+                    
+                    // no later matching term may sort before the bound
+                    for (int j = i; j < terms.size(); j++) {
+                        byte[] later = terms.get(j);
+                        if (automaton.matches(later, 0, later.length)) {
+                            Assert.assertNotNull(message, next);
+                            Assert.assertTrue(message, BYTES.compare(later, next) >= 0);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testSeekAhead() {
+        RegexAutomaton automaton = new RegexAutomaton("ba[r-t]+z");
+        // the smallest match would be an endless run of 'r', so the bound stops once the loop is entered
+        Assert.assertEquals("barr", next(automaton, "b"));
+        Assert.assertEquals("barr", next(automaton, "al"));
+        Assert.assertEquals("barr", next(automaton, "ba"));
+        Assert.assertEquals("barz", next(automaton, "barx"));
+        Assert.assertEquals("basr", next(automaton, "barz0"));
+        Assert.assertNull(next(automaton, "bb"));
+        
+        RegexAutomaton reversed = new RegexAutomaton(".*ing", true);
+        Assert.assertEquals("gni", next(reversed, "apple"));
+        Assert.assertNull(next(reversed, "h"));
+    }
+    
+    private static String next(RegexAutomaton automaton, String term) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        byte[] next = automaton.nextPossibleMatch(bytes, 0, bytes.length);
+        return next == null ? null : new String(next, StandardCharsets.UTF_8);
+    }
+    
+    private static List<String> terms() {
+        TreeSet<String> terms = new TreeSet<>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                term.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            terms.add(term.toString());
+        }
+        for (String term : new String[] {"ab", "abc", "aab", "aaab", "aaa", "cd", ".*", "a$", "a\nb", "\u4e2d\u00e9", "\u00e9\u00e9", "1_1", "a b", "bc"}) {
+            terms.add(term);
+        }
+        return new ArrayList<>(terms);
+    }
+    
+    private static String[] concat(String[] a, String[] b) {
+        String[] all = new String[a.length + b.length];
+        System.arraycopy(a, 0, all, 0, a.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        return all;
+    }
+}
@@ -2524,6 +2524,9 @@ public class CachedResultsBean {
         if (q.getId() != null) {
             trackingMap.put("query.query", q.getQuery());
         }
+        if (q.getQueryLogicName() != null) {
+            trackingMap.put("query.logic", q.getQueryLogicName());
+        }
     }
     
     public QueryPredictor getPredictor() {
@@ -51,6 +51,10 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
         private long pageNumber = -1;
         @XmlElement
         private long loginTime = -1;
+        @XmlElement
+        private long pageSizeLimit = -1;
+        @XmlElement
+        private long pageBytes = -1;
         
         public PageMetric() {
             super();
@@ -97,6 +101,8 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
             this.pageReturned = o.pageReturned;
             this.pageNumber = o.pageNumber;
             this.loginTime = o.loginTime;
+            this.pageSizeLimit = o.pageSizeLimit;
+            this.pageBytes = o.pageBytes;
         }
         
         public PageMetric duplicate() {
@@ -175,10 +181,32 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
             this.loginTime = loginTime;
         }
         
+        /**
+         * @return the page size chosen for this page from the results of the previous pages, or -1 if the page size was not adapted
+         */
+        public long getPageSizeLimit() {
+            return pageSizeLimit;
+        }
+        
+        public void setPageSizeLimit(long pageSizeLimit) {
+            this.pageSizeLimit = pageSizeLimit;
+        }
+        
+        /**
+         * @return the estimated size of the results of this page in bytes, or -1 if the results were not sized
+         */
+        public long getPageBytes() {
+            return pageBytes;
+        }
+        
+        public void setPageBytes(long pageBytes) {
+            this.pageBytes = pageBytes;
+        }
+        
         @Override
         public int hashCode() {
             return new HashCodeBuilder(17, 37).append(pagesize).append(returnTime).append(callTime).append(serializationTime).append(bytesWritten)
-                            .append(pageRequested).append(pageReturned).append(pageNumber).append(loginTime).toHashCode();
+                            .append(pageRequested).append(pageReturned).append(pageNumber).append(loginTime).append(pageSizeLimit).append(pageBytes).toHashCode();
         }
         
         @Override
@@ -195,7 +223,8 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
                                 .append(this.callTime, other.callTime).append(this.serializationTime, other.serializationTime)
                                 .append(this.bytesWritten, other.bytesWritten).append(this.pageRequested, other.pageRequested)
                                 .append(this.pageReturned, other.pageReturned).append(this.pageNumber, other.pageNumber)
-                                .append(this.loginTime, other.loginTime).isEquals();
+                                .append(this.loginTime, other.loginTime).append(this.pageSizeLimit, other.pageSizeLimit)
+                                .append(this.pageBytes, other.pageBytes).isEquals();
             } else {
                 return false;
             }
@@ -206,7 +235,8 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
             return new StringBuilder().append("Page number: ").append(this.pageNumber).append(" Requested: ").append(this.pageRequested).append(" Returned: ")
                             .append(this.pageReturned).append(" Pagesize: ").append(this.pagesize).append(" ReturnTime(ms): ").append(this.returnTime)
                             .append(" CallTime(ms): ").append(this.callTime).append(" SerializationTime(ms): ").append(this.serializationTime)
-                            .append(" BytesWritten: ").append(this.bytesWritten).append(" LoginTime(ms): ").append(this.loginTime).toString();
+                            .append(" BytesWritten: ").append(this.bytesWritten).append(" LoginTime(ms): ").append(this.loginTime).append(" PageSizeLimit: ")
+                            .append(this.pageSizeLimit).append(" PageBytes: ").append(this.pageBytes).toString();
         }
         
         public static Schema<PageMetric> getSchema() {
@@ -263,6 +293,12 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
                 if (message.loginTime != -1) {
                     output.writeUInt64(9, message.loginTime, false);
                 }
+                if (message.pageSizeLimit != -1) {
+                    output.writeUInt64(10, message.pageSizeLimit, false);
+                }
+                if (message.pageBytes != -1) {
+                    output.writeUInt64(11, message.pageBytes, false);
+                }
             }
             
             public void mergeFrom(Input input, PageMetric message) throws IOException {
@@ -296,6 +332,12 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
                         case 9:
                             message.loginTime = input.readUInt64();
                             break;
+                        case 10:
+                            message.pageSizeLimit = input.readUInt64();
+                            break;
+                        case 11:
+                            message.pageBytes = input.readUInt64();
+                            break;
                         default:
                             input.handleUnknownField(number, this);
                             break;
@@ -323,6 +365,10 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
                         return "pageNumber";
                     case 9:
                         return "loginTime";
+                    case 10:
+                        return "pageSizeLimit";
+                    case 11:
+                        return "pageBytes";
                     default:
                         return null;
                 }
@@ -345,6 +391,8 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
                 fieldMap.put("pageReturned", 7);
                 fieldMap.put("pageNumber", 8);
                 fieldMap.put("loginTime", 9);
+                fieldMap.put("pageSizeLimit", 10);
+                fieldMap.put("pageBytes", 11);
             }
         };
     }
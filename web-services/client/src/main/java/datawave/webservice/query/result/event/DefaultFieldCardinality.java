@@ -40,6 +40,8 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
     private String upper;
     @XmlElement(name = "cardinality")
     private Long cardinality;
+    @XmlElement(name = "error")
+    private Long error;
     
     public DefaultFieldCardinality() {}
     
@@ -73,11 +75,22 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
         this.cardinality = cardinality;
     }
     
+    public Long getError() {
+        return error;
+    }
+    
+    public void setError(Long error) {
+        this.error = error;
+    }
+    
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
         buf.append(" columnVisibility=").append(columnVisibility);
         buf.append(" cardinality=").append(cardinality);
+        if (error != null) {
+            buf.append(" error=").append(error);
+        }
         buf.append(" lower=").append(lower);
         buf.append(" upper= ").append(upper).append("] ");
         
@@ -86,7 +99,7 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
     
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(17, 37).append(columnVisibility).append(cardinality).append(lower).append(upper).hashCode();
+        return new HashCodeBuilder(17, 37).append(columnVisibility).append(cardinality).append(error).append(lower).append(upper).hashCode();
     }
     
     @Override
@@ -100,6 +113,7 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
             eb.append(this.lower, v.lower);
             eb.append(this.upper, v.upper);
             eb.append(this.cardinality, v.cardinality);
+            eb.append(this.error, v.error);
             return eb.isEquals();
         }
         
@@ -166,6 +180,8 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
             output.writeUInt64(2, message.cardinality, false);
             output.writeString(3, message.lower, false);
             output.writeString(4, message.upper, false);
+            if (message.error != null)
+                output.writeUInt64(5, message.error, false);
         }
         
         @Override
@@ -185,6 +201,9 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
                     case 4:
                         message.upper = input.readString();
                         break;
+                    case 5:
+                        message.error = input.readUInt64();
+                        break;
                     default:
                         input.handleUnknownField(number, this);
                         break;
@@ -203,6 +222,8 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
                     return "lower";
                 case 4:
                     return "upper";
+                case 5:
+                    return "error";
                 default:
                     return null;
             }
@@ -220,6 +241,7 @@ public class DefaultFieldCardinality extends FieldCardinalityBase implements Ser
             fieldMap.put("cardinality", 2);
             fieldMap.put("lower", 3);
             fieldMap.put("upper", 4);
+            fieldMap.put("error", 5);
         }
     };
     
@@ -31,6 +31,13 @@ public abstract class FieldCardinalityBase implements HasMarkings {
     
     public abstract void setCardinality(Long cardinality);
     
+    /**
+     * @return how much an approximate cardinality may overestimate the true cardinality, or null if the cardinality is not approximated with a sketch
+     */
+    public abstract Long getError();
+    
+    public abstract void setError(Long error);
+    
     public abstract String getUpper();
     
     public abstract void setUpper(String upper);
@@ -0,0 +1,653 @@
+package datawave.webservice.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import io.protostuff.ByteString;
+import io.protostuff.FilterOutput;
+import io.protostuff.Input;
+import io.protostuff.JsonIOUtil;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.Output;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.ProtostuffIOUtil;
+import io.protostuff.Schema;
+
+import datawave.webservice.query.data.ObjectSizeOf;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.query.result.event.MapSchema;
+import datawave.webservice.query.result.event.Metadata;
+import datawave.webservice.query.util.TypedValue;
+
+/**
+ * Encodes a page of events in the protobuf, protostuff, or JSON format of a {@link DefaultEventQueryResponse} without building the {@link DefaultEvent} and
+ * {@link DefaultField} objects of the page. Each event is encoded as soon as its fields have been added, so only the encoded bytes of the page are kept until
+ * the response is written. The bytes written are the same as those the {@link datawave.webservice.util.ProtostuffMessageBodyWriter} writes for a
+ * {@link DefaultEventQueryResponse} holding the same events.
+ * <p>
+ * Events are encoded with {@link #startEvent(Map, Metadata)}, one {@link #addField(String, String, Map, Long, Object)} call per field, and {@link #endEvent()}.
+ * Events that were already built can be added with {@link #addEvent(DefaultEvent)}. The fields of an event are written in the order they were added, so an
+ * event may list its fields in a different order than the built event, whose fields are collected in a set.
+ */
+public class EventQueryResponseEncoder {
+    
+    public enum Format {
+        PROTOBUF("application/x-protobuf"), PROTOSTUFF("application/x-protostuff"), JSON(MediaType.APPLICATION_JSON);
+        
+        private final String mediaType;
+        
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+        
+        public String getMediaType() {
+            return mediaType;
+        }
+        
+        /**
+         * @param media
+         *            the media type of a response
+         * @return the format writing the media type, or null if events cannot be encoded in it
+         */
+        public static Format forMediaType(MediaType media) {
+            for (Format format : values()) {
+                if (format.mediaType.equals(media.toString())) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static final int EVENTS_FIELD_NUMBER = 4;
+    
+    private static final Schema<DefaultEventQueryResponse> RESPONSE_SCHEMA = DefaultEventQueryResponse.getSchema();
+    private static final Schema<DefaultEvent> DEFAULT_EVENT_SCHEMA = new DefaultEvent().cachedSchema();
+    private static final Schema<DefaultField> DEFAULT_FIELD_SCHEMA = new DefaultField().cachedSchema();
+    
+    // the fields of the response written before and after its events
+    private static final Schema<DefaultEventQueryResponse> HEADER_SCHEMA = new FieldRangeSchema<>(RESPONSE_SCHEMA, 1, EVENTS_FIELD_NUMBER - 1);
+    private static final Schema<DefaultEventQueryResponse> TRAILER_SCHEMA = new FieldRangeSchema<>(RESPONSE_SCHEMA, EVENTS_FIELD_NUMBER + 1, Integer.MAX_VALUE);
+    
+    private final Format format;
+    private final LinkedBuffer buffer = LinkedBuffer.allocate(4096);
+    
+    private final List<EncodedEvent> encodedEvents = new ArrayList<>();
+    private long encodedBytes = 0;
+    
+    // the event being encoded, whose field lists are reused by every event
+    private boolean inEvent = false;
+    private HashMap<String,String> eventMarkings;
+    private Metadata eventMetadata;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> columnVisibilities = new ArrayList<>();
+    private final List<HashMap<String,String>> markings = new ArrayList<>();
+    private final List<Long> timestamps = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+    private int fieldIndex;
+    
+    // the fields of an event usually share their markings, which are only copied once
+    private Map<String,String> lastMarkings;
+    private HashMap<String,String> lastMarkingsCopy;
+    
+    public EventQueryResponseEncoder(Format format) {
+        this.format = format;
+    }
+    
+    public Format getFormat() {
+        return format;
+    }
+    
+    /**
+     * Starts encoding an event.
+     *
+     * @param markings
+     *            the markings of the event
+     * @param metadata
+     *            the metadata of the event
+     */
+    public void startEvent(Map<String,String> markings, Metadata metadata) {
+        if (inEvent) {
+            throw new IllegalStateException("The previous event has not been ended");
+        }
+        inEvent = true;
+        // copied as DefaultEvent.setMarkings does, so that the markings are written in the same order
+        this.eventMarkings = (null == markings) ? null : new HashMap<>(markings);
+        this.eventMetadata = metadata;
+    }
+    
+    /**
+     * Adds a field to the event being encoded.
+     *
+     * @param name
+     *            the name of the field
+     * @param columnVisibility
+     *            the column visibility of the field
+     * @param markings
+     *            the markings of the field
+     * @param timestamp
+     *            the timestamp of the field
+     * @param value
+     *            the value of the field
+     */
+    public void addField(String name, String columnVisibility, Map<String,String> markings, Long timestamp, Object value) {
+        if (!inEvent) {
+            throw new IllegalStateException("No event has been started");
+        }
+        if (null != markings && markings != lastMarkings) {
+            lastMarkings = markings;
+            lastMarkingsCopy = new HashMap<>(markings);
+        }
+        names.add(name);
+        columnVisibilities.add(columnVisibility);
+        this.markings.add((null == markings) ? null : lastMarkingsCopy);
+        timestamps.add(timestamp);
+        values.add(value);
+    }
+    
+    /**
+     * Encodes the event being built. An event without fields is dropped, as the transformers drop documents that only hold metadata.
+     *
+     * @return the number of bytes the event was encoded in, or 0 if the event was dropped
+     * @throws IOException
+     *             if the event cannot be encoded
+     */
+    public int endEvent() throws IOException {
+        if (!inEvent) {
+            throw new IllegalStateException("No event has been started");
+        }
+        try {
+            if (names.isEmpty()) {
+                return 0;
+            }
+            // JSON events are written in an array spliced into the response, whereas protobuf and protostuff events are fields of it
+            byte[] encoded = (format == Format.JSON) ? serialize(this, EVENT_SCHEMA) : serialize(this, EVENT_FIELD_SCHEMA);
+            return add(encoded, names);
+        } finally {
+            inEvent = false;
+            eventMarkings = null;
+            eventMetadata = null;
+            names.clear();
+            columnVisibilities.clear();
+            markings.clear();
+            timestamps.clear();
+            values.clear();
+        }
+    }
+    
+    /**
+     * Encodes an event that was already built.
+     *
+     * @param event
+     *            the event
+     * @return the number of bytes the event was encoded in
+     * @throws IOException
+     *             if the event cannot be encoded
+     */
+    public int addEvent(DefaultEvent event) throws IOException {
+        if (inEvent) {
+            throw new IllegalStateException("The previous event has not been ended");
+        }
+        byte[] encoded = (format == Format.JSON) ? serialize(event, DEFAULT_EVENT_SCHEMA) : serialize(event, new EventFieldSchema<>(DEFAULT_EVENT_SCHEMA));
+        List<String> fieldNames = new ArrayList<>();
+        if (null != event.getFields()) {
+            for (DefaultField field : event.getFields()) {
+                if (null != field) {
+                    fieldNames.add(field.getName());
+                }
+            }
+        }
+        return add(encoded, fieldNames);
+    }
+    
+    private int add(byte[] encoded, List<String> fieldNames) {
+        Set<String> distinct = new TreeSet<>();
+        for (String name : fieldNames) {
+            if (null != name) {
+                distinct.add(name);
+            }
+        }
+        encodedEvents.add(new EncodedEvent(encoded, distinct.toArray(new String[distinct.size()])));
+        encodedBytes += encoded.length;
+        return encoded.length;
+    }
+    
+    /**
+     * @return the last event encoded, or null if no events are held
+     */
+    public EncodedEvent getLastEvent() {
+        return encodedEvents.isEmpty() ? null : encodedEvents.get(encodedEvents.size() - 1);
+    }
+    
+    /**
+     * @return the number of events encoded
+     */
+    public int getReturnedEvents() {
+        return encodedEvents.size();
+    }
+    
+    /**
+     * @return the number of bytes the events were encoded in
+     */
+    public long getEncodedBytes() {
+        return encodedBytes;
+    }
+    
+    /**
+     * Writes the response holding the encoded events. The remaining fields of the response are written as they are set in the given response, whose fields and
+     * returned events are set from the encoded events and whose events are ignored.
+     *
+     * @param response
+     *            the response holding the query id, logic name, total events, operation time, messages, and exceptions
+     * @param out
+     *            the stream the response is written to
+     * @throws IOException
+     *             if the response cannot be written
+     */
+    public void writeTo(DefaultEventQueryResponse response, OutputStream out) throws IOException {
+        writeTo(response, encodedEvents.size(), out);
+    }
+    
+    /**
+     * Writes the response holding the first events encoded, and drops them so that the events encoded after them start the next page. Results are usually
+     * fetched one ahead of the page being returned, so the last event encoded may belong to the next page.
+     *
+     * @param response
+     *            the response holding the query id, logic name, total events, operation time, messages, and exceptions
+     * @param events
+     *            the number of events in the page
+     * @param out
+     *            the stream the response is written to
+     * @throws IOException
+     *             if the response cannot be written
+     */
+    public void writePage(DefaultEventQueryResponse response, int events, OutputStream out) throws IOException {
+        if (events > encodedEvents.size()) {
+            throw new IllegalArgumentException("Only " + encodedEvents.size() + " events have been encoded, not " + events);
+        }
+        writeTo(response, events, out);
+        List<EncodedEvent> page = encodedEvents.subList(0, events);
+        for (EncodedEvent event : page) {
+            encodedBytes -= event.bytes.length;
+        }
+        page.clear();
+    }
+    
+    private void writeTo(DefaultEventQueryResponse response, int events, OutputStream out) throws IOException {
+        Set<String> fieldNames = new TreeSet<>();
+        for (int i = 0; i < events; i++) {
+            Collections.addAll(fieldNames, encodedEvents.get(i).fieldNames);
+        }
+        response.setFields(new ArrayList<>(fieldNames));
+        response.setReturnedEvents((long) events);
+        
+        byte[] header = serialize(response, HEADER_SCHEMA);
+        byte[] trailer = serialize(response, TRAILER_SCHEMA);
+        
+        if (format != Format.JSON) {
+            // the fields of a protobuf or protostuff message are concatenated in field number order
+            out.write(header);
+            for (int i = 0; i < events; i++) {
+                out.write(encodedEvents.get(i).bytes);
+            }
+            out.write(trailer);
+        } else {
+            // splice the events array between the fields of the header and trailer objects, each of which is written as {...}
+            out.write(header, 0, header.length - 1);
+            boolean first = header.length <= 2;
+            if (events > 0) {
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(('"' + RESPONSE_SCHEMA.getFieldName(EVENTS_FIELD_NUMBER) + "\":[").getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < events; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write(encodedEvents.get(i).bytes);
+                }
+                out.write(']');
+                first = false;
+            }
+            if (!first && trailer.length > 2) {
+                out.write(',');
+            }
+            out.write(trailer, 1, trailer.length - 1);
+        }
+        out.flush();
+    }
+    
+    /**
+     * Drops the encoded events so that the next page can be encoded.
+     */
+    public void reset() {
+        encodedEvents.clear();
+        encodedBytes = 0;
+        lastMarkings = null;
+        lastMarkingsCopy = null;
+    }
+    
+    /**
+     * An encoded event, which stands in for the event in the results of a page
+     */
+    public static final class EncodedEvent implements ObjectSizeOf {
+        private final byte[] bytes;
+        private final String[] fieldNames;
+        
+        private EncodedEvent(byte[] bytes, String[] fieldNames) {
+            this.bytes = bytes;
+            this.fieldNames = fieldNames;
+        }
+        
+        @Override
+        public long sizeInBytes() {
+            return bytes.length;
+        }
+    }
+    
+    private <T> byte[] serialize(T message, Schema<T> schema) throws IOException {
+        try {
+            switch (format) {
+                case PROTOBUF:
+                    return ProtobufIOUtil.toByteArray(message, schema, buffer);
+                case PROTOSTUFF:
+                    return ProtostuffIOUtil.toByteArray(message, schema, buffer);
+                default:
+                    // the generator is created as the ProtostuffMessageBodyWriter creates it
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    IOContext ctx = new IOContext(JsonIOUtil.DEFAULT_JSON_FACTORY._getBufferRecycler(), bytes, false);
+                    UTF8JsonGenerator generator = new UTF8JsonGenerator(ctx, JsonIOUtil.DEFAULT_JSON_FACTORY.getGeneratorFeatures(),
+                                    JsonIOUtil.DEFAULT_JSON_FACTORY.getCodec(), bytes);
+                    try {
+                        JsonIOUtil.writeTo(generator, message, schema, false);
+                    } finally {
+                        generator.close();
+                    }
+                    return bytes.toByteArray();
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+    
+    /**
+     * Writes the event being encoded as {@link DefaultEvent} does
+     */
+    private static final Schema<EventQueryResponseEncoder> EVENT_SCHEMA = new WriteOnlySchema<EventQueryResponseEncoder>(DEFAULT_EVENT_SCHEMA) {
+        @Override
+        public void writeTo(Output output, EventQueryResponseEncoder message) throws IOException {
+            if (message.eventMarkings != null)
+                output.writeObject(1, message.eventMarkings, MapSchema.SCHEMA, false);
+            
+            if (message.eventMetadata != null) {
+                output.writeObject(2, message.eventMetadata, Metadata.getSchema(), false);
+            }
+            
+            for (message.fieldIndex = 0; message.fieldIndex < message.names.size(); message.fieldIndex++) {
+                output.writeObject(3, message, FIELD_SCHEMA, true);
+            }
+        }
+    };
+    
+    /**
+     * Writes the current field of the event being encoded as {@link DefaultField} does
+     */
+    private static final Schema<EventQueryResponseEncoder> FIELD_SCHEMA = new WriteOnlySchema<EventQueryResponseEncoder>(DEFAULT_FIELD_SCHEMA) {
+        @Override
+        public void writeTo(Output output, EventQueryResponseEncoder message) throws IOException {
+            int index = message.fieldIndex;
+            if (message.markings.get(index) != null)
+                output.writeObject(1, message.markings.get(index), MapSchema.SCHEMA, false);
+            if (message.columnVisibilities.get(index) != null)
+                output.writeString(2, message.columnVisibilities.get(index), false);
+            if (message.timestamps.get(index) != null)
+                output.writeUInt64(3, message.timestamps.get(index), false);
+            if (message.names.get(index) != null)
+                output.writeString(4, message.names.get(index), false);
+            TypedValue value = new TypedValue(message.values.get(index));
+            output.writeObject(5, value, value.cachedSchema(), false);
+        }
+    };
+    
+    private static final Schema<EventQueryResponseEncoder> EVENT_FIELD_SCHEMA = new EventFieldSchema<>(EVENT_SCHEMA);
+    
+    /**
+     * Writes an event as the events field of a response
+     */
+    private static class EventFieldSchema<T> extends WriteOnlySchema<T> {
+        private final Schema<T> eventSchema;
+        
+        EventFieldSchema(Schema<T> eventSchema) {
+            super(RESPONSE_SCHEMA);
+            this.eventSchema = eventSchema;
+        }
+        
+        @Override
+        public void writeTo(Output output, T message) throws IOException {
+            output.writeObject(EVENTS_FIELD_NUMBER, message, eventSchema, true);
+        }
+    }
+    
+    /**
+     * A schema that only writes messages, whose field names are those of the message it writes the format of
+     */
+    private abstract static class WriteOnlySchema<T> implements Schema<T> {
+        private final Schema<?> names;
+        
+        WriteOnlySchema(Schema<?> names) {
+            this.names = names;
+        }
+        
+        @Override
+        public String getFieldName(int number) {
+            return names.getFieldName(number);
+        }
+        
+        @Override
+        public int getFieldNumber(String name) {
+            return names.getFieldNumber(name);
+        }
+        
+        @Override
+        public boolean isInitialized(T message) {
+            return true;
+        }
+        
+        @Override
+        public T newMessage() {
+            throw new UnsupportedOperationException(messageName() + " can only be written");
+        }
+        
+        @Override
+        public String messageName() {
+            return names.messageName();
+        }
+        
+        @Override
+        public String messageFullName() {
+            return names.messageFullName();
+        }
+        
+        @SuppressWarnings("unchecked")
+        @Override
+        public Class<? super T> typeClass() {
+            return (Class<? super T>) names.typeClass();
+        }
+        
+        @Override
+        public void mergeFrom(Input input, T message) throws IOException {
+            throw new UnsupportedOperationException(messageName() + " can only be written");
+        }
+    }
+    
+    /**
+     * Writes the fields of a message whose numbers are within a range
+     */
+    private static class FieldRangeSchema<T> extends WriteOnlySchema<T> {
+        private final Schema<T> schema;
+        private final int first;
+        private final int last;
+        
+        FieldRangeSchema(Schema<T> schema, int first, int last) {
+            super(schema);
+            this.schema = schema;
+            this.first = first;
+            this.last = last;
+        }
+        
+        @Override
+        public void writeTo(Output output, T message) throws IOException {
+            schema.writeTo(new FieldRangeOutput(output, first, last), message);
+        }
+    }
+    
+    private static class FieldRangeOutput extends FilterOutput<Output> {
+        private final int first;
+        private final int last;
+        
+        FieldRangeOutput(Output output, int first, int last) {
+            super(output);
+            this.first = first;
+            this.last = last;
+        }
+        
+        private boolean accept(int fieldNumber) {
+            return fieldNumber >= first && fieldNumber <= last;
+        }
+        
+        @Override
+        public void writeInt32(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeInt32(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeUInt32(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeUInt32(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeSInt32(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeSInt32(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeFixed32(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeFixed32(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeSFixed32(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeSFixed32(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeInt64(int fieldNumber, long value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeInt64(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeUInt64(int fieldNumber, long value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeUInt64(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeSInt64(int fieldNumber, long value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeSInt64(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeFixed64(int fieldNumber, long value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeFixed64(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeSFixed64(int fieldNumber, long value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeSFixed64(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeFloat(int fieldNumber, float value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeFloat(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeDouble(int fieldNumber, double value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeDouble(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeBool(int fieldNumber, boolean value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeBool(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeEnum(int fieldNumber, int value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeEnum(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeString(int fieldNumber, String value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeString(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeBytes(int fieldNumber, ByteString value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeBytes(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeBytes(int fieldNumber, ByteBuffer value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeBytes(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeByteArray(int fieldNumber, byte[] value, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeByteArray(fieldNumber, value, repeated);
+        }
+        
+        @Override
+        public void writeByteRange(boolean utf8String, int fieldNumber, byte[] value, int offset, int length, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeByteRange(utf8String, fieldNumber, value, offset, length, repeated);
+        }
+        
+        @Override
+        public <T> void writeObject(int fieldNumber, T value, Schema<T> schema, boolean repeated) throws IOException {
+            if (accept(fieldNumber))
+                super.writeObject(fieldNumber, value, schema, repeated);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package datawave.webservice.result;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import io.protostuff.JsonIOUtil;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.ProtostuffIOUtil;
+
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.query.result.event.EventBase;
+import datawave.webservice.query.result.event.Metadata;
+import datawave.webservice.result.EventQueryResponseEncoder.Format;
+
+import org.junit.Test;
+
+/**
+ * Tests that the encoder writes the same bytes as the current serialization of a {@link DefaultEventQueryResponse} holding the same events, with their fields
+ * in the same order. The fields of the events built by the document transformers are collected in a set, so the encoded fields of real results may be in a
+ * different order; DocumentTransformerTest compares those order insensitively.
+ */
+public class EventQueryResponseEncoderTest {
+    
+    private static final Map<String,String> MARKINGS_A = markings("A");
+    private static final Map<String,String> MARKINGS_AB = markings("A&B");
+    
+    private static Map<String,String> markings(String columnVisibility) {
+        Map<String,String> markings = new HashMap<>();
+        markings.put("columnVisibility", columnVisibility);
+        return markings;
+    }
+    
+    private static Metadata metadata(String uid) {
+        Metadata metadata = new Metadata();
+        metadata.setDataType("datatype");
+        metadata.setInternalId(uid);
+        metadata.setTable("shard");
+        metadata.setRow("20190314_0");
+        return metadata;
+    }
+    
+    private static final Object[][] FIELDS = { {"NAME", "A", MARKINGS_A, 1552521600000L, "Alice"}, {"AGE", "A&B", MARKINGS_AB, 1552521600000L, 42},
+            {"NAME", "A", MARKINGS_A, 1552521600001L, "Bob \u00e9\"quoted\""}, {"HIT_TERM", null, MARKINGS_A, 0L, "NAME:Alice"}};
+    
+    /*
+     * The response as it is built today, from DefaultEvents and DefaultFields
+     */
+    private static DefaultEventQueryResponse buildResponse(int numEvents) {
+        List<EventBase> events = new ArrayList<>();
+        for (int i = 0; i < numEvents; i++) {
+            List<DefaultField> fields = new ArrayList<>();
+            for (Object[] field : FIELDS) {
+                @SuppressWarnings("unchecked")
+                Map<String,String> markings = (Map<String,String>) field[2];
+                fields.add(new DefaultField((String) field[0], (String) field[1], markings, (Long) field[3], field[4]));
+            }
+            DefaultEvent event = new DefaultEvent();
+            event.setMarkings(MARKINGS_AB);
+            event.setMetadata(metadata("uid" + i));
+            event.setFields(fields);
+            events.add(event);
+        }
+        
+        DefaultEventQueryResponse response = newResponse();
+        response.setEvents(events);
+        if (numEvents > 0) {
+            response.setFields(Arrays.asList("AGE", "HIT_TERM", "NAME"));
+        } else {
+            response.setFields(new ArrayList<>());
+        }
+        response.setReturnedEvents((long) numEvents);
+        return response;
+    }
+    
+    private static DefaultEventQueryResponse newResponse() {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId("8a5b1c4e-2b6a-4e3c-9f0e-1d2c3b4a5f60");
+        response.setLogicName("EventQuery");
+        response.setOperationTimeMS(17);
+        response.setTotalEvents(100L);
+        response.addMessage("a message");
+        return response;
+    }
+    
+    private static byte[] encode(Format format, int numEvents) throws IOException {
+        EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(format);
+        for (int i = 0; i < numEvents; i++) {
+            encoder.startEvent(MARKINGS_AB, metadata("uid" + i));
+            for (Object[] field : FIELDS) {
+                @SuppressWarnings("unchecked")
+                Map<String,String> markings = (Map<String,String>) field[2];
+                encoder.addField((String) field[0], (String) field[1], markings, (Long) field[3], field[4]);
+            }
+            encoder.endEvent();
+        }
+        assertEquals(numEvents, encoder.getReturnedEvents());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeTo(newResponse(), out);
+        return out.toByteArray();
+    }
+    
+    private static byte[] serialize(Format format, DefaultEventQueryResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LinkedBuffer buffer = LinkedBuffer.allocate(4096);
+        switch (format) {
+            case PROTOBUF:
+                ProtobufIOUtil.writeTo(out, response, response.cachedSchema(), buffer);
+                break;
+            case PROTOSTUFF:
+                ProtostuffIOUtil.writeTo(out, response, response.cachedSchema(), buffer);
+                break;
+            default:
+                IOContext ctx = new IOContext(JsonIOUtil.DEFAULT_JSON_FACTORY._getBufferRecycler(), out, false);
+                UTF8JsonGenerator generator = new UTF8JsonGenerator(ctx, JsonIOUtil.DEFAULT_JSON_FACTORY.getGeneratorFeatures(),
+                                JsonIOUtil.DEFAULT_JSON_FACTORY.getCodec(), out);
+                try {
+                    JsonIOUtil.writeTo(generator, response, response.cachedSchema(), false);
+                } finally {
+                    generator.close();
+                }
+        }
+        return out.toByteArray();
+    }
+    
+    private static void assertCompatible(Format format, int numEvents) throws IOException {
+        byte[] expected = serialize(format, buildResponse(numEvents));
+        byte[] actual = encode(format, numEvents);
+        assertArrayEquals(format + " with " + numEvents + " events", expected, actual);
+    }
+    
+    @Test
+    public void testProtobuf() throws Exception {
+        assertCompatible(Format.PROTOBUF, 0);
+        assertCompatible(Format.PROTOBUF, 1);
+        assertCompatible(Format.PROTOBUF, 3);
+    }
+    
+    @Test
+    public void testProtostuff() throws Exception {
+        assertCompatible(Format.PROTOSTUFF, 0);
+        assertCompatible(Format.PROTOSTUFF, 1);
+        assertCompatible(Format.PROTOSTUFF, 3);
+    }
+    
+    @Test
+    public void testJson() throws Exception {
+        assertCompatible(Format.JSON, 0);
+        assertCompatible(Format.JSON, 1);
+        assertCompatible(Format.JSON, 3);
+    }
+    
+    @Test
+    public void testBuiltEvents() throws Exception {
+        for (Format format : Format.values()) {
+            DefaultEventQueryResponse response = buildResponse(2);
+            EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(format);
+            for (EventBase event : response.getEvents()) {
+                encoder.addEvent((DefaultEvent) event);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encoder.writeTo(newResponse(), out);
+            assertArrayEquals(format.toString(), serialize(format, response), out.toByteArray());
+        }
+    }
+    
+    @Test
+    public void testWritePage() throws Exception {
+        EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(Format.PROTOBUF);
+        for (EventBase event : buildResponse(3).getEvents()) {
+            encoder.addEvent((DefaultEvent) event);
+        }
+        long bytes = encoder.getEncodedBytes();
+        
+        // the event fetched ahead of the page is kept for the next page
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writePage(newResponse(), 2, out);
+        assertArrayEquals(serialize(Format.PROTOBUF, buildResponse(2)), out.toByteArray());
+        assertEquals(1, encoder.getReturnedEvents());
+        assertEquals(bytes / 3, encoder.getEncodedBytes());
+        
+        DefaultEventQueryResponse next = buildResponse(3);
+        next.setEvents(next.getEvents().subList(2, 3));
+        next.setReturnedEvents(1L);
+        out = new ByteArrayOutputStream();
+        encoder.writePage(newResponse(), 1, out);
+        assertArrayEquals(serialize(Format.PROTOBUF, next), out.toByteArray());
+        assertEquals(0, encoder.getReturnedEvents());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWritePageBeyondEncodedEvents() throws Exception {
+        new EventQueryResponseEncoder(Format.PROTOBUF).writePage(newResponse(), 1, new ByteArrayOutputStream());
+    }
+    
+    @Test
+    public void testEventsWithoutFieldsAreDropped() throws Exception {
+        EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(Format.PROTOBUF);
+        encoder.startEvent(MARKINGS_A, metadata("uid"));
+        assertEquals(0, encoder.endEvent());
+        assertEquals(0, encoder.getReturnedEvents());
+        assertEquals(0, encoder.getEncodedBytes());
+    }
+    
+    @Test
+    public void testReset() throws Exception {
+        EventQueryResponseEncoder encoder = new EventQueryResponseEncoder(Format.PROTOSTUFF);
+        encoder.startEvent(MARKINGS_A, metadata("uid"));
+        encoder.addField("NAME", "A", MARKINGS_A, 0L, "value");
+        encoder.endEvent();
+        encoder.reset();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeTo(newResponse(), out);
+        assertArrayEquals(serialize(Format.PROTOSTUFF, buildResponse(0)), out.toByteArray());
+    }
+    
+    @Test
+    public void testForMediaType() {
+        assertEquals(Format.PROTOBUF, Format.forMediaType(MediaType.valueOf("application/x-protobuf")));
+        assertEquals(Format.JSON, Format.forMediaType(MediaType.APPLICATION_JSON_TYPE));
+        assertNull(Format.forMediaType(MediaType.APPLICATION_XML_TYPE));
+    }
+}
@@ -0,0 +1,19 @@
+package datawave.webservice.common.exception;
+
+import javax.ejb.ApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import datawave.webservice.result.BaseResponse;
+
+@ApplicationException(rollback = true)
+public class ServiceUnavailableException extends DatawaveWebApplicationException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public ServiceUnavailableException(Throwable t, BaseResponse response, long retryAfterSeconds) {
+        super(t, response, Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        getResponse().getHeaders().add(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+    }
+    
+}
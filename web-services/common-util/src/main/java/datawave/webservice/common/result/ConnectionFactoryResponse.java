@@ -89,7 +89,8 @@ public class ConnectionFactoryResponse extends BaseResponse implements HtmlProvi
         builder.append("<h2>").append("Connection Pools").append("</h2>");
         builder.append("<br/>");
         builder.append("<table class=\"connectionPools\">");
-        builder.append("<tr><th>Pool Name</th><th>Priority</th><th>Num Active</th><th>Max Active</th><th>Num Idle</th><th>Max Idle</th><th>Num Waiting</th></tr>");
+        builder.append("<tr><th>Pool Name</th><th>Priority</th><th>Num Active</th><th>Max Active</th><th>Num Idle</th><th>Max Idle</th><th>Num Waiting</th>");
+        builder.append("<th>Num Queued</th><th>Oldest Queued (ms)</th><th>Avg Queued (ms)</th><th>Num Rejected</th></tr>");
         
         Set<ConnectionPool> poolSet = new TreeSet<>();
         poolSet.addAll(connectionPools);
@@ -103,6 +104,10 @@ public class ConnectionFactoryResponse extends BaseResponse implements HtmlProvi
             builder.append("<td>").append(f.getNumIdle()).append("</td>");
             builder.append("<td>").append(f.getMaxIdle()).append("</td>");
             builder.append("<td>").append(f.getNumWaiting()).append("</td>");
+            builder.append("<td>").append(f.getNumQueued()).append("</td>");
+            builder.append("<td>").append(f.getOldestQueuedTime()).append("</td>");
+            builder.append("<td>").append(f.getAverageQueuedTime()).append("</td>");
+            builder.append("<td>").append(f.getNumRejected()).append("</td>");
             builder.append("</tr>");
         }
         builder.append("</table>");
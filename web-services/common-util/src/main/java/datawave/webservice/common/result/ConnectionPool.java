@@ -17,7 +17,7 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 @XmlAccessorType(XmlAccessType.NONE)
 public class ConnectionPool implements Serializable, Comparable<ConnectionPool> {
     
-    private static final long serialVersionUID = 2L;
+    private static final long serialVersionUID = 3L;
     
     public enum Priority {
         ADMIN, HIGH, NORMAL, LOW
@@ -44,6 +44,18 @@ public class ConnectionPool implements Serializable, Comparable<ConnectionPool>
     @XmlElement(name = "NumWaiting")
     private Integer numWaiting = null;
     
+    @XmlElement(name = "NumQueued")
+    private Integer numQueued = null;
+    
+    @XmlElement(name = "OldestQueuedTime")
+    private Long oldestQueuedTime = null;
+    
+    @XmlElement(name = "AverageQueuedTime")
+    private Long averageQueuedTime = null;
+    
+    @XmlElement(name = "NumRejected")
+    private Long numRejected = null;
+    
     @XmlElementWrapper(name = "ConnectionRequests")
     @XmlElement(name = "Connection")
     private List<Connection> connectionRequests = null;
@@ -88,6 +100,50 @@ public class ConnectionPool implements Serializable, Comparable<ConnectionPool>
         this.numWaiting = numWaiting;
     }
     
+    /**
+     * @return the number of requests queued for admission before borrowing from the pool
+     */
+    public Integer getNumQueued() {
+        return numQueued;
+    }
+    
+    public void setNumQueued(Integer numQueued) {
+        this.numQueued = numQueued;
+    }
+    
+    /**
+     * @return the time in milliseconds the longest queued request has waited for admission
+     */
+    public Long getOldestQueuedTime() {
+        return oldestQueuedTime;
+    }
+    
+    public void setOldestQueuedTime(Long oldestQueuedTime) {
+        this.oldestQueuedTime = oldestQueuedTime;
+    }
+    
+    /**
+     * @return the average time in milliseconds admitted requests waited for admission
+     */
+    public Long getAverageQueuedTime() {
+        return averageQueuedTime;
+    }
+    
+    public void setAverageQueuedTime(Long averageQueuedTime) {
+        this.averageQueuedTime = averageQueuedTime;
+    }
+    
+    /**
+     * @return the number of requests rejected by admission control
+     */
+    public Long getNumRejected() {
+        return numRejected;
+    }
+    
+    public void setNumRejected(Long numRejected) {
+        this.numRejected = numRejected;
+    }
+    
     public List<Connection> getConnectionRequests() {
         return connectionRequests;
     }
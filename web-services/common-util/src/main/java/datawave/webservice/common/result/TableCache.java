@@ -35,6 +35,24 @@ public class TableCache implements Serializable {
     @XmlAttribute
     private Boolean currentlyRefreshing = null;
     
+    @XmlAttribute
+    private Boolean incremental = null;
+    
+    @XmlAttribute
+    private Date lastFullRefresh = null;
+    
+    @XmlAttribute
+    private Long lastReloadDuration = null;
+    
+    @XmlAttribute
+    private Long lastReloadEntries = null;
+    
+    @XmlAttribute
+    private Long lastReloadBytes = null;
+    
+    @XmlAttribute
+    private Boolean lastReloadIncremental = null;
+    
     public String getTableName() {
         return tableName;
     }
@@ -63,6 +81,30 @@ public class TableCache implements Serializable {
         return currentlyRefreshing;
     }
     
+    public Boolean getIncremental() {
+        return incremental;
+    }
+    
+    public Date getLastFullRefresh() {
+        return lastFullRefresh;
+    }
+    
+    public Long getLastReloadDuration() {
+        return lastReloadDuration;
+    }
+    
+    public Long getLastReloadEntries() {
+        return lastReloadEntries;
+    }
+    
+    public Long getLastReloadBytes() {
+        return lastReloadBytes;
+    }
+    
+    public Boolean getLastReloadIncremental() {
+        return lastReloadIncremental;
+    }
+    
     public void setTableName(String tableName) {
         this.tableName = tableName;
     }
@@ -91,4 +133,28 @@ public class TableCache implements Serializable {
         this.currentlyRefreshing = currentlyRefreshing;
     }
     
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    public void setLastFullRefresh(Date lastFullRefresh) {
+        this.lastFullRefresh = lastFullRefresh;
+    }
+    
+    public void setLastReloadDuration(Long lastReloadDuration) {
+        this.lastReloadDuration = lastReloadDuration;
+    }
+    
+    public void setLastReloadEntries(Long lastReloadEntries) {
+        this.lastReloadEntries = lastReloadEntries;
+    }
+    
+    public void setLastReloadBytes(Long lastReloadBytes) {
+        this.lastReloadBytes = lastReloadBytes;
+    }
+    
+    public void setLastReloadIncremental(Boolean lastReloadIncremental) {
+        this.lastReloadIncremental = lastReloadIncremental;
+    }
+    
 }
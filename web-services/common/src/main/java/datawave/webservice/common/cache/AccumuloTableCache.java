@@ -317,6 +317,12 @@ public class AccumuloTableCache {
             t.setMaxRows(entry.getValue().getMaxRows());
             t.setLastRefresh(entry.getValue().getLastRefresh());
             t.setCurrentlyRefreshing((entry.getValue().getReference() != null));
+            t.setIncremental(entry.getValue().isIncremental());
+            t.setLastFullRefresh(entry.getValue().getLastFullRefresh());
+            t.setLastReloadDuration(entry.getValue().getLastReloadDuration());
+            t.setLastReloadEntries(entry.getValue().getLastReloadEntries());
+            t.setLastReloadBytes(entry.getValue().getLastReloadBytes());
+            t.setLastReloadIncremental(entry.getValue().isLastReloadIncremental());
             response.getCaches().add(t);
         }
         return response;
@@ -6,8 +6,10 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class AccumuloTableCacheConfiguration {
     
@@ -24,16 +26,38 @@ public class AccumuloTableCacheConfiguration {
     @Inject
     @ConfigProperty(name = "dw.cache.reloadInterval", defaultValue = "86400000")
     private long reloadInterval;
+    // Only tables whose entries are stamped with the time they were written may be refreshed incrementally. The metadata tables are stamped with event dates
+    // and are often bulk imported, so late or backfilled entries would not be seen until the next full reload.
+    @Inject
+    @ConfigProperty(name = "dw.cache.incrementalTableNames", defaultValue = "")
+    private String incrementalTableNames;
+    @Inject
+    @ConfigProperty(name = "dw.cache.fullReloadInterval", defaultValue = "86400000")
+    private long fullReloadInterval;
+    @Inject
+    @ConfigProperty(name = "dw.cache.incrementalOverlap", defaultValue = "300000")
+    private long incrementalOverlap;
     
     private Map<String,TableCache> caches = new HashMap<>();
     
     @PostConstruct
     private void initializeCaches() {
+        Set<String> incrementalTables = new HashSet<>();
+        if (null != incrementalTableNames) {
+            for (String tableName : incrementalTableNames.split(",")) {
+                if (!tableName.trim().isEmpty()) {
+                    incrementalTables.add(tableName.trim());
+                }
+            }
+        }
         for (String tableName : tableNames) {
             BaseTableCache cache = new BaseTableCache();
             cache.setTableName(tableName);
             cache.setConnectionPoolName(poolName);
             cache.setReloadInterval(reloadInterval);
+            cache.setIncremental(incrementalTables.contains(tableName));
+            cache.setFullReloadInterval(fullReloadInterval);
+            cache.setIncrementalOverlap(incrementalOverlap);
             caches.put(tableName, cache);
         }
     }
@@ -29,6 +29,7 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.TimestampFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.log4j.Logger;
@@ -47,9 +48,18 @@ public class BaseTableCache implements Serializable, TableCache {
     private String auths = null;
     private long reloadInterval = 0;
     private long maxRows = Long.MAX_VALUE;
+    private boolean incremental = false;
+    private long fullReloadInterval = 86400000L;
+    private long incrementalOverlap = 300000L;
     
     /** set programatically **/
     private Date lastRefresh = new Date(0);
+    private Date lastFullRefresh = new Date(0);
+    private long highWaterMark = 0;
+    private long lastReloadDuration = 0;
+    private long lastReloadEntries = 0;
+    private long lastReloadBytes = 0;
+    private boolean lastReloadIncremental = false;
     private AccumuloConnectionFactory connectionFactory = null;
     private InMemoryInstance instance = null;
     private SharedCacheCoordinator watcher = null;
@@ -157,6 +167,81 @@ public class BaseTableCache implements Serializable, TableCache {
         this.maxRows = maxRows;
     }
     
+    @Override
+    public boolean isIncremental() {
+        return incremental;
+    }
+    
+    /**
+     * Refresh the cache with only the entries whose timestamps are at or after the last refresh. This is only correct for tables whose entries are stamped
+     * with the time they were written. Tables stamped with other times, such as the metadata tables whose entries carry event dates, or tables loaded through
+     * bulk imports, must not be refreshed incrementally: late or backfilled entries would not be seen until the next full reload.
+     *
+     * @param incremental
+     *            true to refresh incrementally between full reloads
+     */
+    @Override
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    @Override
+    public long getFullReloadInterval() {
+        return fullReloadInterval;
+    }
+    
+    @Override
+    public void setFullReloadInterval(long fullReloadInterval) {
+        this.fullReloadInterval = fullReloadInterval;
+    }
+    
+    @Override
+    public long getIncrementalOverlap() {
+        return incrementalOverlap;
+    }
+    
+    @Override
+    public void setIncrementalOverlap(long incrementalOverlap) {
+        this.incrementalOverlap = incrementalOverlap;
+    }
+    
+    @Override
+    public Date getLastFullRefresh() {
+        return lastFullRefresh;
+    }
+    
+    @Override
+    public long getLastReloadDuration() {
+        return lastReloadDuration;
+    }
+    
+    @Override
+    public long getLastReloadEntries() {
+        return lastReloadEntries;
+    }
+    
+    @Override
+    public long getLastReloadBytes() {
+        return lastReloadBytes;
+    }
+    
+    @Override
+    public boolean isLastReloadIncremental() {
+        return lastReloadIncremental;
+    }
+    
+    /**
+     * Deletes can not be seen by an incremental reload, so the whole table is copied the first time, whenever a reload has been requested (which resets the
+     * last refresh), and at least once per full reload interval.
+     *
+     * @param now
+     *            the start of this reload
+     * @return true if the whole table needs to be copied
+     */
+    protected boolean isFullReloadNeeded(long now) {
+        return !incremental || highWaterMark <= 0 || lastRefresh.getTime() <= 0 || (now - lastFullRefresh.getTime()) > fullReloadInterval;
+    }
+    
     @Override
     public Boolean call() throws Exception {
         if (!lock.tryLock(0, TimeUnit.SECONDS))
@@ -166,7 +251,13 @@ public class BaseTableCache implements Serializable, TableCache {
         BatchWriter writer = null;
         Connector accumuloConn = null;
         
+        long start = System.currentTimeMillis();
+        boolean fullReload = isFullReloadNeeded(start);
+        // entries written before this are assumed to have been seen by this reload, leaving some overlap for clock skew with the tablet servers
+        long nextHighWaterMark = start - incrementalOverlap;
+        
         String tempTableName = tableName + "Temp";
+        String targetTableName = fullReload ? tempTableName : tableName;
         try {
             Map<String,String> map = connectionFactory.getTrackingMap(Thread.currentThread().getStackTrace());
             accumuloConn = connectionFactory.getConnection(connectionPoolName, Priority.ADMIN, map);
@@ -184,24 +275,37 @@ public class BaseTableCache implements Serializable, TableCache {
             Connector instanceConnector = instance.getConnector(AccumuloTableCache.MOCK_USERNAME, AccumuloTableCache.MOCK_PASSWORD);
             instanceConnector.securityOperations().changeUserAuthorizations(AccumuloTableCache.MOCK_USERNAME, authorizations);
             
-            createNamespaceIfNecessary(instanceConnector.namespaceOperations(), tempTableName);
-            
-            if (instanceConnector.tableOperations().exists(tempTableName)) {
-                instanceConnector.tableOperations().delete(tempTableName);
+            if (fullReload) {
+                createNamespaceIfNecessary(instanceConnector.namespaceOperations(), tempTableName);
+                
+                if (instanceConnector.tableOperations().exists(tempTableName)) {
+                    instanceConnector.tableOperations().delete(tempTableName);
+                }
+                
+                instanceConnector.tableOperations().create(tempTableName);
             }
             
-            instanceConnector.tableOperations().create(tempTableName);
-            
-            writer = instanceConnector.createBatchWriter(tempTableName, 10L * (1024L * 1024L), 100L, 1);
+            // an incremental reload applies the changed entries directly to the live copy
+            writer = instanceConnector.createBatchWriter(targetTableName, 10L * (1024L * 1024L), 100L, 1);
             
             setupScanner(scanner);
+            if (!fullReload) {
+                // only valid for tables whose entries are stamped with the time they were written, see setIncremental
+                IteratorSetting since = new IteratorSetting(101, "sinceLastRefresh", TimestampFilter.class);
+                TimestampFilter.setStart(since, highWaterMark, true);
+                scanner.addScanIterator(since);
+            }
             
             Iterator<Entry<Key,Value>> iter = scanner.iterator();
             long count = 0;
+            long bytes = 0;
+            boolean truncated = false;
             while (iter.hasNext()) {
                 
-                if (count > maxRows)
+                if (count > maxRows) {
+                    truncated = true;
                     break;
+                }
                 Entry<Key,Value> value = iter.next();
                 
                 Key valueKey = value.getKey();
@@ -211,15 +315,32 @@ public class BaseTableCache implements Serializable, TableCache {
                                 value.getValue());
                 writer.addMutation(m);
                 count++;
+                bytes += valueKey.getSize() + value.getValue().getSize();
             }
+            writer.flush();
             this.lastRefresh = new Date();
-            try {
-                instanceConnector.tableOperations().delete(tableName);
-            } catch (TableNotFoundException e) {
-                // the table will not exist the first time this is run
+            if (fullReload) {
+                try {
+                    instanceConnector.tableOperations().delete(tableName);
+                } catch (TableNotFoundException e) {
+                    // the table will not exist the first time this is run
+                }
+                instanceConnector.tableOperations().rename(tempTableName, tableName);
+                this.lastFullRefresh = this.lastRefresh;
+            }
+            if (fullReload || !truncated) {
+                this.highWaterMark = nextHighWaterMark;
+            } else {
+                // the entries are not read in timestamp order, so the cache catches up on a truncated incremental reload by copying the whole table next time
+                this.highWaterMark = 0;
+                log.warn("Incremental reload of table: " + tableName + " was truncated at " + maxRows + " rows, the next reload will be a full reload");
             }
-            instanceConnector.tableOperations().rename(tempTableName, tableName);
-            log.info("Cached " + count + " k,v for table: " + tableName);
+            this.lastReloadDuration = this.lastRefresh.getTime() - start;
+            this.lastReloadEntries = count;
+            this.lastReloadBytes = bytes;
+            this.lastReloadIncremental = !fullReload;
+            log.info((fullReload ? "Cached " : "Incrementally cached ") + count + " k,v (" + bytes + " bytes) for table: " + tableName + " in "
+                            + this.lastReloadDuration + "ms");
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             throw e;
@@ -236,7 +357,7 @@ public class BaseTableCache implements Serializable, TableCache {
                 if (null != writer)
                     writer.close();
             } catch (Exception e) {
-                log.warn("Error closing batch writer for table: " + tempTableName, e);
+                log.warn("Error closing batch writer for table: " + targetTableName, e);
             }
             lock.unlock();
         }
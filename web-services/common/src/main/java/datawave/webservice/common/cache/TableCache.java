@@ -31,6 +31,22 @@ public interface TableCache extends Callable<Boolean>, Serializable {
     
     long getMaxRows();
     
+    boolean isIncremental();
+    
+    long getFullReloadInterval();
+    
+    long getIncrementalOverlap();
+    
+    Date getLastFullRefresh();
+    
+    long getLastReloadDuration();
+    
+    long getLastReloadEntries();
+    
+    long getLastReloadBytes();
+    
+    boolean isLastReloadIncremental();
+    
     void setTableName(String tableName);
     
     void setConnectionPoolName(String connectionPoolName);
@@ -51,6 +67,12 @@ public interface TableCache extends Callable<Boolean>, Serializable {
     
     void setMaxRows(long maxRows);
     
+    void setIncremental(boolean incremental);
+    
+    void setFullReloadInterval(long fullReloadInterval);
+    
+    void setIncrementalOverlap(long incrementalOverlap);
+    
     Boolean call() throws Exception;
     
 }
@@ -20,6 +20,7 @@ import org.apache.accumulo.core.zookeeper.ZooUtil;
 import org.apache.accumulo.tracer.AsyncSpanReceiver;
 import org.apache.accumulo.tracer.ZooTraceClient;
 import org.apache.commons.lang.mutable.MutableInt;
+import org.apache.commons.lang.mutable.MutableLong;
 import org.apache.deltaspike.core.api.exclude.Exclude;
 import org.apache.deltaspike.core.api.jmx.JmxManaged;
 import org.apache.deltaspike.core.api.jmx.MBean;
@@ -62,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Path("/Common/AccumuloConnectionFactory")
 @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "text/html"})
@@ -94,6 +96,11 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
     
     private Map<String,Map<Priority,AccumuloConnectionPool>> pools;
     
+    private Map<String,ConnectionAdmissionController> admissionControllers = new HashMap<>();
+    
+    // the admitted requests of the borrowed connections, so they can be released when the connections are returned
+    private final Map<Connector,ConnectionAdmissionController.Ticket> tickets = new ConcurrentHashMap<>();
+    
     @Inject
     private ConnectionPoolsConfiguration connectionPoolsConfiguration;
     
@@ -117,6 +124,7 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
             p.put(Priority.NORMAL, createConnectionPool(conf, conf.getNormalPriorityPoolSize()));
             p.put(Priority.LOW, createConnectionPool(conf, conf.getLowPriorityPoolSize()));
             this.pools.put(entry.getKey(), Collections.unmodifiableMap(p));
+            this.admissionControllers.put(entry.getKey(), createAdmissionController(entry.getKey(), conf));
             try {
                 setupMockAccumuloUser(conf, p.get(Priority.NORMAL), instances);
             } catch (Exception e) {
@@ -169,6 +177,16 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
         return pool;
     }
     
+    private ConnectionAdmissionController createAdmissionController(String poolName, ConnectionPoolConfiguration conf) {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController(poolName, conf.getAdmissionQueueSize(), conf.getAdmissionMaxWaitMs());
+        admission.setPermits(Priority.HIGH, conf.getHighPriorityPoolSize(), conf.getHighPriorityWeight());
+        admission.setPermits(Priority.NORMAL, conf.getNormalPriorityPoolSize(), conf.getNormalPriorityWeight());
+        admission.setPermits(Priority.LOW, conf.getLowPriorityPoolSize(), conf.getLowPriorityWeight());
+        admission.setMaxPerUser(conf.getMaxConnectionsPerUser());
+        admission.setMaxPerLogic(conf.getMaxConnectionsPerLogic());
+        return admission;
+    }
+    
     private void setupMockAccumuloUser(ConnectionPoolConfiguration conf, AccumuloConnectionPool pool, HashMap<String,Pair<String,PasswordToken>> instances)
                     throws Exception {
         Connector c = null;
@@ -240,7 +258,8 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
     }
     
     /**
-     * Gets a connection from the named pool with the assigned priority
+     * Gets a connection from the named pool with the assigned priority. The request is first admitted by the admission controller of the pool, which may queue
+     * it or reject it with a {@link ConnectionAdmissionException}.
      *
      * @param cpn
      *            the name of the pool to retrieve the connection from
@@ -265,7 +284,24 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
                 trackingMap.put("proxyServers", proxyServers.toString());
         }
         AccumuloConnectionPool pool = pools.get(poolName).get(priority);
-        Connector c = pool.borrowObject(trackingMap);
+        ConnectionAdmissionController admission = admissionControllers.get(poolName);
+        ConnectionAdmissionController.Ticket ticket = null;
+        if (admission != null) {
+            String user = trackingMap.containsKey("query.user") ? trackingMap.get("query.user") : trackingMap.get("user.dn");
+            ticket = admission.admit(priority, user, trackingMap.get("query.logic"));
+        }
+        Connector c;
+        try {
+            c = pool.borrowObject(trackingMap);
+        } catch (Exception e) {
+            if (admission != null) {
+                admission.release(ticket);
+            }
+            throw e;
+        }
+        if (ticket != null) {
+            tickets.put(c, ticket);
+        }
         Connector mock = cache.getInstance().getConnector(pool.getFactory().getUsername(), new PasswordToken(pool.getFactory().getPassword()));
         WrappedConnector wrappedConnector = new WrappedConnector(c, mock);
         String classLoaderContext = System.getProperty("dw.accumulo.classLoader.context");
@@ -297,6 +333,12 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
         for (Entry<String,Map<Priority,AccumuloConnectionPool>> entry : this.pools.entrySet()) {
             for (Entry<Priority,AccumuloConnectionPool> poolEntry : entry.getValue().entrySet()) {
                 if (poolEntry.getValue().connectorCameFromHere(connection)) {
+                    // release the ticket before the connection can be borrowed again, and so be given a new ticket
+                    ConnectionAdmissionController admission = admissionControllers.get(entry.getKey());
+                    ConnectionAdmissionController.Ticket ticket = tickets.remove(connection);
+                    if (admission != null) {
+                        admission.release(ticket);
+                    }
                     poolEntry.getValue().returnObject(connection);
                     return;
                 }
@@ -356,9 +398,17 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
                 MutableInt maxIdle = new MutableInt();
                 MutableInt numIdle = new MutableInt();
                 MutableInt numWaiting = new MutableInt();
+                MutableInt numQueued = new MutableInt();
+                MutableLong oldestQueuedTime = new MutableLong();
+                MutableLong averageQueuedTime = new MutableLong();
+                MutableLong numRejected = new MutableLong();
                 // getConnectionPoolStats will collect the tracking maps and maxActive, numActive, maxIdle, numIdle while synchronized
                 // to ensure consistency between the GenericObjectPool and the tracking maps
                 List<Map<String,String>> requestingConnectionsMap = p.getConnectionPoolStats(maxActive, numActive, maxIdle, numIdle, numWaiting);
+                ConnectionAdmissionController admission = admissionControllers.get(poolName);
+                if (admission != null) {
+                    admission.getQueueStats(priority, numQueued, oldestQueuedTime, averageQueuedTime, numRejected);
+                }
                 
                 ConnectionPool poolInfo = new ConnectionPool();
                 poolInfo.setPriority(priority.name());
@@ -367,6 +417,10 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
                 poolInfo.setNumWaiting(numWaiting.toInteger());
                 poolInfo.setMaxIdle(maxIdle.toInteger());
                 poolInfo.setNumIdle(numIdle.toInteger());
+                poolInfo.setNumQueued(numQueued.toInteger());
+                poolInfo.setOldestQueuedTime(oldestQueuedTime.toLong());
+                poolInfo.setAverageQueuedTime(averageQueuedTime.toLong());
+                poolInfo.setNumRejected(numRejected.toLong());
                 poolInfo.setPoolName(poolName);
                 
                 List<Connection> requestingConnections = new ArrayList<>();
@@ -418,8 +472,15 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
                 MutableInt numWaiting = new MutableInt();
                 MutableInt unused = new MutableInt();
                 poolEntry.getValue().getConnectionPoolStats(maxActive, numActive, unused, unused, numWaiting);
+                // requests queued for admission are waiting for a connection as well
+                ConnectionAdmissionController admission = admissionControllers.get(entry.getKey());
+                MutableInt numQueued = new MutableInt();
+                if (admission != null) {
+                    MutableLong ignored = new MutableLong();
+                    admission.getQueueStats(poolEntry.getKey(), numQueued, ignored, ignored, ignored);
+                }
                 
-                double percentage = (numActive.doubleValue() + numWaiting.doubleValue()) / maxActive.doubleValue();
+                double percentage = (numActive.doubleValue() + numWaiting.doubleValue() + numQueued.doubleValue()) / maxActive.doubleValue();
                 if (percentage > maxPercentage) {
                     maxPercentage = percentage;
                 }
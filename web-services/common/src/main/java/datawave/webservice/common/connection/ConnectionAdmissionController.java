@@ -0,0 +1,352 @@
+package datawave.webservice.common.connection;
+
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
+import org.apache.commons.lang.mutable.MutableInt;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admits requests for the connections of a named set of {@link AccumuloConnectionPool}s before they borrow from the pool for their priority, so that callers
+ * are queued here with a deadline rather than blocking in the pool without limit.
+ * <p>
+ * A request is admitted when its priority has a free connection and neither its user nor its query logic already holds as many connections as allowed.
+ * Otherwise it waits in a bounded queue for its priority until it is admitted or its deadline passes. Requests are rejected right away when the queue is full
+ * or when the expected wait exceeds the deadline, with a hint of when to retry. Waiting requests are dispatched first in, first out within a priority, skipping
+ * those held back by their user or logic limit, and across priorities in proportion to the weight of each priority.
+ * <p>
+ * Priorities without permits, such as {@link Priority#ADMIN}, are not controlled.
+ */
+public class ConnectionAdmissionController {
+    
+    private static final Logger log = Logger.getLogger(ConnectionAdmissionController.class);
+    
+    private static final long STRIDE = 1 << 20;
+    private static final long MIN_RETRY_AFTER_MS = 1000;
+    // the weight of the latest hold time in the average
+    private static final double HOLD_WEIGHT = 0.2;
+    
+    /**
+     * An admitted, or waiting, request for a connection.
+     */
+    public static class Ticket {
+        private final Priority priority;
+        private final String user;
+        private final String logic;
+        private final long requested;
+        private long admitted = -1;
+        
+        private Ticket(Priority priority, String user, String logic, long requested) {
+            this.priority = priority;
+            this.user = user;
+            this.logic = logic;
+            this.requested = requested;
+        }
+        
+        public Priority getPriority() {
+            return priority;
+        }
+        
+        public String getUser() {
+            return user;
+        }
+        
+        public String getLogic() {
+            return logic;
+        }
+        
+        /**
+         * @return the time spent waiting to be admitted, or -1 if the request has not been admitted
+         */
+        public long getWaitMillis() {
+            return admitted < 0 ? -1 : admitted - requested;
+        }
+    }
+    
+    private static class Lane {
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private int maxPermits;
+        private int permits;
+        private int weight = 1;
+        private long pass;
+        
+        private long numAdmitted;
+        private long numRejected;
+        private long totalWaitMs;
+    }
+    
+    private final String poolName;
+    private final int maxQueued;
+    private final long maxWaitMs;
+    private int maxPerUser;
+    private int maxPerLogic;
+    
+    private final Map<Priority,Lane> lanes = new EnumMap<>(Priority.class);
+    private final Map<String,MutableInt> userCounts = new HashMap<>();
+    private final Map<String,MutableInt> logicCounts = new HashMap<>();
+    private int queued;
+    private long virtualTime;
+    private double holdMillis = -1;
+    
+    /**
+     * @param poolName
+     *            the name of the pools, for messages
+     * @param maxQueued
+     *            the number of requests that may wait across all priorities, 0 to reject requests that can not be admitted right away
+     * @param maxWaitMs
+     *            the time a request may wait, or 0 to wait without a deadline
+     */
+    public ConnectionAdmissionController(String poolName, int maxQueued, long maxWaitMs) {
+        this.poolName = poolName;
+        this.maxQueued = maxQueued;
+        this.maxWaitMs = maxWaitMs;
+    }
+    
+    /**
+     * Controls the requests of a priority.
+     *
+     * @param priority
+     *            the priority
+     * @param permits
+     *            the number of connections of the priority, normally the size of its pool
+     * @param weight
+     *            the share of the waiting requests dispatched for the priority relative to the other priorities
+     */
+    public synchronized void setPermits(Priority priority, int permits, int weight) {
+        Lane lane = lanes.computeIfAbsent(priority, p -> new Lane());
+        lane.permits += permits - lane.maxPermits;
+        lane.maxPermits = permits;
+        lane.weight = Math.max(1, weight);
+        dispatch();
+    }
+    
+    /**
+     * @param maxPerUser
+     *            the number of connections a user may hold, or 0 for no limit
+     */
+    public synchronized void setMaxPerUser(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+        dispatch();
+    }
+    
+    /**
+     * @param maxPerLogic
+     *            the number of connections a query logic may hold, or 0 for no limit
+     */
+    public synchronized void setMaxPerLogic(int maxPerLogic) {
+        this.maxPerLogic = maxPerLogic;
+        dispatch();
+    }
+    
+    /**
+     * Admits a request for a connection, waiting if needed.
+     *
+     * @param priority
+     *            the priority of the connection
+     * @param user
+     *            the user requesting the connection, or null
+     * @param logic
+     *            the query logic requesting the connection, or null
+     * @return the admitted request, to be {@link #release(Ticket) released} once its connection is returned, or null if the priority is not controlled
+     * @throws ConnectionAdmissionException
+     *             if the request is not admitted
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized Ticket admit(Priority priority, String user, String logic) throws ConnectionAdmissionException, InterruptedException {
+        Lane lane = lanes.get(priority);
+        if (lane == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Ticket ticket = new Ticket(priority, user, logic, now);
+        if (isAdmissible(ticket, lane) && nextAdmissible(lane) == null) {
+            acquire(ticket, lane, now);
+            return ticket;
+        }
+        
+        long expectedWait = expectedWait(lane);
+        if (queued >= maxQueued) {
+            throw reject(lane, "the wait queue is full (" + queued + " waiting)", expectedWait);
+        }
+        if (maxWaitMs > 0 && expectedWait > maxWaitMs) {
+            throw reject(lane, "the expected wait of " + expectedWait + "ms exceeds " + maxWaitMs + "ms", expectedWait);
+        }
+        
+        if (lane.waiting.isEmpty()) {
+            // an idle priority does not bank its share while it has nothing waiting
+            lane.pass = Math.max(lane.pass, virtualTime);
+        }
+        lane.waiting.addLast(ticket);
+        queued++;
+        long deadline = maxWaitMs > 0 ? now + maxWaitMs : Long.MAX_VALUE;
+        try {
+            while (ticket.admitted < 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    dequeue(ticket, lane);
+                    throw reject(lane, "no connection was available within " + maxWaitMs + "ms", expectedWait(lane));
+                }
+                wait(maxWaitMs > 0 ? remaining : 0);
+            }
+        } catch (InterruptedException e) {
+            if (ticket.admitted < 0) {
+                dequeue(ticket, lane);
+            } else {
+                release(ticket);
+            }
+            throw e;
+        }
+        return ticket;
+    }
+    
+    /**
+     * Releases an admitted request once its connection has been returned, admitting waiting requests in its place.
+     *
+     * @param ticket
+     *            the admitted request, may be null
+     */
+    public synchronized void release(Ticket ticket) {
+        if (ticket == null || ticket.admitted < 0) {
+            return;
+        }
+        Lane lane = lanes.get(ticket.priority);
+        lane.permits++;
+        decrement(userCounts, ticket.user);
+        decrement(logicCounts, ticket.logic);
+        long held = System.currentTimeMillis() - ticket.admitted;
+        holdMillis = holdMillis < 0 ? held : HOLD_WEIGHT * held + (1 - HOLD_WEIGHT) * holdMillis;
+        ticket.admitted = -1;
+        dispatch();
+    }
+    
+    /**
+     * Collects the queue statistics of a priority.
+     */
+    public synchronized void getQueueStats(Priority priority, MutableInt numQueued, MutableLong oldestWait, MutableLong averageWait, MutableLong numRejected) {
+        Lane lane = lanes.get(priority);
+        if (lane == null) {
+            numQueued.setValue(0);
+            oldestWait.setValue(0L);
+            averageWait.setValue(0L);
+            numRejected.setValue(0L);
+            return;
+        }
+        numQueued.setValue(lane.waiting.size());
+        oldestWait.setValue(lane.waiting.isEmpty() ? 0L : System.currentTimeMillis() - lane.waiting.peekFirst().requested);
+        averageWait.setValue(lane.numAdmitted == 0 ? 0L : lane.totalWaitMs / lane.numAdmitted);
+        numRejected.setValue(lane.numRejected);
+    }
+    
+    /**
+     * @return the number of requests waiting across all priorities
+     */
+    public synchronized int getNumQueued() {
+        return queued;
+    }
+    
+    private boolean isAdmissible(Ticket ticket, Lane lane) {
+        return lane.permits > 0 && isUnderLimit(userCounts, ticket.user, maxPerUser) && isUnderLimit(logicCounts, ticket.logic, maxPerLogic);
+    }
+    
+    private Ticket nextAdmissible(Lane lane) {
+        if (lane.permits <= 0) {
+            return null;
+        }
+        for (Ticket ticket : lane.waiting) {
+            if (isAdmissible(ticket, lane)) {
+                return ticket;
+            }
+        }
+        return null;
+    }
+    
+    private void dispatch() {
+        boolean admitted = false;
+        while (queued > 0) {
+            Lane next = null;
+            Ticket ticket = null;
+            for (Lane lane : lanes.values()) {
+                if (next == null || lane.pass < next.pass) {
+                    Ticket candidate = nextAdmissible(lane);
+                    if (candidate != null) {
+                        next = lane;
+                        ticket = candidate;
+                    }
+                }
+            }
+            if (ticket == null) {
+                break;
+            }
+            dequeue(ticket, next);
+            acquire(ticket, next, System.currentTimeMillis());
+            next.pass += STRIDE / next.weight;
+            virtualTime = next.pass;
+            admitted = true;
+        }
+        if (admitted) {
+            notifyAll();
+        }
+    }
+    
+    private void acquire(Ticket ticket, Lane lane, long now) {
+        lane.permits--;
+        increment(userCounts, ticket.user);
+        increment(logicCounts, ticket.logic);
+        ticket.admitted = now;
+        lane.numAdmitted++;
+        lane.totalWaitMs += now - ticket.requested;
+    }
+    
+    private void dequeue(Ticket ticket, Lane lane) {
+        if (lane.waiting.remove(ticket)) {
+            queued--;
+        }
+    }
+    
+    private ConnectionAdmissionException reject(Lane lane, String reason, long expectedWait) {
+        lane.numRejected++;
+        String message = "Connection request for the " + poolName + " pool rejected: " + reason;
+        log.debug(message);
+        return new ConnectionAdmissionException(message, Math.max(MIN_RETRY_AFTER_MS, expectedWait));
+    }
+    
+    // the expected wait of a new request from the average time a connection is held, or 0 if not yet known
+    private long expectedWait(Lane lane) {
+        if (holdMillis < 0 || lane.maxPermits <= 0) {
+            return 0;
+        }
+        return (long) (holdMillis * (lane.waiting.size() + 1) / lane.maxPermits);
+    }
+    
+    private static boolean isUnderLimit(Map<String,MutableInt> counts, String key, int limit) {
+        if (key == null || limit <= 0) {
+            return true;
+        }
+        MutableInt count = counts.get(key);
+        return count == null || count.intValue() < limit;
+    }
+    
+    private static void increment(Map<String,MutableInt> counts, String key) {
+        if (key != null) {
+            counts.computeIfAbsent(key, k -> new MutableInt()).increment();
+        }
+    }
+    
+    private static void decrement(Map<String,MutableInt> counts, String key) {
+        if (key != null) {
+            MutableInt count = counts.get(key);
+            if (count != null) {
+                count.decrement();
+                if (count.intValue() <= 0) {
+                    counts.remove(key);
+                }
+            }
+        }
+    }
+}
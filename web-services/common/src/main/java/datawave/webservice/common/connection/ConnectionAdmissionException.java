@@ -0,0 +1,31 @@
+package datawave.webservice.common.connection;
+
+/**
+ * Thrown when a request for a connection is not admitted by a {@link ConnectionAdmissionController}, either right away because its wait queue is full or
+ * after waiting past its deadline.
+ */
+public class ConnectionAdmissionException extends Exception {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final long retryAfterMs;
+    
+    public ConnectionAdmissionException(String message, long retryAfterMs) {
+        super(message);
+        this.retryAfterMs = retryAfterMs;
+    }
+    
+    /**
+     * @return the time in milliseconds after which the request is likely to be admitted if retried
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+    
+    /**
+     * @return the retry after hint in whole seconds, as used by the HTTP Retry-After header
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
@@ -12,6 +12,13 @@ public class ConnectionPoolConfiguration {
     private int normalPriorityPoolSize;
     private int highPriorityPoolSize;
     private int adminPriorityPoolSize;
+    private int admissionQueueSize;
+    private long admissionMaxWaitMs;
+    private int maxConnectionsPerUser;
+    private int maxConnectionsPerLogic;
+    private int lowPriorityWeight;
+    private int normalPriorityWeight;
+    private int highPriorityWeight;
     
     public ConnectionPoolConfiguration(String poolName) {
         username = ConfigResolver.getPropertyValue("dw." + poolName + ".accumulo.userName");
@@ -22,6 +29,13 @@ public class ConnectionPoolConfiguration {
         normalPriorityPoolSize = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".pool.normal.size", "50"));
         highPriorityPoolSize = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".pool.high.size", "100"));
         adminPriorityPoolSize = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".pool.admin.size", "200"));
+        admissionQueueSize = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.queue.size", "500"));
+        admissionMaxWaitMs = Long.parseLong(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.max.wait.ms", "300000"));
+        maxConnectionsPerUser = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.user.limit", "0"));
+        maxConnectionsPerLogic = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.logic.limit", "0"));
+        lowPriorityWeight = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.low.weight", "1"));
+        normalPriorityWeight = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.normal.weight", "2"));
+        highPriorityWeight = Integer.parseInt(ConfigResolver.getPropertyValue("dw." + poolName + ".admission.high.weight", "4"));
     }
     
     public String getUsername() {
@@ -56,4 +70,32 @@ public class ConnectionPoolConfiguration {
         return adminPriorityPoolSize;
     }
     
+    public int getAdmissionQueueSize() {
+        return admissionQueueSize;
+    }
+    
+    public long getAdmissionMaxWaitMs() {
+        return admissionMaxWaitMs;
+    }
+    
+    public int getMaxConnectionsPerUser() {
+        return maxConnectionsPerUser;
+    }
+    
+    public int getMaxConnectionsPerLogic() {
+        return maxConnectionsPerLogic;
+    }
+    
+    public int getLowPriorityWeight() {
+        return lowPriorityWeight;
+    }
+    
+    public int getNormalPriorityWeight() {
+        return normalPriorityWeight;
+    }
+    
+    public int getHighPriorityWeight() {
+        return highPriorityWeight;
+    }
+    
 }
@@ -0,0 +1,165 @@
+package datawave.webservice.common.cache;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.webservice.common.connection.AccumuloConnectionFactory;
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BaseTableCacheTest {
+    
+    private static final String TABLE_NAME = "cachedTable";
+    
+    private Connector source;
+    private InMemoryInstance cacheInstance;
+    private BaseTableCache cache;
+    private long timestamp;
+    
+    @Before
+    public void setup() throws Exception {
+        source = new InMemoryInstance("source" + UUID.randomUUID()).getConnector("root", new PasswordToken(new byte[0]));
+        source.tableOperations().create(TABLE_NAME);
+        
+        AccumuloConnectionFactory connectionFactory = EasyMock.createMock(AccumuloConnectionFactory.class);
+        expect(connectionFactory.getTrackingMap(anyObject())).andReturn(new HashMap<>()).anyTimes();
+        expect(connectionFactory.getConnection(eq("WAREHOUSE"), eq(Priority.ADMIN), anyObject())).andReturn(source).anyTimes();
+        connectionFactory.returnConnection(source);
+        EasyMock.expectLastCall().anyTimes();
+        EasyMock.replay(connectionFactory);
+        
+        cacheInstance = new InMemoryInstance("cache" + UUID.randomUUID());
+        cache = new BaseTableCache();
+        cache.setTableName(TABLE_NAME);
+        cache.setConnectionPoolName("WAREHOUSE");
+        cache.setConnectionFactory(connectionFactory);
+        cache.setInstance(cacheInstance);
+        cache.setIncremental(true);
+        cache.setIncrementalOverlap(0);
+        
+        timestamp = System.currentTimeMillis() - 60000L;
+        write("row1", "value1", timestamp);
+        write("row2", "value2", timestamp);
+    }
+    
+    private void write(String row, String value, long ts) throws Exception {
+        BatchWriter writer = source.createBatchWriter(TABLE_NAME, new BatchWriterConfig());
+        Mutation m = new Mutation(row);
+        m.put("cf", "cq", ts, new Value(value.getBytes()));
+        writer.addMutation(m);
+        writer.close();
+    }
+    
+    private Map<String,String> cached() throws Exception {
+        Map<String,String> cached = new HashMap<>();
+        Scanner scanner = cacheInstance.getConnector(AccumuloTableCache.MOCK_USERNAME, AccumuloTableCache.MOCK_PASSWORD).createScanner(TABLE_NAME,
+                        new Authorizations());
+        for (Entry<Key,Value> entry : scanner) {
+            cached.put(entry.getKey().getRow().toString(), entry.getValue().toString());
+        }
+        return cached;
+    }
+    
+    @Test
+    public void testIncrementalReload() throws Exception {
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        assertEquals(2, cache.getLastReloadEntries());
+        assertTrue(cache.getLastReloadBytes() > 0);
+        assertEquals(cache.getLastRefresh(), cache.getLastFullRefresh());
+        assertEquals(2, cached().size());
+        
+        // only the entries written since the last reload are copied
+        write("row2", "value2b", System.currentTimeMillis() + 1000L);
+        write("row3", "value3", System.currentTimeMillis() + 1000L);
+        assertTrue(cache.call());
+        assertTrue(cache.isLastReloadIncremental());
+        assertEquals(2, cache.getLastReloadEntries());
+        Map<String,String> cached = cached();
+        assertEquals(3, cached.size());
+        assertEquals("value2b", cached.get("row2"));
+        
+        // deletes are only seen by a full reload, which a reload request forces
+        BatchWriter writer = source.createBatchWriter(TABLE_NAME, new BatchWriterConfig());
+        Mutation m = new Mutation("row1");
+        m.putDelete("cf", "cq");
+        writer.addMutation(m);
+        writer.close();
+        assertTrue(cache.call());
+        assertEquals(3, cached().size());
+        
+        cache.setLastRefresh(new Date(0));
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        cached = cached();
+        assertEquals(2, cached.size());
+        assertFalse(cached.containsKey("row1"));
+    }
+    
+    @Test
+    public void testTruncatedIncrementalReload() throws Exception {
+        cache.setMaxRows(2);
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        assertEquals(2, cache.getLastReloadEntries());
+        
+        // more entries changed than an incremental reload may copy
+        for (int i = 3; i <= 6; i++) {
+            write("row" + i, "value" + i, System.currentTimeMillis());
+        }
+        assertTrue(cache.call());
+        assertTrue(cache.isLastReloadIncremental());
+        assertEquals(3, cache.getLastReloadEntries());
+        
+        // the next reload copies the whole table rather than starting over from the same point
+        Thread.sleep(5);
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        
+        // after which reloads are incremental again
+        assertTrue(cache.call());
+        assertTrue(cache.isLastReloadIncremental());
+        assertEquals(0, cache.getLastReloadEntries());
+    }
+    
+    @Test
+    public void testFullReloadInterval() throws Exception {
+        cache.setFullReloadInterval(0);
+        assertTrue(cache.call());
+        Thread.sleep(5);
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        assertEquals(2, cache.getLastReloadEntries());
+    }
+    
+    @Test
+    public void testNotIncremental() throws Exception {
+        cache.setIncremental(false);
+        assertTrue(cache.call());
+        assertTrue(cache.call());
+        assertFalse(cache.isLastReloadIncremental());
+        assertEquals(2, cache.getLastReloadEntries());
+    }
+}
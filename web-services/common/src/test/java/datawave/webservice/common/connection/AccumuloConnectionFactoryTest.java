@@ -4,12 +4,15 @@ import static org.easymock.MockType.STRICT;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Lists;
 import datawave.webservice.common.cache.AccumuloTableCache;
@@ -17,6 +20,7 @@ import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
 import datawave.webservice.common.connection.config.ConnectionPoolConfiguration;
 import datawave.webservice.common.connection.config.ConnectionPoolsConfiguration;
 import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import datawave.accumulo.inmemory.InMemoryInstance;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
@@ -157,6 +161,65 @@ public class AccumuloConnectionFactoryTest extends EasyMockSupport {
         assertEquals(metricsConnection, ((WrappedConnector) con).getReal());
     }
     
+    @Test
+    public void testConcurrentGetAndReturnKeepTheirTickets() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 0, 0);
+        admission.setPermits(Priority.ADMIN, 2, 1);
+        
+        // another thread borrows the first connection as soon as it is back in the pool
+        AtomicBoolean borrowOnReturn = new AtomicBoolean(true);
+        AtomicReference<Connector> borrowed = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        DistinctConnectionPoolFactory factory = Whitebox.newInstance(DistinctConnectionPoolFactory.class);
+        Whitebox.setInternalState(factory, "username", "root");
+        Whitebox.setInternalState(factory, "password", "");
+        factory.setInstance(instance);
+        AccumuloConnectionPool pool = new AccumuloConnectionPool(factory) {
+            @Override
+            public void returnObject(Connector connector) {
+                super.returnObject(connector);
+                if (borrowOnReturn.compareAndSet(true, false)) {
+                    Thread thread = new Thread(() -> {
+                        try {
+                            borrowed.set(bean.getConnection(Priority.ADMIN, new HashMap<>()));
+                        } catch (Exception e) {
+                            failure.set(e);
+                        }
+                    });
+                    thread.start();
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        Map<Priority,AccumuloConnectionPool> p = new HashMap<>();
+        for (Priority priority : Priority.values()) {
+            p.put(priority, pool);
+        }
+        Whitebox.setInternalState(bean, "pools", Collections.singletonMap("WAREHOUSE", p));
+        Whitebox.setInternalState(bean, "admissionControllers", Collections.singletonMap("WAREHOUSE", admission));
+        
+        resetAll();
+        EasyMock.expect(cache.getInstance()).andReturn(instance).anyTimes();
+        replayAll();
+        
+        bean.returnConnection(bean.getConnection(Priority.ADMIN, new HashMap<>()));
+        assertNull(failure.get());
+        assertNotNull(borrowed.get());
+        bean.returnConnection(borrowed.get());
+        
+        // every ticket has been released, so both permits can be held again without waiting
+        Connector first = bean.getConnection(Priority.ADMIN, new HashMap<>());
+        Connector second = bean.getConnection(Priority.ADMIN, new HashMap<>());
+        bean.returnConnection(first);
+        bean.returnConnection(second);
+        verifyAll();
+        assertTrue(((Map<?,?>) Whitebox.getInternalState(bean, "tickets")).isEmpty());
+    }
+    
     public static class MyAccumuloConnectionPoolFactory extends AccumuloConnectionPoolFactory {
         
         private Connector c = null;
@@ -198,4 +261,27 @@ public class AccumuloConnectionFactoryTest extends EasyMockSupport {
         @Override
         public void returnObject(Connector connector) {}
     }
+    
+    public static class DistinctConnectionPoolFactory extends AccumuloConnectionPoolFactory {
+        
+        private InMemoryInstance instance = null;
+        
+        public DistinctConnectionPoolFactory(String username, String password, String zookeepers, String instanceName) {
+            super(username, password, zookeepers, instanceName);
+        }
+        
+        public void setInstance(InMemoryInstance instance) {
+            this.instance = instance;
+        }
+        
+        @Override
+        public PooledObject<Connector> makeObject() throws Exception {
+            return new DefaultPooledObject<>(instance.getConnector("root", new PasswordToken(new byte[0])));
+        }
+        
+        @Override
+        public boolean validateObject(PooledObject<Connector> arg0) {
+            return true;
+        }
+    }
 }
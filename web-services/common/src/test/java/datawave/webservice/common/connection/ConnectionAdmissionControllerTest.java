@@ -0,0 +1,158 @@
+package datawave.webservice.common.connection;
+
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
+import datawave.webservice.common.connection.ConnectionAdmissionController.Ticket;
+import org.apache.commons.lang.mutable.MutableInt;
+import org.apache.commons.lang.mutable.MutableLong;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionAdmissionControllerTest {
+    
+    @Test
+    public void testPermits() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 0, 0);
+        admission.setPermits(Priority.NORMAL, 2, 1);
+        
+        Ticket first = admission.admit(Priority.NORMAL, "user1", "EventQuery");
+        Ticket second = admission.admit(Priority.NORMAL, "user2", "EventQuery");
+        assertEquals(0, first.getWaitMillis(), 1000);
+        assertNotNull(second);
+        try {
+            admission.admit(Priority.NORMAL, "user3", "EventQuery");
+            fail("Expected the request to be rejected");
+        } catch (ConnectionAdmissionException e) {
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+        
+        admission.release(first);
+        assertNotNull(admission.admit(Priority.NORMAL, "user3", "EventQuery"));
+        
+        // priorities without permits are not controlled
+        assertNull(admission.admit(Priority.ADMIN, null, null));
+        
+        MutableInt numQueued = new MutableInt();
+        MutableLong oldest = new MutableLong();
+        MutableLong average = new MutableLong();
+        MutableLong numRejected = new MutableLong();
+        admission.getQueueStats(Priority.NORMAL, numQueued, oldest, average, numRejected);
+        assertEquals(0, numQueued.intValue());
+        assertEquals(1, numRejected.longValue());
+    }
+    
+    @Test
+    public void testQueueDeadline() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 10, 100);
+        admission.setPermits(Priority.HIGH, 1, 1);
+        Ticket held = admission.admit(Priority.HIGH, "user1", "EventQuery");
+        
+        long start = System.currentTimeMillis();
+        try {
+            admission.admit(Priority.HIGH, "user2", "EventQuery");
+            fail("Expected the request to time out");
+        } catch (ConnectionAdmissionException e) {
+            assertTrue(System.currentTimeMillis() - start >= 100);
+            assertTrue(e.getRetryAfterMs() >= 1000);
+        }
+        assertEquals(0, admission.getNumQueued());
+        
+        admission.release(held);
+        assertNotNull(admission.admit(Priority.HIGH, "user2", "EventQuery"));
+    }
+    
+    @Test
+    public void testQueuedRequestAdmittedOnRelease() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 10, 0);
+        admission.setPermits(Priority.LOW, 1, 1);
+        Ticket held = admission.admit(Priority.LOW, "user1", "EventQuery");
+        
+        BlockingQueue<Ticket> admitted = new LinkedBlockingQueue<>();
+        startWaiter(admission, Priority.LOW, "user2", "EventQuery", admitted);
+        awaitQueued(admission, 1);
+        
+        admission.release(held);
+        Ticket ticket = admitted.poll(10, TimeUnit.SECONDS);
+        assertNotNull(ticket);
+        assertEquals("user2", ticket.getUser());
+        assertTrue(ticket.getWaitMillis() >= 0);
+    }
+    
+    @Test
+    public void testUserLimit() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 10, 0);
+        admission.setPermits(Priority.NORMAL, 10, 1);
+        admission.setMaxPerUser(1);
+        Ticket held = admission.admit(Priority.NORMAL, "user1", "EventQuery");
+        
+        // the second request of user1 waits without holding back other users
+        BlockingQueue<Ticket> admitted = new LinkedBlockingQueue<>();
+        startWaiter(admission, Priority.NORMAL, "user1", "EventQuery", admitted);
+        awaitQueued(admission, 1);
+        assertNotNull(admission.admit(Priority.NORMAL, "user2", "EventQuery"));
+        assertNull(admitted.poll(100, TimeUnit.MILLISECONDS));
+        
+        admission.release(held);
+        Ticket ticket = admitted.poll(10, TimeUnit.SECONDS);
+        assertNotNull(ticket);
+        assertEquals("user1", ticket.getUser());
+    }
+    
+    @Test
+    public void testWeightedDispatch() throws Exception {
+        ConnectionAdmissionController admission = new ConnectionAdmissionController("WAREHOUSE", 10, 0);
+        admission.setPermits(Priority.LOW, 10, 1);
+        admission.setPermits(Priority.HIGH, 10, 4);
+        admission.setMaxPerLogic(1);
+        Ticket held = admission.admit(Priority.HIGH, "user1", "EventQuery");
+        
+        // the logic limit lets one request through at a time, so the waiting requests are dispatched across priorities by weight
+        BlockingQueue<Ticket> admitted = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 4; i++) {
+            startWaiter(admission, Priority.LOW, "user" + i, "EventQuery", admitted);
+            startWaiter(admission, Priority.HIGH, "user" + i, "EventQuery", admitted);
+        }
+        awaitQueued(admission, 8);
+        
+        List<Priority> order = new ArrayList<>();
+        Ticket ticket = held;
+        for (int i = 0; i < 8; i++) {
+            admission.release(ticket);
+            ticket = admitted.poll(10, TimeUnit.SECONDS);
+            assertNotNull(ticket);
+            order.add(ticket.getPriority());
+        }
+        assertEquals(Arrays.asList(Priority.LOW, Priority.HIGH, Priority.HIGH, Priority.HIGH, Priority.HIGH, Priority.LOW, Priority.LOW, Priority.LOW), order);
+    }
+    
+    private void startWaiter(ConnectionAdmissionController admission, Priority priority, String user, String logic, BlockingQueue<Ticket> admitted) {
+        Thread thread = new Thread(() -> {
+            try {
+                admitted.add(admission.admit(priority, user, logic));
+            } catch (Exception e) {
+                // the test fails on the missing ticket
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void awaitQueued(ConnectionAdmissionController admission, int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (admission.getNumQueued() < queued && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(queued, admission.getNumQueued());
+    }
+}
@@ -13,7 +13,8 @@ import java.util.concurrent.TimeUnit;
 @Singleton
 // CDI singleton
 public class ClosedQueryCache {
-    private final Cache<String,Boolean> queryIdCache = CacheBuilder.newBuilder().maximumSize(100000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+    private final Cache<String,Boolean> queryIdCache = CacheBuilder.newBuilder().concurrencyLevel(1000).maximumSize(100000)
+                    .expireAfterWrite(10, TimeUnit.MINUTES).build();
     private final Logger log = Logger.getLogger(ClosedQueryCache.class);
     
     public void add(String queryId) {
@@ -85,6 +85,8 @@ public class CreatedQueryLogicCacheBean {
     @Inject
     private AccumuloConnectionFactory connectionFactory;
     private final ConcurrentHashMap<Pair<String,Long>,Triple> cache = new ConcurrentHashMap<>();
+    // the most recently added key for a query id, so that entries are found without scanning the cache
+    private final ConcurrentHashMap<String,Pair<String,Long>> keys = new ConcurrentHashMap<>();
     
     /**
      * Add the provided QueryLogic to the QueryLogicCache.
@@ -98,7 +100,12 @@ public class CreatedQueryLogicCacheBean {
     public boolean add(String queryId, String userId, QueryLogic<?> logic, Connector cxn) {
         Triple value = new Triple(userId, logic, cxn);
         long updateTime = System.currentTimeMillis();
-        return cache.putIfAbsent(new Pair<>(queryId, updateTime), value) == null;
+        Pair<String,Long> key = new Pair<>(queryId, updateTime);
+        if (cache.putIfAbsent(key, value) == null) {
+            keys.put(queryId, key);
+            return true;
+        }
+        return false;
     }
     
     public Pair<QueryLogic<?>,Connector> poll(String id) {
@@ -124,7 +131,7 @@ public class CreatedQueryLogicCacheBean {
                         if ((now - expiration) > timeInserted) {
                             return true;
                         }
-                        
+            
                         return false;
                     });
         
@@ -137,13 +144,11 @@ public class CreatedQueryLogicCacheBean {
     }
     
     public Pair<QueryLogic<?>,Connector> pollIfOwnedBy(String queryId, String userId) {
-        Entry<Pair<String,Long>,Triple> entry = get(queryId);
-        if (entry != null) {
-            if (userId.equals(entry.getValue().userID)) {
-                return tripToPair.apply(entry.getValue());
-            } else {
-                cache.put(entry.getKey(), entry.getValue());
-            }
+        // check the owner before removing the entry, so that it is never missing from the cache for its owner
+        Entry<Pair<String,Long>,Triple> entry = find(queryId);
+        if (entry != null && userId.equals(entry.getValue().userID) && cache.remove(entry.getKey(), entry.getValue())) {
+            keys.remove(queryId, entry.getKey());
+            return tripToPair.apply(entry.getValue());
         }
         
         return null;
@@ -192,16 +197,45 @@ public class CreatedQueryLogicCacheBean {
     }
     
     /**
-     * Finds and entry in the underlying cache with the given queryId. Returns null if no such element in the map is found. Will only return the
+     * Finds and removes an entry in the underlying cache with the given queryId. Returns null if no such element in the map is found. Will only return the
      * arbitrarily-found 'first' entry as we shouldn't have such a collision in the first place
      * 
      * @param queryId
      * @return
      */
     private Entry<Pair<String,Long>,Triple> get(String queryId) {
-        for (Pair<String,Long> key : cache.keySet()) {
-            if (key.getFirst().equals(queryId)) {
-                return Maps.immutableEntry(key, cache.remove(key));
+        while (true) {
+            Entry<Pair<String,Long>,Triple> entry = find(queryId);
+            if (entry == null) {
+                return null;
+            }
+            if (cache.remove(entry.getKey(), entry.getValue())) {
+                keys.remove(queryId, entry.getKey());
+                return entry;
+            }
+        }
+    }
+    
+    /**
+     * Finds an entry in the underlying cache with the given queryId without removing it, using the most recently added key for the queryId and falling back
+     * to a scan of the cache for older entries.
+     * 
+     * @param queryId
+     * @return
+     */
+    private Entry<Pair<String,Long>,Triple> find(String queryId) {
+        Pair<String,Long> key = keys.get(queryId);
+        if (key != null) {
+            Triple value = cache.get(key);
+            if (value != null) {
+                return Maps.immutableEntry(key, value);
+            }
+            keys.remove(queryId, key);
+        }
+        
+        for (Entry<Pair<String,Long>,Triple> entry : cache.entrySet()) {
+            if (entry.getKey().getFirst().equals(queryId)) {
+                return Maps.immutableEntry(entry.getKey(), entry.getValue());
             }
         }
         
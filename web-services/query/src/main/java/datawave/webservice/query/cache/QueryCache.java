@@ -1,49 +1,303 @@
 package datawave.webservice.query.cache;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import datawave.webservice.query.runner.RunningQuery;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * A cache for storing {@link RunningQuery} objects.
+ * A registry for storing {@link RunningQuery} objects.
+ * <p>
+ * Each query id maps to an entry holding the {@link RunningQuery} and the {@link State} of the query. Lookups are lock-free reads of a
+ * {@link ConcurrentHashMap}, and a query is locked for paging by a compare-and-set of its state, so that calls for different queries never contend with each
+ * other. The ids of the cached queries are also indexed by owner, so that the queries of a user can be found without iterating over every cached query.
+ * <p>
+ * The time at which each query should next be checked for expiration is held in a {@link TimingWheel}. Queries are due to be checked as soon as they are
+ * cached and whenever they are locked or unlocked, and the {@link QueryExpirationBean} schedules the next check from the idle and call time of the query.
  */
 @Singleton
 // CDI singleton
-public class QueryCache extends AbstractQueryCache<RunningQuery> {
-    private ConcurrentHashMap<String,String> locks;
+public class QueryCache implements Iterable<RunningQuery> {
+    
+    /**
+     * The state of a cached query id.
+     */
+    public enum State {
+        /** the id has been registered by a lock, but no query has been cached for it */
+        DEFINED,
+        /** a query is cached and not in use */
+        RUNNING,
+        /** the id is locked by a call that is using the query */
+        PAGING,
+        /** the query has been removed */
+        CLOSED
+    }
+    
+    private static class QueryEntry {
+        private final AtomicReference<State> state;
+        private volatile RunningQuery query;
+        private volatile Thread owner;
+        
+        private QueryEntry(State state) {
+            this.state = new AtomicReference<>(state);
+        }
+    }
+    
+    private ConcurrentHashMap<String,QueryEntry> queries;
+    private ConcurrentHashMap<String,Set<String>> userQueries;
+    private TimingWheel<String> expirations;
     
-    @Override
     @PostConstruct
     public void init() {
-        super.init();
-        locks = new ConcurrentHashMap<>();
+        queries = new ConcurrentHashMap<>();
+        userQueries = new ConcurrentHashMap<>();
+        // one second ticks, with levels spanning about a minute, an hour, and three days
+        expirations = new TimingWheel<>(TimeUnit.SECONDS.toMillis(1), 64, 3, System.currentTimeMillis());
     }
     
-    @Override
-    protected Cache<String,RunningQuery> buildCache() {
-        return CacheBuilder.newBuilder().concurrencyLevel(1000).build();
+    /**
+     * Indicates whether or not this cache contains a {@link RunningQuery} associated with the query {@code id}.
+     */
+    public boolean containsKey(String id) {
+        return get(id) != null;
+    }
+    
+    /**
+     * Gets the {@link RunningQuery} whose query id is {@code id}, or {@code null} if there is no query cached under {@code id}.
+     */
+    public RunningQuery get(String id) {
+        QueryEntry entry = queries.get(id);
+        return entry == null ? null : entry.query;
+    }
+    
+    /**
+     * Gets the {@link State} of the query id {@code id}, or {@link State#CLOSED} if the id is not in the cache.
+     */
+    public State getState(String id) {
+        QueryEntry entry = queries.get(id);
+        return entry == null ? State.CLOSED : entry.state.get();
+    }
+    
+    /**
+     * Caches {@code query} under the identifier {@code id}. If the id is locked, it stays locked by its current owner.
+     */
+    public void put(String id, RunningQuery query) {
+        RunningQuery[] previous = new RunningQuery[1];
+        queries.compute(id, (key, entry) -> {
+            if (entry == null || entry.state.get() == State.CLOSED) {
+                entry = new QueryEntry(State.RUNNING);
+            } else {
+                previous[0] = entry.query;
+                entry.state.compareAndSet(State.DEFINED, State.RUNNING);
+            }
+            entry.query = query;
+            return entry;
+        });
+        
+        if (previous[0] == null) {
+            expirations.schedule(id, System.currentTimeMillis());
+        }
+        
+        String owner = getOwner(query);
+        if (previous[0] != null && previous[0] != query) {
+            String previousOwner = getOwner(previous[0]);
+            if (previousOwner != null && !previousOwner.equals(owner)) {
+                unindex(previousOwner, id);
+            }
+        }
+        if (owner != null) {
+            userQueries.compute(owner, (key, ids) -> {
+                if (ids == null) {
+                    ids = ConcurrentHashMap.newKeySet();
+                }
+                ids.add(id);
+                return ids;
+            });
+        }
+    }
+    
+    /**
+     * Removes the query identified by {@code id} from the cache. If the id is locked, the id itself is released when its owner unlocks it.
+     */
+    public void remove(String id) {
+        RunningQuery[] removed = new RunningQuery[1];
+        queries.computeIfPresent(id, (key, entry) -> {
+            removed[0] = entry.query;
+            entry.query = null;
+            while (true) {
+                State state = entry.state.get();
+                if (state == State.PAGING) {
+                    return entry;
+                }
+                if (entry.state.compareAndSet(state, State.CLOSED)) {
+                    return null;
+                }
+            }
+        });
+        
+        if (removed[0] != null) {
+            expirations.cancel(id);
+            String owner = getOwner(removed[0]);
+            if (owner != null) {
+                unindex(owner, id);
+            }
+        }
+    }
+    
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        for (QueryEntry entry : queries.values()) {
+            entry.state.set(State.CLOSED);
+        }
+        queries.clear();
+        userQueries.clear();
+        expirations.clear();
     }
     
     /**
-     * "Locks" {@code id}. This is really just a marker to indicate whether or not {@code id} is locked or not. That is, if {@code id} is not locked, this
-     * method will return {@code true}. If {@code id} is already locked, then this method will return {@code false}.
+     * "Locks" {@code id} so that the query cannot be used concurrently. If {@code id} is not locked, this method locks it for the calling thread and returns
+     * {@code true}. If {@code id} is already locked, then this method will return {@code false}. An id may be locked before a query is cached for it.
      */
     public boolean lock(String id) {
-        // If the return value from putIfAbsent is null, that means there was no previous entry and
-        // therefore the id was not locked, so we can acquire the lock. If there was a previous value
-        // (which should always match our id), then the id was previously locked.
-        String oldValue = locks.putIfAbsent(id, id);
-        return oldValue == null;
+        while (true) {
+            QueryEntry entry = queries.computeIfAbsent(id, key -> new QueryEntry(State.DEFINED));
+            State state = entry.state.get();
+            if (state == State.PAGING) {
+                return false;
+            }
+            if (state == State.CLOSED) {
+                // removed from underneath us, so look up the id again
+                queries.remove(id, entry);
+                continue;
+            }
+            if (entry.state.compareAndSet(state, State.PAGING)) {
+                entry.owner = Thread.currentThread();
+                if (entry.query != null) {
+                    expirations.schedule(id, System.currentTimeMillis());
+                }
+                return true;
+            }
+        }
     }
     
     /**
-     * Unlocks {@code id}, which is assumed to have been previously locked with a call to {@link #lock(String)}.
+     * Unlocks {@code id}, which is assumed to have been previously locked with a call to {@link #lock(String)}. Only the thread that locked {@code id} releases
+     * the lock, so that a call which failed to get the lock does not release it for the call that holds it.
      */
     public void unlock(String id) {
-        locks.remove(id);
+        QueryEntry entry = queries.get(id);
+        if (entry == null || entry.owner != Thread.currentThread()) {
+            return;
+        }
+        queries.compute(id, (key, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            entry.owner = null;
+            if (entry.query == null) {
+                entry.state.set(State.CLOSED);
+                return null;
+            }
+            entry.state.set(State.RUNNING);
+            return entry;
+        });
+        if (entry.query != null) {
+            expirations.schedule(id, System.currentTimeMillis());
+        }
+    }
+    
+    /**
+     * Schedules the query identified by {@code id} to be checked for expiration at {@code deadline}.
+     */
+    public void scheduleExpiration(String id, long deadline) {
+        if (containsKey(id)) {
+            expirations.schedule(id, deadline);
+        }
+    }
+    
+    /**
+     * Gets the ids of the queries that were due to be checked for expiration by {@code now}, mapped to the time they were due. The returned queries are no
+     * longer scheduled, and must be checked and either removed or scheduled again with {@link #scheduleExpiration(String, long)}.
+     */
+    public Map<String,Long> getExpirations(long now) {
+        return expirations.advance(now);
+    }
+    
+    /**
+     * Gets the {@link RunningQuery}s cached for the query owner {@code owner}.
+     */
+    public List<RunningQuery> getUserQueries(String owner) {
+        Set<String> ids = owner == null ? null : userQueries.get(owner);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<RunningQuery> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            RunningQuery query = get(id);
+            if (query != null) {
+                result.add(query);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of queries in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (QueryEntry entry : queries.values()) {
+            if (entry.query != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Retrieve an {@link java.util.Iterator} to iterate over all stored {@link RunningQuery}s stored in the cache.
+     */
+    @Override
+    public Iterator<RunningQuery> iterator() {
+        return Iterators.filter(Iterators.transform(queries.values().iterator(), entry -> entry.query), query -> query != null);
+    }
+    
+    /**
+     * Retrieve a snapshot {@link java.util.Set} of String vs {@link RunningQuery} entries stored in the cache.
+     */
+    public Set<Map.Entry<String,RunningQuery>> entrySet() {
+        Set<Map.Entry<String,RunningQuery>> entries = new HashSet<>();
+        for (Map.Entry<String,QueryEntry> entry : queries.entrySet()) {
+            RunningQuery query = entry.getValue().query;
+            if (query != null) {
+                entries.add(Maps.immutableEntry(entry.getKey(), query));
+            }
+        }
+        return entries;
+    }
+    
+    private void unindex(String owner, String id) {
+        userQueries.computeIfPresent(owner, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+    
+    private static String getOwner(RunningQuery query) {
+        return query.getSettings() == null ? null : query.getSettings().getOwner();
     }
 }
@@ -84,6 +84,16 @@ public class QueryCacheBean {
         return result;
     }
     
+    @RolesAllowed({"Administrator", "JBossAdministrator"})
+    @JmxManaged
+    public String listRunningQueriesForUser(String owner) {
+        StringBuilder buf = new StringBuilder();
+        for (RunningQuery query : cache.getUserQueries(owner)) {
+            buf.append(query).append("\n");
+        }
+        return buf.toString();
+    }
+    
     @RolesAllowed({"Administrator", "JBossAdministrator"})
     @JmxManaged
     public String cancelUserQuery(String id) throws Exception {
@@ -13,11 +13,14 @@ import org.apache.accumulo.core.trace.Span;
 import org.apache.accumulo.core.trace.Trace;
 import org.apache.accumulo.core.trace.thrift.TInfo;
 import org.apache.deltaspike.core.api.exclude.Exclude;
+import org.apache.deltaspike.core.api.jmx.JmxManaged;
+import org.apache.deltaspike.core.api.jmx.MBean;
 import org.apache.log4j.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.security.DeclareRoles;
+import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
 import javax.annotation.security.RunAs;
 import javax.ejb.DependsOn;
@@ -28,6 +31,9 @@ import javax.ejb.Singleton;
 import javax.ejb.Startup;
 import javax.inject.Inject;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RunAs("InternalUser")
 @RolesAllowed({"AuthorizedUser", "AuthorizedQueryServer", "InternalUser", "Administrator"})
@@ -37,11 +43,14 @@ import java.util.Date;
 @DependsOn({"QueryMetricsBean", "AccumuloConnectionFactoryBean"})
 @Lock(LockType.WRITE)
 // by default all methods are blocking
+@MBean
 @Exclude(ifProjectStage = DatawaveEmbeddedProjectStageHolder.DatawaveEmbedded.class)
 public class QueryExpirationBean {
     
     private static final Logger log = Logger.getLogger(QueryExpirationBean.class);
     
+    private static final long QUERY_LOGIC_CHECK_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+    
     @Inject
     private QueryCache cache;
     
@@ -60,6 +69,12 @@ public class QueryExpirationBean {
     
     private boolean clearAll = false;
     
+    private long lastQueryLogicCheck = 0;
+    private final AtomicLong reclaimedQueries = new AtomicLong();
+    private final AtomicLong expirationChecks = new AtomicLong();
+    private volatile long lastExpirationLagMs = 0;
+    private volatile long maxExpirationLagMs = 0;
+    
     @PostConstruct
     public void init() {
         if (log.isDebugEnabled()) {
@@ -83,89 +98,171 @@ public class QueryExpirationBean {
     }
     
     /**
-     * The cache eviction notifications are not working. Using an interceptor is not working either. This method will be invoked every 30 seconds by the timer
-     * service and will evict entries that are idle or expired.
+     * The cache eviction notifications are not working. Using an interceptor is not working either. This method will be invoked every second by the timer
+     * service and will evict the entries whose idle or call time deadline has passed. Only the queries that the {@link QueryCache} holds as due are checked,
+     * and the queries that have not expired are scheduled again at their next deadline. The query logics of queries that are still being created are checked
+     * every 30 seconds.
      */
-    @Schedule(hour = "*", minute = "*", second = "*/30", persistent = false)
+    @Schedule(hour = "*", minute = "*", second = "*", persistent = false)
     public void removeIdleOrExpired() {
-        if (log.isDebugEnabled()) {
-            log.debug("@Schedule - removeIdleOrExpired");
+        if (log.isTraceEnabled()) {
+            log.trace("@Schedule - removeIdleOrExpired");
         }
         long now = System.currentTimeMillis();
         clearQueries(now);
-        qlCache.clearQueryLogics(now, conf.getCallTimeInMS());
+        if (now - lastQueryLogicCheck >= QUERY_LOGIC_CHECK_INTERVAL_MS) {
+            lastQueryLogicCheck = now;
+            qlCache.clearQueryLogics(now, conf.getCallTimeInMS());
+        }
     }
     
     private void clearQueries(long now) {
         int count = 0;
         
-        for (RunningQuery query : cache) {
-            boolean idleTooLong = !clearAll && !query.hasActiveCall() && isIdleTooLong(query, now);
-            boolean nextTooLong = !clearAll && query.hasActiveCall() && isNextTooLong(query, now);
-            if (clearAll || idleTooLong || nextTooLong) {
-                if (query.getSettings().getUncaughtExceptionHandler() == null) {
-                    query.getSettings().setUncaughtExceptionHandler(new QueryUncaughtExceptionHandler());
-                }
-                try {
-                    if (clearAll) {
-                        query.getMetric().setLifecycle(QueryMetric.Lifecycle.SHUTDOWN);
-                        query.getSettings().getUncaughtExceptionHandler()
-                                        .uncaughtException(Thread.currentThread(), new QueryException(DatawaveErrorCode.SERVER_SHUTDOWN));
-                    } else {
-                        if (!query.getMetric().isLifecycleFinal() && !query.isFinished() && idleTooLong) {
-                            query.getMetric().setLifecycle(QueryMetric.Lifecycle.TIMEOUT);
-                        }
-                        if (!query.getMetric().isLifecycleFinal() && !query.isFinished() && nextTooLong) {
-                            query.getMetric().setLifecycle(QueryMetric.Lifecycle.NEXTTIMEOUT);
-                        }
-                        
-                        query.getSettings().getUncaughtExceptionHandler()
-                                        .uncaughtException(Thread.currentThread(), new QueryException(DatawaveErrorCode.QUERY_TIMEOUT));
-                    }
-                } finally {
-                    if (query.getLogic().getCollectQueryMetrics()) {
-                        try {
-                            metrics.updateMetric(query.getMetric());
-                        } catch (Exception e) {
-                            log.error(e.getMessage(), e);
-                        }
-                    }
-                }
-                
-                if (query.hasActiveCall()) {
-                    query.cancel();
-                }
-                try {
-                    query.closeConnection(connectionFactory);
-                } catch (Exception e) {
-                    log.error("Error returning connection to factory", e);
-                }
-                cache.remove(query.getSettings().getId().toString());
+        if (clearAll) {
+            for (RunningQuery query : cache) {
+                evict(query, false, false);
                 count++;
-                if (log.isDebugEnabled()) {
-                    log.debug("Entry evicted, connection returned.");
+            }
+        } else {
+            for (Map.Entry<String,Long> expiration : cache.getExpirations(now).entrySet()) {
+                RunningQuery query = cache.get(expiration.getKey());
+                if (query == null) {
+                    continue;
                 }
+                expirationChecks.incrementAndGet();
                 
-                TInfo traceInfo = query.getTraceInfo();
-                if (traceInfo != null) {
-                    Span span = Trace.trace(traceInfo, "query:expiration");
-                    span.data("expiredAt", new Date().toString());
-                    // Spans aren't recorded if they take no time, so sleep for a
-                    // couple milliseconds just to ensure we get something saved.
-                    try {
-                        Thread.sleep(2);
-                    } catch (InterruptedException e) {
-                        // ignore
+                boolean idleTooLong = !query.hasActiveCall() && isIdleTooLong(query, now);
+                boolean nextTooLong = query.hasActiveCall() && isNextTooLong(query, now);
+                if (idleTooLong || nextTooLong) {
+                    long deadline = idleTooLong ? query.getLastUsed() + conf.getIdleTimeInMS() : query.getTimeOfCurrentCall() + conf.getCallTimeInMS();
+                    long lag = Math.max(0, now - deadline);
+                    evict(query, idleTooLong, nextTooLong);
+                    count++;
+                    
+                    lastExpirationLagMs = lag;
+                    if (lag > maxExpirationLagMs) {
+                        maxExpirationLagMs = lag;
                     }
-                    span.stop();
+                } else {
+                    cache.scheduleExpiration(expiration.getKey(), getDeadline(query, now));
                 }
             }
         }
+        reclaimedQueries.addAndGet(count);
         if (count > 0 && log.isDebugEnabled()) {
             log.debug(count + " entries evicted from query cache.");
         }
     }
     
+    /**
+     * Returns the number of queries evicted for being idle or in a call for too long, or at shutdown.
+     */
+    @PermitAll
+    @JmxManaged
+    public long getReclaimedQueries() {
+        return reclaimedQueries.get();
+    }
+    
+    /**
+     * Returns the number of times a query was due and checked for expiration.
+     */
+    @PermitAll
+    @JmxManaged
+    public long getExpirationChecks() {
+        return expirationChecks.get();
+    }
+    
+    /**
+     * Returns the time between the deadline of the last evicted query and its eviction.
+     */
+    @PermitAll
+    @JmxManaged
+    public long getLastExpirationLagMs() {
+        return lastExpirationLagMs;
+    }
+    
+    /**
+     * Returns the longest time between the deadline of an evicted query and its eviction.
+     */
+    @PermitAll
+    @JmxManaged
+    public long getMaxExpirationLagMs() {
+        return maxExpirationLagMs;
+    }
+    
+    /**
+     * Gets the time at which {@code query} will have been idle or in its current call for too long.
+     */
+    private long getDeadline(RunningQuery query, long currentTime) {
+        if (query.hasActiveCall()) {
+            long timeOfCurrentCall = query.getTimeOfCurrentCall();
+            return (timeOfCurrentCall == 0 ? currentTime : timeOfCurrentCall) + conf.getCallTimeInMS();
+        } else if (cache.getState(query.getSettings().getId().toString()) == QueryCache.State.PAGING) {
+            // locked for a call which has not started yet
+            return currentTime + TimeUnit.SECONDS.toMillis(1);
+        }
+        return query.getLastUsed() + conf.getIdleTimeInMS();
+    }
+    
+    private void evict(RunningQuery query, boolean idleTooLong, boolean nextTooLong) {
+        if (query.getSettings().getUncaughtExceptionHandler() == null) {
+            query.getSettings().setUncaughtExceptionHandler(new QueryUncaughtExceptionHandler());
+        }
+        try {
+            if (clearAll) {
+                query.getMetric().setLifecycle(QueryMetric.Lifecycle.SHUTDOWN);
+                query.getSettings().getUncaughtExceptionHandler()
+                                .uncaughtException(Thread.currentThread(), new QueryException(DatawaveErrorCode.SERVER_SHUTDOWN));
+            } else {
+                if (!query.getMetric().isLifecycleFinal() && !query.isFinished() && idleTooLong) {
+                    query.getMetric().setLifecycle(QueryMetric.Lifecycle.TIMEOUT);
+                }
+                if (!query.getMetric().isLifecycleFinal() && !query.isFinished() && nextTooLong) {
+                    query.getMetric().setLifecycle(QueryMetric.Lifecycle.NEXTTIMEOUT);
+                }
+                
+                query.getSettings().getUncaughtExceptionHandler()
+                                .uncaughtException(Thread.currentThread(), new QueryException(DatawaveErrorCode.QUERY_TIMEOUT));
+            }
+        } finally {
+            if (query.getLogic().getCollectQueryMetrics()) {
+                try {
+                    metrics.updateMetric(query.getMetric());
+                } catch (Exception e) {
+                    log.error(e.getMessage(), e);
+                }
+            }
+        }
+        
+        if (query.hasActiveCall()) {
+            query.cancel();
+        }
+        try {
+            query.closeConnection(connectionFactory);
+        } catch (Exception e) {
+            log.error("Error returning connection to factory", e);
+        }
+        cache.remove(query.getSettings().getId().toString());
+        if (log.isDebugEnabled()) {
+            log.debug("Entry evicted, connection returned.");
+        }
+        
+        TInfo traceInfo = query.getTraceInfo();
+        if (traceInfo != null) {
+            Span span = Trace.trace(traceInfo, "query:expiration");
+            span.data("expiredAt", new Date().toString());
+            // Spans aren't recorded if they take no time, so sleep for a
+            // couple milliseconds just to ensure we get something saved.
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            span.stop();
+        }
+    }
+    
     /**
      * Method to determine if a query has been idle too long based on configured values.
      *
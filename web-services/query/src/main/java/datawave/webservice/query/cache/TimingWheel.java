@@ -0,0 +1,185 @@
+package datawave.webservice.query.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A hierarchical timing wheel that holds one deadline per key. Each level of the wheel has {@code wheelSize} buckets, and a bucket of a level spans
+ * {@code wheelSize} buckets of the level below it, so that scheduling, rescheduling and cancelling a deadline are constant time and advancing the wheel only
+ * visits the buckets whose time has passed. Deadlines beyond the span of the top level are held in its last bucket and placed again when that bucket is
+ * reached.
+ * <p>
+ * Deadlines fire at the first {@link #advance(long)} at or after the deadline, so the resolution of the wheel is the interval at which it is advanced rather
+ * than the tick.
+ *
+ * @param <K>
+ *            the key type
+ */
+public class TimingWheel<K> {
+    
+    private static class Timer<K> {
+        private final K key;
+        private long deadline;
+        private Set<Timer<K>> bucket;
+        
+        private Timer(K key) {
+            this.key = key;
+        }
+    }
+    
+    private final long tickMs;
+    private final int wheelSize;
+    private final Set<Timer<K>>[][] buckets;
+    private final long[] currentSlots;
+    private final Map<K,Timer<K>> timers = new HashMap<>();
+    // timers whose deadline is within the current tick
+    private final Set<Timer<K>> due = new LinkedHashSet<>();
+    
+    /**
+     * @param tickMs
+     *            the time spanned by a bucket of the lowest level
+     * @param wheelSize
+     *            the number of buckets in each level
+     * @param levels
+     *            the number of levels
+     * @param now
+     *            the current time
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int wheelSize, int levels, long now) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel: tickMs=" + tickMs + ", wheelSize=" + wheelSize + ", levels=" + levels);
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.buckets = new Set[levels][wheelSize];
+        this.currentSlots = new long[levels];
+        long slot = now / tickMs;
+        for (int level = 0; level < levels; level++) {
+            currentSlots[level] = slot;
+            slot /= wheelSize;
+        }
+    }
+    
+    /**
+     * Schedules {@code key} to fire at {@code deadline}, replacing any deadline already scheduled for it.
+     */
+    public synchronized void schedule(K key, long deadline) {
+        Timer<K> timer = timers.computeIfAbsent(key, Timer::new);
+        if (timer.bucket != null) {
+            timer.bucket.remove(timer);
+        }
+        timer.deadline = deadline;
+        place(timer);
+    }
+    
+    /**
+     * Cancels the deadline scheduled for {@code key}, if any.
+     */
+    public synchronized void cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer != null && timer.bucket != null) {
+            timer.bucket.remove(timer);
+            timer.bucket = null;
+        }
+    }
+    
+    /**
+     * Cancels all of the scheduled deadlines.
+     */
+    public synchronized void clear() {
+        for (Timer<K> timer : timers.values()) {
+            if (timer.bucket != null) {
+                timer.bucket.remove(timer);
+                timer.bucket = null;
+            }
+        }
+        timers.clear();
+    }
+    
+    /**
+     * Advances the wheel to {@code now}, removing the keys whose deadline has passed.
+     *
+     * @return the keys whose deadline has passed, mapped to their deadline, in no particular order
+     */
+    public synchronized Map<K,Long> advance(long now) {
+        List<Timer<K>> drained = new ArrayList<>(due);
+        due.clear();
+        
+        long target = now / tickMs;
+        for (int level = 0; level < currentSlots.length; level++) {
+            long current = currentSlots[level];
+            if (target <= current) {
+                break;
+            }
+            // a jump of more than a full turn of a level only needs to visit each of its buckets once
+            long end = Math.min(target, current + wheelSize);
+            for (long slot = current + 1; slot <= end; slot++) {
+                Set<Timer<K>> bucket = buckets[level][(int) (slot % wheelSize)];
+                if (bucket != null && !bucket.isEmpty()) {
+                    drained.addAll(bucket);
+                    bucket.clear();
+                }
+            }
+            currentSlots[level] = target;
+            target /= wheelSize;
+        }
+        
+        Map<K,Long> expired = new LinkedHashMap<>();
+        for (Timer<K> timer : drained) {
+            timer.bucket = null;
+            if (timer.deadline <= now) {
+                timers.remove(timer.key);
+                expired.put(timer.key, timer.deadline);
+            } else {
+                place(timer);
+            }
+        }
+        return expired;
+    }
+    
+    /**
+     * Returns the number of scheduled deadlines.
+     */
+    public synchronized int size() {
+        return timers.size();
+    }
+    
+    private void place(Timer<K> timer) {
+        long slot = timer.deadline / tickMs;
+        if (slot <= currentSlots[0]) {
+            add(due, timer);
+            return;
+        }
+        int top = currentSlots.length - 1;
+        for (int level = 0; level <= top; level++) {
+            long offset = slot - currentSlots[level];
+            if (offset < wheelSize || level == top) {
+                if (offset >= wheelSize) {
+                    // beyond the span of the wheel, placed again when the last bucket is reached
+                    slot = currentSlots[level] + wheelSize - 1;
+                }
+                int index = (int) (slot % wheelSize);
+                Set<Timer<K>> bucket = buckets[level][index];
+                if (bucket == null) {
+                    bucket = new HashSet<>();
+                    buckets[level][index] = bucket;
+                }
+                add(bucket, timer);
+                return;
+            }
+            slot /= wheelSize;
+        }
+    }
+    
+    private void add(Set<Timer<K>> bucket, Timer<K> timer) {
+        bucket.add(timer);
+        timer.bucket = bucket;
+    }
+}
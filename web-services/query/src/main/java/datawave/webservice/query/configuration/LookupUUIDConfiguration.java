@@ -19,6 +19,7 @@ public class LookupUUIDConfiguration {
     protected int batchLookupUpperLimit = LookupUUIDConstants.DEFAULT_BATCH_LOOKUP_UPPER_LIMIT;
     protected String beginDate = null;
     protected String columnVisibility;
+    protected String contentLookupLogicName = null;
     
     /**
      * Returns the maximum number of UUIDs allowed for batch lookup. A zero or negative value is interpreted as unlimited. The default value is 100.
@@ -37,6 +38,16 @@ public class LookupUUIDConfiguration {
         return this.columnVisibility;
     }
     
+    /**
+     * Returns the name of the query logic used to look up content by UUID in a single query, or null if content is looked up by running a UUID lookup query
+     * followed by content queries.
+     * 
+     * @return the name of the bulk content lookup query logic, if any
+     */
+    public String getContentLookupLogicName() {
+        return this.contentLookupLogicName;
+    }
+    
     public List<UUIDType> getUuidTypes() {
         return this.uuidTypes;
     }
@@ -59,6 +70,10 @@ public class LookupUUIDConfiguration {
         this.columnVisibility = columnVisibility;
     }
     
+    public void setContentLookupLogicName(String contentLookupLogicName) {
+        this.contentLookupLogicName = contentLookupLogicName;
+    }
+    
     public void setUuidTypes(List<UUIDType> uuidTypes) {
         this.uuidTypes = uuidTypes;
     }
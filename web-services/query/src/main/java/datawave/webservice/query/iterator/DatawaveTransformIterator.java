@@ -1,6 +1,11 @@
 package datawave.webservice.query.iterator;
 
+import datawave.webservice.query.logic.EventEncodingTransformer;
 import datawave.webservice.query.logic.Flushable;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.result.EventQueryResponseEncoder;
+
+import java.io.IOException;
 import java.util.Iterator;
 
 import org.apache.commons.collections4.Transformer;
@@ -12,6 +17,7 @@ public class DatawaveTransformIterator<I,O> extends TransformIterator<I,O> {
     
     private Logger log = Logger.getLogger(DatawaveTransformIterator.class);
     private O next = null;
+    private EventQueryResponseEncoder encoder = null;
     
     public DatawaveTransformIterator() {
         super();
@@ -47,7 +53,33 @@ public class DatawaveTransformIterator<I,O> extends TransformIterator<I,O> {
         return o;
     }
     
+    /**
+     * Encode the results with the given encoder instead of transforming them, if the transformer can encode its results. Each result is then an
+     * {@link EventQueryResponseEncoder.EncodedEvent} standing in for the event held by the encoder. This has to be set before the first result is fetched.
+     *
+     * @param encoder
+     *            the encoder of the pages of results
+     * @return true if the results will be encoded
+     */
+    public boolean setEncoder(EventQueryResponseEncoder encoder) {
+        if (next != null) {
+            throw new IllegalStateException("The encoder has to be set before the first result is fetched");
+        }
+        if (getTransformer() instanceof EventEncodingTransformer && ((EventEncodingTransformer<?>) getTransformer()).canEncode()) {
+            this.encoder = encoder;
+            return true;
+        }
+        return false;
+    }
+    
+    public EventQueryResponseEncoder getEncoder() {
+        return encoder;
+    }
+    
     private O getNext() {
+        if (encoder != null) {
+            return getNextEncoded();
+        }
         
         boolean done = false;
         O o = null;
@@ -73,4 +105,37 @@ public class DatawaveTransformIterator<I,O> extends TransformIterator<I,O> {
         }
         return o;
     }
+    
+    @SuppressWarnings("unchecked")
+    private O getNextEncoded() {
+        EventEncodingTransformer<I> transformer = (EventEncodingTransformer<I>) getTransformer();
+        try {
+            while (getIterator().hasNext()) {
+                if (transformer.encode(getIterator().next(), encoder)) {
+                    return (O) encoder.getLastEvent();
+                }
+            }
+            // the results cached by the transformer are built, then encoded
+            if (getTransformer() instanceof Flushable) {
+                while (true) {
+                    try {
+                        Object o = ((Flushable<?>) getTransformer()).flush();
+                        if (o == null) {
+                            break;
+                        }
+                        if (!(o instanceof DefaultEvent)) {
+                            throw new IllegalStateException("Only a " + DefaultEvent.class.getSimpleName() + " can be encoded, not a " + o.getClass());
+                        }
+                        encoder.addEvent((DefaultEvent) o);
+                        return (O) encoder.getLastEvent();
+                    } catch (EmptyObjectException e) {
+                        // not yet done, so continue flushing
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to encode the next result", e);
+        }
+        return null;
+    }
 }
@@ -33,6 +33,8 @@ public abstract class BaseQueryLogic<T> implements QueryLogic<T> {
     protected Iterator<T> iterator = (Iterator<T>) Collections.emptyList().iterator();
     private int maxPageSize = 0;
     private long pageByteTrigger = 0;
+    private long pageByteTarget = 0;
+    private long pageLatencyTarget = 0;
     private boolean collectQueryMetrics = true;
     private String _connPoolName;
     protected Principal principal;
@@ -67,6 +69,8 @@ public abstract class BaseQueryLogic<T> implements QueryLogic<T> {
         this.iterator = other.iterator;
         setMaxPageSize(other.getMaxPageSize());
         setPageByteTrigger(other.getPageByteTrigger());
+        setPageByteTarget(other.getPageByteTarget());
+        setPageLatencyTarget(other.getPageLatencyTarget());
         setCollectQueryMetrics(other.getCollectQueryMetrics());
         setConnPoolName(other.getConnPoolName());
         setPrincipal(other.getPrincipal());
@@ -175,6 +179,26 @@ public abstract class BaseQueryLogic<T> implements QueryLogic<T> {
         this.pageByteTrigger = pageByteTrigger;
     }
     
+    @Override
+    public long getPageByteTarget() {
+        return pageByteTarget;
+    }
+    
+    @Override
+    public void setPageByteTarget(long pageByteTarget) {
+        this.pageByteTarget = pageByteTarget;
+    }
+    
+    @Override
+    public long getPageLatencyTarget() {
+        return pageLatencyTarget;
+    }
+    
+    @Override
+    public void setPageLatencyTarget(long pageLatencyTarget) {
+        this.pageLatencyTarget = pageLatencyTarget;
+    }
+    
     @Override
     public int getBaseIteratorPriority() {
         return getConfig().getBaseIteratorPriority();
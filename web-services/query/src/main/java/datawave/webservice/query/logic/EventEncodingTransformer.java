@@ -0,0 +1,28 @@
+package datawave.webservice.query.logic;
+
+import java.io.IOException;
+
+import datawave.webservice.result.EventQueryResponseEncoder;
+
+public interface EventEncodingTransformer<I> {
+    
+    /**
+     * The encode method adds the event that transform(Object) would return for the input to a page being encoded, without building the event. Results that are
+     * dropped by transform(Object), by throwing an EmptyObjectException, are not encoded.
+     *
+     * @param input
+     *            the object to be transformed, should be left unchanged
+     * @param encoder
+     *            the encoder of the page
+     * @return true if an event was encoded, false if the input was dropped
+     * @throws IOException
+     *             if the event cannot be encoded
+     */
+    boolean encode(I input, EventQueryResponseEncoder encoder) throws IOException;
+    
+    /**
+     * @return true if the results can be encoded, false if the response has to be created from the transformed events
+     */
+    boolean canEncode();
+    
+}
@@ -42,6 +42,13 @@ public interface QueryLogic<T> extends Iterable<T>, Cloneable, ParameterValidato
     String getPlan(Connector connection, Query settings, Set<Authorizations> runtimeQueryAuthorizations, boolean expandFields, boolean expandValues)
                     throws Exception;
     
+    /**
+     * @return the estimated cost of the query last planned or initialized by this logic, or null if the logic does not estimate costs
+     */
+    default Long getEstimatedQueryCost() {
+        return null;
+    }
+    
     /**
      * Implementations create a configuration using the connection, settings, and runtimeQueryAuthorizations.
      * 
@@ -141,6 +148,18 @@ public interface QueryLogic<T> extends Iterable<T>, Cloneable, ParameterValidato
      */
     long getPageByteTrigger();
     
+    /**
+     * @return the number of bytes that the page size of a query is adapted towards from the size of the results of its previous pages, or 0 to not adapt the
+     *         page size to the size of the results
+     */
+    long getPageByteTarget();
+    
+    /**
+     * @return the time in milliseconds that the page size of a query is adapted towards from the time taken by the results of its previous pages, or 0 to not
+     *         adapt the page size to the time taken by the results
+     */
+    long getPageLatencyTarget();
+    
     /**
      * Returns the base iterator priority.
      * 
@@ -185,6 +204,18 @@ public interface QueryLogic<T> extends Iterable<T>, Cloneable, ParameterValidato
      */
     void setPageByteTrigger(long pageByteTrigger);
     
+    /**
+     * @param pageByteTarget
+     *            the number of bytes that the page size of a query is adapted towards, or 0 to not adapt the page size to the size of the results
+     */
+    void setPageByteTarget(long pageByteTarget);
+    
+    /**
+     * @param pageLatencyTarget
+     *            the time in milliseconds that the page size of a query is adapted towards, or 0 to not adapt the page size to the time taken by the results
+     */
+    void setPageLatencyTarget(long pageLatencyTarget);
+    
     /**
      * Sets the base iterator priority
      * 
@@ -0,0 +1,102 @@
+package datawave.webservice.query.runner;
+
+import java.io.Serializable;
+
+/**
+ * Chooses the number of results to return in the next page of a query from the size of and time taken by the results of its previous pages. The page size is
+ * adapted towards a target number of bytes and a target time per page, so that pages of large documents do not hold too much of the web server heap, and
+ * pages of small, quickly found documents fill up to the requested page size. The page size shrinks as soon as the results get larger or slower, and grows by
+ * at most a factor of {@value #MAX_GROWTH} per page.
+ */
+public class AdaptivePageSizer implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // the weight of the latest page in the running averages
+    private static final double WEIGHT = 0.5;
+    private static final int MAX_GROWTH = 2;
+    
+    private final long byteTarget;
+    private final long latencyTarget;
+    private double bytesPerResult = -1;
+    private double millisPerResult = -1;
+    private int pageSize = -1;
+    
+    /**
+     * @param byteTarget
+     *            the number of bytes per page, or 0 to not adapt the page size to the size of the results
+     * @param latencyTarget
+     *            the time in milliseconds per page, or 0 to not adapt the page size to the time taken by the results
+     */
+    public AdaptivePageSizer(long byteTarget, long latencyTarget) {
+        this.byteTarget = byteTarget;
+        this.latencyTarget = latencyTarget;
+    }
+    
+    /**
+     * @return true if the size of the results is needed to adapt the page size
+     */
+    public boolean isSizingResults() {
+        return byteTarget > 0;
+    }
+    
+    /**
+     * Chooses the page size of the next page.
+     *
+     * @param maxPageSize
+     *            the largest page size allowed for the query
+     * @return the page size of the next page, between 1 and {@code maxPageSize}
+     */
+    public int nextPageSize(int maxPageSize) {
+        long size = maxPageSize;
+        if (byteTarget > 0 && bytesPerResult > 0) {
+            size = Math.min(size, (long) (byteTarget / bytesPerResult));
+        }
+        if (latencyTarget > 0 && millisPerResult > 0) {
+            size = Math.min(size, (long) (latencyTarget / millisPerResult));
+        }
+        if (pageSize > 0) {
+            size = Math.min(size, (long) pageSize * MAX_GROWTH);
+        }
+        pageSize = (int) Math.max(1, size);
+        return pageSize;
+    }
+    
+    /**
+     * Records the results of a page.
+     *
+     * @param results
+     *            the number of results in the page
+     * @param bytes
+     *            the size of the results in bytes
+     * @param millis
+     *            the time taken to get the results
+     */
+    public void pageReturned(int results, long bytes, long millis) {
+        if (results <= 0) {
+            return;
+        }
+        if (byteTarget > 0) {
+            bytesPerResult = average(bytesPerResult, (double) bytes / results);
+        }
+        if (latencyTarget > 0) {
+            millisPerResult = average(millisPerResult, (double) millis / results);
+        }
+    }
+    
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    public double getBytesPerResult() {
+        return bytesPerResult;
+    }
+    
+    public double getMillisPerResult() {
+        return millisPerResult;
+    }
+    
+    private static double average(double average, double sample) {
+        return average < 0 ? sample : WEIGHT * sample + (1 - WEIGHT) * average;
+    }
+}
@@ -29,9 +29,11 @@ import datawave.webservice.common.audit.AuditParameters;
 import datawave.webservice.common.audit.Auditor.AuditType;
 import datawave.webservice.common.audit.PrivateAuditConstants;
 import datawave.webservice.common.connection.AccumuloConnectionFactory;
+import datawave.webservice.common.connection.ConnectionAdmissionException;
 import datawave.webservice.common.exception.BadRequestException;
 import datawave.webservice.common.exception.DatawaveWebApplicationException;
 import datawave.webservice.common.exception.NoResultsException;
+import datawave.webservice.common.exception.ServiceUnavailableException;
 import datawave.webservice.query.Query;
 import datawave.webservice.query.QueryImpl;
 import datawave.webservice.query.QueryImpl.Parameter;
@@ -75,6 +77,8 @@ import datawave.webservice.query.util.QueryUtil;
 import datawave.webservice.query.util.UIDQueryCriteria;
 import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.BaseResponse;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.EventQueryResponseEncoder;
 import datawave.webservice.result.GenericResponse;
 import datawave.webservice.result.QueryImplListResponse;
 import datawave.webservice.result.QueryLogicResponse;
@@ -137,6 +141,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import javax.xml.bind.JAXBContext;
@@ -765,6 +770,8 @@ public class QueryExecutorBean implements QueryExecutor {
             } else if (t instanceof WebApplicationException) {
                 log.error(t.getMessage(), t);
                 throw ((WebApplicationException) t);
+            } else if (t instanceof ConnectionAdmissionException) {
+                throw connectionNotAdmitted((ConnectionAdmissionException) t, response);
             } else if (t instanceof InterruptedException) {
                 if (rq != null) {
                     rq.getMetric().setLifecycle(QueryMetric.Lifecycle.CANCELLED);
@@ -877,6 +884,11 @@ public class QueryExecutorBean implements QueryExecutor {
             Set<Authorizations> calculatedAuths = AuthorizationsUtil.getDowngradedAuthorizations(qp.getAuths(), qd.p);
             String plan = qd.logic.getPlan(connection, q, calculatedAuths, expandFields, expandValues);
             response.setResult(plan);
+            // the estimate is computed from stats the caller may not be able to see, so it is only logged
+            Long estimatedCost = qd.logic.getEstimatedQueryCost();
+            if (null != estimatedCost && log.isDebugEnabled()) {
+                log.debug("Estimated cost of query " + q.getId() + " is " + estimatedCost);
+            }
             
             return response;
         } catch (Throwable t) {
@@ -1240,6 +1252,8 @@ public class QueryExecutorBean implements QueryExecutor {
             response.addException(qe.getBottomQueryException());
             int statusCode = qe.getBottomQueryException().getStatusCode();
             throw new DatawaveWebApplicationException(qe, response, statusCode);
+        } catch (ConnectionAdmissionException e) {
+            throw connectionNotAdmitted(e, response);
         } catch (Exception e) {
             log.error("Exception caught on resetting query", e);
             try {
@@ -1352,7 +1366,9 @@ public class QueryExecutorBean implements QueryExecutor {
         
         long pageNum = query.getLastPageNumber();
         
-        BaseQueryResponse response = query.getLogic().getTransformer(query.getSettings()).createResponse(resultList);
+        // encoded events are written by the encoder, so the response only holds the rest of the page
+        ResultsPage responsePage = (query.getEventEncoder() == null) ? resultList : new ResultsPage(new ArrayList<>(), resultList.getStatus());
+        BaseQueryResponse response = query.getLogic().getTransformer(query.getSettings()).createResponse(responsePage);
         if (!resultList.getResults().isEmpty()) {
             response.setHasResults(true);
         } else {
@@ -3125,6 +3141,18 @@ public class QueryExecutorBean implements QueryExecutor {
         return queryCache;
     }
     
+    /**
+     * Builds the 503 response for a query whose connection request was not admitted, with a Retry-After hint so that the caller backs off rather than queueing
+     * another request thread behind the exhausted pool.
+     */
+    private ServiceUnavailableException connectionNotAdmitted(ConnectionAdmissionException e, BaseResponse response) {
+        log.warn(e.getMessage());
+        QueryException qe = new QueryException(e.getMessage(), e);
+        qe.setErrorCode(Response.Status.SERVICE_UNAVAILABLE.getStatusCode() + "-1");
+        response.addException(qe);
+        return new ServiceUnavailableException(qe, response, e.getRetryAfterSeconds());
+    }
+    
     private void addQueryToTrackingMap(Map<String,String> trackingMap, Query q) {
         
         if (trackingMap == null || q == null) {
@@ -3140,6 +3168,9 @@ public class QueryExecutorBean implements QueryExecutor {
         if (q.getId() != null) {
             trackingMap.put("query.query", q.getQuery());
         }
+        if (q.getQueryLogicName() != null) {
+            trackingMap.put("query.logic", q.getQueryLogicName());
+        }
     }
     
     /**
@@ -3448,6 +3479,15 @@ public class QueryExecutorBean implements QueryExecutor {
                 try (JsonGenerator jsonGenerator = jsonSerializer.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
                     jsonGenerator.enable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
                     
+                    // protobuf pages of events are encoded as the results are fetched, rather than building the events and then serializing them
+                    EventQueryResponseEncoder encoder = null;
+                    if (serializationType == SerializationType.PB && DefaultEventQueryResponse.class.equals(queryResponseClass)) {
+                        encoder = new EventQueryResponseEncoder(EventQueryResponseEncoder.Format.PROTOBUF);
+                        if (!rq.setEventEncoder(encoder)) {
+                            encoder = null;
+                        }
+                    }
+                    
                     boolean sentResults = false;
                     boolean done = false;
                     Span span = null;
@@ -3480,6 +3520,10 @@ public class QueryExecutorBean implements QueryExecutor {
                                     jsonSerializer.writeValue(countingStream, page);
                                     break;
                                 case PB:
+                                    if (null != encoder) {
+                                        encoder.writePage((DefaultEventQueryResponse) page, (int) pm.getPagesize(), countingStream);
+                                        break;
+                                    }
                                     @SuppressWarnings("unchecked")
                                     Message<Object> pb = (Message<Object>) page;
                                     Schema<Object> pbSchema = pb.cachedSchema();
@@ -22,14 +22,17 @@ import datawave.webservice.query.cache.ResultsPage;
 import datawave.webservice.query.configuration.GenericQueryConfiguration;
 import datawave.webservice.query.data.ObjectSizeOf;
 import datawave.webservice.query.exception.QueryException;
+import datawave.webservice.query.iterator.DatawaveTransformIterator;
 import datawave.webservice.query.logic.QueryLogic;
 import datawave.webservice.query.logic.WritesQueryMetrics;
 import datawave.webservice.query.logic.WritesResultCardinalities;
 import datawave.webservice.query.metric.BaseQueryMetric;
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
 import datawave.webservice.query.metric.BaseQueryMetric.Prediction;
 import datawave.webservice.query.metric.QueryMetric;
 import datawave.webservice.query.metric.QueryMetricsBean;
 import datawave.webservice.query.util.QueryUncaughtExceptionHandler;
+import datawave.webservice.result.EventQueryResponseEncoder;
 
 import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.security.Authorizations;
@@ -65,6 +68,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     private ExecutorService executor = null;
     private volatile Future<Object> future = null;
     private QueryPredictor predictor = null;
+    private AdaptivePageSizer pageSizer = null;
     
     public RunningQuery() {
         super(new QueryMetricFactoryImpl());
@@ -191,11 +195,27 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         List<Object> resultList = new ArrayList<>();
         boolean hitPageByteTrigger = false;
         boolean hitPageTimeTrigger = false;
+        boolean hitPageSizeLimit = false;
         try {
             addNDC();
             int currentPageCount = 0;
             long currentPageBytes = 0;
             
+            // the page size chosen from the size of and time taken by the results of the previous pages
+            int pageSizeLimit = -1;
+            AdaptivePageSizer sizer = getPageSizer();
+            if (sizer != null) {
+                int maxPageSize = this.settings.getPagesize();
+                if (this.logic.getMaxPageSize() > 0) {
+                    maxPageSize = Math.min(maxPageSize, this.logic.getMaxPageSize());
+                }
+                pageSizeLimit = sizer.nextPageSize(maxPageSize);
+                if (pageSizeLimit >= maxPageSize) {
+                    pageSizeLimit = -1;
+                }
+            }
+            boolean sizingResults = this.logic.getPageByteTrigger() > 0 || (sizer != null && sizer.isSizingResults());
+            
             // test for any exceptions prior to loop as hasNext() would likely be false;
             testForUncaughtException(resultList.size());
             
@@ -216,6 +236,12 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
                     log.info("Query logic max page size has been reached, aborting query.next call");
                     break;
                 }
+                // if the page size was adapted to the previous pages and we have reached it, then break out
+                if (pageSizeLimit > 0 && currentPageCount >= pageSizeLimit) {
+                    log.info("Adaptive page size of " + pageSizeLimit + " has been reached, aborting query.next call");
+                    hitPageSizeLimit = true;
+                    break;
+                }
                 // if the logic had a page byte trigger and we have readed that, then break out
                 if (this.logic.getPageByteTrigger() > 0 && currentPageBytes >= this.logic.getPageByteTrigger()) {
                     log.info("Query logic max page byte trigger has been reached, aborting query.next call");
@@ -288,7 +314,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
                         break;
                     }
                     resultList.add(o);
-                    if (this.logic.getPageByteTrigger() > 0) {
+                    if (sizingResults) {
                         currentPageBytes += ObjectSizeOf.Sizer.getObjectSize(o);
                     }
                     currentPageCount++;
@@ -303,7 +329,15 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             
             // Update the metric
             long now = System.currentTimeMillis();
-            this.getMetric().addPageTime(currentPageCount, now - pageStartTime, pageStartTime, now);
+            PageMetric pageMetric = new PageMetric(currentPageCount, now - pageStartTime, pageStartTime, now);
+            if (sizer != null) {
+                sizer.pageReturned(currentPageCount, currentPageBytes, now - pageStartTime);
+                pageMetric.setPageSizeLimit(sizer.getPageSize());
+                if (sizer.isSizingResults()) {
+                    pageMetric.setPageBytes(currentPageBytes);
+                }
+            }
+            this.getMetric().addPageMetric(pageMetric);
             this.lastPageNumber++;
             if (!resultList.isEmpty()) {
                 this.getMetric().setLifecycle(QueryMetric.Lifecycle.RESULTS);
@@ -328,10 +362,21 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         if (resultList.isEmpty()) {
             return new ResultsPage();
         } else {
-            return new ResultsPage(resultList, ((hitPageByteTrigger || hitPageTimeTrigger) ? ResultsPage.Status.PARTIAL : ResultsPage.Status.COMPLETE));
+            return new ResultsPage(resultList, ((hitPageByteTrigger || hitPageTimeTrigger || hitPageSizeLimit) ? ResultsPage.Status.PARTIAL
+                            : ResultsPage.Status.COMPLETE));
         }
     }
     
+    /**
+     * Gets the page sizer of this query, if the query logic has a byte or latency target for its pages.
+     */
+    private AdaptivePageSizer getPageSizer() {
+        if (pageSizer == null && (this.logic.getPageByteTarget() > 0 || this.logic.getPageLatencyTarget() > 0)) {
+            pageSizer = new AdaptivePageSizer(this.logic.getPageByteTarget(), this.logic.getPageLatencyTarget());
+        }
+        return pageSizer;
+    }
+    
     public void cancel() {
         this.canceled = true;
         // save off the future as it could be removed at any time
@@ -373,6 +418,25 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         return iter;
     }
     
+    /**
+     * Encode the results of the following pages with the given encoder instead of transforming them, if the transformer of the query logic can encode its
+     * results. The results of a page are then stand-ins for the events held by the encoder. This has to be set before the first page is fetched.
+     *
+     * @param encoder
+     *            the encoder of the pages
+     * @return true if the results will be encoded
+     */
+    public boolean setEventEncoder(EventQueryResponseEncoder encoder) {
+        return (iter instanceof DatawaveTransformIterator) && ((DatawaveTransformIterator<?,?>) iter).setEncoder(encoder);
+    }
+    
+    /**
+     * @return the encoder of the results, or null if they are transformed
+     */
+    public EventQueryResponseEncoder getEventEncoder() {
+        return (iter instanceof DatawaveTransformIterator) ? ((DatawaveTransformIterator<?,?>) iter).getEncoder() : null;
+    }
+    
     protected Set<Authorizations> getCalculatedAuths() {
         return calculatedAuths;
     }
@@ -91,6 +91,8 @@ public class LookupUUIDUtil {
     
     private final QueryExecutor queryExecutor;
     
+    private String contentLookupLogicName = null;
+    
     private Map<String,UUIDType> uuidTypes = Collections.synchronizedMap(new HashMap<>());
     
     MultivaluedMap<String,String> defaultOptionalParams;
@@ -151,6 +153,9 @@ public class LookupUUIDUtil {
         }
         
         this.defaultOptionalParams = this.lookupUUIDConfiguration.optionalParamsToMap();
+        
+        // Assign the query logic, if any, used to look up content by UUID in a single query
+        this.contentLookupLogicName = this.lookupUUIDConfiguration.getContentLookupLogicName();
     }
     
     /*
@@ -442,7 +447,8 @@ public class LookupUUIDUtil {
             // be evaluated since the getLogicName() expression would always evaluate as false for an instance
             // of AllEventMockResponse.
             //
-            if (CONTENT_QUERY.equals(nextQueryResponse.getLogicName()) && !(nextQueryResponse instanceof AllEventMockResponse)) {
+            if ((CONTENT_QUERY.equals(nextQueryResponse.getLogicName()) || ((null != this.contentLookupLogicName) && this.contentLookupLogicName
+                            .equals(nextQueryResponse.getLogicName()))) && !(nextQueryResponse instanceof AllEventMockResponse)) {
                 contentQueryResponse = (T) nextQueryResponse;
             }
             // Handle the case where /next has returned results of a UUID lookup, and a secondary content
@@ -483,6 +489,10 @@ public class LookupUUIDUtil {
             final String queryId = unvalidatedCriteria.getRawQueryString();
             nextQueryResponse = this.queryExecutor.next(queryId);
         }
+        // Look up the content of all UUIDs with a single query, if configured to do so
+        else if (null != this.contentLookupLogicName) {
+            return this.createContentLookupQueryAndNext(unvalidatedCriteria);
+        }
         // Otherwise, perform the initial lookup of UUID-queried events
         else {
             // Set the content lookup flag
@@ -498,6 +508,59 @@ public class LookupUUIDUtil {
         return contentQueryResponse;
     }
     
+    /*
+     * Create a single query that resolves the UUIDs and returns their content, and return its "first" available set of results. Unlike the UUID lookup
+     * query, the criteria is not flagged for content lookup, since the subsequent next(queryId) calls already return content.
+     * 
+     * @param unvalidatedCriteria UUID lookup criteria that has presumably not been validated
+     * 
+     * @return a BaseQueryResponse if the criteria contains a null HttpHeaders value, or StreamingOutput if a valid, non-null HttpHeaders value is provided
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T createContentLookupQueryAndNext(final AbstractUUIDLookupCriteria unvalidatedCriteria) {
+        // Find out who/what called this method
+        final Principal principal = this.ctx.getCallerPrincipal();
+        String sid = principal.getName();
+        
+        // Validate the lookup criteria and get its HTTP headers, which may be null
+        final AbstractUUIDLookupCriteria validatedCriteria = this.validateLookupCriteria(unvalidatedCriteria, true);
+        final HttpHeaders headers = validatedCriteria.getStreamingOutputHeaders();
+        
+        MultivaluedMap<String,String> queryParameters = new MultivaluedMapImpl<>();
+        queryParameters.putAll(this.defaultOptionalParams);
+        queryParameters.putAll(validatedCriteria.getQueryParameters());
+        queryParameters.putSingle(QueryParameters.QUERY_LOGIC_NAME, this.contentLookupLogicName);
+        queryParameters.putSingle(QueryParameters.QUERY_STRING, validatedCriteria.getRawQueryString());
+        
+        String userAuths;
+        if (queryParameters.containsKey(QueryParameters.QUERY_AUTHORIZATIONS)) {
+            userAuths = AuthorizationsUtil.downgradeUserAuths(principal, queryParameters.getFirst(QueryParameters.QUERY_AUTHORIZATIONS));
+        } else {
+            userAuths = AuthorizationsUtil.buildUserAuthorizationString(principal);
+        }
+        queryParameters.putSingle(QueryParameters.QUERY_AUTHORIZATIONS, userAuths);
+        queryParameters.putSingle(QueryParameters.QUERY_NAME, sid + DASH + UUID.randomUUID());
+        
+        final Date endDate = DateUtils.addDays(new Date(), 2);
+        final Date expireDate = new Date(endDate.getTime() + 1000 * 60 * 60);
+        try {
+            queryParameters.putSingle(QueryParameters.QUERY_BEGIN, QueryParametersImpl.formatDate(this.beginAsDate));
+            queryParameters.putSingle(QueryParameters.QUERY_END, QueryParametersImpl.formatDate(endDate));
+            queryParameters.putSingle(QueryParameters.QUERY_EXPIRATION, QueryParametersImpl.formatDate(expireDate));
+        } catch (ParseException e) {
+            throw new RuntimeException("Unable to format new query dates: " + this.beginAsDate + ", " + endDate + ", " + expireDate);
+        }
+        queryParameters.putSingle(QueryParameters.QUERY_PERSISTENCE, QueryPersistence.TRANSIENT.name());
+        queryParameters.putSingle(QueryParameters.QUERY_TRACE, "false");
+        
+        // Stream all of the content, or return the first page and leave the query open for next(queryId) calls
+        if (null != headers) {
+            return (T) this.queryExecutor.execute(this.contentLookupLogicName, queryParameters, headers);
+        } else {
+            return (T) this.queryExecutor.createQueryAndNext(this.contentLookupLogicName, queryParameters);
+        }
+    }
+    
     /*
      * Lookup content based on the events, if any, contained in the specified BaseQueryResponse
      * 
@@ -0,0 +1,193 @@
+package datawave.webservice.query.cache;
+
+import datawave.microservice.querymetric.QueryMetricFactoryImpl;
+import datawave.webservice.common.connection.AccumuloConnectionFactory;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.cache.QueryCache.State;
+import datawave.webservice.query.runner.RunningQuery;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QueryCacheTest {
+    
+    private QueryCache cache;
+    
+    @Before
+    public void setup() {
+        cache = new QueryCache();
+        cache.init();
+    }
+    
+    private RunningQuery createRunningQuery(String owner) throws Exception {
+        QueryImpl q = new QueryImpl();
+        q.setQueryLogicName("EventQuery");
+        q.setBeginDate(new Date());
+        q.setEndDate(new Date());
+        q.setExpirationDate(new Date());
+        q.setId(UUID.randomUUID());
+        q.setPagesize(10);
+        q.setQuery("FOO == BAR");
+        q.setQueryName("test query");
+        q.setQueryAuthorizations("ALL");
+        q.setUserDN(owner);
+        q.setOwner(owner);
+        
+        return new RunningQuery(null, AccumuloConnectionFactory.Priority.HIGH, new TestQueryLogic(), q, null, null, new QueryMetricFactoryImpl());
+    }
+    
+    @Test
+    public void testPutGetRemove() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        
+        assertEquals(State.CLOSED, cache.getState(id));
+        cache.put(id, query);
+        assertTrue(cache.containsKey(id));
+        assertSame(query, cache.get(id));
+        assertEquals(State.RUNNING, cache.getState(id));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.entrySet().size());
+        
+        cache.remove(id);
+        assertFalse(cache.containsKey(id));
+        assertNull(cache.get(id));
+        assertEquals(State.CLOSED, cache.getState(id));
+        assertEquals(0, cache.size());
+        assertFalse(cache.iterator().hasNext());
+    }
+    
+    @Test
+    public void testLock() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        cache.put(id, query);
+        
+        assertTrue(cache.lock(id));
+        assertEquals(State.PAGING, cache.getState(id));
+        assertFalse(cache.lock(id));
+        
+        cache.unlock(id);
+        assertEquals(State.RUNNING, cache.getState(id));
+        assertTrue(cache.lock(id));
+        cache.unlock(id);
+    }
+    
+    @Test
+    public void testLockBeforePut() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        
+        assertTrue(cache.lock(id));
+        assertEquals(State.PAGING, cache.getState(id));
+        assertFalse(cache.containsKey(id));
+        assertFalse(cache.lock(id));
+        
+        cache.put(id, query);
+        assertEquals(State.PAGING, cache.getState(id));
+        cache.unlock(id);
+        assertEquals(State.RUNNING, cache.getState(id));
+        
+        // a lock without a query leaves nothing behind
+        assertTrue(cache.lock("unknown"));
+        cache.unlock("unknown");
+        assertEquals(State.CLOSED, cache.getState("unknown"));
+    }
+    
+    @Test
+    public void testRemoveWhileLocked() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        cache.put(id, query);
+        
+        assertTrue(cache.lock(id));
+        cache.remove(id);
+        assertNull(cache.get(id));
+        assertEquals(State.PAGING, cache.getState(id));
+        
+        cache.unlock(id);
+        assertEquals(State.CLOSED, cache.getState(id));
+        assertTrue(cache.lock(id));
+        cache.unlock(id);
+    }
+    
+    @Test
+    public void testUnlockByOtherThread() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        cache.put(id, query);
+        assertTrue(cache.lock(id));
+        
+        // a call which failed to get the lock does not release it
+        AtomicBoolean locked = new AtomicBoolean(true);
+        Thread thread = new Thread(() -> {
+            locked.set(cache.lock(id));
+            cache.unlock(id);
+        });
+        thread.start();
+        thread.join();
+        
+        assertFalse(locked.get());
+        assertEquals(State.PAGING, cache.getState(id));
+        cache.unlock(id);
+        assertEquals(State.RUNNING, cache.getState(id));
+    }
+    
+    @Test
+    public void testExpirations() throws Exception {
+        RunningQuery query = createRunningQuery("user1");
+        String id = query.getSettings().getId().toString();
+        long now = System.currentTimeMillis();
+        cache.put(id, query);
+        
+        // new queries are due to be checked right away
+        assertEquals(Collections.singleton(id), cache.getExpirations(now + 1).keySet());
+        assertTrue(cache.getExpirations(now + 1).isEmpty());
+        
+        cache.scheduleExpiration(id, now + 5000);
+        assertTrue(cache.getExpirations(now + 1000).isEmpty());
+        assertEquals(Collections.singleton(id), cache.getExpirations(now + 5000).keySet());
+        
+        // locking and unlocking the query makes it due again
+        cache.scheduleExpiration(id, now + 5000);
+        assertTrue(cache.lock(id));
+        cache.unlock(id);
+        assertEquals(Collections.singleton(id), cache.getExpirations(System.currentTimeMillis() + 1).keySet());
+        
+        cache.scheduleExpiration(id, now + 5000);
+        cache.remove(id);
+        assertTrue(cache.getExpirations(now + 5000).isEmpty());
+    }
+    
+    @Test
+    public void testUserQueries() throws Exception {
+        RunningQuery query1 = createRunningQuery("user1");
+        RunningQuery query2 = createRunningQuery("user1");
+        RunningQuery query3 = createRunningQuery("user2");
+        String id1 = query1.getSettings().getId().toString();
+        cache.put(id1, query1);
+        cache.put(query2.getSettings().getId().toString(), query2);
+        cache.put(query3.getSettings().getId().toString(), query3);
+        
+        assertEquals(2, cache.getUserQueries("user1").size());
+        assertEquals(Collections.singletonList(query3), cache.getUserQueries("user2"));
+        assertTrue(cache.getUserQueries("user3").isEmpty());
+        
+        cache.remove(id1);
+        assertEquals(Collections.singletonList(query2), cache.getUserQueries("user1"));
+        
+        cache.clear();
+        assertTrue(cache.getUserQueries("user1").isEmpty());
+        assertEquals(0, cache.size());
+    }
+}
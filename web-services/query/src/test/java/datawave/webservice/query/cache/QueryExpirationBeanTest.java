@@ -1,7 +1,5 @@
 package datawave.webservice.query.cache;
 
-import com.google.common.cache.Cache;
-
 import datawave.webservice.common.connection.AccumuloConnectionFactory;
 import datawave.webservice.query.QueryImpl;
 import datawave.webservice.query.runner.RunningQuery;
@@ -12,7 +10,6 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
 
 import java.util.Date;
 import java.util.UUID;
@@ -56,12 +53,12 @@ public class QueryExpirationBeanTest {
             queryCache.put(key, runningQuery);
             qlCache.add(key, key, runningQuery.getLogic(), null);
         }
-        int queryCacheSize = Whitebox.getInternalState(queryCache, Cache.class).asMap().size();
+        int queryCacheSize = queryCache.size();
         Assert.assertEquals(5, queryCacheSize);
         Assert.assertEquals(5, qlCache.snapshot().size());
         bean.close();
         qlCache.shutdown();
-        queryCacheSize = Whitebox.getInternalState(queryCache, Cache.class).asMap().size();
+        queryCacheSize = queryCache.size();
         Assert.assertEquals("Query Cache is not empty: " + queryCacheSize, 0, queryCacheSize);
         Assert.assertEquals("Query Logic Cache is not empty: " + qlCache.snapshot().size(), 0, qlCache.snapshot().size());
     }
@@ -0,0 +1,87 @@
+package datawave.webservice.query.cache;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    private static final long START = 1552521600000L;
+
+    @Test
+    public void testDeadlines() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 2, START);
+        wheel.schedule("a", START + 500);
+        wheel.schedule("b", START + 5000);
+        wheel.schedule("c", START + 30000);
+        assertEquals(3, wheel.size());
+
+        assertTrue(wheel.advance(START + 499).isEmpty());
+        assertEquals(Collections.singletonMap("a", START + 500), wheel.advance(START + 500));
+        assertTrue(wheel.advance(START + 4999).isEmpty());
+        assertEquals(Collections.singletonMap("b", START + 5000), wheel.advance(START + 5001));
+        assertTrue(wheel.advance(START + 29999).isEmpty());
+        assertEquals(Collections.singletonMap("c", START + 30000), wheel.advance(START + 30000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testReschedule() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 2, START);
+        wheel.schedule("a", START + 10000);
+        wheel.schedule("b", START + 10000);
+
+        // later, earlier, and cancelled
+        wheel.schedule("a", START + 20000);
+        wheel.schedule("b", START + 2000);
+        wheel.cancel("b");
+        wheel.schedule("c", START + 40000);
+        wheel.schedule("c", START + 3000);
+
+        assertEquals(Collections.singletonMap("c", START + 3000), wheel.advance(START + 15000));
+        assertEquals(Collections.singletonMap("a", START + 20000), wheel.advance(START + 20000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testBeyondSpan() {
+        // the wheel spans 64 seconds
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 2, START);
+        wheel.schedule("a", START + 1000000);
+        for (long now = START; now < START + 1000000; now += 7000) {
+            assertTrue(wheel.advance(now).isEmpty());
+        }
+        assertEquals(Collections.singletonMap("a", START + 1000000), wheel.advance(START + 1000000));
+    }
+
+    @Test
+    public void testRandomDeadlines() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(100, 4, 3, START);
+        Map<Integer,Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            long deadline = START + random.nextInt(100000);
+            wheel.schedule(i, deadline);
+            deadlines.put(i, deadline);
+        }
+
+        long now = START;
+        while (!deadlines.isEmpty()) {
+            now += random.nextInt(2000);
+            for (Map.Entry<Integer,Long> expired : wheel.advance(now).entrySet()) {
+                assertEquals(deadlines.remove(expired.getKey()), expired.getValue());
+                assertTrue(expired.getValue() <= now);
+            }
+            for (Long deadline : deadlines.values()) {
+                assertTrue(deadline > now);
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+}
@@ -23,6 +23,7 @@ public class TestLookupUUIDConfiguration {
         subject.setBeginDate(SimpleDateFormat.getDateInstance().format(new Date()));
         subject.setColumnVisibility("A&B");
         subject.setUuidTypes(Arrays.asList(new UUIDType()));
+        subject.setContentLookupLogicName("UUIDContentQuery");
         
         // Verify results
         assertNotNull("Test subject should not be null", subject);
@@ -30,5 +31,6 @@ public class TestLookupUUIDConfiguration {
         assertNotNull("ColumnVisibility should not be null", subject.getColumnVisibility());
         assertNotNull("UUID types should not be null", subject.getUuidTypes());
         assertEquals("UUID types should include 1 item", 1, subject.getUuidTypes().size());
+        assertEquals("Content lookup logic should be set", "UUIDContentQuery", subject.getContentLookupLogicName());
     }
 }
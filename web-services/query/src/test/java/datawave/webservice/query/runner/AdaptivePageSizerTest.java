@@ -0,0 +1,76 @@
+package datawave.webservice.query.runner;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptivePageSizerTest {
+    
+    @Test
+    public void testFirstPage() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(1000, 0);
+        assertTrue(sizer.isSizingResults());
+        assertEquals(100, sizer.nextPageSize(100));
+    }
+    
+    @Test
+    public void testShrinksToByteTarget() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(1000, 0);
+        assertEquals(100, sizer.nextPageSize(100));
+        
+        // 100 bytes per result
+        sizer.pageReturned(100, 10000, 50);
+        assertEquals(10, sizer.nextPageSize(100));
+        
+        // results too large for the target still return one per page
+        sizer.pageReturned(10, 100000, 50);
+        assertEquals(1, sizer.nextPageSize(100));
+    }
+    
+    @Test
+    public void testGrowsGradually() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(1000, 0);
+        sizer.nextPageSize(100);
+        sizer.pageReturned(10, 10000, 50);
+        assertEquals(1, sizer.nextPageSize(100));
+        
+        // 1 byte per result from here on
+        int pageSize = 1;
+        for (int i = 0; i < 10; i++) {
+            sizer.pageReturned(pageSize, pageSize, 50);
+            int next = sizer.nextPageSize(100);
+            assertTrue(next <= pageSize * 2);
+            pageSize = next;
+        }
+        assertEquals(100, pageSize);
+    }
+    
+    @Test
+    public void testLatencyTarget() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(0, 1000);
+        assertFalse(sizer.isSizingResults());
+        sizer.nextPageSize(1000);
+        
+        // 20ms per result
+        sizer.pageReturned(100, 0, 2000);
+        assertEquals(50, sizer.nextPageSize(1000));
+        assertEquals(20.0, sizer.getMillisPerResult(), 0.0);
+        
+        // empty pages are not recorded
+        sizer.pageReturned(0, 0, 5000);
+        assertEquals(20.0, sizer.getMillisPerResult(), 0.0);
+    }
+    
+    @Test
+    public void testBothTargets() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(1000, 1000);
+        sizer.nextPageSize(1000);
+        // 10 bytes and 20ms per result
+        sizer.pageReturned(100, 1000, 2000);
+        assertEquals(50, sizer.nextPageSize(1000));
+        // the requested page size is never exceeded
+        assertEquals(10, sizer.nextPageSize(10));
+    }
+}
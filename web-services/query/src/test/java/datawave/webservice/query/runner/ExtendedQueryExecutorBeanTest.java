@@ -2218,6 +2218,7 @@ public class ExtendedQueryExecutorBeanTest {
         LookupUUIDConfiguration tmpCfg = new LookupUUIDConfiguration();
         tmpCfg.setColumnVisibility("PUBLIC");
         expect(this.lookupUUIDConfiguration.optionalParamsToMap()).andDelegateTo(tmpCfg);
+        expect(this.lookupUUIDConfiguration.getContentLookupLogicName()).andReturn(null);
         
         // Run the test
         PowerMock.replayAll();
@@ -169,6 +169,8 @@ public class ExtendedRunningQueryTest {
         expect(this.query.getPagesize()).andReturn(pageSize).anyTimes();
         expect(this.queryLogic.getMaxPageSize()).andReturn(maxPageSize).anyTimes();
         expect(this.queryLogic.getPageByteTrigger()).andReturn(pageByteTrigger).anyTimes();
+        expect(this.queryLogic.getPageByteTarget()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getPageLatencyTarget()).andReturn(0L).anyTimes();
         expect(this.queryLogic.getMaxWork()).andReturn(maxWork).anyTimes();
         expect(this.queryLogic.getMaxResults()).andReturn(maxResults).anyTimes();
         expect(this.genericConfiguration.getQueryString()).andReturn(query).once();
@@ -254,6 +256,8 @@ public class ExtendedRunningQueryTest {
         expect(this.query.getPagesize()).andReturn(pageSize).anyTimes();
         expect(this.queryLogic.getMaxPageSize()).andReturn(maxPageSize).anyTimes();
         expect(this.queryLogic.getPageByteTrigger()).andReturn(pageByteTrigger).anyTimes();
+        expect(this.queryLogic.getPageByteTarget()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getPageLatencyTarget()).andReturn(0L).anyTimes();
         expect(this.queryLogic.getMaxWork()).andReturn(maxWork).anyTimes();
         expect(this.queryLogic.getMaxResults()).andReturn(maxResults).anyTimes();
         expect(this.genericConfiguration.getQueryString()).andReturn(query).once();
@@ -301,6 +305,9 @@ public class ExtendedRunningQueryTest {
         PowerMock.expectLastCall().times(3);
         expect(this.queryLogic.getTransformIterator(this.query)).andReturn(this.transformIterator);
         expect(this.transformIterator.hasNext()).andReturn(true);
+        expect(this.queryLogic.getPageByteTrigger()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getPageByteTarget()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getPageLatencyTarget()).andReturn(0L).anyTimes();
         expect(this.genericConfiguration.getQueryString()).andReturn("query").once();
         
         // Run the test